@@ -59,6 +59,7 @@ import com.helger.commons.string.ToStringGenerator;
 import eu.toop.edm.error.EDMExceptionPojo;
 import eu.toop.edm.jaxb.cv.agent.AgentType;
 import eu.toop.edm.model.AgentPojo;
+import eu.toop.edm.model.EDMInterner;
 import eu.toop.edm.slot.SlotErrorProvider;
 import eu.toop.edm.slot.SlotSpecificationIdentifier;
 import eu.toop.edm.xml.IJAXBVersatileReader;
@@ -447,7 +448,7 @@ public class EDMErrorResponse implements IEDMTopLevelObject
         if (aSlotValue instanceof AnyValueType)
         {
           final Node aAny = (Node) ((AnyValueType) aSlotValue).getAny ();
-          aBuilder.errorProvider (AgentPojo.builder (new AgentMarshaller ().read (aAny)));
+          aBuilder.errorProvider (EDMInterner.internAgent (AgentPojo.builder (new AgentMarshaller ().read (aAny)).build ()));
         }
         break;
       default:
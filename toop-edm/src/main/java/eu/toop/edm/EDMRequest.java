@@ -77,6 +77,7 @@ import eu.toop.edm.model.AgentPojo;
 import eu.toop.edm.model.BusinessPojo;
 import eu.toop.edm.model.ConceptPojo;
 import eu.toop.edm.model.DistributionPojo;
+import eu.toop.edm.model.EDMInterner;
 import eu.toop.edm.model.EToopLanguageCode;
 import eu.toop.edm.model.EToopQueryDefinitionType;
 import eu.toop.edm.model.EToopResponseOptionType;
@@ -925,6 +926,8 @@ public class EDMRequest implements IEDMTopLevelObject
   public static class BuilderConcept extends AbstractBuilder <BuilderConcept>
   {
     private final ICommonsList <ConceptPojo> m_aConcepts = new CommonsArrayList <> ();
+    // Concepts taken from an existing JAXB tree; only converted if needed
+    private final ICommonsList <CCCEVConceptType> m_aSourceConcepts = new CommonsArrayList <> ();
 
     protected BuilderConcept ()
     {
@@ -959,10 +962,33 @@ public class EDMRequest implements IEDMTopLevelObject
     public BuilderConcept addConcept (@Nullable final ConceptPojo a)
     {
       if (a != null)
+      {
+        _materializeSourceConcepts ();
         m_aConcepts.add (a);
+      }
       return this;
     }
 
+    private void _materializeSourceConcepts ()
+    {
+      if (m_aSourceConcepts.isNotEmpty ())
+      {
+        // Keep the order
+        final ICommonsList <ConceptPojo> aConcepts = m_aSourceConcepts.getAllMapped (x -> ConceptPojo.builder (x).build ());
+        aConcepts.addAll (m_aConcepts);
+        m_aConcepts.setAll (aConcepts);
+        m_aSourceConcepts.clear ();
+      }
+    }
+
+    private void _addSourceConcept (@Nonnull final CCCEVConceptType a)
+    {
+      if (m_aConcepts.isEmpty ())
+        m_aSourceConcepts.add (a);
+      else
+        m_aConcepts.add (ConceptPojo.builder (a).build ());
+    }
+
     @Nonnull
     public BuilderConcept concept (@Nullable final Consumer <? super ConceptPojo.Builder> a)
     {
@@ -990,6 +1016,7 @@ public class EDMRequest implements IEDMTopLevelObject
     @Nonnull
     public BuilderConcept concept (@Nullable final ConceptPojo a)
     {
+      m_aSourceConcepts.clear ();
       if (a != null)
         m_aConcepts.set (a);
       else
@@ -1000,6 +1027,7 @@ public class EDMRequest implements IEDMTopLevelObject
     @Nonnull
     public BuilderConcept concepts (@Nullable final ConceptPojo... a)
     {
+      m_aSourceConcepts.clear ();
       m_aConcepts.setAll (a);
       return this;
     }
@@ -1007,6 +1035,7 @@ public class EDMRequest implements IEDMTopLevelObject
     @Nonnull
     public BuilderConcept concepts (@Nullable final Iterable <? extends ConceptPojo> a)
     {
+      m_aSourceConcepts.clear ();
       m_aConcepts.setAll (a);
       return this;
     }
@@ -1014,6 +1043,7 @@ public class EDMRequest implements IEDMTopLevelObject
     @Nonnull
     public <T> BuilderConcept concepts (@Nullable final Iterable <? extends T> a, @Nonnull final Function <? super T, ConceptPojo> aMapper)
     {
+      m_aSourceConcepts.clear ();
       m_aConcepts.setAllMapped (a, aMapper);
       return thisAsT ();
     }
@@ -1023,7 +1053,7 @@ public class EDMRequest implements IEDMTopLevelObject
     {
       super.checkConsistency ();
 
-      if (m_aConcepts.isEmpty ())
+      if (m_aConcepts.isEmpty () && m_aSourceConcepts.isEmpty ())
         throw new IllegalStateException ("A Query Definition of type 'Concept' must contain a Concept");
     }
 
@@ -1046,7 +1076,8 @@ public class EDMRequest implements IEDMTopLevelObject
                              m_aDataSubjectLegalPerson,
                              m_aDataSubjectNaturalPerson,
                              m_aAuthorizedRepresentative,
-                             new EDMRequestPayloadConcepts (m_aConcepts));
+                             m_aSourceConcepts.isNotEmpty () ? EDMRequestPayloadConcepts.createView (m_aSourceConcepts)
+                                                             : new EDMRequestPayloadConcepts (m_aConcepts));
     }
   }
 
@@ -1296,7 +1327,7 @@ public class EDMRequest implements IEDMTopLevelObject
         if (aSlotValue instanceof AnyValueType)
         {
           final Node aAny = (Node) ((AnyValueType) aSlotValue).getAny ();
-          aBuilder.dataConsumer (AgentPojo.builder (new AgentMarshaller ().read (aAny)));
+          aBuilder.dataConsumer (EDMInterner.internAgent (AgentPojo.builder (new AgentMarshaller ().read (aAny)).build ()));
         }
         break;
       case SlotDataSubjectLegalPerson.NAME:
@@ -1331,7 +1362,11 @@ public class EDMRequest implements IEDMTopLevelObject
               {
                 final Object aElementValue = ((AnyValueType) aElement).getAny ();
                 if (aElementValue instanceof Node)
-                  ((EDMRequest.BuilderConcept) aBuilder).addConcept (new ConceptMarshaller ().read ((Node) aElementValue));
+                {
+                  final CCCEVConceptType aConcept = new ConceptMarshaller ().read ((Node) aElementValue);
+                  if (aConcept != null)
+                    ((EDMRequest.BuilderConcept) aBuilder)._addSourceConcept (aConcept);
+                }
               }
           }
         }
@@ -66,7 +66,9 @@ import com.helger.commons.traits.IGenericImplTrait;
 import eu.toop.edm.jaxb.cccev.CCCEVConceptType;
 import eu.toop.edm.jaxb.cv.agent.AgentType;
 import eu.toop.edm.model.AgentPojo;
+import eu.toop.edm.model.ConceptPath;
 import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.EDMInterner;
 import eu.toop.edm.model.EToopResponseOptionType;
 import eu.toop.edm.response.EDMResponsePayloadConcepts;
 import eu.toop.edm.response.IEDMResponsePayloadProvider;
@@ -83,6 +85,7 @@ import eu.toop.edm.xml.JAXBVersatileWriter;
 import eu.toop.edm.xml.cagv.AgentMarshaller;
 import eu.toop.edm.xml.cccev.CCCEV;
 import eu.toop.edm.xml.cccev.ConceptMarshaller;
+import eu.toop.edm.xml.cccev.ConceptProjectionFilter;
 import eu.toop.regrep.ERegRepResponseStatus;
 import eu.toop.regrep.RegRep4Reader;
 import eu.toop.regrep.RegRep4Writer;
@@ -301,6 +304,80 @@ public class EDMResponse implements IEDMTopLevelObject
     return new JAXBVersatileReader <> (RegRep4Reader.queryResponse (CCCEV.XSDS), EDMResponse::create);
   }
 
+  /**
+   * Create a reader that only reads the concepts with the provided paths,
+   * including all their descendant concepts, and the concepts on the way to
+   * them. All other <code>cccev:concept</code> elements are skipped while
+   * parsing, so no JAXB objects are created for them. If no concept matches, a
+   * concept response cannot be created and <code>null</code> is read.
+   *
+   * @param aPaths
+   *        The paths of the concepts to read. May neither be <code>null</code>
+   *        nor empty.
+   * @return The reader and never <code>null</code>.
+   * @see ConceptProjectionFilter
+   * @since 2.1.2
+   */
+  @Nonnull
+  public static IJAXBVersatileReader <EDMResponse> readerWithProjection (@Nonnull @Nonempty final ConceptPath... aPaths)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aPaths, "Paths");
+    return readerWithProjection (new CommonsArrayList <> (aPaths));
+  }
+
+  /**
+   * Create a reader that only reads the concepts with the provided paths,
+   * including all their descendant concepts, and the concepts on the way to
+   * them. All other <code>cccev:concept</code> elements are skipped while
+   * parsing, so no JAXB objects are created for them. If no concept matches, a
+   * concept response cannot be created and <code>null</code> is read.
+   *
+   * @param aPaths
+   *        The paths of the concepts to read. May neither be <code>null</code>
+   *        nor empty.
+   * @return The reader and never <code>null</code>.
+   * @see ConceptProjectionFilter
+   * @since 2.1.2
+   */
+  @Nonnull
+  public static IJAXBVersatileReader <EDMResponse> readerWithProjection (@Nonnull @Nonempty final Iterable <ConceptPath> aPaths)
+  {
+    final ICommonsList <ConceptPath> aPathList = new CommonsArrayList <> (aPaths);
+    ValueEnforcer.notEmptyNoNullValue (aPathList, "Paths");
+    return new JAXBVersatileReader <> (RegRep4Reader.queryResponse (CCCEV.XSDS),
+                                       EDMResponse::create,
+                                       x -> new ConceptProjectionFilter (x, aPathList));
+  }
+
+  /**
+   * Create a copy of this response that answers another request with the same
+   * content, e.g. when serving a cached response. Concept payloads are copied
+   * (see {@link EDMResponsePayloadConcepts#getClone()}), so modifying the
+   * concept list of the copy does not change this object. The immutable
+   * document payloads and the data provider are shared with this object.
+   *
+   * @param sRequestID
+   *        The ID of the request to respond to. May neither be
+   *        <code>null</code> nor empty.
+   * @param aIssueDateTime
+   *        The issue date time of the new response. May not be
+   *        <code>null</code>.
+   * @return A new response and never <code>null</code>.
+   * @since 2.1.2
+   */
+  @Nonnull
+  public EDMResponse getCloneForRequest (@Nonnull @Nonempty final String sRequestID, @Nonnull final LocalDateTime aIssueDateTime)
+  {
+    return new EDMResponse (m_eResponseOption,
+                            m_eResponseStatus,
+                            sRequestID,
+                            m_sSpecificationIdentifier,
+                            aIssueDateTime.truncatedTo (ChronoUnit.MILLIS),
+                            m_aDataProvider,
+                            m_aPayloadProviders.getAllMapped (x -> x instanceof EDMResponsePayloadConcepts ? ((EDMResponsePayloadConcepts) x).getClone ()
+                                                                                                          : x));
+  }
+
   @Override
   public boolean equals (final Object o)
   {
@@ -489,6 +566,8 @@ public class EDMResponse implements IEDMTopLevelObject
   {
     private String m_sRegistryObjectID;
     private final ICommonsList <ConceptPojo> m_aConcepts = new CommonsArrayList <> ();
+    // Concepts taken from an existing JAXB tree; only converted if needed
+    private final ICommonsList <CCCEVConceptType> m_aSourceConcepts = new CommonsArrayList <> ();
 
     protected BuilderConcept ()
     {
@@ -537,10 +616,33 @@ public class EDMResponse implements IEDMTopLevelObject
     public BuilderConcept addConcept (@Nullable final ConceptPojo a)
     {
       if (a != null)
+      {
+        _materializeSourceConcepts ();
         m_aConcepts.add (a);
+      }
       return this;
     }
 
+    private void _materializeSourceConcepts ()
+    {
+      if (m_aSourceConcepts.isNotEmpty ())
+      {
+        // Keep the order
+        final ICommonsList <ConceptPojo> aConcepts = m_aSourceConcepts.getAllMapped (x -> ConceptPojo.builder (x).build ());
+        aConcepts.addAll (m_aConcepts);
+        m_aConcepts.setAll (aConcepts);
+        m_aSourceConcepts.clear ();
+      }
+    }
+
+    private void _addSourceConcept (@Nonnull final CCCEVConceptType a)
+    {
+      if (m_aConcepts.isEmpty ())
+        m_aSourceConcepts.add (a);
+      else
+        m_aConcepts.add (ConceptPojo.builder (a).build ());
+    }
+
     @Nonnull
     public BuilderConcept concept (@Nullable final Consumer <? super ConceptPojo.Builder> a)
     {
@@ -568,6 +670,7 @@ public class EDMResponse implements IEDMTopLevelObject
     @Nonnull
     public BuilderConcept concept (@Nullable final ConceptPojo a)
     {
+      m_aSourceConcepts.clear ();
       if (a != null)
         m_aConcepts.set (a);
       else
@@ -578,6 +681,7 @@ public class EDMResponse implements IEDMTopLevelObject
     @Nonnull
     public BuilderConcept concepts (@Nullable final ConceptPojo... a)
     {
+      m_aSourceConcepts.clear ();
       m_aConcepts.setAll (a);
       return this;
     }
@@ -585,6 +689,7 @@ public class EDMResponse implements IEDMTopLevelObject
     @Nonnull
     public BuilderConcept concepts (@Nullable final Iterable <? extends ConceptPojo> a)
     {
+      m_aSourceConcepts.clear ();
       m_aConcepts.setAll (a);
       return this;
     }
@@ -592,6 +697,7 @@ public class EDMResponse implements IEDMTopLevelObject
     @Nonnull
     public <T> BuilderConcept concepts (@Nullable final Iterable <? extends T> a, @Nonnull final Function <? super T, ConceptPojo> aMapper)
     {
+      m_aSourceConcepts.clear ();
       m_aConcepts.setAllMapped (a, aMapper);
       return thisAsT ();
     }
@@ -603,7 +709,7 @@ public class EDMResponse implements IEDMTopLevelObject
 
       if (StringHelper.hasNoText (m_sRegistryObjectID))
         throw new IllegalStateException ("RegistryObjectID MUST be present");
-      if (m_aConcepts.isEmpty ())
+      if (m_aConcepts.isEmpty () && m_aSourceConcepts.isEmpty ())
         throw new IllegalStateException ("At least one Concept MUST be contained");
     }
 
@@ -615,7 +721,9 @@ public class EDMResponse implements IEDMTopLevelObject
 
       // Build the ResponseObjectPojo
       final ICommonsList <IEDMResponsePayloadProvider> aResponseObjects = new CommonsArrayList <> ();
-      aResponseObjects.add (new EDMResponsePayloadConcepts (m_sRegistryObjectID, m_aConcepts));
+      aResponseObjects.add (m_aSourceConcepts.isNotEmpty () ? EDMResponsePayloadConcepts.createView (m_sRegistryObjectID,
+                                                                                                      m_aSourceConcepts)
+                                                            : new EDMResponsePayloadConcepts (m_sRegistryObjectID, m_aConcepts));
 
       return new EDMResponse (m_eResponseOption,
                               m_eResponseStatus,
@@ -905,7 +1013,7 @@ public class EDMResponse implements IEDMTopLevelObject
         if (aSlotValue instanceof AnyValueType)
         {
           final Node aAny = (Node) ((AnyValueType) aSlotValue).getAny ();
-          aBuilder.dataProvider (AgentPojo.builder (new AgentMarshaller ().read (aAny)));
+          aBuilder.dataProvider (EDMInterner.internAgent (AgentPojo.builder (new AgentMarshaller ().read (aAny)).build ()));
         }
         break;
       default:
@@ -928,7 +1036,11 @@ public class EDMResponse implements IEDMTopLevelObject
             {
               final Object aElementValue = ((AnyValueType) aElement).getAny ();
               if (aElementValue instanceof Node)
-                aBuilder.addConcept (new ConceptMarshaller ().read ((Node) aElementValue));
+              {
+                final CCCEVConceptType aConcept = new ConceptMarshaller ().read ((Node) aElementValue);
+                if (aConcept != null)
+                  aBuilder._addSourceConcept (aConcept);
+              }
             }
         }
         break;
@@ -0,0 +1,531 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.fingerprint.EDMFingerprint;
+import eu.toop.edm.fingerprint.EDMFingerprinter;
+
+/**
+ * A cache for data providers that maps the query of an {@link EDMRequest} to
+ * the response created for it. The cached values may be built
+ * {@link EDMResponse} objects, their serialized bytes or anything else.<br>
+ * The cache key is the query fingerprint of the request (see
+ * {@link EDMFingerprinter#getQueryFingerprint(EDMRequest)}), so requests that
+ * only differ in request ID, issue date time, data consumer or concept IDs
+ * share the same entry. Entries expire after a configurable time to live and
+ * the least recently used entries are evicted if the maximum size is
+ * exceeded.<br>
+ * Concurrent calls of {@link #getOrLoad(EDMRequest, Function)} for the same
+ * query are coalesced: only the first caller invokes the backend, all others
+ * wait for its result. If the backend fails, the exception is propagated to
+ * all waiting callers and nothing is cached.<br>
+ * A cached value was created for the request that caused it to be loaded. To
+ * adapt it to another request (e.g. to set the request ID), a rebinder can be
+ * provided. {@link #REBIND_RESPONSE} does this for {@link EDMResponse}
+ * values. The rebinder is also used to store a copy of a newly loaded value,
+ * so that neither the caller that loaded it nor the callers served from the
+ * cache share a modifiable object with the cache.
+ *
+ * @author Philip Helger
+ * @param <V>
+ *        The type of the cached values.
+ * @since 2.1.2
+ */
+@ThreadSafe
+public class EDMResponseCache <V>
+{
+  /** The default time to live of entries */
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes (5);
+  /** The default maximum number of entries */
+  public static final int DEFAULT_MAX_SIZE = 1_000;
+
+  /**
+   * Rebinder for {@link EDMResponse} values, that sets the ID of the current
+   * request and the current date time as the issue date time.
+   */
+  public static final BiFunction <EDMResponse, EDMRequest, EDMResponse> REBIND_RESPONSE = EDMResponseCache::_rebindResponse;
+
+  private static final class Entry <V>
+  {
+    private final V m_aValue;
+    private final long m_nExpirationNanos;
+
+    Entry (@Nonnull final V aValue, final long nExpirationNanos)
+    {
+      m_aValue = aValue;
+      m_nExpirationNanos = nExpirationNanos;
+    }
+  }
+
+  @Nonnull
+  private static EDMResponse _rebindResponse (@Nonnull final EDMResponse aResponse, @Nonnull final EDMRequest aRequest)
+  {
+    return aResponse.getCloneForRequest (aRequest.getRequestID (), PDTFactory.getCurrentLocalDateTime ());
+  }
+
+  private final String m_sName;
+  private final long m_nTTLNanos;
+  private final int m_nMaxSize;
+  private final EDMFingerprinter m_aFingerprinter;
+  private final BiFunction <? super V, ? super EDMRequest, ? extends V> m_aRebinder;
+  private final LongSupplier m_aTicker;
+
+  private final SimpleLock m_aLock = new SimpleLock ();
+  // Access order for LRU eviction - guarded by m_aLock
+  private final LinkedHashMap <EDMFingerprint, Entry <V>> m_aMap = new LinkedHashMap <> (16, 0.75f, true);
+  private final ConcurrentHashMap <EDMFingerprint, CompletableFuture <V>> m_aInFlight = new ConcurrentHashMap <> ();
+
+  private final LongAdder m_aHits = new LongAdder ();
+  private final LongAdder m_aMisses = new LongAdder ();
+  private final LongAdder m_aCoalesced = new LongAdder ();
+  private final LongAdder m_aEvictions = new LongAdder ();
+
+  protected EDMResponseCache (@Nonnull @Nonempty final String sName,
+                              @Nonnull final Duration aTTL,
+                              @Nonnegative final int nMaxSize,
+                              @Nonnull final EDMFingerprinter aFingerprinter,
+                              @Nullable final BiFunction <? super V, ? super EDMRequest, ? extends V> aRebinder,
+                              @Nonnull final LongSupplier aTicker)
+  {
+    ValueEnforcer.notEmpty (sName, "Name");
+    ValueEnforcer.notNull (aTTL, "TTL");
+    ValueEnforcer.isFalse (aTTL.isNegative () || aTTL.isZero (), "TTL must be positive");
+    ValueEnforcer.isGT0 (nMaxSize, "MaxSize");
+    ValueEnforcer.notNull (aFingerprinter, "Fingerprinter");
+    ValueEnforcer.notNull (aTicker, "Ticker");
+    m_sName = sName;
+    m_nTTLNanos = aTTL.toNanos ();
+    m_nMaxSize = nMaxSize;
+    m_aFingerprinter = aFingerprinter;
+    m_aRebinder = aRebinder;
+    m_aTicker = aTicker;
+  }
+
+  /**
+   * @return The name of the cache as provided in the builder. Neither
+   *         <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public final String getName ()
+  {
+    return m_sName;
+  }
+
+  /**
+   * @return The time to live of the entries. Never <code>null</code>.
+   */
+  @Nonnull
+  public final Duration getTTL ()
+  {
+    return Duration.ofNanos (m_nTTLNanos);
+  }
+
+  /**
+   * @return The maximum number of entries. Always &gt; 0.
+   */
+  @Nonnegative
+  public final int getMaxSize ()
+  {
+    return m_nMaxSize;
+  }
+
+  @Nullable
+  private V _getCached (@Nonnull final EDMFingerprint aKey)
+  {
+    return m_aLock.lockedGet ( () -> {
+      final Entry <V> aEntry = m_aMap.get (aKey);
+      if (aEntry == null)
+        return null;
+      if (m_aTicker.getAsLong () - aEntry.m_nExpirationNanos >= 0)
+      {
+        m_aMap.remove (aKey);
+        m_aEvictions.increment ();
+        return null;
+      }
+      return aEntry.m_aValue;
+    });
+  }
+
+  private void _put (@Nonnull final EDMFingerprint aKey, @Nonnull final V aValue)
+  {
+    final long nNow = m_aTicker.getAsLong ();
+    m_aLock.locked ( () -> {
+      m_aMap.put (aKey, new Entry <> (aValue, nNow + m_nTTLNanos));
+
+      final Iterator <Map.Entry <EDMFingerprint, Entry <V>>> it = m_aMap.entrySet ().iterator ();
+      while (m_aMap.size () > m_nMaxSize && it.hasNext ())
+      {
+        // Least recently used first
+        it.next ();
+        it.remove ();
+        m_aEvictions.increment ();
+      }
+    });
+  }
+
+  @Nullable
+  private V _rebind (@Nullable final V aValue, @Nonnull final EDMRequest aRequest)
+  {
+    return aValue == null || m_aRebinder == null ? aValue : m_aRebinder.apply (aValue, aRequest);
+  }
+
+  @Nullable
+  private static <V> V _join (@Nonnull final CompletableFuture <V> aFuture)
+  {
+    try
+    {
+      return aFuture.join ();
+    }
+    catch (final CompletionException ex)
+    {
+      // The loader cannot throw checked exceptions
+      final Throwable aCause = ex.getCause ();
+      if (aCause instanceof RuntimeException)
+        throw (RuntimeException) aCause;
+      if (aCause instanceof Error)
+        throw (Error) aCause;
+      throw ex;
+    }
+  }
+
+  /**
+   * Get the cached value for the query of the provided request or load it via
+   * the provided backend.
+   *
+   * @param aRequest
+   *        The request to get the value for. May not be <code>null</code>.
+   * @param aLoader
+   *        The backend that creates the value, if it is not cached and no
+   *        identical query is in flight. It may return <code>null</code> to
+   *        indicate that the value should not be cached. May not be
+   *        <code>null</code>.
+   * @return The (rebound) cached value or the value returned by the loader.
+   *         May be <code>null</code> if the loader returned <code>null</code>.
+   */
+  @Nullable
+  public V getOrLoad (@Nonnull final EDMRequest aRequest, @Nonnull final Function <? super EDMRequest, ? extends V> aLoader)
+  {
+    ValueEnforcer.notNull (aRequest, "Request");
+    ValueEnforcer.notNull (aLoader, "Loader");
+
+    final EDMFingerprint aKey = m_aFingerprinter.getQueryFingerprint (aRequest);
+    V aValue = _getCached (aKey);
+    if (aValue != null)
+    {
+      m_aHits.increment ();
+      return _rebind (aValue, aRequest);
+    }
+
+    final CompletableFuture <V> aOwnFuture = new CompletableFuture <> ();
+    final CompletableFuture <V> aInFlight = m_aInFlight.putIfAbsent (aKey, aOwnFuture);
+    if (aInFlight != null)
+    {
+      // Somebody else is already loading it
+      m_aCoalesced.increment ();
+      return _rebind (_join (aInFlight), aRequest);
+    }
+
+    try
+    {
+      // Check again, in case the value was stored since the first check
+      aValue = _getCached (aKey);
+      if (aValue != null)
+      {
+        m_aHits.increment ();
+        aOwnFuture.complete (aValue);
+        return _rebind (aValue, aRequest);
+      }
+
+      m_aMisses.increment ();
+      aValue = aLoader.apply (aRequest);
+      // Cache a rebound copy, so that the caller may modify the returned value
+      final V aCachedValue = _rebind (aValue, aRequest);
+      if (aCachedValue != null)
+        _put (aKey, aCachedValue);
+      aOwnFuture.complete (aCachedValue);
+      return aValue;
+    }
+    catch (final RuntimeException | Error ex)
+    {
+      aOwnFuture.completeExceptionally (ex);
+      throw ex;
+    }
+    finally
+    {
+      m_aInFlight.remove (aKey, aOwnFuture);
+    }
+  }
+
+  /**
+   * Remove the cached value for the query of the provided request.
+   *
+   * @param aRequest
+   *        The request to invalidate. May not be <code>null</code>.
+   * @return <code>true</code> if an entry was removed.
+   */
+  public boolean invalidate (@Nonnull final EDMRequest aRequest)
+  {
+    ValueEnforcer.notNull (aRequest, "Request");
+
+    final EDMFingerprint aKey = m_aFingerprinter.getQueryFingerprint (aRequest);
+    return m_aLock.lockedBoolean ( () -> m_aMap.remove (aKey) != null);
+  }
+
+  /**
+   * @return The number of currently cached entries, including expired entries
+   *         that were not yet removed. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getSize ()
+  {
+    return m_aLock.lockedInt (m_aMap::size);
+  }
+
+  /**
+   * @return The number of calls that were served from the cache.
+   */
+  @Nonnegative
+  public long getHits ()
+  {
+    return m_aHits.sum ();
+  }
+
+  /**
+   * @return The number of calls that invoked the loader.
+   */
+  @Nonnegative
+  public long getMisses ()
+  {
+    return m_aMisses.sum ();
+  }
+
+  /**
+   * @return The number of calls that waited for the result of an identical
+   *         query in flight instead of invoking the loader.
+   */
+  @Nonnegative
+  public long getCoalesced ()
+  {
+    return m_aCoalesced.sum ();
+  }
+
+  /**
+   * @return The number of entries removed because they expired or because the
+   *         maximum size was exceeded.
+   */
+  @Nonnegative
+  public long getEvictions ()
+  {
+    return m_aEvictions.sum ();
+  }
+
+  /**
+   * @return The ratio of calls that did not invoke the loader (hits and
+   *         coalesced calls) between 0 and 1. If nothing was requested so far,
+   *         0 is returned.
+   */
+  public double getHitRate ()
+  {
+    final long nServed = getHits () + getCoalesced ();
+    final long nTotal = nServed + getMisses ();
+    return nTotal == 0 ? 0 : (double) nServed / nTotal;
+  }
+
+  /**
+   * Remove all cached entries and reset the statistics. Loads in flight are
+   * not affected.
+   */
+  public void clear ()
+  {
+    m_aLock.locked (m_aMap::clear);
+    m_aHits.reset ();
+    m_aMisses.reset ();
+    m_aCoalesced.reset ();
+    m_aEvictions.reset ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Name", m_sName)
+                                       .append ("TTL", getTTL ())
+                                       .append ("MaxSize", m_nMaxSize)
+                                       .append ("Size", getSize ())
+                                       .append ("Hits", getHits ())
+                                       .append ("Misses", getMisses ())
+                                       .append ("Coalesced", getCoalesced ())
+                                       .append ("Evictions", getEvictions ())
+                                       .getToString ();
+  }
+
+  /**
+   * @return A new builder for a cache of built {@link EDMResponse} objects
+   *         that uses {@link #REBIND_RESPONSE}. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Builder <EDMResponse> builderForResponses ()
+  {
+    return new Builder <EDMResponse> ().rebinder (REBIND_RESPONSE);
+  }
+
+  /**
+   * @return A new builder for a cache of serialized responses. As the bytes
+   *         cannot be rebound, the caller is responsible for handling the
+   *         request ID. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Builder <byte []> builderForBytes ()
+  {
+    return new Builder <> ();
+  }
+
+  /**
+   * A builder for {@link EDMResponseCache} objects.
+   *
+   * @author Philip Helger
+   * @param <V>
+   *        The type of the cached values.
+   */
+  @NotThreadSafe
+  public static class Builder <V>
+  {
+    private String m_sName = "EDMResponseCache";
+    private Duration m_aTTL = DEFAULT_TTL;
+    private int m_nMaxSize = DEFAULT_MAX_SIZE;
+    private EDMFingerprinter m_aFingerprinter = EDMFingerprinter.DEFAULT;
+    private BiFunction <? super V, ? super EDMRequest, ? extends V> m_aRebinder;
+    private LongSupplier m_aTicker = System::nanoTime;
+
+    public Builder ()
+    {}
+
+    @Nonnull
+    public Builder <V> name (@Nullable final String s)
+    {
+      m_sName = s;
+      return this;
+    }
+
+    @Nonnull
+    public Builder <V> ttl (@Nullable final Duration a)
+    {
+      m_aTTL = a;
+      return this;
+    }
+
+    @Nonnull
+    public Builder <V> maxSize (final int n)
+    {
+      m_nMaxSize = n;
+      return this;
+    }
+
+    @Nonnull
+    public Builder <V> fingerprinter (@Nullable final EDMFingerprinter a)
+    {
+      m_aFingerprinter = a;
+      return this;
+    }
+
+    @Nonnull
+    public Builder <V> rebinder (@Nullable final BiFunction <? super V, ? super EDMRequest, ? extends V> a)
+    {
+      m_aRebinder = a;
+      return this;
+    }
+
+    /**
+     * Set the nano second time source. This is mainly meant for testing.
+     *
+     * @param a
+     *        The time source. May be <code>null</code>.
+     * @return this for chaining
+     */
+    @Nonnull
+    public Builder <V> ticker (@Nullable final LongSupplier a)
+    {
+      m_aTicker = a;
+      return this;
+    }
+
+    public void checkConsistency ()
+    {
+      if (StringHelper.hasNoText (m_sName))
+        throw new IllegalStateException ("Name must be present");
+      if (m_aTTL == null || m_aTTL.isNegative () || m_aTTL.isZero ())
+        throw new IllegalStateException ("TTL must be positive");
+      if (m_nMaxSize <= 0)
+        throw new IllegalStateException ("MaxSize must be positive");
+      if (m_aFingerprinter == null)
+        throw new IllegalStateException ("Fingerprinter must be present");
+      if (m_aTicker == null)
+        throw new IllegalStateException ("Ticker must be present");
+    }
+
+    @Nonnull
+    public EDMResponseCache <V> build ()
+    {
+      checkConsistency ();
+      return new EDMResponseCache <> (m_sName, m_aTTL, m_nMaxSize, m_aFingerprinter, m_aRebinder, m_aTicker);
+    }
+  }
+}
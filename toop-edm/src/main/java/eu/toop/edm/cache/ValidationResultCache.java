@@ -0,0 +1,615 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.validation.Schema;
+
+import org.w3c.dom.Document;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.error.list.ErrorList;
+import com.helger.commons.error.list.IErrorList;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.xml.schema.XMLSchemaCache;
+import com.helger.xml.schema.XMLSchemaValidationHelper;
+import com.helger.xml.serialize.read.DOMReader;
+import com.helger.xml.serialize.write.EXMLSerializeIndent;
+import com.helger.xml.serialize.write.XMLWriter;
+import com.helger.xml.serialize.write.XMLWriterSettings;
+import com.helger.xml.transform.TransformSourceFactory;
+
+import eu.toop.edm.schematron.AbstractSchematronValidator;
+
+/**
+ * A cache for the results of Schematron and XSD validations. Retries,
+ * duplicate submissions and replays lead to the validation of identical
+ * payloads, for which the stored results are returned without applying the
+ * XSLT or the XSD again.<br>
+ * The cache key is a SHA-256 digest of the rule set and the input bytes. The
+ * rule set is identified by the resource IDs of the Schematron XSLT or of the
+ * XSDs. Validators compile each rule resource only once per JVM (see
+ * {@link eu.toop.edm.schematron.SchematronPrecompiler} and
+ * {@link XMLSchemaCache}), so changed rule files are not considered by the
+ * validators either and must be deployed with a restart.<br>
+ * Bytes and resources are hashed as provided. DOM documents are serialized
+ * without indentation first. The bytes are not canonicalized, so the same
+ * document provided as bytes and as DOM, or as bytes with different
+ * formatting, encoding or attribute order, has different keys and is
+ * validated once per variant. Only the results are identical.<br>
+ * Entries expire after a configurable time to live and the least recently
+ * used entries are evicted if the maximum size is exceeded. Failed
+ * validations are not cached.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@ThreadSafe
+public class ValidationResultCache
+{
+  /** The default time to live of entries */
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes (10);
+  /** The default maximum number of entries */
+  public static final int DEFAULT_MAX_SIZE = 10_000;
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final XMLWriterSettings CANONICAL_XWS = new XMLWriterSettings ().setIndent (EXMLSerializeIndent.NONE);
+
+  /**
+   * The content address of a validation result.
+   */
+  @Immutable
+  private static final class Key
+  {
+    private final byte [] m_aDigest;
+    private final int m_nHashCode;
+
+    Key (@Nonnull final byte [] aDigest)
+    {
+      m_aDigest = aDigest;
+      m_nHashCode = Arrays.hashCode (aDigest);
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      if (o == this)
+        return true;
+      if (o == null || !getClass ().equals (o.getClass ()))
+        return false;
+      final Key rhs = (Key) o;
+      return Arrays.equals (m_aDigest, rhs.m_aDigest);
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      return m_nHashCode;
+    }
+  }
+
+  private static final class Entry
+  {
+    private final Object m_aValue;
+    private final long m_nExpirationNanos;
+
+    Entry (@Nonnull final Object aValue, final long nExpirationNanos)
+    {
+      m_aValue = aValue;
+      m_nExpirationNanos = nExpirationNanos;
+    }
+  }
+
+  private final String m_sName;
+  private final long m_nTTLNanos;
+  private final int m_nMaxSize;
+  private final LongSupplier m_aTicker;
+
+  private final SimpleLock m_aLock = new SimpleLock ();
+  // Access order for LRU eviction - guarded by m_aLock
+  private final LinkedHashMap <Key, Entry> m_aMap = new LinkedHashMap <> (16, 0.75f, true);
+
+  private final LongAdder m_aHits = new LongAdder ();
+  private final LongAdder m_aMisses = new LongAdder ();
+  private final LongAdder m_aEvictions = new LongAdder ();
+
+  protected ValidationResultCache (@Nonnull @Nonempty final String sName,
+                                   @Nonnull final Duration aTTL,
+                                   @Nonnegative final int nMaxSize,
+                                   @Nonnull final LongSupplier aTicker)
+  {
+    ValueEnforcer.notEmpty (sName, "Name");
+    ValueEnforcer.notNull (aTTL, "TTL");
+    ValueEnforcer.isFalse (aTTL.isNegative () || aTTL.isZero (), "TTL must be positive");
+    ValueEnforcer.isGT0 (nMaxSize, "MaxSize");
+    ValueEnforcer.notNull (aTicker, "Ticker");
+    m_sName = sName;
+    m_nTTLNanos = aTTL.toNanos ();
+    m_nMaxSize = nMaxSize;
+    m_aTicker = aTicker;
+  }
+
+  /**
+   * @return The name of the cache as provided in the builder. Neither
+   *         <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public final String getName ()
+  {
+    return m_sName;
+  }
+
+  /**
+   * @return The time to live of the entries. Never <code>null</code>.
+   */
+  @Nonnull
+  public final Duration getTTL ()
+  {
+    return Duration.ofNanos (m_nTTLNanos);
+  }
+
+  /**
+   * @return The maximum number of entries. Always &gt; 0.
+   */
+  @Nonnegative
+  public final int getMaxSize ()
+  {
+    return m_nMaxSize;
+  }
+
+  @Nonnull
+  private static MessageDigest _createDigest ()
+  {
+    try
+    {
+      return MessageDigest.getInstance (DIGEST_ALGORITHM);
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      throw new IllegalStateException ("Message digest algorithm '" + DIGEST_ALGORITHM + "' is not supported", ex);
+    }
+  }
+
+  private static void _updateString (@Nonnull final MessageDigest aMD, @Nonnull final String s)
+  {
+    // Length prefixed, so that no two different inputs have the same bytes
+    final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+    aMD.update ((byte) (aBytes.length >>> 24));
+    aMD.update ((byte) (aBytes.length >>> 16));
+    aMD.update ((byte) (aBytes.length >>> 8));
+    aMD.update ((byte) aBytes.length);
+    aMD.update (aBytes);
+  }
+
+  @Nonnull
+  private static byte [] _readAll (@Nonnull final IReadableResource aRes)
+  {
+    final byte [] ret = StreamHelper.getAllBytes (aRes);
+    if (ret == null)
+      throw new IllegalStateException ("Failed to read " + aRes.getPath ());
+    return ret;
+  }
+
+  @Nonnull
+  private static Key _createKey (@Nonnull final String sKind,
+                                 @Nonnull final List <? extends IReadableResource> aRuleResources,
+                                 @Nonnull final byte [] aXML)
+  {
+    final MessageDigest aMD = _createDigest ();
+    _updateString (aMD, sKind);
+    for (final IReadableResource aRes : aRuleResources)
+      _updateString (aMD, aRes.getResourceID ());
+    aMD.update (aXML);
+    return new Key (aMD.digest ());
+  }
+
+  @Nonnull
+  private static byte [] _getCanonicalBytes (@Nonnull final Document aXMLDoc)
+  {
+    final String sXML = XMLWriter.getNodeAsString (aXMLDoc, CANONICAL_XWS);
+    if (sXML == null)
+      throw new IllegalStateException ("Failed to serialize the provided XML");
+    return sXML.getBytes (StandardCharsets.UTF_8);
+  }
+
+  @Nullable
+  private Object _getCached (@Nonnull final Key aKey)
+  {
+    return m_aLock.lockedGet ( () -> {
+      final Entry aEntry = m_aMap.get (aKey);
+      if (aEntry == null)
+        return null;
+      if (m_aTicker.getAsLong () - aEntry.m_nExpirationNanos >= 0)
+      {
+        m_aMap.remove (aKey);
+        m_aEvictions.increment ();
+        return null;
+      }
+      return aEntry.m_aValue;
+    });
+  }
+
+  private void _put (@Nonnull final Key aKey, @Nonnull final Object aValue)
+  {
+    final long nNow = m_aTicker.getAsLong ();
+    m_aLock.locked ( () -> {
+      m_aMap.put (aKey, new Entry (aValue, nNow + m_nTTLNanos));
+
+      final Iterator <Map.Entry <Key, Entry>> it = m_aMap.entrySet ().iterator ();
+      while (m_aMap.size () > m_nMaxSize && it.hasNext ())
+      {
+        // Least recently used first
+        it.next ();
+        it.remove ();
+        m_aEvictions.increment ();
+      }
+    });
+  }
+
+  @Nonnull
+  @SuppressWarnings ("unchecked")
+  private <T> T _getOrValidate (@Nonnull final Key aKey, @Nonnull final Supplier <T> aValidation)
+  {
+    final Object aCached = _getCached (aKey);
+    if (aCached != null)
+    {
+      m_aHits.increment ();
+      return (T) aCached;
+    }
+
+    // Identical payloads validated at the same time are validated twice
+    m_aMisses.increment ();
+    final T ret = aValidation.get ();
+    _put (aKey, ret);
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  private ICommonsList <AbstractSVRLMessage> _validateSchematron (@Nonnull final AbstractSchematronValidator aValidator,
+                                                                  @Nonnull final byte [] aXML,
+                                                                  @Nullable final Document aXMLDoc)
+  {
+    // Does not compile the rules on a cache hit
+    final Key aKey = _createKey ("sch", new CommonsArrayList <> (aValidator.getRuleResource ()), aXML);
+    final ICommonsList <AbstractSVRLMessage> ret = _getOrValidate (aKey, () -> {
+      Document aDoc = aXMLDoc;
+      if (aDoc == null)
+      {
+        aDoc = DOMReader.readXMLDOM (aXML);
+        if (aDoc == null)
+          throw new IllegalStateException ("Failed to read the provided XML");
+      }
+      // Only copies of the cached list are handed out
+      return aValidator.validateDocument (aDoc);
+    });
+    return new CommonsArrayList <> (ret);
+  }
+
+  /**
+   * Validate the provided XML bytes with the provided Schematron validator or
+   * return the cached result.
+   *
+   * @param aValidator
+   *        The validator to use. May not be <code>null</code>.
+   * @param aXML
+   *        The XML bytes to be validated. May not be <code>null</code>.
+   * @return The list of all failed asserts/successful reports. Never
+   *         <code>null</code>.
+   * @see AbstractSchematronValidator#validateDocument(Document)
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <AbstractSVRLMessage> validateSchematron (@Nonnull final AbstractSchematronValidator aValidator,
+                                                                @Nonnull final byte [] aXML)
+  {
+    ValueEnforcer.notNull (aValidator, "Validator");
+    ValueEnforcer.notNull (aXML, "XML");
+    return _validateSchematron (aValidator, aXML, null);
+  }
+
+  /**
+   * Validate the provided XML resource with the provided Schematron validator
+   * or return the cached result.
+   *
+   * @param aValidator
+   *        The validator to use. May not be <code>null</code>.
+   * @param aXML
+   *        The XML resource to be validated. May not be <code>null</code>.
+   * @return The list of all failed asserts/successful reports. Never
+   *         <code>null</code>.
+   * @see AbstractSchematronValidator#validateResource(IReadableResource)
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <AbstractSVRLMessage> validateSchematron (@Nonnull final AbstractSchematronValidator aValidator,
+                                                                @Nonnull final IReadableResource aXML)
+  {
+    ValueEnforcer.notNull (aValidator, "Validator");
+    ValueEnforcer.notNull (aXML, "XML");
+    return _validateSchematron (aValidator, _readAll (aXML), null);
+  }
+
+  /**
+   * Validate the provided DOM document with the provided Schematron validator
+   * or return the cached result. The document is serialized to determine the
+   * cache key.
+   *
+   * @param aValidator
+   *        The validator to use. May not be <code>null</code>.
+   * @param aXMLDoc
+   *        The XML DOM node to be validated. May not be <code>null</code>.
+   * @return The list of all failed asserts/successful reports. Never
+   *         <code>null</code>.
+   * @see AbstractSchematronValidator#validateDocument(Document)
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <AbstractSVRLMessage> validateSchematron (@Nonnull final AbstractSchematronValidator aValidator,
+                                                                @Nonnull final Document aXMLDoc)
+  {
+    ValueEnforcer.notNull (aValidator, "Validator");
+    ValueEnforcer.notNull (aXMLDoc, "XMLDoc");
+    return _validateSchematron (aValidator, _getCanonicalBytes (aXMLDoc), aXMLDoc);
+  }
+
+  /**
+   * Validate the provided XML bytes against the provided XSDs or return the
+   * cached result.
+   *
+   * @param aXSDs
+   *        The XSDs to validate against, e.g. <code>CCAGV.XSDS</code>. May
+   *        neither be <code>null</code> nor empty.
+   * @param aXML
+   *        The XML bytes to be validated. May not be <code>null</code>.
+   * @return A copy of all XSD validation errors and warnings. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ErrorList validateXSD (@Nonnull @Nonempty final List <? extends IReadableResource> aXSDs, @Nonnull final byte [] aXML)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aXSDs, "XSDs");
+    ValueEnforcer.notNull (aXML, "XML");
+
+    final Key aKey = _createKey ("xsd", aXSDs, aXML);
+    final IErrorList ret = _getOrValidate (aKey, () -> {
+      final Schema aSchema = XMLSchemaCache.getInstance ().getSchema (aXSDs);
+      return XMLSchemaValidationHelper.validate (aSchema, TransformSourceFactory.create (aXML));
+    });
+    return new ErrorList (ret);
+  }
+
+  /**
+   * Validate the provided XML resource against the provided XSDs or return the
+   * cached result.
+   *
+   * @param aXSDs
+   *        The XSDs to validate against. May neither be <code>null</code> nor
+   *        empty.
+   * @param aXML
+   *        The XML resource to be validated. May not be <code>null</code>.
+   * @return A copy of all XSD validation errors and warnings. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ErrorList validateXSD (@Nonnull @Nonempty final List <? extends IReadableResource> aXSDs,
+                                @Nonnull final IReadableResource aXML)
+  {
+    ValueEnforcer.notNull (aXML, "XML");
+    return validateXSD (aXSDs, _readAll (aXML));
+  }
+
+  /**
+   * @return The number of currently cached entries, including expired entries
+   *         that were not yet removed. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getSize ()
+  {
+    return m_aLock.lockedInt (m_aMap::size);
+  }
+
+  /**
+   * @return The number of validations that were served from the cache.
+   */
+  @Nonnegative
+  public long getHits ()
+  {
+    return m_aHits.sum ();
+  }
+
+  /**
+   * @return The number of validations that were actually performed.
+   */
+  @Nonnegative
+  public long getMisses ()
+  {
+    return m_aMisses.sum ();
+  }
+
+  /**
+   * @return The number of entries removed because they expired or because the
+   *         maximum size was exceeded.
+   */
+  @Nonnegative
+  public long getEvictions ()
+  {
+    return m_aEvictions.sum ();
+  }
+
+  /**
+   * @return The ratio of validations served from the cache between 0 and 1.
+   *         If nothing was requested so far, 0 is returned.
+   */
+  public double getHitRate ()
+  {
+    final long nHits = getHits ();
+    final long nTotal = nHits + getMisses ();
+    return nTotal == 0 ? 0 : (double) nHits / nTotal;
+  }
+
+  /**
+   * Remove all cached entries and reset the statistics.
+   */
+  public void clear ()
+  {
+    m_aLock.locked (m_aMap::clear);
+    m_aHits.reset ();
+    m_aMisses.reset ();
+    m_aEvictions.reset ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Name", m_sName)
+                                       .append ("TTL", getTTL ())
+                                       .append ("MaxSize", m_nMaxSize)
+                                       .append ("Size", getSize ())
+                                       .append ("Hits", getHits ())
+                                       .append ("Misses", getMisses ())
+                                       .append ("Evictions", getEvictions ())
+                                       .getToString ();
+  }
+
+  /**
+   * @return A new builder with the default settings. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Builder builder ()
+  {
+    return new Builder ();
+  }
+
+  /**
+   * A builder for {@link ValidationResultCache} objects.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static class Builder
+  {
+    private String m_sName = "ValidationResultCache";
+    private Duration m_aTTL = DEFAULT_TTL;
+    private int m_nMaxSize = DEFAULT_MAX_SIZE;
+    private LongSupplier m_aTicker = System::nanoTime;
+
+    public Builder ()
+    {}
+
+    @Nonnull
+    public Builder name (@Nullable final String s)
+    {
+      m_sName = s;
+      return this;
+    }
+
+    @Nonnull
+    public Builder ttl (@Nullable final Duration a)
+    {
+      m_aTTL = a;
+      return this;
+    }
+
+    @Nonnull
+    public Builder maxSize (final int n)
+    {
+      m_nMaxSize = n;
+      return this;
+    }
+
+    /**
+     * Set the nano second time source. This is mainly meant for testing.
+     *
+     * @param a
+     *        The time source. May be <code>null</code>.
+     * @return this for chaining
+     */
+    @Nonnull
+    public Builder ticker (@Nullable final LongSupplier a)
+    {
+      m_aTicker = a;
+      return this;
+    }
+
+    public void checkConsistency ()
+    {
+      if (StringHelper.hasNoText (m_sName))
+        throw new IllegalStateException ("Name must be present");
+      if (m_aTTL == null || m_aTTL.isNegative () || m_aTTL.isZero ())
+        throw new IllegalStateException ("TTL must be positive");
+      if (m_nMaxSize <= 0)
+        throw new IllegalStateException ("MaxSize must be positive");
+      if (m_aTicker == null)
+        throw new IllegalStateException ("Ticker must be present");
+    }
+
+    @Nonnull
+    public ValidationResultCache build ()
+    {
+      checkConsistency ();
+      return new ValidationResultCache (m_sName, m_aTTL, m_nMaxSize, m_aTicker);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.columnar;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.string.ToStringGenerator;
+
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.ConceptTraversal;
+import eu.toop.edm.response.IEDMResponsePayloadConcepts;
+import eu.toop.edm.response.IEDMResponsePayloadProvider;
+
+/**
+ * A column oriented store for the concept values of many responses, e.g. for
+ * reporting. Each appended response is one row, and the values of all concepts
+ * with the same {@link ConceptPath} end up in the same
+ * {@link ConceptValueColumn}. Concepts without a name, and their children, are
+ * ignored.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+public class ConceptValueBatch
+{
+  private final StringDictionary m_aDictionary = new StringDictionary ();
+  private final ICommonsOrderedMap <ConceptPath, ConceptValueColumn> m_aColumns = new CommonsLinkedHashMap <> ();
+  private int m_nRowCount = 0;
+
+  public ConceptValueBatch ()
+  {}
+
+  private void _append (final int nRow, @Nonnull final ConceptPojo aRoot)
+  {
+    ConceptTraversal.ALL.forEachWithPath (aRoot, (aPath, aConcept) -> {
+      if (aConcept.getValue () != null)
+        m_aColumns.computeIfAbsent (aPath, k -> new ConceptValueColumn (k, m_aDictionary)).append (nRow, aConcept.getValue ());
+    });
+  }
+
+  /**
+   * Append all concepts of the passed root concepts as a new row.
+   *
+   * @param aRootConcepts
+   *        The root concepts to append. May not be <code>null</code>.
+   * @return The index of the new row.
+   */
+  @Nonnegative
+  public int append (@Nonnull final Iterable <ConceptPojo> aRootConcepts)
+  {
+    ValueEnforcer.notNull (aRootConcepts, "RootConcepts");
+    final int nRow = m_nRowCount++;
+    for (final ConceptPojo aRoot : aRootConcepts)
+      _append (nRow, aRoot);
+    return nRow;
+  }
+
+  /**
+   * Append all concepts of the passed response as a new row. Responses
+   * without concepts still get a row, so that the row index always equals the
+   * number of previously appended responses.
+   *
+   * @param aResponse
+   *        The response to append. May not be <code>null</code>.
+   * @return The index of the new row.
+   */
+  @Nonnegative
+  public int append (@Nonnull final EDMResponse aResponse)
+  {
+    ValueEnforcer.notNull (aResponse, "Response");
+    final int nRow = m_nRowCount++;
+    for (final IEDMResponsePayloadProvider aProvider : aResponse.payloadProviders ())
+      if (aProvider instanceof IEDMResponsePayloadConcepts)
+        for (final ConceptPojo aRoot : ((IEDMResponsePayloadConcepts) aProvider).concepts ())
+          _append (nRow, aRoot);
+    return nRow;
+  }
+
+  /**
+   * @return The number of appended rows. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getRowCount ()
+  {
+    return m_nRowCount;
+  }
+
+  /**
+   * @return The number of distinct concept paths with at least one value.
+   */
+  @Nonnegative
+  public int getColumnCount ()
+  {
+    return m_aColumns.size ();
+  }
+
+  /**
+   * @return All concept paths with at least one value, in the order of first
+   *         occurrence. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ConceptPath> getAllPaths ()
+  {
+    return m_aColumns.copyOfKeySet ().getCopyAsList ();
+  }
+
+  /**
+   * @param aPath
+   *        The concept path to look up. May be <code>null</code>.
+   * @return The column of the passed path or <code>null</code> if no concept
+   *         with that path had a value.
+   */
+  @Nullable
+  public ConceptValueColumn getColumn (@Nullable final ConceptPath aPath)
+  {
+    return aPath == null ? null : m_aColumns.get (aPath);
+  }
+
+  /**
+   * @return The dictionary shared by all columns. Never <code>null</code>.
+   */
+  @Nonnull
+  public StringDictionary getDictionary ()
+  {
+    return m_aDictionary;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("RowCount", m_nRowCount)
+                                       .append ("Columns", m_aColumns.values ())
+                                       .append ("Dictionary", m_aDictionary)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,509 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.columnar;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoField;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.string.ToStringGenerator;
+
+import eu.toop.edm.model.AmountPojo;
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.ConceptValuePojo;
+import eu.toop.edm.model.EConceptValueType;
+import eu.toop.edm.model.MeasurePojo;
+import eu.toop.edm.model.QuantityPojo;
+
+/**
+ * All values of a single concept path within a {@link ConceptValueBatch},
+ * stored as parallel primitive arrays. Every entry has the row of the response
+ * it was taken from and a value type. Depending on the type the value is
+ * stored as follows:
+ * <ul>
+ * <li>{@link EConceptValueType#AMOUNT}, {@link EConceptValueType#MEASURE},
+ * {@link EConceptValueType#NUMERIC} and {@link EConceptValueType#QUANTITY}: as
+ * <code>double</code> decimal, and the currency or unit as symbol</li>
+ * <li>{@link EConceptValueType#DATE}: as epoch day</li>
+ * <li>{@link EConceptValueType#TIME}: as millisecond of the day</li>
+ * <li>{@link EConceptValueType#INDICATOR}: as bit</li>
+ * <li>{@link EConceptValueType#CODE}, {@link EConceptValueType#IDENTIFIER},
+ * {@link EConceptValueType#URI}, {@link EConceptValueType#ERROR_CODE} and
+ * {@link EConceptValueType#TEXT}: as dictionary encoded symbol (multiple texts
+ * are joined with a newline)</li>
+ * <li>{@link EConceptValueType#PERIOD}: only the type is stored</li>
+ * </ul>
+ * Unused slots contain 0 or {@link StringDictionary#NO_ID}, so that scans over
+ * a single array need no type check. Decimals with more than 15 significant
+ * digits lose precision.<br>
+ * Filters return a selection, which is an ascending array of entry indices.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+public final class ConceptValueColumn
+{
+  private static final int INITIAL_CAPACITY = 16;
+  private static final byte NO_TYPE = -1;
+  private static final EConceptValueType [] TYPES = EConceptValueType.values ();
+
+  private final ConceptPath m_aPath;
+  private final StringDictionary m_aDictionary;
+  private int m_nSize = 0;
+  private int [] m_aRows = new int [INITIAL_CAPACITY];
+  private byte [] m_aTypes = new byte [INITIAL_CAPACITY];
+  private double [] m_aDecimals = new double [INITIAL_CAPACITY];
+  private int [] m_aTemporals = new int [INITIAL_CAPACITY];
+  private int [] m_aSymbols = new int [INITIAL_CAPACITY];
+  private final BitSet m_aIndicators = new BitSet ();
+
+  ConceptValueColumn (@Nonnull final ConceptPath aPath, @Nonnull final StringDictionary aDictionary)
+  {
+    m_aPath = aPath;
+    m_aDictionary = aDictionary;
+  }
+
+  private void _ensureCapacity ()
+  {
+    if (m_nSize == m_aRows.length)
+    {
+      final int nNewCapacity = m_aRows.length * 2;
+      m_aRows = Arrays.copyOf (m_aRows, nNewCapacity);
+      m_aTypes = Arrays.copyOf (m_aTypes, nNewCapacity);
+      m_aDecimals = Arrays.copyOf (m_aDecimals, nNewCapacity);
+      m_aTemporals = Arrays.copyOf (m_aTemporals, nNewCapacity);
+      m_aSymbols = Arrays.copyOf (m_aSymbols, nNewCapacity);
+    }
+  }
+
+  void append (final int nRow, @Nullable final ConceptValuePojo aValue)
+  {
+    _ensureCapacity ();
+    final int i = m_nSize;
+    final EConceptValueType eType = aValue == null ? null : aValue.getValueType ();
+    m_aRows[i] = nRow;
+    m_aTypes[i] = eType == null ? NO_TYPE : (byte) eType.ordinal ();
+    m_aDecimals[i] = 0;
+    m_aTemporals[i] = 0;
+    m_aSymbols[i] = StringDictionary.NO_ID;
+    if (eType != null)
+      switch (eType)
+      {
+        case AMOUNT:
+        {
+          final AmountPojo aAmount = aValue.getAmount ();
+          m_aDecimals[i] = aAmount.getValue () == null ? 0 : aAmount.getValue ().doubleValue ();
+          m_aSymbols[i] = m_aDictionary.add (aAmount.getCurrencyID ());
+          break;
+        }
+        case MEASURE:
+        {
+          final MeasurePojo aMeasure = aValue.getMeasure ();
+          m_aDecimals[i] = aMeasure.getValue () == null ? 0 : aMeasure.getValue ().doubleValue ();
+          m_aSymbols[i] = m_aDictionary.add (aMeasure.getUnitCode ());
+          break;
+        }
+        case NUMERIC:
+          m_aDecimals[i] = aValue.getNumeric ().doubleValue ();
+          break;
+        case QUANTITY:
+        {
+          final QuantityPojo aQuantity = aValue.getQuantity ();
+          m_aDecimals[i] = aQuantity.getValue () == null ? 0 : aQuantity.getValue ().doubleValue ();
+          m_aSymbols[i] = m_aDictionary.add (aQuantity.getUnitCode ());
+          break;
+        }
+        case DATE:
+          m_aTemporals[i] = Math.toIntExact (aValue.getDate ().toEpochDay ());
+          break;
+        case TIME:
+          m_aTemporals[i] = aValue.getTime ().get (ChronoField.MILLI_OF_DAY);
+          break;
+        case INDICATOR:
+          if (aValue.getBoolean ().booleanValue ())
+            m_aIndicators.set (i);
+          break;
+        case CODE:
+        case IDENTIFIER:
+        case URI:
+        case ERROR_CODE:
+        case TEXT:
+          m_aSymbols[i] = m_aDictionary.add (aValue.getAsString ());
+          break;
+        default:
+          // Only the type is stored
+          break;
+      }
+    m_nSize++;
+  }
+
+  /**
+   * @return The concept path of all values in this column. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ConceptPath getPath ()
+  {
+    return m_aPath;
+  }
+
+  /**
+   * @return The dictionary for all symbols. It is shared by all columns of a
+   *         batch. Never <code>null</code>.
+   */
+  @Nonnull
+  public StringDictionary getDictionary ()
+  {
+    return m_aDictionary;
+  }
+
+  /**
+   * @return The number of entries in this column. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getSize ()
+  {
+    return m_nSize;
+  }
+
+  private void _checkIndex (final int nIndex)
+  {
+    ValueEnforcer.isBetweenInclusive (nIndex, "Index", 0, m_nSize - 1);
+  }
+
+  /**
+   * @param nIndex
+   *        Entry index
+   * @return The row of the response the entry was taken from.
+   */
+  @Nonnegative
+  public int getRow (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    return m_aRows[nIndex];
+  }
+
+  /**
+   * @param nIndex
+   *        Entry index
+   * @return The value type or <code>null</code> if the concept had no value.
+   */
+  @Nullable
+  public EConceptValueType getValueType (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    final byte nType = m_aTypes[nIndex];
+    return nType == NO_TYPE ? null : TYPES[nType];
+  }
+
+  /**
+   * @param nIndex
+   *        Entry index
+   * @return The decimal value or 0 if the entry has no decimal value.
+   */
+  public double getDecimal (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    return m_aDecimals[nIndex];
+  }
+
+  /**
+   * @param nIndex
+   *        Entry index
+   * @return The date or <code>null</code> if the entry has no date value.
+   */
+  @Nullable
+  public LocalDate getDate (final int nIndex)
+  {
+    return getValueType (nIndex) == EConceptValueType.DATE ? LocalDate.ofEpochDay (m_aTemporals[nIndex]) : null;
+  }
+
+  /**
+   * @param nIndex
+   *        Entry index
+   * @return The time or <code>null</code> if the entry has no time value.
+   */
+  @Nullable
+  public LocalTime getTime (final int nIndex)
+  {
+    return getValueType (nIndex) == EConceptValueType.TIME ? LocalTime.ofNanoOfDay (m_aTemporals[nIndex] * 1_000_000L) : null;
+  }
+
+  /**
+   * @param nIndex
+   *        Entry index
+   * @return <code>true</code> only for an indicator value of
+   *         <code>true</code>.
+   */
+  public boolean getIndicator (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    return m_aIndicators.get (nIndex);
+  }
+
+  /**
+   * @param nIndex
+   *        Entry index
+   * @return The dictionary ID of the code, text, currency or unit, or
+   *         {@link StringDictionary#NO_ID}.
+   */
+  public int getSymbolID (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    return m_aSymbols[nIndex];
+  }
+
+  /**
+   * @param nIndex
+   *        Entry index
+   * @return The code, text, currency or unit of the entry. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  public String getSymbol (final int nIndex)
+  {
+    return m_aDictionary.getString (getSymbolID (nIndex));
+  }
+
+  /**
+   * @param eType
+   *        The value type to count. May not be <code>null</code>.
+   * @return The number of entries with the passed type.
+   */
+  @Nonnegative
+  public int count (@Nonnull final EConceptValueType eType)
+  {
+    ValueEnforcer.notNull (eType, "Type");
+    final byte nType = (byte) eType.ordinal ();
+    final byte [] aTypes = m_aTypes;
+    int ret = 0;
+    for (int i = 0; i < m_nSize; ++i)
+      if (aTypes[i] == nType)
+        ret++;
+    return ret;
+  }
+
+  /**
+   * @return The number of indicator values that are <code>true</code>.
+   */
+  @Nonnegative
+  public int countTrue ()
+  {
+    return m_aIndicators.cardinality ();
+  }
+
+  /**
+   * @return The sum of all decimal values in this column, independent of the
+   *         currency or unit.
+   */
+  public double sumDecimals ()
+  {
+    final double [] aDecimals = m_aDecimals;
+    double ret = 0;
+    for (int i = 0; i < m_nSize; ++i)
+      ret += aDecimals[i];
+    return ret;
+  }
+
+  /**
+   * @param sSymbol
+   *        The currency or unit of the values to sum up. May be
+   *        <code>null</code> to sum up the values without currency or unit.
+   * @return The sum of all decimal values with the passed currency or unit.
+   */
+  public double sumDecimals (@Nullable final String sSymbol)
+  {
+    final int nSymbolID = m_aDictionary.getID (sSymbol);
+    if (sSymbol != null && nSymbolID == StringDictionary.NO_ID)
+      return 0;
+
+    final double [] aDecimals = m_aDecimals;
+    final int [] aSymbols = m_aSymbols;
+    double ret = 0;
+    for (int i = 0; i < m_nSize; ++i)
+      if (aSymbols[i] == nSymbolID)
+        ret += aDecimals[i];
+    return ret;
+  }
+
+  /**
+   * @param aSelection
+   *        The entry indices to use. May not be <code>null</code>.
+   * @return The sum of the decimal values of the selected entries.
+   */
+  public double sumDecimals (@Nonnull final int [] aSelection)
+  {
+    ValueEnforcer.notNull (aSelection, "Selection");
+    final double [] aDecimals = m_aDecimals;
+    double ret = 0;
+    for (final int nIndex : aSelection)
+      ret += aDecimals[nIndex];
+    return ret;
+  }
+
+  /**
+   * Select all entries matching the passed filter.
+   *
+   * @param aFilter
+   *        The filter that is invoked with each entry index. May not be
+   *        <code>null</code>.
+   * @return The selection and never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] select (@Nonnull final IntPredicate aFilter)
+  {
+    ValueEnforcer.notNull (aFilter, "Filter");
+    final int [] ret = new int [m_nSize];
+    int nCount = 0;
+    for (int i = 0; i < m_nSize; ++i)
+      if (aFilter.test (i))
+        ret[nCount++] = i;
+    return Arrays.copyOf (ret, nCount);
+  }
+
+  /**
+   * @param eType
+   *        The value type to select. May not be <code>null</code>.
+   * @return All entries with the passed value type.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] selectType (@Nonnull final EConceptValueType eType)
+  {
+    ValueEnforcer.notNull (eType, "Type");
+    final byte nType = (byte) eType.ordinal ();
+    final byte [] aTypes = m_aTypes;
+    return select (i -> aTypes[i] == nType);
+  }
+
+  /**
+   * @param dMin
+   *        Minimum value, inclusive.
+   * @param dMax
+   *        Maximum value, inclusive.
+   * @return All entries with a decimal value in the passed range.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] selectDecimalRange (final double dMin, final double dMax)
+  {
+    final byte [] aTypes = m_aTypes;
+    final double [] aDecimals = m_aDecimals;
+    return select (i -> aDecimals[i] >= dMin && aDecimals[i] <= dMax && aTypes[i] != NO_TYPE && TYPES[aTypes[i]].isDecimal ());
+  }
+
+  /**
+   * @param aMin
+   *        Minimum date, inclusive. May not be <code>null</code>.
+   * @param aMax
+   *        Maximum date, inclusive. May not be <code>null</code>.
+   * @return All entries with a date value in the passed range.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] selectDateRange (@Nonnull final LocalDate aMin, @Nonnull final LocalDate aMax)
+  {
+    ValueEnforcer.notNull (aMin, "Min");
+    ValueEnforcer.notNull (aMax, "Max");
+    final long nMin = aMin.toEpochDay ();
+    final long nMax = aMax.toEpochDay ();
+    final byte nType = (byte) EConceptValueType.DATE.ordinal ();
+    final byte [] aTypes = m_aTypes;
+    final int [] aTemporals = m_aTemporals;
+    return select (i -> aTemporals[i] >= nMin && aTemporals[i] <= nMax && aTypes[i] == nType);
+  }
+
+  /**
+   * @param sSymbol
+   *        The code, text, currency or unit to select. May not be
+   *        <code>null</code>.
+   * @return All entries with the passed symbol.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] selectSymbol (@Nonnull final String sSymbol)
+  {
+    ValueEnforcer.notNull (sSymbol, "Symbol");
+    final int nSymbolID = m_aDictionary.getID (sSymbol);
+    if (nSymbolID == StringDictionary.NO_ID)
+      return new int [0];
+    final int [] aSymbols = m_aSymbols;
+    return select (i -> aSymbols[i] == nSymbolID);
+  }
+
+  /**
+   * @return All entries with an indicator value of <code>true</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] selectTrue ()
+  {
+    return m_aIndicators.stream ().toArray ();
+  }
+
+  /**
+   * @param aSelection
+   *        The entry indices to resolve. May not be <code>null</code>.
+   * @return The rows of the selected entries, in the same order. A row may be
+   *         contained more than once.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] getRows (@Nonnull final int [] aSelection)
+  {
+    ValueEnforcer.notNull (aSelection, "Selection");
+    final int [] ret = new int [aSelection.length];
+    for (int i = 0; i < aSelection.length; ++i)
+      ret[i] = m_aRows[aSelection[i]];
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Path", m_aPath).append ("Size", m_nSize).getToString ();
+  }
+}
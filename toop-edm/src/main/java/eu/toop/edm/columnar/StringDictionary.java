@@ -0,0 +1,131 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.columnar;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A dictionary that maps each distinct string to a dense integer ID, starting
+ * at 0 in the order of first occurrence. Used to store codes, currencies and
+ * units as <code>int</code> values in a {@link ConceptValueColumn}.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+public class StringDictionary
+{
+  /** The ID returned for unknown or <code>null</code> strings */
+  public static final int NO_ID = -1;
+
+  private final ICommonsMap <String, Integer> m_aIDs = new CommonsHashMap <> ();
+  private final ICommonsList <String> m_aStrings = new CommonsArrayList <> ();
+
+  public StringDictionary ()
+  {}
+
+  /**
+   * Get the ID of the passed string and add it if it is not yet contained.
+   *
+   * @param s
+   *        The string to add. May be <code>null</code>.
+   * @return {@link #NO_ID} for <code>null</code>, the ID otherwise.
+   */
+  public int add (@Nullable final String s)
+  {
+    if (s == null)
+      return NO_ID;
+    final Integer aID = m_aIDs.get (s);
+    if (aID != null)
+      return aID.intValue ();
+    final int ret = m_aStrings.size ();
+    m_aStrings.add (s);
+    m_aIDs.put (s, Integer.valueOf (ret));
+    return ret;
+  }
+
+  /**
+   * @param s
+   *        The string to look up. May be <code>null</code>.
+   * @return The ID of the string or {@link #NO_ID} if it is not contained.
+   */
+  public int getID (@Nullable final String s)
+  {
+    final Integer aID = s == null ? null : m_aIDs.get (s);
+    return aID == null ? NO_ID : aID.intValue ();
+  }
+
+  /**
+   * @param nID
+   *        The ID to resolve.
+   * @return The string with the passed ID or <code>null</code> for
+   *         {@link #NO_ID}.
+   * @throws IllegalArgumentException
+   *         If the ID is neither {@link #NO_ID} nor a valid ID.
+   */
+  @Nullable
+  public String getString (final int nID)
+  {
+    if (nID == NO_ID)
+      return null;
+    ValueEnforcer.isBetweenInclusive (nID, "ID", 0, m_aStrings.size () - 1);
+    return m_aStrings.get (nID);
+  }
+
+  /**
+   * @return The number of distinct strings. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getSize ()
+  {
+    return m_aStrings.size ();
+  }
+
+  @Nonnull
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Size", m_aStrings.size ()).getToString ();
+  }
+}
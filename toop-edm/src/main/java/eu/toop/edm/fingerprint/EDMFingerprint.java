@@ -0,0 +1,140 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.fingerprint;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.string.StringHelper;
+
+/**
+ * The content fingerprint of an EDM top-level object as created by
+ * {@link EDMFingerprinter}. Two fingerprints are equal if they have the same
+ * bytes.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class EDMFingerprint
+{
+  private final byte [] m_aBytes;
+  // Status vars
+  private final int m_nHashCode;
+
+  EDMFingerprint (@Nonnull @Nonempty final byte [] aBytes)
+  {
+    ValueEnforcer.notEmpty (aBytes, "Bytes");
+    m_aBytes = aBytes;
+    m_nHashCode = Arrays.hashCode (aBytes);
+  }
+
+  /**
+   * @return The number of bits of this fingerprint. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getBitLength ()
+  {
+    return m_aBytes.length * 8;
+  }
+
+  /**
+   * @return A copy of the fingerprint bytes. Never <code>null</code>.
+   */
+  @Nonnull
+  @Nonempty
+  @ReturnsMutableCopy
+  public byte [] getAllBytes ()
+  {
+    return m_aBytes.clone ();
+  }
+
+  /**
+   * @return The fingerprint as a lower case hex string, suitable e.g. as a
+   *         deduplication key. Never <code>null</code>.
+   */
+  @Nonnull
+  @Nonempty
+  public String getAsHexString ()
+  {
+    return StringHelper.getHexEncoded (m_aBytes);
+  }
+
+  /**
+   * Create a fingerprint object from a previously created hex string.
+   *
+   * @param sHex
+   *        The hex string as returned by {@link #getAsHexString()}. May not be
+   *        <code>null</code>.
+   * @return The fingerprint and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         if the string is not a valid hex string
+   */
+  @Nonnull
+  public static EDMFingerprint ofHexString (@Nonnull @Nonempty final String sHex)
+  {
+    ValueEnforcer.notEmpty (sHex, "Hex");
+    final byte [] aBytes = StringHelper.getHexDecoded (sHex);
+    return new EDMFingerprint (aBytes);
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final EDMFingerprint rhs = (EDMFingerprint) o;
+    return Arrays.equals (m_aBytes, rhs.m_aBytes);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return m_nHashCode;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return getAsHexString ();
+  }
+}
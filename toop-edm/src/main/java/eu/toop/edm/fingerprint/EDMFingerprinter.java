@@ -0,0 +1,744 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.fingerprint;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.xsds.ccts.cct.schemamodule.CodeType;
+import com.helger.xsds.ccts.cct.schemamodule.IdentifierType;
+import com.helger.xsds.ccts.cct.schemamodule.TextType;
+
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.IEDMTopLevelObject;
+import eu.toop.edm.error.EDMExceptionPojo;
+import eu.toop.edm.jaxb.cccev.CCCEVRequirementType;
+import eu.toop.edm.model.AddressPojo;
+import eu.toop.edm.model.AgentPojo;
+import eu.toop.edm.model.AmountPojo;
+import eu.toop.edm.model.BusinessPojo;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.ConceptValuePojo;
+import eu.toop.edm.model.DatasetPojo;
+import eu.toop.edm.model.DistributionPojo;
+import eu.toop.edm.model.DocumentReferencePojo;
+import eu.toop.edm.model.MeasurePojo;
+import eu.toop.edm.model.PeriodPojo;
+import eu.toop.edm.model.PersonPojo;
+import eu.toop.edm.model.QualifiedRelationPojo;
+import eu.toop.edm.model.QuantityPojo;
+import eu.toop.edm.model.RepositoryItemRefPojo;
+import eu.toop.edm.request.IEDMRequestPayloadConcepts;
+import eu.toop.edm.request.IEDMRequestPayloadDistribution;
+import eu.toop.edm.request.IEDMRequestPayloadDocumentID;
+import eu.toop.edm.request.IEDMRequestPayloadProvider;
+import eu.toop.edm.response.IEDMResponsePayloadConcepts;
+import eu.toop.edm.response.IEDMResponsePayloadDocument;
+import eu.toop.edm.response.IEDMResponsePayloadDocumentReference;
+import eu.toop.edm.response.IEDMResponsePayloadProvider;
+import eu.toop.regrep.rim.InternationalStringType;
+import eu.toop.regrep.rim.LocalizedStringType;
+
+/**
+ * Creates stable content fingerprints of {@link EDMRequest}, {@link EDMResponse}
+ * and {@link EDMErrorResponse} objects, e.g. to be used as idempotency or
+ * deduplication keys.<br>
+ * The fingerprint is computed by walking the POJO tree once and feeding a
+ * canonical, type tagged encoding of every field into a message digest - no
+ * XML is created. Numbers, dates and times are encoded in their canonical
+ * lexical form, enumerations by their ID and QNames without prefix, so the
+ * result is the same on every JVM and independent of the serialization
+ * library. Lists are order sensitive, except for the distributions of a
+ * request which describe alternatives. Fullfilling requirements are not
+ * modelled as POJOs - of them the identifiers, names, descriptions, type and
+ * nested requirements are considered.<br>
+ * Optionally the volatile fields that are usually different for each
+ * transmission of the same content can be excluded: request IDs, issue
+ * date times, exception timestamps, concept IDs and registry object IDs.
+ * Instances of this class are immutable and thread-safe.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class EDMFingerprinter
+{
+  /** The default message digest algorithm */
+  public static final String DEFAULT_ALGORITHM = "SHA-256";
+  /** The default fingerprint length in bits */
+  public static final int DEFAULT_BIT_LENGTH = 128;
+  /** The default value for excluding volatile fields */
+  public static final boolean DEFAULT_EXCLUDE_VOLATILE_FIELDS = false;
+
+  /** The default fingerprinter with SHA-256 truncated to 128 bits */
+  public static final EDMFingerprinter DEFAULT = builder ().build ();
+
+  // Part of every fingerprint to be able to change the encoding in the future
+  private static final String FORMAT_VERSION = "toop-edm-fingerprint-1";
+
+  private final String m_sAlgorithm;
+  private final int m_nBitLength;
+  private final boolean m_bExcludeVolatileFields;
+
+  EDMFingerprinter (@Nonnull @Nonempty final String sAlgorithm,
+                    @Nonnegative final int nBitLength,
+                    final boolean bExcludeVolatileFields)
+  {
+    m_sAlgorithm = sAlgorithm;
+    m_nBitLength = nBitLength;
+    m_bExcludeVolatileFields = bExcludeVolatileFields;
+  }
+
+  /**
+   * @return The message digest algorithm to be used. Never <code>null</code>.
+   */
+  @Nonnull
+  @Nonempty
+  public String getAlgorithm ()
+  {
+    return m_sAlgorithm;
+  }
+
+  /**
+   * @return The length of the created fingerprints in bits. Always a multiple
+   *         of 8.
+   */
+  @Nonnegative
+  public int getBitLength ()
+  {
+    return m_nBitLength;
+  }
+
+  /**
+   * @return <code>true</code> if the volatile fields are not part of the
+   *         fingerprint.
+   */
+  public boolean isExcludeVolatileFields ()
+  {
+    return m_bExcludeVolatileFields;
+  }
+
+  @Nonnull
+  private FingerprintDigester _createDigester ()
+  {
+    return new FingerprintDigester (m_sAlgorithm);
+  }
+
+  @Nonnull
+  private EDMFingerprint _finish (@Nonnull final FingerprintDigester aDigester)
+  {
+    final byte [] aDigest = aDigester.digest ();
+    return new EDMFingerprint (Arrays.copyOf (aDigest, m_nBitLength / 8));
+  }
+
+  private void _volatileString (@Nonnull final FingerprintDigester aDigester, @Nullable final String s)
+  {
+    aDigester.writeString (m_bExcludeVolatileFields ? null : s);
+  }
+
+  private static void _string (@Nonnull final FingerprintDigester aDigester, @Nullable final String s)
+  {
+    aDigester.writeString (s);
+  }
+
+  private static void _address (@Nonnull final FingerprintDigester aDigester, @Nullable final AddressPojo a)
+  {
+    if (aDigester.beginObject (a, "Address"))
+    {
+      aDigester.writeString (a.getFullAddress ());
+      aDigester.writeString (a.getStreetName ());
+      aDigester.writeString (a.getBuildingNumber ());
+      aDigester.writeString (a.getTown ());
+      aDigester.writeString (a.getPostalCode ());
+      aDigester.writeString (a.getCountryCode ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _agent (@Nonnull final FingerprintDigester aDigester, @Nullable final AgentPojo a)
+  {
+    if (aDigester.beginObject (a, "Agent"))
+    {
+      aDigester.writeString (a.getID ());
+      aDigester.writeString (a.getIDSchemeID ());
+      aDigester.writeString (a.getName ());
+      _address (aDigester, a.getAddress ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _business (@Nonnull final FingerprintDigester aDigester, @Nullable final BusinessPojo a)
+  {
+    if (aDigester.beginObject (a, "Business"))
+    {
+      aDigester.writeString (a.getLegalID ());
+      aDigester.writeString (a.getLegalIDSchemeID ());
+      aDigester.writeString (a.getID ());
+      aDigester.writeString (a.getIDSchemeID ());
+      aDigester.writeString (a.getLegalName ());
+      _address (aDigester, a.getAddress ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _person (@Nonnull final FingerprintDigester aDigester, @Nullable final PersonPojo a)
+  {
+    if (aDigester.beginObject (a, "Person"))
+    {
+      aDigester.writeString (a.getID ());
+      aDigester.writeString (a.getIDSchemeID ());
+      aDigester.writeString (a.getFamilyName ());
+      aDigester.writeString (a.getGivenName ());
+      aDigester.writeString (a.getGenderCode ());
+      aDigester.writeString (a.getBirthName ());
+      aDigester.writeDate (a.getBirthDate ());
+      aDigester.writeString (a.getBirthTown ());
+      _address (aDigester, a.getAddress ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _amount (@Nonnull final FingerprintDigester aDigester, @Nullable final AmountPojo a)
+  {
+    if (aDigester.beginObject (a, "Amount"))
+    {
+      aDigester.writeDecimal (a.getValue ());
+      aDigester.writeString (a.getCurrencyID ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _measure (@Nonnull final FingerprintDigester aDigester, @Nullable final MeasurePojo a)
+  {
+    if (aDigester.beginObject (a, "Measure"))
+    {
+      aDigester.writeDecimal (a.getValue ());
+      aDigester.writeString (a.getUnitCode ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _quantity (@Nonnull final FingerprintDigester aDigester, @Nullable final QuantityPojo a)
+  {
+    if (aDigester.beginObject (a, "Quantity"))
+    {
+      aDigester.writeDecimal (a.getValue ());
+      aDigester.writeString (a.getUnitCode ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _period (@Nonnull final FingerprintDigester aDigester, @Nullable final PeriodPojo a)
+  {
+    if (aDigester.beginObject (a, "Period"))
+    {
+      aDigester.writeDate (a.getStartDate ());
+      aDigester.writeTime (a.getStartTime ());
+      aDigester.writeDate (a.getEndDate ());
+      aDigester.writeTime (a.getEndTime ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _conceptValue (@Nonnull final FingerprintDigester aDigester, @Nullable final ConceptValuePojo a)
+  {
+    if (aDigester.beginObject (a, "ConceptValue"))
+    {
+      aDigester.writeString (a.getIdentifier ());
+      _amount (aDigester, a.getAmount ());
+      aDigester.writeString (a.getCode ());
+      aDigester.writeDate (a.getDate ());
+      aDigester.writeBoolean (a.getBoolean ());
+      _measure (aDigester, a.getMeasure ());
+      aDigester.writeDecimal (a.getNumeric ());
+      _period (aDigester, a.getPeriod ());
+      _quantity (aDigester, a.getQuantity ());
+      aDigester.writeList (a.text (), EDMFingerprinter::_string);
+      aDigester.writeTime (a.getTime ());
+      aDigester.writeString (a.getURI ());
+      aDigester.writeString (a.getErrorCode ());
+      aDigester.endObject ();
+    }
+  }
+
+  private void _concept (@Nonnull final FingerprintDigester aDigester, @Nullable final ConceptPojo a)
+  {
+    if (aDigester.beginObject (a, "Concept"))
+    {
+      _volatileString (aDigester, a.getID ());
+      aDigester.writeQName (a.getName ());
+      _conceptValue (aDigester, a.getValue ());
+      aDigester.writeList (a.children (), this::_concept);
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _qualifiedRelation (@Nonnull final FingerprintDigester aDigester, @Nullable final QualifiedRelationPojo a)
+  {
+    if (aDigester.beginObject (a, "QualifiedRelation"))
+    {
+      aDigester.writeList (a.descriptions (), EDMFingerprinter::_string);
+      aDigester.writeList (a.titles (), EDMFingerprinter::_string);
+      aDigester.writeList (a.ids (), EDMFingerprinter::_string);
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _documentReference (@Nonnull final FingerprintDigester aDigester, @Nullable final DocumentReferencePojo a)
+  {
+    if (aDigester.beginObject (a, "DocumentReference"))
+    {
+      aDigester.writeString (a.getDocumentURI ());
+      aDigester.writeList (a.documentDescriptions (), EDMFingerprinter::_string);
+      aDigester.writeString (a.getDocumentType ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _dataset (@Nonnull final FingerprintDigester aDigester, @Nullable final DatasetPojo a)
+  {
+    if (aDigester.beginObject (a, "Dataset"))
+    {
+      aDigester.writeList (a.descriptions (), EDMFingerprinter::_string);
+      aDigester.writeList (a.titles (), EDMFingerprinter::_string);
+      _documentReference (aDigester, a.getDistribution ());
+      _agent (aDigester, a.getCreator ());
+      aDigester.writeList (a.ids (), EDMFingerprinter::_string);
+      aDigester.writeDateTime (a.getIssuedDT ());
+      aDigester.writeString (a.getLanguage ());
+      aDigester.writeDateTime (a.getLastModifiedDT ());
+      aDigester.writeDate (a.getValidFrom ());
+      aDigester.writeDate (a.getValidTo ());
+      aDigester.writeList (a.qualifiedRelations (), EDMFingerprinter::_qualifiedRelation);
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _distribution (@Nonnull final FingerprintDigester aDigester, @Nullable final DistributionPojo a)
+  {
+    if (aDigester.beginObject (a, "Distribution"))
+    {
+      aDigester.writeID (a.getFormat ());
+      aDigester.writeString (a.getMediaType ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _repositoryItemRef (@Nonnull final FingerprintDigester aDigester, @Nullable final RepositoryItemRefPojo a)
+  {
+    if (aDigester.beginObject (a, "RepositoryItemRef"))
+    {
+      aDigester.writeString (a.getTitle ());
+      aDigester.writeString (a.getLink ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _internationalString (@Nonnull final FingerprintDigester aDigester,
+                                            @Nullable final InternationalStringType a)
+  {
+    if (aDigester.beginObject (a, "InternationalString"))
+    {
+      aDigester.writeList (a.getLocalizedString (), EDMFingerprinter::_localizedString);
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _localizedString (@Nonnull final FingerprintDigester aDigester, @Nullable final LocalizedStringType a)
+  {
+    if (aDigester.beginObject (a, "LocalizedString"))
+    {
+      aDigester.writeString (a.getLang ());
+      aDigester.writeString (a.getValue ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _identifier (@Nonnull final FingerprintDigester aDigester, @Nullable final IdentifierType a)
+  {
+    if (aDigester.beginObject (a, "Identifier"))
+    {
+      aDigester.writeString (a.getValue ());
+      aDigester.writeString (a.getSchemeID ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _text (@Nonnull final FingerprintDigester aDigester, @Nullable final TextType a)
+  {
+    if (aDigester.beginObject (a, "Text"))
+    {
+      aDigester.writeString (a.getValue ());
+      aDigester.writeString (a.getLanguageID ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _code (@Nonnull final FingerprintDigester aDigester, @Nullable final CodeType a)
+  {
+    if (aDigester.beginObject (a, "Code"))
+    {
+      aDigester.writeString (a.getValue ());
+      aDigester.writeString (a.getListID ());
+      aDigester.endObject ();
+    }
+  }
+
+  private static void _requirement (@Nonnull final FingerprintDigester aDigester, @Nullable final CCCEVRequirementType a)
+  {
+    if (aDigester.beginObject (a, "Requirement"))
+    {
+      aDigester.writeList (a.getId (), EDMFingerprinter::_identifier);
+      aDigester.writeList (a.getName (), EDMFingerprinter::_text);
+      aDigester.writeList (a.getDescription (), EDMFingerprinter::_text);
+      _code (aDigester, a.getType ());
+      aDigester.writeList (a.getRequirement (), EDMFingerprinter::_requirement);
+      aDigester.endObject ();
+    }
+  }
+
+  private void _exception (@Nonnull final FingerprintDigester aDigester, @Nullable final EDMExceptionPojo a)
+  {
+    if (aDigester.beginObject (a, "Exception"))
+    {
+      aDigester.writeString (a.getExceptionType () == null ? null : a.getExceptionType ().name ());
+      aDigester.writeID (a.getSeverity ());
+      aDigester.writeString (a.getErrorMessage ());
+      aDigester.writeString (a.getErrorDetails ());
+      aDigester.writeString (a.getErrorCode ());
+      aDigester.writeDateTime (m_bExcludeVolatileFields ? null : a.getTimestamp ());
+      aDigester.writeString (a.getErrorOrigin ());
+      aDigester.endObject ();
+    }
+  }
+
+  private void _requestPayload (@Nonnull final FingerprintDigester aDigester, @Nullable final IEDMRequestPayloadProvider aPayload)
+  {
+    if (aPayload instanceof IEDMRequestPayloadConcepts)
+    {
+      aDigester.beginObject (aPayload, "RequestPayloadConcepts");
+      aDigester.writeList (((IEDMRequestPayloadConcepts) aPayload).concepts (), this::_concept);
+      aDigester.endObject ();
+    }
+    else
+      if (aPayload instanceof IEDMRequestPayloadDistribution)
+      {
+        aDigester.beginObject (aPayload, "RequestPayloadDistribution");
+        aDigester.writeUnorderedList (((IEDMRequestPayloadDistribution) aPayload).distributions (),
+                                      this::_createDigester,
+                                      EDMFingerprinter::_distribution);
+        aDigester.endObject ();
+      }
+      else
+        if (aPayload instanceof IEDMRequestPayloadDocumentID)
+        {
+          aDigester.beginObject (aPayload, "RequestPayloadDocumentID");
+          aDigester.writeString (((IEDMRequestPayloadDocumentID) aPayload).getDocumentID ());
+          aDigester.endObject ();
+        }
+        else
+          if (aPayload == null)
+            aDigester.writeNull ();
+          else
+            throw new IllegalArgumentException ("Unsupported request payload provider " + aPayload);
+  }
+
+  private void _responsePayload (@Nonnull final FingerprintDigester aDigester, @Nullable final IEDMResponsePayloadProvider aPayload)
+  {
+    if (aPayload instanceof IEDMResponsePayloadConcepts)
+    {
+      aDigester.beginObject (aPayload, "ResponsePayloadConcepts");
+      _volatileString (aDigester, aPayload.getRegistryObjectID ());
+      aDigester.writeList (((IEDMResponsePayloadConcepts) aPayload).concepts (), this::_concept);
+      aDigester.endObject ();
+    }
+    else
+      if (aPayload instanceof IEDMResponsePayloadDocument)
+      {
+        final IEDMResponsePayloadDocument aDoc = (IEDMResponsePayloadDocument) aPayload;
+        aDigester.beginObject (aPayload, "ResponsePayloadDocument");
+        _volatileString (aDigester, aDoc.getRegistryObjectID ());
+        _dataset (aDigester, aDoc.getDataset ());
+        _repositoryItemRef (aDigester, aDoc.getRepositoryItemRef ());
+        aDigester.endObject ();
+      }
+      else
+        if (aPayload instanceof IEDMResponsePayloadDocumentReference)
+        {
+          final IEDMResponsePayloadDocumentReference aDocRef = (IEDMResponsePayloadDocumentReference) aPayload;
+          aDigester.beginObject (aPayload, "ResponsePayloadDocumentReference");
+          _volatileString (aDigester, aDocRef.getRegistryObjectID ());
+          _dataset (aDigester, aDocRef.getDataset ());
+          aDigester.endObject ();
+        }
+        else
+          if (aPayload == null)
+            aDigester.writeNull ();
+          else
+            throw new IllegalArgumentException ("Unsupported response payload provider " + aPayload);
+  }
+
+  /**
+   * Get the fingerprint of the provided request.
+   *
+   * @param aRequest
+   *        The request to fingerprint. May not be <code>null</code>.
+   * @return The fingerprint and never <code>null</code>.
+   */
+  @Nonnull
+  public EDMFingerprint getFingerprint (@Nonnull final EDMRequest aRequest)
+  {
+    ValueEnforcer.notNull (aRequest, "Request");
+
+    final FingerprintDigester aDigester = _createDigester ();
+    aDigester.writeString (FORMAT_VERSION);
+    aDigester.beginObject (aRequest, "Request");
+    aDigester.writeID (aRequest.getQueryDefinition ());
+    _volatileString (aDigester, aRequest.getRequestID ());
+    aDigester.writeID (aRequest.getResponseOption ());
+    aDigester.writeString (aRequest.getSpecificationIdentifier ());
+    aDigester.writeDateTime (m_bExcludeVolatileFields ? null : aRequest.getIssueDateTime ());
+    _internationalString (aDigester, aRequest.getProcedure ());
+    aDigester.writeList (aRequest.fullfillingRequirements (), EDMFingerprinter::_requirement);
+    _agent (aDigester, aRequest.getDataConsumer ());
+    aDigester.writeString (aRequest.getConsentToken ());
+    aDigester.writeString (aRequest.getDatasetIdentifier ());
+    _business (aDigester, aRequest.getDataSubjectLegalPerson ());
+    _person (aDigester, aRequest.getDataSubjectNaturalPerson ());
+    _person (aDigester, aRequest.getAuthorizedRepresentative ());
+    _requestPayload (aDigester, aRequest.getPayloadProvider ());
+    aDigester.endObject ();
+    return _finish (aDigester);
+  }
+
+  /**
+   * Get the fingerprint of the query contained in the provided request. Only
+   * the fields that determine the content of the response are considered: the
+   * query definition, the response option, the specification identifier, the
+   * dataset identifier, the data subject and the payload (concepts,
+   * distributions or document ID). Volatile fields are always excluded, so two
+   * requests for the same data from different data consumers have the same
+   * query fingerprint.
+   *
+   * @param aRequest
+   *        The request to fingerprint. May not be <code>null</code>.
+   * @return The fingerprint and never <code>null</code>.
+   * @see eu.toop.edm.cache.EDMResponseCache
+   */
+  @Nonnull
+  public EDMFingerprint getQueryFingerprint (@Nonnull final EDMRequest aRequest)
+  {
+    ValueEnforcer.notNull (aRequest, "Request");
+
+    final EDMFingerprinter aNonVolatile = m_bExcludeVolatileFields ? this
+                                                                   : new EDMFingerprinter (m_sAlgorithm, m_nBitLength, true);
+    final FingerprintDigester aDigester = _createDigester ();
+    aDigester.writeString (FORMAT_VERSION);
+    aDigester.beginObject (aRequest, "Query");
+    aDigester.writeID (aRequest.getQueryDefinition ());
+    aDigester.writeID (aRequest.getResponseOption ());
+    aDigester.writeString (aRequest.getSpecificationIdentifier ());
+    aDigester.writeString (aRequest.getDatasetIdentifier ());
+    _business (aDigester, aRequest.getDataSubjectLegalPerson ());
+    _person (aDigester, aRequest.getDataSubjectNaturalPerson ());
+    aNonVolatile._requestPayload (aDigester, aRequest.getPayloadProvider ());
+    aDigester.endObject ();
+    return _finish (aDigester);
+  }
+
+  /**
+   * Get the fingerprint of the provided response.
+   *
+   * @param aResponse
+   *        The response to fingerprint. May not be <code>null</code>.
+   * @return The fingerprint and never <code>null</code>.
+   */
+  @Nonnull
+  public EDMFingerprint getFingerprint (@Nonnull final EDMResponse aResponse)
+  {
+    ValueEnforcer.notNull (aResponse, "Response");
+
+    final FingerprintDigester aDigester = _createDigester ();
+    aDigester.writeString (FORMAT_VERSION);
+    aDigester.beginObject (aResponse, "Response");
+    aDigester.writeID (aResponse.getResponseOption ());
+    aDigester.writeID (aResponse.getResponseStatus ());
+    _volatileString (aDigester, aResponse.getRequestID ());
+    aDigester.writeString (aResponse.getSpecificationIdentifier ());
+    aDigester.writeDateTime (m_bExcludeVolatileFields ? null : aResponse.getIssueDateTime ());
+    _agent (aDigester, aResponse.getDataProvider ());
+    aDigester.writeList (aResponse.payloadProviders (), this::_responsePayload);
+    aDigester.endObject ();
+    return _finish (aDigester);
+  }
+
+  /**
+   * Get the fingerprint of the provided error response.
+   *
+   * @param aErrorResponse
+   *        The error response to fingerprint. May not be <code>null</code>.
+   * @return The fingerprint and never <code>null</code>.
+   */
+  @Nonnull
+  public EDMFingerprint getFingerprint (@Nonnull final EDMErrorResponse aErrorResponse)
+  {
+    ValueEnforcer.notNull (aErrorResponse, "ErrorResponse");
+
+    final FingerprintDigester aDigester = _createDigester ();
+    aDigester.writeString (FORMAT_VERSION);
+    aDigester.beginObject (aErrorResponse, "ErrorResponse");
+    aDigester.writeID (aErrorResponse.getResponseStatus ());
+    _volatileString (aDigester, aErrorResponse.getRequestID ());
+    aDigester.writeString (aErrorResponse.getSpecificationIdentifier ());
+    _agent (aDigester, aErrorResponse.getErrorProvider ());
+    aDigester.writeList (aErrorResponse.exceptions (), this::_exception);
+    aDigester.endObject ();
+    return _finish (aDigester);
+  }
+
+  /**
+   * Get the fingerprint of any EDM top-level object.
+   *
+   * @param aObj
+   *        The object to fingerprint. May not be <code>null</code>.
+   * @return The fingerprint and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the object type is not supported
+   */
+  @Nonnull
+  public EDMFingerprint getFingerprint (@Nonnull final IEDMTopLevelObject aObj)
+  {
+    ValueEnforcer.notNull (aObj, "Object");
+
+    if (aObj instanceof EDMRequest)
+      return getFingerprint ((EDMRequest) aObj);
+    if (aObj instanceof EDMResponse)
+      return getFingerprint ((EDMResponse) aObj);
+    if (aObj instanceof EDMErrorResponse)
+      return getFingerprint ((EDMErrorResponse) aObj);
+    throw new IllegalArgumentException ("Unsupported top-level object " + aObj);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Algorithm", m_sAlgorithm)
+                                       .append ("BitLength", m_nBitLength)
+                                       .append ("ExcludeVolatileFields", m_bExcludeVolatileFields)
+                                       .getToString ();
+  }
+
+  /**
+   * @return A new builder with the default settings. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Builder builder ()
+  {
+    return new Builder ();
+  }
+
+  /**
+   * A builder for {@link EDMFingerprinter} objects.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static class Builder
+  {
+    private String m_sAlgorithm = DEFAULT_ALGORITHM;
+    private int m_nBitLength = DEFAULT_BIT_LENGTH;
+    private boolean m_bExcludeVolatileFields = DEFAULT_EXCLUDE_VOLATILE_FIELDS;
+
+    public Builder ()
+    {}
+
+    @Nonnull
+    public Builder algorithm (@Nullable final String s)
+    {
+      m_sAlgorithm = s;
+      return this;
+    }
+
+    @Nonnull
+    public Builder bitLength (final int n)
+    {
+      m_nBitLength = n;
+      return this;
+    }
+
+    @Nonnull
+    public Builder excludeVolatileFields (final boolean b)
+    {
+      m_bExcludeVolatileFields = b;
+      return this;
+    }
+
+    public void checkConsistency ()
+    {
+      if (StringHelper.hasNoText (m_sAlgorithm))
+        throw new IllegalStateException ("Algorithm must be present");
+      if (m_nBitLength <= 0 || (m_nBitLength % 8) != 0)
+        throw new IllegalStateException ("BitLength must be a positive multiple of 8");
+      final int nMaxBitLength;
+      try
+      {
+        nMaxBitLength = new FingerprintDigester (m_sAlgorithm).getDigestLength () * 8;
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        throw new IllegalStateException (ex.getMessage (), ex);
+      }
+      if (m_nBitLength > nMaxBitLength)
+        throw new IllegalStateException ("BitLength may not exceed the " + nMaxBitLength + " bits of algorithm '" + m_sAlgorithm + "'");
+    }
+
+    @Nonnull
+    public EDMFingerprinter build ()
+    {
+      checkConsistency ();
+      return new EDMFingerprinter (m_sAlgorithm, m_nBitLength, m_bExcludeVolatileFields);
+    }
+  }
+}
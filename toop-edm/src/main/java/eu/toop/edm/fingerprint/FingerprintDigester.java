@@ -0,0 +1,278 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.fingerprint;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.namespace.QName;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.id.IHasID;
+
+import eu.toop.regrep.datetime.XSDDateTimeConverter;
+
+/**
+ * Canonical, type tagged encoder of values into a {@link MessageDigest}. All
+ * values are written with a leading tag byte, strings and lists are length
+ * prefixed so that no two different sequences of values can result in the
+ * same byte stream. Numbers, dates and times are written in their canonical
+ * lexical representation so that the result does not depend on the JVM or on
+ * the in-memory representation.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+final class FingerprintDigester
+{
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_STRING = 1;
+  private static final byte TAG_BOOLEAN = 2;
+  private static final byte TAG_LIST = 3;
+  private static final byte TAG_UNORDERED_LIST = 4;
+  private static final byte TAG_OBJECT = 5;
+  private static final byte TAG_END = 6;
+
+  private final MessageDigest m_aMD;
+
+  FingerprintDigester (@Nonnull final String sAlgorithm)
+  {
+    try
+    {
+      m_aMD = MessageDigest.getInstance (sAlgorithm);
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      throw new IllegalArgumentException ("Unsupported message digest algorithm '" + sAlgorithm + "'", ex);
+    }
+  }
+
+  /**
+   * @return The length of the created digest in bytes.
+   */
+  int getDigestLength ()
+  {
+    return m_aMD.getDigestLength ();
+  }
+
+  private void _writeInt (final int n)
+  {
+    m_aMD.update ((byte) (n >>> 24));
+    m_aMD.update ((byte) (n >>> 16));
+    m_aMD.update ((byte) (n >>> 8));
+    m_aMD.update ((byte) n);
+  }
+
+  private void _writeRawString (@Nonnull final String s)
+  {
+    final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+    _writeInt (aBytes.length);
+    m_aMD.update (aBytes);
+  }
+
+  void writeNull ()
+  {
+    m_aMD.update (TAG_NULL);
+  }
+
+  void writeString (@Nullable final String s)
+  {
+    if (s == null)
+      writeNull ();
+    else
+    {
+      m_aMD.update (TAG_STRING);
+      _writeRawString (s);
+    }
+  }
+
+  void writeBoolean (@Nullable final Boolean a)
+  {
+    if (a == null)
+      writeNull ();
+    else
+    {
+      m_aMD.update (TAG_BOOLEAN);
+      m_aMD.update (a.booleanValue () ? (byte) 1 : (byte) 0);
+    }
+  }
+
+  void writeDecimal (@Nullable final BigDecimal a)
+  {
+    // Same numeric value, same fingerprint - independent of the scale
+    writeString (a == null ? null : a.signum () == 0 ? "0" : a.stripTrailingZeros ().toPlainString ());
+  }
+
+  void writeDate (@Nullable final LocalDate a)
+  {
+    writeString (XSDDateTimeConverter.getAsString (a));
+  }
+
+  void writeTime (@Nullable final LocalTime a)
+  {
+    writeString (XSDDateTimeConverter.getAsString (a));
+  }
+
+  void writeDateTime (@Nullable final LocalDateTime a)
+  {
+    writeString (XSDDateTimeConverter.getAsString (a));
+  }
+
+  void writeID (@Nullable final IHasID <String> a)
+  {
+    writeString (a == null ? null : a.getID ());
+  }
+
+  void writeQName (@Nullable final QName a)
+  {
+    // The prefix is not relevant
+    if (beginObject (a, "QName"))
+    {
+      writeString (a.getNamespaceURI ());
+      writeString (a.getLocalPart ());
+      endObject ();
+    }
+  }
+
+  /**
+   * Start a nested object. Must be closed with {@link #endObject()} if
+   * <code>true</code> is returned.
+   *
+   * @param aObj
+   *        The object to be written. May be <code>null</code>.
+   * @param sType
+   *        The stable type name of the object. May not be <code>null</code>.
+   * @return <code>true</code> if the object is not <code>null</code> and the
+   *         fields must be written, <code>false</code> if a <code>null</code>
+   *         was written.
+   */
+  boolean beginObject (@Nullable final Object aObj, @Nonnull final String sType)
+  {
+    if (aObj == null)
+    {
+      writeNull ();
+      return false;
+    }
+    m_aMD.update (TAG_OBJECT);
+    _writeRawString (sType);
+    return true;
+  }
+
+  void endObject ()
+  {
+    m_aMD.update (TAG_END);
+  }
+
+  <T> void writeList (@Nullable final Collection <? extends T> aList,
+                      @Nonnull final BiConsumer <? super FingerprintDigester, ? super T> aElementWriter)
+  {
+    if (aList == null)
+      writeNull ();
+    else
+    {
+      m_aMD.update (TAG_LIST);
+      _writeInt (aList.size ());
+      for (final T aElement : aList)
+        aElementWriter.accept (this, aElement);
+    }
+  }
+
+  /**
+   * Write a list where the order of the elements is not relevant. Each element
+   * is digested on its own and the element digests are written in ascending
+   * order.
+   *
+   * @param aList
+   *        The list to write. May be <code>null</code>.
+   * @param aDigesterFactory
+   *        The factory for the per-element digesters. May not be
+   *        <code>null</code>.
+   * @param aElementWriter
+   *        The element writer. May not be <code>null</code>.
+   */
+  <T> void writeUnorderedList (@Nullable final Collection <? extends T> aList,
+                               @Nonnull final Supplier <FingerprintDigester> aDigesterFactory,
+                               @Nonnull final BiConsumer <? super FingerprintDigester, ? super T> aElementWriter)
+  {
+    if (aList == null)
+      writeNull ();
+    else
+    {
+      final ICommonsList <byte []> aDigests = new CommonsArrayList <> (aList.size ());
+      for (final T aElement : aList)
+      {
+        final FingerprintDigester aElementDigester = aDigesterFactory.get ();
+        aElementWriter.accept (aElementDigester, aElement);
+        aDigests.add (aElementDigester.digest ());
+      }
+      aDigests.sort (FingerprintDigester::_compareUnsigned);
+
+      m_aMD.update (TAG_UNORDERED_LIST);
+      _writeInt (aDigests.size ());
+      for (final byte [] aDigest : aDigests)
+        m_aMD.update (aDigest);
+    }
+  }
+
+  private static int _compareUnsigned (@Nonnull final byte [] a, @Nonnull final byte [] b)
+  {
+    // All digests have the same length
+    for (int i = 0; i < a.length; ++i)
+    {
+      final int nCmp = (a[i] & 0xff) - (b[i] & 0xff);
+      if (nCmp != 0)
+        return nCmp;
+    }
+    return 0;
+  }
+
+  @Nonnull
+  byte [] digest ()
+  {
+    return m_aMD.digest ();
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.json;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Constants for the JSON representation of the TOOP EDM. These are the field
+ * names shared by {@link EDMJsonWriter} and {@link EDMJsonReader}.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class CEDMJson
+{
+  // Top-level objects
+  public static final String QUERY_DEFINITION = "queryDefinition";
+  public static final String REQUEST_ID = "requestID";
+  public static final String RESPONSE_OPTION = "responseOption";
+  public static final String RESPONSE_STATUS = "responseStatus";
+  public static final String SPECIFICATION_IDENTIFIER = "specificationIdentifier";
+  public static final String ISSUE_DATE_TIME = "issueDateTime";
+  public static final String PROCEDURE = "procedure";
+  public static final String FULLFILLING_REQUIREMENTS = "fullfillingRequirements";
+  public static final String DATA_CONSUMER = "dataConsumer";
+  public static final String DATA_PROVIDER = "dataProvider";
+  public static final String ERROR_PROVIDER = "errorProvider";
+  public static final String CONSENT_TOKEN = "consentToken";
+  public static final String DATASET_IDENTIFIER = "datasetIdentifier";
+  public static final String DATA_SUBJECT_LEGAL_PERSON = "dataSubjectLegalPerson";
+  public static final String DATA_SUBJECT_NATURAL_PERSON = "dataSubjectNaturalPerson";
+  public static final String AUTHORIZED_REPRESENTATIVE = "authorizedRepresentative";
+  public static final String CONCEPTS = "concepts";
+  public static final String DISTRIBUTIONS = "distributions";
+  public static final String DOCUMENT_ID = "documentID";
+  public static final String RESPONSE_OBJECTS = "responseObjects";
+  public static final String REGISTRY_OBJECT_ID = "registryObjectID";
+  public static final String EXCEPTIONS = "exceptions";
+
+  // Localized string
+  public static final String LANG = "lang";
+  public static final String VALUE = "value";
+
+  // Agent, Business and Person
+  public static final String ID = "id";
+  public static final String ID_SCHEME_ID = "idSchemeID";
+  public static final String NAME = "name";
+  public static final String ADDRESS = "address";
+  public static final String LEGAL_ID = "legalID";
+  public static final String LEGAL_ID_SCHEME_ID = "legalIDSchemeID";
+  public static final String LEGAL_NAME = "legalName";
+  public static final String FAMILY_NAME = "familyName";
+  public static final String GIVEN_NAME = "givenName";
+  public static final String GENDER_CODE = "genderCode";
+  public static final String BIRTH_NAME = "birthName";
+  public static final String BIRTH_DATE = "birthDate";
+  public static final String BIRTH_TOWN = "birthTown";
+
+  // Address
+  public static final String FULL_ADDRESS = "fullAddress";
+  public static final String STREET_NAME = "streetName";
+  public static final String BUILDING_NUMBER = "buildingNumber";
+  public static final String TOWN = "town";
+  public static final String POSTAL_CODE = "postalCode";
+  public static final String COUNTRY_CODE = "countryCode";
+
+  // Concept and concept value
+  public static final String CHILDREN = "children";
+  public static final String IDENTIFIER = "identifier";
+  public static final String AMOUNT = "amount";
+  public static final String CURRENCY_ID = "currencyID";
+  public static final String CODE = "code";
+  public static final String DATE = "date";
+  public static final String INDICATOR = "indicator";
+  public static final String MEASURE = "measure";
+  public static final String UNIT_CODE = "unitCode";
+  public static final String NUMERIC = "numeric";
+  public static final String PERIOD = "period";
+  public static final String START_DATE = "startDate";
+  public static final String START_TIME = "startTime";
+  public static final String END_DATE = "endDate";
+  public static final String END_TIME = "endTime";
+  public static final String QUANTITY = "quantity";
+  public static final String TEXT = "text";
+  public static final String TIME = "time";
+  public static final String URI = "uri";
+  public static final String ERROR_CODE = "errorCode";
+
+  // Distribution, Dataset and friends
+  public static final String FORMAT = "format";
+  public static final String MEDIA_TYPE = "mediaType";
+  public static final String DATASET = "dataset";
+  public static final String REPOSITORY_ITEM_REF = "repositoryItemRef";
+  public static final String TITLE = "title";
+  public static final String TITLES = "titles";
+  public static final String LINK = "link";
+  public static final String DESCRIPTIONS = "descriptions";
+  public static final String DISTRIBUTION = "distribution";
+  public static final String DOCUMENT_URI = "documentURI";
+  public static final String DOCUMENT_DESCRIPTIONS = "documentDescriptions";
+  public static final String DOCUMENT_TYPE = "documentType";
+  public static final String CREATOR = "creator";
+  public static final String IDS = "ids";
+  public static final String ISSUED = "issued";
+  public static final String LANGUAGE = "language";
+  public static final String LAST_MODIFIED = "lastModified";
+  public static final String VALID_FROM = "validFrom";
+  public static final String VALID_TO = "validTo";
+  public static final String QUALIFIED_RELATIONS = "qualifiedRelations";
+
+  // Exceptions
+  public static final String EXCEPTION_TYPE = "exceptionType";
+  public static final String SEVERITY = "severity";
+  public static final String ERROR_MESSAGE = "errorMessage";
+  public static final String ERROR_DETAILS = "errorDetails";
+  public static final String TIMESTAMP = "timestamp";
+  public static final String ERROR_ORIGIN = "errorOrigin";
+
+  private CEDMJson ()
+  {}
+}
@@ -0,0 +1,1205 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.namespace.QName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.debug.GlobalDebug;
+import com.helger.commons.io.IHasInputStream;
+import com.helger.commons.io.stream.StreamHelper;
+
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.IEDMTopLevelObject;
+import eu.toop.edm.error.EDMExceptionPojo;
+import eu.toop.edm.error.EEDMExceptionType;
+import eu.toop.edm.error.EToopErrorSeverity;
+import eu.toop.edm.jaxb.cccev.CCCEVRequirementType;
+import eu.toop.edm.model.AddressPojo;
+import eu.toop.edm.model.AgentPojo;
+import eu.toop.edm.model.AmountPojo;
+import eu.toop.edm.model.BusinessPojo;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.ConceptValuePojo;
+import eu.toop.edm.model.DatasetPojo;
+import eu.toop.edm.model.DistributionPojo;
+import eu.toop.edm.model.DocumentReferencePojo;
+import eu.toop.edm.model.EDMInterner;
+import eu.toop.edm.model.EToopDistributionFormat;
+import eu.toop.edm.model.EToopQueryDefinitionType;
+import eu.toop.edm.model.EToopResponseOptionType;
+import eu.toop.edm.model.MeasurePojo;
+import eu.toop.edm.model.PeriodPojo;
+import eu.toop.edm.model.PersonPojo;
+import eu.toop.edm.model.QualifiedRelationPojo;
+import eu.toop.edm.model.QuantityPojo;
+import eu.toop.edm.model.RepositoryItemRefPojo;
+import eu.toop.edm.response.EDMResponsePayloadConcepts;
+import eu.toop.edm.response.IEDMResponsePayloadProvider;
+import eu.toop.edm.response.ResponseDocumentPojo;
+import eu.toop.edm.response.ResponseDocumentReferencePojo;
+import eu.toop.edm.xml.cccev.RequirementMarshaller;
+import eu.toop.regrep.ERegRepResponseStatus;
+import eu.toop.regrep.rim.LocalizedStringType;
+import eu.toop.regrep.slot.SlotHelper;
+
+/**
+ * Streaming JSON reader for the format created by {@link EDMJsonWriter}. The
+ * Jackson token stream is pulled and fed directly into the existing POJO
+ * builders, so no JSON tree is ever created. The order of the fields inside
+ * an object does not matter and unknown fields are skipped.<br>
+ * The convenience read methods return <code>null</code> if the JSON cannot be
+ * parsed or if it does not describe a consistent EDM object, just like the XML
+ * readers.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ * @param <T>
+ *        The EDM object type to be read
+ */
+@Immutable
+public class EDMJsonReader <T extends IEDMTopLevelObject>
+{
+  /**
+   * Internal callback interface to read a single object from a JSON parser.
+   *
+   * @param <T>
+   *        Object type to read
+   */
+  @FunctionalInterface
+  private interface IJsonObjectReader <T>
+  {
+    @Nonnull
+    T read (@Nonnull JsonParser aParser) throws IOException;
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (EDMJsonReader.class);
+
+  private final IJsonObjectReader <T> m_aObjectReader;
+
+  private EDMJsonReader (@Nonnull final IJsonObjectReader <T> aObjectReader)
+  {
+    m_aObjectReader = aObjectReader;
+  }
+
+  /**
+   * Read a single object from the current position of the provided parser.
+   * The parser is not closed.
+   *
+   * @param aParser
+   *        The parser to read from. May not be <code>null</code>.
+   * @return The read object and never <code>null</code>.
+   * @throws IOException
+   *         In case of a JSON syntax error or a structural error
+   * @throws IllegalStateException
+   *         If the read object is not consistent
+   */
+  @Nonnull
+  public T read (@Nonnull final JsonParser aParser) throws IOException
+  {
+    ValueEnforcer.notNull (aParser, "Parser");
+    return m_aObjectReader.read (aParser);
+  }
+
+  @Nullable
+  private T _read (@Nonnull final JsonParser aParser)
+  {
+    try (final JsonParser aRealParser = aParser)
+    {
+      return read (aRealParser);
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      if (GlobalDebug.isDebugMode ())
+        LOGGER.warn ("Error reading the EDM JSON to the target type", ex);
+      else
+        LOGGER.warn ("Error reading the EDM JSON to the target type: " + ex.getMessage ());
+      return null;
+    }
+  }
+
+  /**
+   * Read from the provided input stream. The stream is closed afterwards.
+   *
+   * @param aIS
+   *        The input stream to read from. May be <code>null</code>.
+   * @return <code>null</code> if reading failed.
+   */
+  @Nullable
+  public T read (@Nullable final InputStream aIS)
+  {
+    if (aIS == null)
+      return null;
+    try
+    {
+      return _read (EDMJsonWriter.JSON_FACTORY.createParser (aIS));
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to create JSON parser", ex);
+      return null;
+    }
+    finally
+    {
+      StreamHelper.close (aIS);
+    }
+  }
+
+  /**
+   * Read from the provided input stream provider.
+   *
+   * @param aISP
+   *        The input stream provider to read from. May be <code>null</code>.
+   * @return <code>null</code> if reading failed.
+   */
+  @Nullable
+  public T read (@Nullable final IHasInputStream aISP)
+  {
+    return aISP == null ? null : read (aISP.getInputStream ());
+  }
+
+  /**
+   * Read from the provided byte array.
+   *
+   * @param aBytes
+   *        The UTF-8 encoded JSON bytes to read from. May not be
+   *        <code>null</code>.
+   * @return <code>null</code> if reading failed.
+   */
+  @Nullable
+  public T read (@Nonnull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+    try
+    {
+      return _read (EDMJsonWriter.JSON_FACTORY.createParser (aBytes));
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to create JSON parser", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Read from the provided string.
+   *
+   * @param sJson
+   *        The JSON string to read from. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed.
+   */
+  @Nullable
+  public T read (@Nonnull final String sJson)
+  {
+    ValueEnforcer.notNull (sJson, "JSON");
+    try
+    {
+      return _read (EDMJsonWriter.JSON_FACTORY.createParser (sJson));
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to create JSON parser", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Position the parser on the start of an object, or fail.
+   */
+  private static void _startObject (@Nonnull final JsonParser aParser) throws IOException
+  {
+    JsonToken eToken = aParser.currentToken ();
+    if (eToken == null)
+      eToken = aParser.nextToken ();
+    if (eToken != JsonToken.START_OBJECT)
+      throw new JsonParseException (aParser, "Expected a JSON object but found " + eToken);
+  }
+
+  /**
+   * @return The name of the next field of the current object with the parser
+   *         positioned on its value, or <code>null</code> if the end of the
+   *         object was reached.
+   */
+  @Nullable
+  private static String _nextField (@Nonnull final JsonParser aParser) throws IOException
+  {
+    final JsonToken eToken = aParser.nextToken ();
+    if (eToken == JsonToken.END_OBJECT)
+      return null;
+    if (eToken != JsonToken.FIELD_NAME)
+      throw new JsonParseException (aParser, "Expected a field name but found " + eToken);
+    final String ret = aParser.getCurrentName ();
+    aParser.nextToken ();
+    return ret;
+  }
+
+  @Nullable
+  private static String _string (@Nonnull final JsonParser aParser) throws IOException
+  {
+    final JsonToken eToken = aParser.currentToken ();
+    if (eToken == JsonToken.VALUE_NULL)
+      return null;
+    if (!eToken.isScalarValue ())
+      throw new JsonParseException (aParser, "Expected a scalar value but found " + eToken);
+    return aParser.getText ();
+  }
+
+  @Nullable
+  private static Boolean _boolean (@Nonnull final JsonParser aParser) throws IOException
+  {
+    final JsonToken eToken = aParser.currentToken ();
+    if (eToken == JsonToken.VALUE_NULL)
+      return null;
+    if (eToken == JsonToken.VALUE_TRUE)
+      return Boolean.TRUE;
+    if (eToken == JsonToken.VALUE_FALSE)
+      return Boolean.FALSE;
+    throw new JsonParseException (aParser, "Expected a boolean value but found " + eToken);
+  }
+
+  @Nullable
+  private static BigDecimal _decimal (@Nonnull final JsonParser aParser) throws IOException
+  {
+    final JsonToken eToken = aParser.currentToken ();
+    if (eToken.isNumeric ())
+      return aParser.getDecimalValue ();
+    final String s = _string (aParser);
+    return s == null ? null : new BigDecimal (s);
+  }
+
+  @Nullable
+  private static LocalDate _date (@Nonnull final JsonParser aParser) throws IOException
+  {
+    final String s = _string (aParser);
+    try
+    {
+      return s == null ? null : LocalDate.parse (s);
+    }
+    catch (final DateTimeParseException ex)
+    {
+      throw new JsonParseException (aParser, "Invalid date '" + s + "'", ex);
+    }
+  }
+
+  @Nullable
+  private static LocalTime _time (@Nonnull final JsonParser aParser) throws IOException
+  {
+    final String s = _string (aParser);
+    try
+    {
+      return s == null ? null : LocalTime.parse (s);
+    }
+    catch (final DateTimeParseException ex)
+    {
+      throw new JsonParseException (aParser, "Invalid time '" + s + "'", ex);
+    }
+  }
+
+  @Nullable
+  private static LocalDateTime _dateTime (@Nonnull final JsonParser aParser) throws IOException
+  {
+    final String s = _string (aParser);
+    try
+    {
+      return s == null ? null : LocalDateTime.parse (s);
+    }
+    catch (final DateTimeParseException ex)
+    {
+      throw new JsonParseException (aParser, "Invalid date time '" + s + "'", ex);
+    }
+  }
+
+  @Nonnull
+  private static <U> ICommonsList <U> _array (@Nonnull final JsonParser aParser,
+                                              @Nonnull final IJsonObjectReader <U> aElementReader) throws IOException
+  {
+    final ICommonsList <U> ret = new CommonsArrayList <> ();
+    if (aParser.currentToken () == JsonToken.VALUE_NULL)
+      return ret;
+    if (aParser.currentToken () != JsonToken.START_ARRAY)
+      throw new JsonParseException (aParser, "Expected a JSON array but found " + aParser.currentToken ());
+    while (aParser.nextToken () != JsonToken.END_ARRAY)
+      ret.add (aElementReader.read (aParser));
+    return ret;
+  }
+
+  @Nonnull
+  private static ICommonsList <String> _strings (@Nonnull final JsonParser aParser) throws IOException
+  {
+    return _array (aParser, EDMJsonReader::_string);
+  }
+
+  @Nonnull
+  private static AddressPojo _readAddress (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final AddressPojo.Builder aBuilder = AddressPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.FULL_ADDRESS:
+          aBuilder.fullAddress (_string (aParser));
+          break;
+        case CEDMJson.STREET_NAME:
+          aBuilder.streetName (_string (aParser));
+          break;
+        case CEDMJson.BUILDING_NUMBER:
+          aBuilder.buildingNumber (_string (aParser));
+          break;
+        case CEDMJson.TOWN:
+          aBuilder.town (_string (aParser));
+          break;
+        case CEDMJson.POSTAL_CODE:
+          aBuilder.postalCode (_string (aParser));
+          break;
+        case CEDMJson.COUNTRY_CODE:
+          aBuilder.countryCode (EDMInterner.internCode (_string (aParser)));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static AgentPojo _readAgent (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final AgentPojo.Builder aBuilder = AgentPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.ID:
+          aBuilder.id (_string (aParser));
+          break;
+        case CEDMJson.ID_SCHEME_ID:
+          aBuilder.idSchemeID (_string (aParser));
+          break;
+        case CEDMJson.NAME:
+          aBuilder.name (_string (aParser));
+          break;
+        case CEDMJson.ADDRESS:
+          aBuilder.address (_readAddress (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return EDMInterner.internAgent (aBuilder.build ());
+  }
+
+  @Nonnull
+  private static BusinessPojo _readBusiness (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final BusinessPojo.Builder aBuilder = BusinessPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.LEGAL_ID:
+          aBuilder.legalID (_string (aParser));
+          break;
+        case CEDMJson.LEGAL_ID_SCHEME_ID:
+          aBuilder.legalIDSchemeID (_string (aParser));
+          break;
+        case CEDMJson.ID:
+          aBuilder.id (_string (aParser));
+          break;
+        case CEDMJson.ID_SCHEME_ID:
+          aBuilder.idSchemeID (_string (aParser));
+          break;
+        case CEDMJson.LEGAL_NAME:
+          aBuilder.legalName (_string (aParser));
+          break;
+        case CEDMJson.ADDRESS:
+          aBuilder.address (_readAddress (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static PersonPojo _readPerson (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final PersonPojo.Builder aBuilder = PersonPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.ID:
+          aBuilder.id (_string (aParser));
+          break;
+        case CEDMJson.ID_SCHEME_ID:
+          aBuilder.idSchemeID (_string (aParser));
+          break;
+        case CEDMJson.FAMILY_NAME:
+          aBuilder.familyName (_string (aParser));
+          break;
+        case CEDMJson.GIVEN_NAME:
+          aBuilder.givenName (_string (aParser));
+          break;
+        case CEDMJson.GENDER_CODE:
+          aBuilder.genderCode (_string (aParser));
+          break;
+        case CEDMJson.BIRTH_NAME:
+          aBuilder.birthName (_string (aParser));
+          break;
+        case CEDMJson.BIRTH_DATE:
+          aBuilder.birthDate (_date (aParser));
+          break;
+        case CEDMJson.BIRTH_TOWN:
+          aBuilder.birthTown (_string (aParser));
+          break;
+        case CEDMJson.ADDRESS:
+          aBuilder.address (_readAddress (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static AmountPojo _readAmount (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final AmountPojo.Builder aBuilder = AmountPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.VALUE:
+          aBuilder.value (_decimal (aParser));
+          break;
+        case CEDMJson.CURRENCY_ID:
+          aBuilder.currency (EDMInterner.internCode (_string (aParser)));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static MeasurePojo _readMeasure (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final MeasurePojo.Builder aBuilder = MeasurePojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.VALUE:
+          aBuilder.value (_decimal (aParser));
+          break;
+        case CEDMJson.UNIT_CODE:
+          aBuilder.unitCode (_string (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static QuantityPojo _readQuantity (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final QuantityPojo.Builder aBuilder = QuantityPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.VALUE:
+          aBuilder.value (_decimal (aParser));
+          break;
+        case CEDMJson.UNIT_CODE:
+          aBuilder.unitCode (_string (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static PeriodPojo _readPeriod (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final PeriodPojo.Builder aBuilder = PeriodPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.START_DATE:
+          aBuilder.startDate (_date (aParser));
+          break;
+        case CEDMJson.START_TIME:
+          aBuilder.startTime (_time (aParser));
+          break;
+        case CEDMJson.END_DATE:
+          aBuilder.endDate (_date (aParser));
+          break;
+        case CEDMJson.END_TIME:
+          aBuilder.endTime (_time (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static ConceptValuePojo _readValue (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final ConceptValuePojo.Builder aBuilder = ConceptValuePojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.IDENTIFIER:
+          aBuilder.identifier (_string (aParser));
+          break;
+        case CEDMJson.AMOUNT:
+          aBuilder.amount (_readAmount (aParser));
+          break;
+        case CEDMJson.CODE:
+          aBuilder.code (_string (aParser));
+          break;
+        case CEDMJson.DATE:
+          aBuilder.date (_date (aParser));
+          break;
+        case CEDMJson.INDICATOR:
+          aBuilder.indicator (_boolean (aParser));
+          break;
+        case CEDMJson.MEASURE:
+          aBuilder.measure (_readMeasure (aParser));
+          break;
+        case CEDMJson.NUMERIC:
+          aBuilder.numeric (_decimal (aParser));
+          break;
+        case CEDMJson.PERIOD:
+          aBuilder.period (_readPeriod (aParser));
+          break;
+        case CEDMJson.QUANTITY:
+          aBuilder.quantity (_readQuantity (aParser));
+          break;
+        case CEDMJson.TEXT:
+          aBuilder.text (_strings (aParser));
+          break;
+        case CEDMJson.TIME:
+          aBuilder.time (_time (aParser));
+          break;
+        case CEDMJson.URI:
+          aBuilder.uri (_string (aParser));
+          break;
+        case CEDMJson.ERROR_CODE:
+          aBuilder.errorCode (_string (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static ConceptPojo _readConcept (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final ConceptPojo.Builder aBuilder = ConceptPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.ID:
+          aBuilder.id (_string (aParser));
+          break;
+        case CEDMJson.NAME:
+        {
+          final String sQName = _string (aParser);
+          aBuilder.name (sQName == null ? null : EDMInterner.internQName (QName.valueOf (sQName)));
+          break;
+        }
+        case CEDMJson.VALUE:
+          aBuilder.value (_readValue (aParser));
+          break;
+        case CEDMJson.CHILDREN:
+          aBuilder.children (_array (aParser, EDMJsonReader::_readConcept));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static DistributionPojo _readDistribution (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final DistributionPojo.Builder aBuilder = DistributionPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.FORMAT:
+          aBuilder.format (EToopDistributionFormat.getFromIDOrNull (_string (aParser)));
+          break;
+        case CEDMJson.MEDIA_TYPE:
+          aBuilder.mediaType (_string (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static DocumentReferencePojo _readDocumentReference (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final DocumentReferencePojo.Builder aBuilder = DocumentReferencePojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.DOCUMENT_URI:
+          aBuilder.documentURI (_string (aParser));
+          break;
+        case CEDMJson.DOCUMENT_DESCRIPTIONS:
+          aBuilder.documentDescriptions (_strings (aParser));
+          break;
+        case CEDMJson.DOCUMENT_TYPE:
+          aBuilder.documentType (_string (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static QualifiedRelationPojo _readQualifiedRelation (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final QualifiedRelationPojo.Builder aBuilder = QualifiedRelationPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.DESCRIPTIONS:
+          aBuilder.descriptions (_strings (aParser));
+          break;
+        case CEDMJson.TITLES:
+          aBuilder.titles (_strings (aParser));
+          break;
+        case CEDMJson.IDS:
+          aBuilder.ids (_strings (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static DatasetPojo _readDataset (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final DatasetPojo.Builder aBuilder = DatasetPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.DESCRIPTIONS:
+          aBuilder.descriptions (_strings (aParser));
+          break;
+        case CEDMJson.TITLES:
+          aBuilder.titles (_strings (aParser));
+          break;
+        case CEDMJson.DISTRIBUTION:
+          aBuilder.distribution (_readDocumentReference (aParser));
+          break;
+        case CEDMJson.CREATOR:
+          aBuilder.creator (_readAgent (aParser));
+          break;
+        case CEDMJson.IDS:
+          aBuilder.ids (_strings (aParser));
+          break;
+        case CEDMJson.ISSUED:
+          aBuilder.issued (_dateTime (aParser));
+          break;
+        case CEDMJson.LANGUAGE:
+          aBuilder.language (EDMInterner.internCode (_string (aParser)));
+          break;
+        case CEDMJson.LAST_MODIFIED:
+          aBuilder.lastModified (_dateTime (aParser));
+          break;
+        case CEDMJson.VALID_FROM:
+          aBuilder.validFrom (_date (aParser));
+          break;
+        case CEDMJson.VALID_TO:
+          aBuilder.validTo (_date (aParser));
+          break;
+        case CEDMJson.QUALIFIED_RELATIONS:
+          aBuilder.qualifiedRelations (_array (aParser, EDMJsonReader::_readQualifiedRelation));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static RepositoryItemRefPojo _readRepositoryItemRef (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final RepositoryItemRefPojo.Builder aBuilder = RepositoryItemRefPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.TITLE:
+          aBuilder.title (_string (aParser));
+          break;
+        case CEDMJson.LINK:
+          aBuilder.link (_string (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static LocalizedStringType _readLocalizedString (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    String sLang = null;
+    String sValue = null;
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.LANG:
+          sLang = _string (aParser);
+          break;
+        case CEDMJson.VALUE:
+          sValue = _string (aParser);
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    final LocalizedStringType ret = new LocalizedStringType ();
+    ret.setLang (sLang);
+    ret.setValue (sValue);
+    return ret;
+  }
+
+  @Nonnull
+  private static EDMRequest _readRequest (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+
+    // The builder depends on the query definition, which may be at any
+    // position - so remember the common fields until the end of the object
+    EToopQueryDefinitionType eQueryDefinition = null;
+    String sRequestID = null;
+    EToopResponseOptionType eResponseOption = null;
+    String sSpecificationIdentifier = null;
+    LocalDateTime aIssueDateTime = null;
+    ICommonsList <LocalizedStringType> aProcedure = null;
+    ICommonsList <CCCEVRequirementType> aRequirements = null;
+    AgentPojo aDataConsumer = null;
+    String sConsentToken = null;
+    String sDatasetIdentifier = null;
+    BusinessPojo aDataSubjectLegalPerson = null;
+    PersonPojo aDataSubjectNaturalPerson = null;
+    PersonPojo aAuthorizedRepresentative = null;
+    ICommonsList <ConceptPojo> aConcepts = null;
+    ICommonsList <DistributionPojo> aDistributions = null;
+    String sDocumentID = null;
+
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.QUERY_DEFINITION:
+          eQueryDefinition = EToopQueryDefinitionType.getFromIDOrNull (_string (aParser));
+          break;
+        case CEDMJson.REQUEST_ID:
+          sRequestID = _string (aParser);
+          break;
+        case CEDMJson.RESPONSE_OPTION:
+          eResponseOption = EToopResponseOptionType.getFromIDOrNull (_string (aParser));
+          break;
+        case CEDMJson.SPECIFICATION_IDENTIFIER:
+          sSpecificationIdentifier = _string (aParser);
+          break;
+        case CEDMJson.ISSUE_DATE_TIME:
+          aIssueDateTime = _dateTime (aParser);
+          break;
+        case CEDMJson.PROCEDURE:
+          aProcedure = _array (aParser, EDMJsonReader::_readLocalizedString);
+          break;
+        case CEDMJson.FULLFILLING_REQUIREMENTS:
+        {
+          final RequirementMarshaller aMarshaller = new RequirementMarshaller ();
+          aRequirements = _array (aParser, x -> {
+            final CCCEVRequirementType ret = aMarshaller.read (_string (x));
+            if (ret == null)
+              throw new JsonParseException (x, "Failed to parse embedded Requirement XML");
+            return ret;
+          });
+          break;
+        }
+        case CEDMJson.DATA_CONSUMER:
+          aDataConsumer = _readAgent (aParser);
+          break;
+        case CEDMJson.CONSENT_TOKEN:
+          sConsentToken = _string (aParser);
+          break;
+        case CEDMJson.DATASET_IDENTIFIER:
+          sDatasetIdentifier = _string (aParser);
+          break;
+        case CEDMJson.DATA_SUBJECT_LEGAL_PERSON:
+          aDataSubjectLegalPerson = _readBusiness (aParser);
+          break;
+        case CEDMJson.DATA_SUBJECT_NATURAL_PERSON:
+          aDataSubjectNaturalPerson = _readPerson (aParser);
+          break;
+        case CEDMJson.AUTHORIZED_REPRESENTATIVE:
+          aAuthorizedRepresentative = _readPerson (aParser);
+          break;
+        case CEDMJson.CONCEPTS:
+          aConcepts = _array (aParser, EDMJsonReader::_readConcept);
+          break;
+        case CEDMJson.DISTRIBUTIONS:
+          aDistributions = _array (aParser, EDMJsonReader::_readDistribution);
+          break;
+        case CEDMJson.DOCUMENT_ID:
+          sDocumentID = _string (aParser);
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+
+    if (eQueryDefinition == null)
+      throw new IllegalStateException ("Query Definition must be present");
+
+    final EDMRequest.AbstractBuilder <?> aBuilder;
+    switch (eQueryDefinition)
+    {
+      case CONCEPT:
+        aBuilder = EDMRequest.builderConcept ().concepts (aConcepts);
+        break;
+      case DOCUMENT_BY_DISTRIBUTION:
+        aBuilder = EDMRequest.builderDocumentsByDistribution ().distributions (aDistributions);
+        break;
+      case DOCUMENT_BY_ID:
+        aBuilder = EDMRequest.builderDocumentByID ().documentID (sDocumentID);
+        break;
+      default:
+        throw new IllegalStateException ("Unsupported Query Definition " + eQueryDefinition);
+    }
+    aBuilder.id (sRequestID)
+            .responseOption (eResponseOption)
+            .specificationIdentifier (sSpecificationIdentifier)
+            .issueDateTime (aIssueDateTime)
+            .procedure (aProcedure == null ? null : aProcedure.toArray (new LocalizedStringType [0]))
+            .fullfillingRequirements (aRequirements)
+            .dataConsumer (aDataConsumer)
+            .consentToken (sConsentToken)
+            .datasetIdentifier (sDatasetIdentifier)
+            .authorizedRepresentative (aAuthorizedRepresentative);
+
+    // The builder only keeps the last data subject
+    if (aDataSubjectLegalPerson != null && aDataSubjectNaturalPerson != null)
+      throw new IllegalStateException ("Data Subject MUST be either legal person OR natural person");
+    if (aDataSubjectLegalPerson != null)
+      aBuilder.dataSubject (aDataSubjectLegalPerson);
+    else
+      aBuilder.dataSubject (aDataSubjectNaturalPerson);
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static IEDMResponsePayloadProvider _readResponseObject (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    String sRegistryObjectID = null;
+    ICommonsList <ConceptPojo> aConcepts = null;
+    DatasetPojo aDataset = null;
+    RepositoryItemRefPojo aRepositoryItemRef = null;
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.REGISTRY_OBJECT_ID:
+          sRegistryObjectID = _string (aParser);
+          break;
+        case CEDMJson.CONCEPTS:
+          aConcepts = _array (aParser, EDMJsonReader::_readConcept);
+          break;
+        case CEDMJson.DATASET:
+          aDataset = _readDataset (aParser);
+          break;
+        case CEDMJson.REPOSITORY_ITEM_REF:
+          aRepositoryItemRef = _readRepositoryItemRef (aParser);
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+
+    // The kind of payload is determined by the contained fields
+    if (aConcepts != null)
+      return new EDMResponsePayloadConcepts (sRegistryObjectID, aConcepts);
+    if (aRepositoryItemRef != null)
+      return ResponseDocumentPojo.builder ()
+                                 .registryObjectID (sRegistryObjectID)
+                                 .dataset (aDataset)
+                                 .repositoryItemRef (aRepositoryItemRef)
+                                 .build ();
+    return ResponseDocumentReferencePojo.builder ().registryObjectID (sRegistryObjectID).dataset (aDataset).build ();
+  }
+
+  @Nonnull
+  private static EDMResponse _readResponse (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+
+    // The builder depends on the payload type
+    ERegRepResponseStatus eResponseStatus = null;
+    String sRequestID = null;
+    String sSpecificationIdentifier = null;
+    LocalDateTime aIssueDateTime = null;
+    AgentPojo aDataProvider = null;
+    ICommonsList <IEDMResponsePayloadProvider> aPayloads = null;
+
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.RESPONSE_STATUS:
+          eResponseStatus = ERegRepResponseStatus.getFromIDOrNull (_string (aParser));
+          break;
+        case CEDMJson.REQUEST_ID:
+          sRequestID = _string (aParser);
+          break;
+        case CEDMJson.SPECIFICATION_IDENTIFIER:
+          sSpecificationIdentifier = _string (aParser);
+          break;
+        case CEDMJson.ISSUE_DATE_TIME:
+          aIssueDateTime = _dateTime (aParser);
+          break;
+        case CEDMJson.DATA_PROVIDER:
+          aDataProvider = _readAgent (aParser);
+          break;
+        case CEDMJson.RESPONSE_OBJECTS:
+          aPayloads = _array (aParser, EDMJsonReader::_readResponseObject);
+          break;
+        default:
+          // Response option is implied by the payload
+          aParser.skipChildren ();
+      }
+
+    if (aPayloads == null || aPayloads.isEmpty ())
+      throw new IllegalStateException ("Response Object MUST be present");
+
+    final EDMResponse.AbstractBuilder <?> aBuilder;
+    final IEDMResponsePayloadProvider aFirst = aPayloads.getFirst ();
+    if (aFirst instanceof EDMResponsePayloadConcepts)
+    {
+      if (aPayloads.size () > 1)
+        throw new IllegalStateException ("A Concept response MUST contain exactly one Response Object");
+      aBuilder = EDMResponse.builderConcept ()
+                            .registryObjectID (aFirst.getRegistryObjectID ())
+                            .concepts (((EDMResponsePayloadConcepts) aFirst).concepts ());
+    }
+    else
+      if (aFirst instanceof ResponseDocumentPojo)
+        aBuilder = EDMResponse.builderDocument ()
+                              .responseObjects (aPayloads, x -> _castResponseObject (x, ResponseDocumentPojo.class));
+      else
+        aBuilder = EDMResponse.builderDocumentReference ()
+                              .responseObjects (aPayloads, x -> _castResponseObject (x, ResponseDocumentReferencePojo.class));
+
+    return aBuilder.responseStatus (eResponseStatus)
+                   .requestID (sRequestID)
+                   .specificationIdentifier (sSpecificationIdentifier)
+                   .issueDateTime (aIssueDateTime)
+                   .dataProvider (aDataProvider)
+                   .build ();
+  }
+
+  @Nonnull
+  private static <T extends IEDMResponsePayloadProvider> T _castResponseObject (@Nonnull final IEDMResponsePayloadProvider aPayload,
+                                                                               @Nonnull final Class <T> aClass)
+  {
+    // Also covers a concept payload that is not the first one
+    if (!aClass.isInstance (aPayload))
+      throw new IllegalStateException ("A Document response MUST NOT contain mixed Response Objects");
+    return aClass.cast (aPayload);
+  }
+
+  @Nonnull
+  private static EDMExceptionPojo _readException (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final EDMExceptionPojo.Builder aBuilder = EDMExceptionPojo.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.EXCEPTION_TYPE:
+        {
+          final String sType = _string (aParser);
+          try
+          {
+            aBuilder.exceptionType (sType == null ? null : EEDMExceptionType.valueOf (sType));
+          }
+          catch (final IllegalArgumentException ex)
+          {
+            throw new JsonParseException (aParser, "Invalid exception type '" + sType + "'", ex);
+          }
+          break;
+        }
+        case CEDMJson.SEVERITY:
+          aBuilder.severity (EToopErrorSeverity.getFromIDOrNull (_string (aParser)));
+          break;
+        case CEDMJson.ERROR_MESSAGE:
+          aBuilder.errorMessage (_string (aParser));
+          break;
+        case CEDMJson.ERROR_DETAILS:
+          aBuilder.errorDetail (_string (aParser));
+          break;
+        case CEDMJson.ERROR_CODE:
+          aBuilder.errorCode (_string (aParser));
+          break;
+        case CEDMJson.TIMESTAMP:
+          aBuilder.timestamp (_dateTime (aParser));
+          break;
+        case CEDMJson.ERROR_ORIGIN:
+          aBuilder.errorOrigin (_string (aParser));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static EDMErrorResponse _readErrorResponse (@Nonnull final JsonParser aParser) throws IOException
+  {
+    _startObject (aParser);
+    final EDMErrorResponse.Builder aBuilder = EDMErrorResponse.builder ();
+    String sName;
+    while ((sName = _nextField (aParser)) != null)
+      switch (sName)
+      {
+        case CEDMJson.RESPONSE_STATUS:
+          aBuilder.responseStatus (ERegRepResponseStatus.getFromIDOrNull (_string (aParser)));
+          break;
+        case CEDMJson.REQUEST_ID:
+          aBuilder.requestID (_string (aParser));
+          break;
+        case CEDMJson.SPECIFICATION_IDENTIFIER:
+          aBuilder.specificationIdentifier (_string (aParser));
+          break;
+        case CEDMJson.ERROR_PROVIDER:
+          aBuilder.errorProvider (_readAgent (aParser));
+          break;
+        case CEDMJson.EXCEPTIONS:
+          aBuilder.exceptions (_array (aParser, EDMJsonReader::_readException));
+          break;
+        default:
+          aParser.skipChildren ();
+      }
+    return aBuilder.build ();
+  }
+
+  /**
+   * @return A reader for {@link EDMRequest} objects. Never <code>null</code>.
+   */
+  @Nonnull
+  public static EDMJsonReader <EDMRequest> request ()
+  {
+    return new EDMJsonReader <> (EDMJsonReader::_readRequest);
+  }
+
+  /**
+   * @return A reader for {@link EDMResponse} objects. Never <code>null</code>.
+   */
+  @Nonnull
+  public static EDMJsonReader <EDMResponse> response ()
+  {
+    return new EDMJsonReader <> (EDMJsonReader::_readResponse);
+  }
+
+  /**
+   * @return A reader for {@link EDMErrorResponse} objects. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static EDMJsonReader <EDMErrorResponse> errorResponse ()
+  {
+    return new EDMJsonReader <> (EDMJsonReader::_readErrorResponse);
+  }
+}
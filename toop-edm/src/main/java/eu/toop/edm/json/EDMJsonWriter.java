@@ -0,0 +1,639 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.id.IHasID;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.io.stream.NonBlockingStringWriter;
+
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.IEDMTopLevelObject;
+import eu.toop.edm.error.EDMExceptionPojo;
+import eu.toop.edm.jaxb.cccev.CCCEVRequirementType;
+import eu.toop.edm.model.AddressPojo;
+import eu.toop.edm.model.AgentPojo;
+import eu.toop.edm.model.AmountPojo;
+import eu.toop.edm.model.BusinessPojo;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.ConceptValuePojo;
+import eu.toop.edm.model.DatasetPojo;
+import eu.toop.edm.model.DistributionPojo;
+import eu.toop.edm.model.DocumentReferencePojo;
+import eu.toop.edm.model.MeasurePojo;
+import eu.toop.edm.model.PeriodPojo;
+import eu.toop.edm.model.PersonPojo;
+import eu.toop.edm.model.QualifiedRelationPojo;
+import eu.toop.edm.model.QuantityPojo;
+import eu.toop.edm.model.RepositoryItemRefPojo;
+import eu.toop.edm.request.IEDMRequestPayloadConcepts;
+import eu.toop.edm.request.IEDMRequestPayloadDistribution;
+import eu.toop.edm.request.IEDMRequestPayloadDocumentID;
+import eu.toop.edm.request.IEDMRequestPayloadProvider;
+import eu.toop.edm.response.IEDMResponsePayloadConcepts;
+import eu.toop.edm.response.IEDMResponsePayloadDocument;
+import eu.toop.edm.response.IEDMResponsePayloadDocumentReference;
+import eu.toop.edm.response.IEDMResponsePayloadProvider;
+import eu.toop.edm.xml.cccev.RequirementMarshaller;
+import eu.toop.regrep.rim.InternationalStringType;
+import eu.toop.regrep.rim.LocalizedStringType;
+
+/**
+ * Streaming JSON writer for {@link EDMRequest}, {@link EDMResponse} and
+ * {@link EDMErrorResponse}. The POJOs are walked once and emitted directly to
+ * a Jackson {@link JsonGenerator} - neither a RegRep JAXB tree nor a JSON tree
+ * is created in between.<br>
+ * <code>null</code> fields are omitted. Dates and times use the ISO 8601
+ * representation of <code>java.time</code>, numbers are written as exact
+ * decimals. Fullfilling requirements are not modelled as POJOs and are
+ * therefore embedded as CCCEV XML strings.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+public class EDMJsonWriter
+{
+  /** Jackson factories are thread-safe and expensive to create */
+  static final JsonFactory JSON_FACTORY = new JsonFactory ();
+
+  private boolean m_bFormattedOutput = false;
+
+  public EDMJsonWriter ()
+  {}
+
+  /**
+   * @return <code>true</code> if the output is indented, <code>false</code> if
+   *         not. Default is <code>false</code>.
+   */
+  public final boolean isFormattedOutput ()
+  {
+    return m_bFormattedOutput;
+  }
+
+  /**
+   * Enable or disable the indentation of the output.
+   *
+   * @param bFormattedOutput
+   *        <code>true</code> to indent the output.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final EDMJsonWriter setFormattedOutput (final boolean bFormattedOutput)
+  {
+    m_bFormattedOutput = bFormattedOutput;
+    return this;
+  }
+
+  @Nonnull
+  private JsonGenerator _configure (@Nonnull final JsonGenerator aGen)
+  {
+    if (m_bFormattedOutput)
+      aGen.useDefaultPrettyPrinter ();
+    return aGen;
+  }
+
+  /**
+   * Write the provided object to the provided output stream using UTF-8. The
+   * stream is not closed.
+   *
+   * @param aObj
+   *        The object to write. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         on write error
+   */
+  public void write (@Nonnull final IEDMTopLevelObject aObj, @Nonnull final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    try (final JsonGenerator aGen = _configure (JSON_FACTORY.createGenerator (aOS, JsonEncoding.UTF8)
+                                                            .disable (JsonGenerator.Feature.AUTO_CLOSE_TARGET)))
+    {
+      write (aObj, aGen);
+    }
+  }
+
+  /**
+   * Write the provided object to the provided writer. The writer is not
+   * closed.
+   *
+   * @param aObj
+   *        The object to write. May not be <code>null</code>.
+   * @param aWriter
+   *        The writer to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         on write error
+   */
+  public void write (@Nonnull final IEDMTopLevelObject aObj, @Nonnull final Writer aWriter) throws IOException
+  {
+    ValueEnforcer.notNull (aWriter, "Writer");
+    try (final JsonGenerator aGen = _configure (JSON_FACTORY.createGenerator (aWriter)
+                                                            .disable (JsonGenerator.Feature.AUTO_CLOSE_TARGET)))
+    {
+      write (aObj, aGen);
+    }
+  }
+
+  /**
+   * @param aObj
+   *        The object to write. May not be <code>null</code>.
+   * @return The UTF-8 encoded JSON bytes. Never <code>null</code>.
+   */
+  @Nonnull
+  public byte [] getAsBytes (@Nonnull final IEDMTopLevelObject aObj)
+  {
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+    {
+      write (aObj, aBAOS);
+      return aBAOS.toByteArray ();
+    }
+    catch (final IOException ex)
+    {
+      throw new UncheckedIOException (ex);
+    }
+  }
+
+  /**
+   * @param aObj
+   *        The object to write. May not be <code>null</code>.
+   * @return The JSON string. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getAsString (@Nonnull final IEDMTopLevelObject aObj)
+  {
+    try (final NonBlockingStringWriter aSW = new NonBlockingStringWriter ())
+    {
+      write (aObj, aSW);
+      return aSW.getAsString ();
+    }
+    catch (final IOException ex)
+    {
+      throw new UncheckedIOException (ex);
+    }
+  }
+
+  /**
+   * Write the provided object to the provided generator. This is the
+   * lowest-level write method, the generator is neither flushed nor closed.
+   *
+   * @param aObj
+   *        The object to write. Must be one of {@link EDMRequest},
+   *        {@link EDMResponse} or {@link EDMErrorResponse}.
+   * @param aGen
+   *        The generator to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         on write error
+   */
+  public void write (@Nonnull final IEDMTopLevelObject aObj, @Nonnull final JsonGenerator aGen) throws IOException
+  {
+    ValueEnforcer.notNull (aObj, "Object");
+    ValueEnforcer.notNull (aGen, "Generator");
+
+    if (aObj instanceof EDMRequest)
+      writeRequest ((EDMRequest) aObj, aGen);
+    else
+      if (aObj instanceof EDMResponse)
+        writeResponse ((EDMResponse) aObj, aGen);
+      else
+        if (aObj instanceof EDMErrorResponse)
+          writeErrorResponse ((EDMErrorResponse) aObj, aGen);
+        else
+          throw new IllegalArgumentException ("Unsupported top-level object " + aObj);
+  }
+
+  private static void _string (@Nonnull final JsonGenerator aGen,
+                               @Nonnull final String sName,
+                               @Nullable final String sValue) throws IOException
+  {
+    if (sValue != null)
+      aGen.writeStringField (sName, sValue);
+  }
+
+  private static void _id (@Nonnull final JsonGenerator aGen,
+                           @Nonnull final String sName,
+                           @Nullable final IHasID <String> aValue) throws IOException
+  {
+    if (aValue != null)
+      aGen.writeStringField (sName, aValue.getID ());
+  }
+
+  private static void _toString (@Nonnull final JsonGenerator aGen,
+                                 @Nonnull final String sName,
+                                 @Nullable final Object aValue) throws IOException
+  {
+    // For the java.time types
+    if (aValue != null)
+      aGen.writeStringField (sName, aValue.toString ());
+  }
+
+  private static void _number (@Nonnull final JsonGenerator aGen,
+                               @Nonnull final String sName,
+                               @Nullable final BigDecimal aValue) throws IOException
+  {
+    if (aValue != null)
+      aGen.writeNumberField (sName, aValue);
+  }
+
+  private static void _strings (@Nonnull final JsonGenerator aGen,
+                                @Nonnull final String sName,
+                                @Nonnull final List <String> aValues) throws IOException
+  {
+    if (!aValues.isEmpty ())
+    {
+      aGen.writeArrayFieldStart (sName);
+      for (final String s : aValues)
+        aGen.writeString (s);
+      aGen.writeEndArray ();
+    }
+  }
+
+  private static void _writeAddress (@Nonnull final JsonGenerator aGen,
+                                     @Nonnull final String sName,
+                                     @Nullable final AddressPojo a) throws IOException
+  {
+    if (a != null)
+    {
+      aGen.writeObjectFieldStart (sName);
+      _string (aGen, CEDMJson.FULL_ADDRESS, a.getFullAddress ());
+      _string (aGen, CEDMJson.STREET_NAME, a.getStreetName ());
+      _string (aGen, CEDMJson.BUILDING_NUMBER, a.getBuildingNumber ());
+      _string (aGen, CEDMJson.TOWN, a.getTown ());
+      _string (aGen, CEDMJson.POSTAL_CODE, a.getPostalCode ());
+      _string (aGen, CEDMJson.COUNTRY_CODE, a.getCountryCode ());
+      aGen.writeEndObject ();
+    }
+  }
+
+  private static void _writeAgent (@Nonnull final JsonGenerator aGen, @Nonnull final String sName, @Nullable final AgentPojo a) throws IOException
+  {
+    if (a != null)
+    {
+      aGen.writeObjectFieldStart (sName);
+      _string (aGen, CEDMJson.ID, a.getID ());
+      _string (aGen, CEDMJson.ID_SCHEME_ID, a.getIDSchemeID ());
+      _string (aGen, CEDMJson.NAME, a.getName ());
+      _writeAddress (aGen, CEDMJson.ADDRESS, a.getAddress ());
+      aGen.writeEndObject ();
+    }
+  }
+
+  private static void _writeBusiness (@Nonnull final JsonGenerator aGen,
+                                      @Nonnull final String sName,
+                                      @Nullable final BusinessPojo a) throws IOException
+  {
+    if (a != null)
+    {
+      aGen.writeObjectFieldStart (sName);
+      _string (aGen, CEDMJson.LEGAL_ID, a.getLegalID ());
+      _string (aGen, CEDMJson.LEGAL_ID_SCHEME_ID, a.getLegalIDSchemeID ());
+      _string (aGen, CEDMJson.ID, a.getID ());
+      _string (aGen, CEDMJson.ID_SCHEME_ID, a.getIDSchemeID ());
+      _string (aGen, CEDMJson.LEGAL_NAME, a.getLegalName ());
+      _writeAddress (aGen, CEDMJson.ADDRESS, a.getAddress ());
+      aGen.writeEndObject ();
+    }
+  }
+
+  private static void _writePerson (@Nonnull final JsonGenerator aGen,
+                                    @Nonnull final String sName,
+                                    @Nullable final PersonPojo a) throws IOException
+  {
+    if (a != null)
+    {
+      aGen.writeObjectFieldStart (sName);
+      _string (aGen, CEDMJson.ID, a.getID ());
+      _string (aGen, CEDMJson.ID_SCHEME_ID, a.getIDSchemeID ());
+      _string (aGen, CEDMJson.FAMILY_NAME, a.getFamilyName ());
+      _string (aGen, CEDMJson.GIVEN_NAME, a.getGivenName ());
+      _string (aGen, CEDMJson.GENDER_CODE, a.getGenderCode ());
+      _string (aGen, CEDMJson.BIRTH_NAME, a.getBirthName ());
+      _toString (aGen, CEDMJson.BIRTH_DATE, a.getBirthDate ());
+      _string (aGen, CEDMJson.BIRTH_TOWN, a.getBirthTown ());
+      _writeAddress (aGen, CEDMJson.ADDRESS, a.getAddress ());
+      aGen.writeEndObject ();
+    }
+  }
+
+  private static void _writeValue (@Nonnull final JsonGenerator aGen, @Nonnull final ConceptValuePojo a) throws IOException
+  {
+    aGen.writeObjectFieldStart (CEDMJson.VALUE);
+    _string (aGen, CEDMJson.IDENTIFIER, a.getIdentifier ());
+    final AmountPojo aAmount = a.getAmount ();
+    if (aAmount != null)
+    {
+      aGen.writeObjectFieldStart (CEDMJson.AMOUNT);
+      _number (aGen, CEDMJson.VALUE, aAmount.getValue ());
+      _string (aGen, CEDMJson.CURRENCY_ID, aAmount.getCurrencyID ());
+      aGen.writeEndObject ();
+    }
+    _string (aGen, CEDMJson.CODE, a.getCode ());
+    _toString (aGen, CEDMJson.DATE, a.getDate ());
+    if (a.getBoolean () != null)
+      aGen.writeBooleanField (CEDMJson.INDICATOR, a.getBoolean ().booleanValue ());
+    final MeasurePojo aMeasure = a.getMeasure ();
+    if (aMeasure != null)
+    {
+      aGen.writeObjectFieldStart (CEDMJson.MEASURE);
+      _number (aGen, CEDMJson.VALUE, aMeasure.getValue ());
+      _string (aGen, CEDMJson.UNIT_CODE, aMeasure.getUnitCode ());
+      aGen.writeEndObject ();
+    }
+    _number (aGen, CEDMJson.NUMERIC, a.getNumeric ());
+    final PeriodPojo aPeriod = a.getPeriod ();
+    if (aPeriod != null)
+    {
+      aGen.writeObjectFieldStart (CEDMJson.PERIOD);
+      _toString (aGen, CEDMJson.START_DATE, aPeriod.getStartDate ());
+      _toString (aGen, CEDMJson.START_TIME, aPeriod.getStartTime ());
+      _toString (aGen, CEDMJson.END_DATE, aPeriod.getEndDate ());
+      _toString (aGen, CEDMJson.END_TIME, aPeriod.getEndTime ());
+      aGen.writeEndObject ();
+    }
+    final QuantityPojo aQuantity = a.getQuantity ();
+    if (aQuantity != null)
+    {
+      aGen.writeObjectFieldStart (CEDMJson.QUANTITY);
+      _number (aGen, CEDMJson.VALUE, aQuantity.getValue ());
+      _string (aGen, CEDMJson.UNIT_CODE, aQuantity.getUnitCode ());
+      aGen.writeEndObject ();
+    }
+    _strings (aGen, CEDMJson.TEXT, a.text ());
+    _toString (aGen, CEDMJson.TIME, a.getTime ());
+    _string (aGen, CEDMJson.URI, a.getURI ());
+    _string (aGen, CEDMJson.ERROR_CODE, a.getErrorCode ());
+    aGen.writeEndObject ();
+  }
+
+  private static void _writeConcept (@Nonnull final JsonGenerator aGen, @Nonnull final ConceptPojo a) throws IOException
+  {
+    aGen.writeStartObject ();
+    _string (aGen, CEDMJson.ID, a.getID ());
+    // QName in the "{namespaceURI}localName" notation
+    _toString (aGen, CEDMJson.NAME, a.getName ());
+    if (a.hasValue ())
+      _writeValue (aGen, a.getValue ());
+    if (a.children ().isNotEmpty ())
+    {
+      aGen.writeArrayFieldStart (CEDMJson.CHILDREN);
+      for (final ConceptPojo aChild : a.children ())
+        _writeConcept (aGen, aChild);
+      aGen.writeEndArray ();
+    }
+    aGen.writeEndObject ();
+  }
+
+  private static void _writeConcepts (@Nonnull final JsonGenerator aGen, @Nonnull final List <ConceptPojo> aConcepts) throws IOException
+  {
+    aGen.writeArrayFieldStart (CEDMJson.CONCEPTS);
+    for (final ConceptPojo aConcept : aConcepts)
+      _writeConcept (aGen, aConcept);
+    aGen.writeEndArray ();
+  }
+
+  private static void _writeDocumentReference (@Nonnull final JsonGenerator aGen, @Nullable final DocumentReferencePojo a) throws IOException
+  {
+    if (a != null)
+    {
+      aGen.writeObjectFieldStart (CEDMJson.DISTRIBUTION);
+      _string (aGen, CEDMJson.DOCUMENT_URI, a.getDocumentURI ());
+      _strings (aGen, CEDMJson.DOCUMENT_DESCRIPTIONS, a.documentDescriptions ());
+      _string (aGen, CEDMJson.DOCUMENT_TYPE, a.getDocumentType ());
+      aGen.writeEndObject ();
+    }
+  }
+
+  private static void _writeQualifiedRelation (@Nonnull final JsonGenerator aGen, @Nonnull final QualifiedRelationPojo a) throws IOException
+  {
+    aGen.writeStartObject ();
+    _strings (aGen, CEDMJson.DESCRIPTIONS, a.descriptions ());
+    _strings (aGen, CEDMJson.TITLES, a.titles ());
+    _strings (aGen, CEDMJson.IDS, a.ids ());
+    aGen.writeEndObject ();
+  }
+
+  private static void _writeDataset (@Nonnull final JsonGenerator aGen, @Nonnull final DatasetPojo a) throws IOException
+  {
+    aGen.writeObjectFieldStart (CEDMJson.DATASET);
+    _strings (aGen, CEDMJson.DESCRIPTIONS, a.descriptions ());
+    _strings (aGen, CEDMJson.TITLES, a.titles ());
+    _writeDocumentReference (aGen, a.getDistribution ());
+    _writeAgent (aGen, CEDMJson.CREATOR, a.getCreator ());
+    _strings (aGen, CEDMJson.IDS, a.ids ());
+    _toString (aGen, CEDMJson.ISSUED, a.getIssuedDT ());
+    _string (aGen, CEDMJson.LANGUAGE, a.getLanguage ());
+    _toString (aGen, CEDMJson.LAST_MODIFIED, a.getLastModifiedDT ());
+    _toString (aGen, CEDMJson.VALID_FROM, a.getValidFrom ());
+    _toString (aGen, CEDMJson.VALID_TO, a.getValidTo ());
+    if (!a.qualifiedRelations ().isEmpty ())
+    {
+      aGen.writeArrayFieldStart (CEDMJson.QUALIFIED_RELATIONS);
+      for (final QualifiedRelationPojo aQR : a.qualifiedRelations ())
+        _writeQualifiedRelation (aGen, aQR);
+      aGen.writeEndArray ();
+    }
+    aGen.writeEndObject ();
+  }
+
+  /**
+   * Write a single {@link EDMRequest} as a JSON object.
+   *
+   * @param aRequest
+   *        The request to write. May not be <code>null</code>.
+   * @param aGen
+   *        The generator to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         on write error
+   */
+  public static void writeRequest (@Nonnull final EDMRequest aRequest, @Nonnull final JsonGenerator aGen) throws IOException
+  {
+    aGen.writeStartObject ();
+    _id (aGen, CEDMJson.QUERY_DEFINITION, aRequest.getQueryDefinition ());
+    _string (aGen, CEDMJson.REQUEST_ID, aRequest.getRequestID ());
+    _id (aGen, CEDMJson.RESPONSE_OPTION, aRequest.getResponseOption ());
+    _string (aGen, CEDMJson.SPECIFICATION_IDENTIFIER, aRequest.getSpecificationIdentifier ());
+    _toString (aGen, CEDMJson.ISSUE_DATE_TIME, aRequest.getIssueDateTime ());
+
+    final InternationalStringType aProcedure = aRequest.getProcedure ();
+    if (aProcedure != null)
+    {
+      aGen.writeArrayFieldStart (CEDMJson.PROCEDURE);
+      for (final LocalizedStringType aLS : aProcedure.getLocalizedString ())
+      {
+        aGen.writeStartObject ();
+        _string (aGen, CEDMJson.LANG, aLS.getLang ());
+        _string (aGen, CEDMJson.VALUE, aLS.getValue ());
+        aGen.writeEndObject ();
+      }
+      aGen.writeEndArray ();
+    }
+
+    final List <CCCEVRequirementType> aRequirements = aRequest.fullfillingRequirements ();
+    if (!aRequirements.isEmpty ())
+    {
+      final RequirementMarshaller aMarshaller = new RequirementMarshaller ();
+      aGen.writeArrayFieldStart (CEDMJson.FULLFILLING_REQUIREMENTS);
+      for (final CCCEVRequirementType aRequirement : aRequirements)
+        aGen.writeString (aMarshaller.getAsString (aRequirement));
+      aGen.writeEndArray ();
+    }
+
+    _writeAgent (aGen, CEDMJson.DATA_CONSUMER, aRequest.getDataConsumer ());
+    _string (aGen, CEDMJson.CONSENT_TOKEN, aRequest.getConsentToken ());
+    _string (aGen, CEDMJson.DATASET_IDENTIFIER, aRequest.getDatasetIdentifier ());
+    _writeBusiness (aGen, CEDMJson.DATA_SUBJECT_LEGAL_PERSON, aRequest.getDataSubjectLegalPerson ());
+    _writePerson (aGen, CEDMJson.DATA_SUBJECT_NATURAL_PERSON, aRequest.getDataSubjectNaturalPerson ());
+    _writePerson (aGen, CEDMJson.AUTHORIZED_REPRESENTATIVE, aRequest.getAuthorizedRepresentative ());
+
+    final IEDMRequestPayloadProvider aPayload = aRequest.getPayloadProvider ();
+    if (aPayload instanceof IEDMRequestPayloadConcepts)
+      _writeConcepts (aGen, ((IEDMRequestPayloadConcepts) aPayload).concepts ());
+    else
+      if (aPayload instanceof IEDMRequestPayloadDistribution)
+      {
+        aGen.writeArrayFieldStart (CEDMJson.DISTRIBUTIONS);
+        for (final DistributionPojo aDistribution : ((IEDMRequestPayloadDistribution) aPayload).distributions ())
+        {
+          aGen.writeStartObject ();
+          _id (aGen, CEDMJson.FORMAT, aDistribution.getFormat ());
+          _string (aGen, CEDMJson.MEDIA_TYPE, aDistribution.getMediaType ());
+          aGen.writeEndObject ();
+        }
+        aGen.writeEndArray ();
+      }
+      else
+        if (aPayload instanceof IEDMRequestPayloadDocumentID)
+          _string (aGen, CEDMJson.DOCUMENT_ID, ((IEDMRequestPayloadDocumentID) aPayload).getDocumentID ());
+    aGen.writeEndObject ();
+  }
+
+  /**
+   * Write a single {@link EDMResponse} as a JSON object.
+   *
+   * @param aResponse
+   *        The response to write. May not be <code>null</code>.
+   * @param aGen
+   *        The generator to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         on write error
+   */
+  public static void writeResponse (@Nonnull final EDMResponse aResponse, @Nonnull final JsonGenerator aGen) throws IOException
+  {
+    aGen.writeStartObject ();
+    _id (aGen, CEDMJson.RESPONSE_OPTION, aResponse.getResponseOption ());
+    _id (aGen, CEDMJson.RESPONSE_STATUS, aResponse.getResponseStatus ());
+    _string (aGen, CEDMJson.REQUEST_ID, aResponse.getRequestID ());
+    _string (aGen, CEDMJson.SPECIFICATION_IDENTIFIER, aResponse.getSpecificationIdentifier ());
+    _toString (aGen, CEDMJson.ISSUE_DATE_TIME, aResponse.getIssueDateTime ());
+    _writeAgent (aGen, CEDMJson.DATA_PROVIDER, aResponse.getDataProvider ());
+
+    aGen.writeArrayFieldStart (CEDMJson.RESPONSE_OBJECTS);
+    for (final IEDMResponsePayloadProvider aPayload : aResponse.payloadProviders ())
+    {
+      aGen.writeStartObject ();
+      _string (aGen, CEDMJson.REGISTRY_OBJECT_ID, aPayload.getRegistryObjectID ());
+      if (aPayload instanceof IEDMResponsePayloadConcepts)
+        _writeConcepts (aGen, ((IEDMResponsePayloadConcepts) aPayload).concepts ());
+      else
+        if (aPayload instanceof IEDMResponsePayloadDocument)
+        {
+          final IEDMResponsePayloadDocument aDoc = (IEDMResponsePayloadDocument) aPayload;
+          _writeDataset (aGen, aDoc.getDataset ());
+          final RepositoryItemRefPojo aRef = aDoc.getRepositoryItemRef ();
+          aGen.writeObjectFieldStart (CEDMJson.REPOSITORY_ITEM_REF);
+          _string (aGen, CEDMJson.TITLE, aRef.getTitle ());
+          _string (aGen, CEDMJson.LINK, aRef.getLink ());
+          aGen.writeEndObject ();
+        }
+        else
+          if (aPayload instanceof IEDMResponsePayloadDocumentReference)
+            _writeDataset (aGen, ((IEDMResponsePayloadDocumentReference) aPayload).getDataset ());
+      aGen.writeEndObject ();
+    }
+    aGen.writeEndArray ();
+    aGen.writeEndObject ();
+  }
+
+  /**
+   * Write a single {@link EDMErrorResponse} as a JSON object.
+   *
+   * @param aErrorResponse
+   *        The error response to write. May not be <code>null</code>.
+   * @param aGen
+   *        The generator to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         on write error
+   */
+  public static void writeErrorResponse (@Nonnull final EDMErrorResponse aErrorResponse, @Nonnull final JsonGenerator aGen) throws IOException
+  {
+    aGen.writeStartObject ();
+    _id (aGen, CEDMJson.RESPONSE_STATUS, aErrorResponse.getResponseStatus ());
+    _string (aGen, CEDMJson.REQUEST_ID, aErrorResponse.getRequestID ());
+    _string (aGen, CEDMJson.SPECIFICATION_IDENTIFIER, aErrorResponse.getSpecificationIdentifier ());
+    _writeAgent (aGen, CEDMJson.ERROR_PROVIDER, aErrorResponse.getErrorProvider ());
+
+    aGen.writeArrayFieldStart (CEDMJson.EXCEPTIONS);
+    for (final EDMExceptionPojo aEx : aErrorResponse.exceptions ())
+    {
+      aGen.writeStartObject ();
+      if (aEx.getExceptionType () != null)
+        aGen.writeStringField (CEDMJson.EXCEPTION_TYPE, aEx.getExceptionType ().name ());
+      _id (aGen, CEDMJson.SEVERITY, aEx.getSeverity ());
+      _string (aGen, CEDMJson.ERROR_MESSAGE, aEx.getErrorMessage ());
+      _string (aGen, CEDMJson.ERROR_DETAILS, aEx.getErrorDetails ());
+      _string (aGen, CEDMJson.ERROR_CODE, aEx.getErrorCode ());
+      _toString (aGen, CEDMJson.TIMESTAMP, aEx.getTimestamp ());
+      _string (aGen, CEDMJson.ERROR_ORIGIN, aEx.getErrorOrigin ());
+      aGen.writeEndObject ();
+    }
+    aGen.writeEndArray ();
+    aGen.writeEndObject ();
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.mapping;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.equals.EqualsHelper;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.string.ToStringGenerator;
+
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.EConceptValueType;
+
+/**
+ * The mapping of a single record field to the value of the concept with a
+ * certain path. Amounts, measures and quantities may have an additional field
+ * for the currency or unit code.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class ConceptFieldMapping
+{
+  private final ConceptPath m_aPath;
+  private final String m_sField;
+  private final EConceptValueType m_eType;
+  private final String m_sUnitField;
+
+  public ConceptFieldMapping (@Nonnull final ConceptPath aPath,
+                              @Nonnull @Nonempty final String sField,
+                              @Nonnull final EConceptValueType eType,
+                              @Nullable final String sUnitField)
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    ValueEnforcer.notEmpty (sField, "Field");
+    ValueEnforcer.notNull (eType, "Type");
+    if (sUnitField != null)
+      ValueEnforcer.isTrue (eType == EConceptValueType.AMOUNT ||
+                            eType == EConceptValueType.MEASURE ||
+                            eType == EConceptValueType.QUANTITY,
+                            () -> "A unit field is only supported for amounts, measures and quantities but not for " + eType);
+    m_aPath = aPath;
+    m_sField = sField;
+    m_eType = eType;
+    m_sUnitField = sUnitField;
+  }
+
+  /**
+   * @return The path of the concept that has the value. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ConceptPath getPath ()
+  {
+    return m_aPath;
+  }
+
+  /**
+   * @return The name of the record field with the value. Neither
+   *         <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public String getField ()
+  {
+    return m_sField;
+  }
+
+  /**
+   * @return The concept value type. Never <code>null</code>.
+   */
+  @Nonnull
+  public EConceptValueType getType ()
+  {
+    return m_eType;
+  }
+
+  /**
+   * @return The name of the record field with the currency or unit code. May
+   *         be <code>null</code>.
+   */
+  @Nullable
+  public String getUnitField ()
+  {
+    return m_sUnitField;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final ConceptFieldMapping rhs = (ConceptFieldMapping) o;
+    return m_aPath.equals (rhs.m_aPath) &&
+           m_sField.equals (rhs.m_sField) &&
+           m_eType.equals (rhs.m_eType) &&
+           EqualsHelper.equals (m_sUnitField, rhs.m_sUnitField);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_aPath).append (m_sField).append (m_eType).append (m_sUnitField).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Path", m_aPath)
+                                       .append ("Field", m_sField)
+                                       .append ("Type", m_eType)
+                                       .appendIfNotNull ("UnitField", m_sUnitField)
+                                       .getToString ();
+  }
+}
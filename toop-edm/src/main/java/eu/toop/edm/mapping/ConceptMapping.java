@@ -0,0 +1,218 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.mapping;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.namespace.QName;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.string.ToStringGenerator;
+
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.EConceptValueType;
+
+/**
+ * A declarative mapping between flat records (field name to value) and concept
+ * trees. Each {@link ConceptFieldMapping} maps one record field to the value of
+ * the concept with a certain path. All paths must start with the same root
+ * concept name. Use {@link #compile()} to create the plan that performs the
+ * actual conversions.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class ConceptMapping
+{
+  /** The default ID factory creates random UUIDs */
+  public static final Supplier <String> DEFAULT_ID_FACTORY = () -> UUID.randomUUID ().toString ();
+
+  private final ICommonsList <ConceptFieldMapping> m_aFields;
+  private final Supplier <String> m_aIDFactory;
+
+  private ConceptMapping (@Nonnull @Nonempty final ICommonsList <ConceptFieldMapping> aFields, @Nonnull final Supplier <String> aIDFactory)
+  {
+    m_aFields = aFields;
+    m_aIDFactory = aIDFactory;
+  }
+
+  /**
+   * @return The name of the root concept. Never <code>null</code>.
+   */
+  @Nonnull
+  public QName getRootName ()
+  {
+    return m_aFields.getFirst ().getPath ().getSegmentAtIndex (0);
+  }
+
+  /**
+   * @return All field mappings in declaration order. Never <code>null</code>
+   *         nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  @ReturnsMutableCopy
+  public ICommonsList <ConceptFieldMapping> getAllFields ()
+  {
+    return m_aFields.getClone ();
+  }
+
+  /**
+   * @return The factory for the IDs of the created concepts. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public Supplier <String> getIDFactory ()
+  {
+    return m_aIDFactory;
+  }
+
+  /**
+   * Compile this mapping into a plan. All structural decisions are made here
+   * once, so that the plan only needs to walk precomputed arrays.
+   *
+   * @return The compiled plan. Never <code>null</code>.
+   */
+  @Nonnull
+  public ConceptMappingPlan compile ()
+  {
+    return new ConceptMappingPlan (this);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Fields", m_aFields).getToString ();
+  }
+
+  @Nonnull
+  public static Builder builder ()
+  {
+    return new Builder ();
+  }
+
+  /**
+   * A builder for this class
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static class Builder
+  {
+    private final ICommonsList <ConceptFieldMapping> m_aFields = new CommonsArrayList <> ();
+    private Supplier <String> m_aIDFactory = DEFAULT_ID_FACTORY;
+
+    public Builder ()
+    {}
+
+    /**
+     * Set the factory for the IDs of the created concepts. It is invoked
+     * concurrently when converting batches.
+     *
+     * @param a
+     *        The thread-safe ID factory. May be <code>null</code>.
+     * @return this for chaining
+     */
+    @Nonnull
+    public Builder idFactory (@Nullable final Supplier <String> a)
+    {
+      m_aIDFactory = a;
+      return this;
+    }
+
+    @Nonnull
+    public Builder field (@Nonnull final ConceptPath aPath, @Nonnull @Nonempty final String sField, @Nonnull final EConceptValueType eType)
+    {
+      return field (aPath, sField, eType, null);
+    }
+
+    @Nonnull
+    public Builder field (@Nonnull final ConceptPath aPath,
+                          @Nonnull @Nonempty final String sField,
+                          @Nonnull final EConceptValueType eType,
+                          @Nullable final String sUnitField)
+    {
+      return field (new ConceptFieldMapping (aPath, sField, eType, sUnitField));
+    }
+
+    @Nonnull
+    public Builder field (@Nullable final ConceptFieldMapping a)
+    {
+      if (a != null)
+        m_aFields.add (a);
+      return this;
+    }
+
+    public void checkConsistency ()
+    {
+      if (m_aFields.isEmpty ())
+        throw new IllegalStateException ("At least one field mapping must be present");
+      if (m_aIDFactory == null)
+        throw new IllegalStateException ("An ID factory must be present");
+
+      final QName aRootName = m_aFields.getFirst ().getPath ().getSegmentAtIndex (0);
+      final ICommonsSet <ConceptPath> aPaths = new CommonsHashSet <> ();
+      for (final ConceptFieldMapping aField : m_aFields)
+      {
+        if (!aRootName.equals (aField.getPath ().getSegmentAtIndex (0)))
+          throw new IllegalStateException ("All field mappings must have the same root concept " +
+                                           aRootName +
+                                           " but " +
+                                           aField +
+                                           " has not");
+        if (!aPaths.add (aField.getPath ()))
+          throw new IllegalStateException ("The concept path " + aField.getPath () + " is mapped more than once");
+      }
+    }
+
+    @Nonnull
+    public ConceptMapping build ()
+    {
+      checkConsistency ();
+      return new ConceptMapping (m_aFields.getClone (), m_aIDFactory);
+    }
+  }
+}
@@ -0,0 +1,368 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.mapping;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.namespace.QName;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.string.ToStringGenerator;
+
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.ConceptValuePojo;
+
+/**
+ * The compiled form of a {@link ConceptMapping}. The concept structure is
+ * resolved into a tree of nodes with precomputed names, child arrays and field
+ * indices, so converting a record only walks arrays.<br>
+ * Records are either maps from field name to value, or rows, which are arrays
+ * with the values in the order of {@link #getAllFieldNames()}. Rows need no
+ * field lookup at all. Text values are read as a list of Strings, so that
+ * records with several texts per field survive the round trip.<br>
+ * When creating concepts, concepts that have neither a value nor a child
+ * concept with a value are omitted (except for the root concept). When reading
+ * concepts, the first concept with a mapped path wins. Instances are
+ * immutable and may be used concurrently.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class ConceptMappingPlan
+{
+  private static final int NO_INDEX = -1;
+
+  private static final class Node
+  {
+    private final QName m_aName;
+    private final Node [] m_aChildren;
+    private final ConceptValueCodec m_aCodec;
+    private final int m_nValueIndex;
+    private final int m_nUnitIndex;
+
+    Node (@Nonnull final QName aName,
+          @Nonnull final Node [] aChildren,
+          @Nullable final ConceptValueCodec aCodec,
+          final int nValueIndex,
+          final int nUnitIndex)
+    {
+      m_aName = aName;
+      m_aChildren = aChildren;
+      m_aCodec = aCodec;
+      m_nValueIndex = nValueIndex;
+      m_nUnitIndex = nUnitIndex;
+    }
+  }
+
+  private final ConceptMapping m_aMapping;
+  private final String [] m_aFieldNames;
+  private final Supplier <String> m_aIDFactory;
+  private final Node m_aRoot;
+
+  ConceptMappingPlan (@Nonnull final ConceptMapping aMapping)
+  {
+    m_aMapping = aMapping;
+    m_aIDFactory = aMapping.getIDFactory ();
+
+    // Assign the field indices in declaration order
+    final ICommonsOrderedMap <String, Integer> aFieldIndices = new CommonsLinkedHashMap <> ();
+    final ICommonsList <ConceptFieldMapping> aFields = aMapping.getAllFields ();
+    for (final ConceptFieldMapping aField : aFields)
+    {
+      aFieldIndices.computeIfAbsent (aField.getField (), k -> Integer.valueOf (aFieldIndices.size ()));
+      if (aField.getUnitField () != null)
+        aFieldIndices.computeIfAbsent (aField.getUnitField (), k -> Integer.valueOf (aFieldIndices.size ()));
+    }
+    m_aFieldNames = aFieldIndices.copyOfKeySet ().toArray (new String [0]);
+
+    m_aRoot = _compile (ConceptPath.of (aMapping.getRootName ()), aFields, aFieldIndices);
+  }
+
+  @Nonnull
+  private static Node _compile (@Nonnull final ConceptPath aPath,
+                                @Nonnull final ICommonsList <ConceptFieldMapping> aFields,
+                                @Nonnull final Map <String, Integer> aFieldIndices)
+  {
+    // The mapping of this node, and the distinct child names in declaration
+    // order. Only done once, so the quadratic effort does not matter.
+    ConceptFieldMapping aOwn = null;
+    final ICommonsList <QName> aChildNames = new CommonsArrayList <> ();
+    final int nDepth = aPath.getSegmentCount ();
+    for (final ConceptFieldMapping aField : aFields)
+    {
+      final ConceptPath aFieldPath = aField.getPath ();
+      if (aFieldPath.equals (aPath))
+        aOwn = aField;
+      else
+        if (aFieldPath.startsWith (aPath))
+        {
+          final QName aChildName = aFieldPath.getSegmentAtIndex (nDepth);
+          if (!aChildNames.contains (aChildName))
+            aChildNames.add (aChildName);
+        }
+    }
+
+    final Node [] aChildren = new Node [aChildNames.size ()];
+    for (int i = 0; i < aChildren.length; ++i)
+      aChildren[i] = _compile (aPath.getChildPath (aChildNames.get (i)), aFields, aFieldIndices);
+
+    if (aOwn == null)
+      return new Node (aPath.getLastSegment (), aChildren, null, NO_INDEX, NO_INDEX);
+    return new Node (aPath.getLastSegment (),
+                     aChildren,
+                     ConceptValueCodec.create (aOwn),
+                     aFieldIndices.get (aOwn.getField ()).intValue (),
+                     aOwn.getUnitField () == null ? NO_INDEX : aFieldIndices.get (aOwn.getUnitField ()).intValue ());
+  }
+
+  /**
+   * @return The mapping this plan was compiled from. Never <code>null</code>.
+   */
+  @Nonnull
+  public ConceptMapping getMapping ()
+  {
+    return m_aMapping;
+  }
+
+  /**
+   * @return The number of distinct record fields, including the unit fields.
+   */
+  @Nonnegative
+  public int getFieldCount ()
+  {
+    return m_aFieldNames.length;
+  }
+
+  /**
+   * @return The names of all record fields, including the unit fields, in the
+   *         order used for rows. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllFieldNames ()
+  {
+    return new CommonsArrayList <> (m_aFieldNames);
+  }
+
+  @Nullable
+  private ConceptPojo _createConcept (@Nonnull final Node aNode, @Nonnull final Object [] aRow, final boolean bIsRoot)
+  {
+    ICommonsList <ConceptPojo> aChildren = null;
+    for (final Node aChildNode : aNode.m_aChildren)
+    {
+      final ConceptPojo aChild = _createConcept (aChildNode, aRow, false);
+      if (aChild != null)
+      {
+        if (aChildren == null)
+          aChildren = new CommonsArrayList <> (aNode.m_aChildren.length);
+        aChildren.add (aChild);
+      }
+    }
+
+    ConceptValuePojo aValue = null;
+    if (aNode.m_aCodec != null)
+      aValue = aNode.m_aCodec.toValue (aRow[aNode.m_nValueIndex], aNode.m_nUnitIndex == NO_INDEX ? null : aRow[aNode.m_nUnitIndex]);
+
+    if (aValue == null && aChildren == null && !bIsRoot)
+      return null;
+    return new ConceptPojo (m_aIDFactory.get (), aNode.m_aName, aValue, aChildren);
+  }
+
+  /**
+   * Create a concept tree from a row.
+   *
+   * @param aRow
+   *        The row with the values in the order of {@link #getAllFieldNames()}.
+   *        May not be <code>null</code>.
+   * @return The root concept. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the row has the wrong length or a value cannot be converted
+   */
+  @Nonnull
+  public ConceptPojo toConcept (@Nonnull final Object [] aRow)
+  {
+    ValueEnforcer.notNull (aRow, "Row");
+    ValueEnforcer.isTrue (aRow.length == m_aFieldNames.length,
+                          () -> "The row must have " + m_aFieldNames.length + " values but has " + aRow.length);
+    return _createConcept (m_aRoot, aRow, true);
+  }
+
+  /**
+   * Create a concept tree from a record.
+   *
+   * @param aRecord
+   *        The record from field name to value. Missing fields are handled like
+   *        <code>null</code> values. May not be <code>null</code>.
+   * @return The root concept. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a value cannot be converted
+   */
+  @Nonnull
+  public ConceptPojo toConcept (@Nonnull final Map <String, ?> aRecord)
+  {
+    ValueEnforcer.notNull (aRecord, "Record");
+    final Object [] aRow = new Object [m_aFieldNames.length];
+    for (int i = 0; i < aRow.length; ++i)
+      aRow[i] = aRecord.get (m_aFieldNames[i]);
+    return _createConcept (m_aRoot, aRow, true);
+  }
+
+  private static void _readConcept (@Nonnull final Node aNode, @Nonnull final ConceptPojo aConcept, @Nonnull final Object [] aRow)
+  {
+    final ConceptValuePojo aValue = aConcept.getValue ();
+    if (aNode.m_aCodec != null && aValue != null && aRow[aNode.m_nValueIndex] == null)
+    {
+      aRow[aNode.m_nValueIndex] = aNode.m_aCodec.getValue (aValue);
+      if (aNode.m_nUnitIndex != NO_INDEX)
+        aRow[aNode.m_nUnitIndex] = aNode.m_aCodec.getUnit (aValue);
+    }
+
+    if (aNode.m_aChildren.length > 0)
+    {
+      final List <ConceptPojo> aChildren = aConcept.children ();
+      for (final ConceptPojo aChild : aChildren)
+      {
+        final QName aChildName = aChild.getName ();
+        for (final Node aChildNode : aNode.m_aChildren)
+          if (aChildNode.m_aName.equals (aChildName))
+          {
+            _readConcept (aChildNode, aChild, aRow);
+            break;
+          }
+      }
+    }
+  }
+
+  /**
+   * Read a row from a concept tree. Concepts that are not mapped are ignored.
+   *
+   * @param aRootConcept
+   *        The root concept. Its name must be the root name of the mapping. May
+   *        not be <code>null</code>.
+   * @return The row with the values in the order of {@link #getAllFieldNames()}.
+   *         Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the root concept has a different name
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public Object [] toRow (@Nonnull final ConceptPojo aRootConcept)
+  {
+    ValueEnforcer.notNull (aRootConcept, "RootConcept");
+    ValueEnforcer.isTrue (m_aRoot.m_aName.equals (aRootConcept.getName ()),
+                          () -> "The root concept must be " + m_aRoot.m_aName + " but is " + aRootConcept.getName ());
+    final Object [] ret = new Object [m_aFieldNames.length];
+    _readConcept (m_aRoot, aRootConcept, ret);
+    return ret;
+  }
+
+  /**
+   * Read a record from a concept tree. Concepts that are not mapped are
+   * ignored.
+   *
+   * @param aRootConcept
+   *        The root concept. Its name must be the root name of the mapping. May
+   *        not be <code>null</code>.
+   * @return The record with all field names in the order of
+   *         {@link #getAllFieldNames()}. Values of fields without a concept are
+   *         <code>null</code>. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the root concept has a different name
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsOrderedMap <String, Object> toRecord (@Nonnull final ConceptPojo aRootConcept)
+  {
+    final Object [] aRow = toRow (aRootConcept);
+    final ICommonsOrderedMap <String, Object> ret = new CommonsLinkedHashMap <> (aRow.length);
+    for (int i = 0; i < aRow.length; ++i)
+      ret.put (m_aFieldNames[i], aRow[i]);
+    return ret;
+  }
+
+  /**
+   * Convert many records in parallel.
+   *
+   * @param aRecords
+   *        The records to convert. May not be <code>null</code>.
+   * @return The root concepts in the order of the records. Never
+   *         <code>null</code>.
+   * @see #toConcept(Map)
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ConceptPojo> toConcepts (@Nonnull final Collection <? extends Map <String, ?>> aRecords)
+  {
+    ValueEnforcer.notNull (aRecords, "Records");
+    return aRecords.parallelStream ().map (this::toConcept).collect (Collectors.toCollection (CommonsArrayList::new));
+  }
+
+  /**
+   * Convert many concept trees in parallel.
+   *
+   * @param aRootConcepts
+   *        The root concepts to convert. May not be <code>null</code>.
+   * @return The records in the order of the concepts. Never
+   *         <code>null</code>.
+   * @see #toRecord(ConceptPojo)
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ICommonsOrderedMap <String, Object>> toRecords (@Nonnull final Collection <? extends ConceptPojo> aRootConcepts)
+  {
+    ValueEnforcer.notNull (aRootConcepts, "RootConcepts");
+    return aRootConcepts.parallelStream ().map (this::toRecord).collect (Collectors.toCollection (CommonsArrayList::new));
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Mapping", m_aMapping).getToString ();
+  }
+}
@@ -0,0 +1,324 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.mapping;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.string.StringParser;
+
+import eu.toop.edm.model.AmountPojo;
+import eu.toop.edm.model.ConceptValuePojo;
+import eu.toop.edm.model.MeasurePojo;
+import eu.toop.edm.model.PeriodPojo;
+import eu.toop.edm.model.QuantityPojo;
+
+/**
+ * Converts between record field values and {@link ConceptValuePojo} for a
+ * single field mapping. The conversion functions are selected once when the
+ * plan is compiled.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+final class ConceptValueCodec
+{
+  private final BiFunction <Object, Object, ConceptValuePojo> m_aToValue;
+  private final Function <ConceptValuePojo, Object> m_aGetValue;
+  private final Function <ConceptValuePojo, String> m_aGetUnit;
+
+  private ConceptValueCodec (@Nonnull final BiFunction <Object, Object, ConceptValuePojo> aToValue,
+                             @Nonnull final Function <ConceptValuePojo, Object> aGetValue,
+                             @Nullable final Function <ConceptValuePojo, String> aGetUnit)
+  {
+    m_aToValue = aToValue;
+    m_aGetValue = aGetValue;
+    m_aGetUnit = aGetUnit;
+  }
+
+  @Nonnull
+  private static IllegalArgumentException _unsupported (@Nonnull final String sField,
+                                                        @Nonnull final Object aValue,
+                                                        @Nonnull final String sExpected)
+  {
+    return new IllegalArgumentException ("The value of field '" +
+                                         sField +
+                                         "' must be a " +
+                                         sExpected +
+                                         " but is a " +
+                                         aValue.getClass ().getName ());
+  }
+
+  @Nonnull
+  private static IllegalArgumentException _unsupported (@Nonnull final String sField,
+                                                        @Nonnull final String sValue,
+                                                        @Nonnull final String sExpected,
+                                                        @Nonnull final RuntimeException aCause)
+  {
+    return new IllegalArgumentException ("The value of field '" + sField + "' must be a " + sExpected + " but is '" + sValue + "'",
+                                         aCause);
+  }
+
+  @Nonnull
+  private static BigDecimal _parseBigDecimal (@Nonnull final String sField, @Nonnull final String sValue)
+  {
+    try
+    {
+      return new BigDecimal (sValue);
+    }
+    catch (final NumberFormatException ex)
+    {
+      throw _unsupported (sField, sValue, "number", ex);
+    }
+  }
+
+  @Nonnull
+  private static BigDecimal _toBigDecimal (@Nonnull final String sField, @Nonnull final Object aValue)
+  {
+    if (aValue instanceof BigDecimal)
+      return (BigDecimal) aValue;
+    if (aValue instanceof BigInteger)
+      return new BigDecimal ((BigInteger) aValue);
+    if (aValue instanceof Long || aValue instanceof Integer || aValue instanceof Short || aValue instanceof Byte)
+      return BigDecimal.valueOf (((Number) aValue).longValue ());
+    // The shortest decimal representation, so that 0.1f stays 0.1
+    if (aValue instanceof Float || aValue instanceof Double)
+      return _parseBigDecimal (sField, aValue.toString ());
+    if (aValue instanceof Number)
+      return BigDecimal.valueOf (((Number) aValue).doubleValue ());
+    if (aValue instanceof String)
+      return _parseBigDecimal (sField, (String) aValue);
+    throw _unsupported (sField, aValue, "number");
+  }
+
+  @Nonnull
+  private static Boolean _toBoolean (@Nonnull final String sField, @Nonnull final Object aValue)
+  {
+    if (aValue instanceof Boolean)
+      return (Boolean) aValue;
+    if (aValue instanceof String)
+    {
+      final Boolean ret = StringParser.parseBoolObj (aValue);
+      if (ret != null)
+        return ret;
+    }
+    throw _unsupported (sField, aValue, "boolean");
+  }
+
+  @Nonnull
+  private static LocalDate _toDate (@Nonnull final String sField, @Nonnull final Object aValue)
+  {
+    if (aValue instanceof LocalDate)
+      return (LocalDate) aValue;
+    if (aValue instanceof LocalDateTime)
+      return ((LocalDateTime) aValue).toLocalDate ();
+    if (aValue instanceof String)
+      try
+      {
+        return LocalDate.parse ((String) aValue);
+      }
+      catch (final DateTimeParseException ex)
+      {
+        throw _unsupported (sField, (String) aValue, "date", ex);
+      }
+    throw _unsupported (sField, aValue, "date");
+  }
+
+  @Nonnull
+  private static LocalTime _toTime (@Nonnull final String sField, @Nonnull final Object aValue)
+  {
+    if (aValue instanceof LocalTime)
+      return (LocalTime) aValue;
+    if (aValue instanceof String)
+      try
+      {
+        return LocalTime.parse ((String) aValue);
+      }
+      catch (final DateTimeParseException ex)
+      {
+        throw _unsupported (sField, (String) aValue, "time", ex);
+      }
+    throw _unsupported (sField, aValue, "time");
+  }
+
+  @Nonnull
+  private static <T> T _cast (@Nonnull final String sField, @Nonnull final Object aValue, @Nonnull final Class <T> aClass)
+  {
+    if (aClass.isInstance (aValue))
+      return aClass.cast (aValue);
+    throw _unsupported (sField, aValue, aClass.getSimpleName ());
+  }
+
+  @Nullable
+  private static String _toUnit (@Nullable final Object aUnit)
+  {
+    return aUnit == null ? null : aUnit.toString ();
+  }
+
+  /**
+   * @param aValue
+   *        The record value. May be <code>null</code>.
+   * @param aUnit
+   *        The record unit value. May be <code>null</code>.
+   * @return <code>null</code> if the record value is <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the record value cannot be converted
+   */
+  @Nullable
+  public ConceptValuePojo toValue (@Nullable final Object aValue, @Nullable final Object aUnit)
+  {
+    return aValue == null ? null : m_aToValue.apply (aValue, aUnit);
+  }
+
+  public boolean hasUnit ()
+  {
+    return m_aGetUnit != null;
+  }
+
+  @Nullable
+  public Object getValue (@Nonnull final ConceptValuePojo aValue)
+  {
+    return m_aGetValue.apply (aValue);
+  }
+
+  @Nullable
+  public String getUnit (@Nonnull final ConceptValuePojo aValue)
+  {
+    return m_aGetUnit == null ? null : m_aGetUnit.apply (aValue);
+  }
+
+  @Nonnull
+  public static ConceptValueCodec create (@Nonnull final ConceptFieldMapping aMapping)
+  {
+    final String sField = aMapping.getField ();
+    final boolean bWithUnit = aMapping.getUnitField () != null;
+    final ConceptValueCodec ret;
+    switch (aMapping.getType ())
+    {
+      case IDENTIFIER:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().identifier (v.toString ()).build (),
+                                     ConceptValuePojo::getIdentifier,
+                                     null);
+        break;
+      case CODE:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().code (v.toString ()).build (), ConceptValuePojo::getCode, null);
+        break;
+      case URI:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().uri (v.toString ()).build (), ConceptValuePojo::getURI, null);
+        break;
+      case ERROR_CODE:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().errorCode (v.toString ()).build (),
+                                     ConceptValuePojo::getErrorCode,
+                                     null);
+        break;
+      case TEXT:
+        ret = new ConceptValueCodec ((v, u) -> {
+          if (v instanceof Iterable <?>)
+            return ConceptValuePojo.builder ().text (new CommonsArrayList <> ((Iterable <?>) v, Object::toString)).build ();
+          return ConceptValuePojo.builder ().text (v.toString ()).build ();
+        }, x -> x.text ().isEmpty () ? null : x.getAllTexts (), null);
+        break;
+      case NUMERIC:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().numeric (_toBigDecimal (sField, v)).build (),
+                                     ConceptValuePojo::getNumeric,
+                                     null);
+        break;
+      case INDICATOR:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().indicator (_toBoolean (sField, v)).build (),
+                                     ConceptValuePojo::getBoolean,
+                                     null);
+        break;
+      case DATE:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().date (_toDate (sField, v)).build (),
+                                     ConceptValuePojo::getDate,
+                                     null);
+        break;
+      case TIME:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().time (_toTime (sField, v)).build (),
+                                     ConceptValuePojo::getTime,
+                                     null);
+        break;
+      case PERIOD:
+        ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().period (_cast (sField, v, PeriodPojo.class)).build (),
+                                     ConceptValuePojo::getPeriod,
+                                     null);
+        break;
+      case AMOUNT:
+        if (bWithUnit)
+          ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().amount (_toBigDecimal (sField, v), _toUnit (u)).build (),
+                                       x -> x.getAmount () == null ? null : x.getAmount ().getValue (),
+                                       x -> x.getAmount () == null ? null : x.getAmount ().getCurrencyID ());
+        else
+          ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().amount (_cast (sField, v, AmountPojo.class)).build (),
+                                       ConceptValuePojo::getAmount,
+                                       null);
+        break;
+      case MEASURE:
+        if (bWithUnit)
+          ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().measure (_toBigDecimal (sField, v), _toUnit (u)).build (),
+                                       x -> x.getMeasure () == null ? null : x.getMeasure ().getValue (),
+                                       x -> x.getMeasure () == null ? null : x.getMeasure ().getUnitCode ());
+        else
+          ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().measure (_cast (sField, v, MeasurePojo.class)).build (),
+                                       ConceptValuePojo::getMeasure,
+                                       null);
+        break;
+      case QUANTITY:
+        if (bWithUnit)
+          ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().quantity (_toBigDecimal (sField, v), _toUnit (u)).build (),
+                                       x -> x.getQuantity () == null ? null : x.getQuantity ().getValue (),
+                                       x -> x.getQuantity () == null ? null : x.getQuantity ().getUnitCode ());
+        else
+          ret = new ConceptValueCodec ((v, u) -> ConceptValuePojo.builder ().quantity (_cast (sField, v, QuantityPojo.class)).build (),
+                                       ConceptValuePojo::getQuantity,
+                                       null);
+        break;
+      default:
+        throw new IllegalArgumentException ("Unsupported value type " + aMapping.getType ());
+    }
+    return ret;
+  }
+}
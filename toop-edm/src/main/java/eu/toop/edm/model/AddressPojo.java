@@ -40,6 +40,7 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
 
@@ -66,6 +67,9 @@ public class AddressPojo
   private final String m_sPostalCode;
   private final String m_sCountryCode;
 
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
+
   public AddressPojo (@Nullable final String sFullAddress,
                       @Nullable final String sStreetName,
                       @Nullable final String sBuildingNumber,
@@ -243,13 +247,16 @@ public class AddressPojo
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_sFullAddress)
-                                       .append (m_sStreetName)
-                                       .append (m_sBuildingNumber)
-                                       .append (m_sTown)
-                                       .append (m_sPostalCode)
-                                       .append (m_sCountryCode)
-                                       .getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_sFullAddress)
+                                                      .append (m_sStreetName)
+                                                      .append (m_sBuildingNumber)
+                                                      .append (m_sTown)
+                                                      .append (m_sPostalCode)
+                                                      .append (m_sCountryCode)
+                                                      .getHashCode ();
+    return ret;
   }
 
   @Override
@@ -287,7 +294,7 @@ public class AddressPojo
       if (a.hasAddressPostCodeEntries ())
         ret.postalCode (a.getAddressPostCodeAtIndex (0).getValue ());
       if (a.hasAddressAdminUnitLocationOneEntries ())
-        ret.countryCode (a.getAddressAdminUnitLocationOneAtIndex (0).getValue ());
+        ret.countryCode (EDMInterner.internCode (a.getAddressAdminUnitLocationOneAtIndex (0).getValue ()));
     }
     return ret;
   }
@@ -303,7 +310,7 @@ public class AddressPojo
          .buildingNumber (a.getLocatorDesignator ())
          .town (a.getPostName ())
          .postalCode (a.getPostCode ())
-         .countryCode (a.getAdminUnitLevel1 ());
+         .countryCode (EDMInterner.internCode (a.getAdminUnitLevel1 ()));
     }
     return ret;
   }
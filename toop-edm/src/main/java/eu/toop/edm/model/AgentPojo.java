@@ -42,6 +42,7 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
 
@@ -64,6 +65,9 @@ public class AgentPojo
   private final String m_sName;
   private final AddressPojo m_aAddress;
 
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
+
   public AgentPojo (@Nullable final String sID,
                     @Nullable final String sIDSchemeID,
                     @Nullable final String sName,
@@ -146,7 +150,10 @@ public class AgentPojo
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_sID).append (m_sIDSchemeID).append (m_sName).append (m_aAddress).getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_sID).append (m_sIDSchemeID).append (m_sName).append (m_aAddress).getHashCode ();
+    return ret;
   }
 
   @Override
@@ -131,7 +131,7 @@ public class AmountPojo
   {
     final Builder ret = new Builder ();
     if (a != null)
-      ret.value (a.getValue ()).currency (a.getCurrencyID ());
+      ret.value (a.getValue ()).currency (EDMInterner.internCode (a.getCurrencyID ()));
     return ret;
   }
 
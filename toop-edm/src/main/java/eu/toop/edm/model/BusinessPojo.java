@@ -42,6 +42,7 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
 
@@ -65,6 +66,9 @@ public class BusinessPojo
   private final String m_sLegalName;
   private final AddressPojo m_aAddress;
 
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
+
   public BusinessPojo (@Nullable final String sLegalID,
                        @Nullable final String sLegalIDSchemeID,
                        @Nullable final String sID,
@@ -166,13 +170,16 @@ public class BusinessPojo
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_sLegalID)
-                                       .append (m_sLegalIDSchemeID)
-                                       .append (m_sID)
-                                       .append (m_sIDSchemeID)
-                                       .append (m_sLegalName)
-                                       .append (m_aAddress)
-                                       .getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_sLegalID)
+                                                      .append (m_sLegalIDSchemeID)
+                                                      .append (m_sID)
+                                                      .append (m_sIDSchemeID)
+                                                      .append (m_sLegalName)
+                                                      .append (m_aAddress)
+                                                      .getHashCode ();
+    return ret;
   }
 
   @Override
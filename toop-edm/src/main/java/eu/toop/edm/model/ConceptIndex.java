@@ -0,0 +1,357 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.namespace.QName;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsImmutableObject;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * An immutable lookup index over a {@link ConceptPojo} tree. It is built once
+ * in a single pass and afterwards resolves concept paths and concept names to
+ * concepts and their values in constant time, instead of traversing the tree
+ * for every lookup. Path expressions (see {@link ConceptPathExpression})
+ * without wildcards are resolved in constant time as well, all others are
+ * matched against the distinct paths of the tree.<br>
+ * All results are in document order. Concepts without a name are not indexed,
+ * neither are their children. As {@link ConceptPojo} is immutable, the index
+ * stays valid for the lifetime of the tree.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class ConceptIndex
+{
+  private final ConceptPojo m_aRoot;
+  // All indexed concepts in document order, with their paths
+  private final ICommonsList <ConceptPojo> m_aNodes;
+  private final ICommonsList <ConceptPath> m_aNodePaths;
+  private final ICommonsOrderedMap <ConceptPath, ICommonsList <ConceptPojo>> m_aByPath;
+  private final ICommonsMap <QName, ICommonsList <ConceptPojo>> m_aByName;
+
+  private ConceptIndex (@Nonnull final ConceptPojo aRoot)
+  {
+    m_aRoot = aRoot;
+    m_aNodes = new CommonsArrayList <> ();
+    m_aNodePaths = new CommonsArrayList <> ();
+    m_aByPath = new CommonsLinkedHashMap <> ();
+    m_aByName = new CommonsHashMap <> ();
+
+    ConceptTraversal.ALL.forEachWithPath (aRoot, (aPath, aConcept) -> {
+      m_aNodes.add (aConcept);
+      m_aNodePaths.add (aPath);
+      m_aByPath.computeIfAbsent (aPath, k -> new CommonsArrayList <> ()).add (aConcept);
+      m_aByName.computeIfAbsent (aConcept.getName (), k -> new CommonsArrayList <> ()).add (aConcept);
+    });
+  }
+
+  /**
+   * @return The root concept this index was built for. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ConceptPojo getRoot ()
+  {
+    return m_aRoot;
+  }
+
+  /**
+   * @return The number of indexed concepts, including the root. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getConceptCount ()
+  {
+    return m_aNodes.size ();
+  }
+
+  /**
+   * @return All distinct paths of the tree in document order. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsImmutableObject
+  public Set <ConceptPath> paths ()
+  {
+    return Collections.unmodifiableSet (m_aByPath.keySet ());
+  }
+
+  public boolean containsPath (@Nullable final ConceptPath aPath)
+  {
+    return aPath != null && m_aByPath.containsKey (aPath);
+  }
+
+  /**
+   * @param aPath
+   *        The path to resolve. May be <code>null</code>.
+   * @return All concepts with the provided path in document order. Never
+   *         <code>null</code> but maybe empty.
+   */
+  @Nonnull
+  @ReturnsImmutableObject
+  public List <ConceptPojo> getAll (@Nullable final ConceptPath aPath)
+  {
+    final ICommonsList <ConceptPojo> ret = aPath == null ? null : m_aByPath.get (aPath);
+    return ret == null ? Collections.emptyList () : ret.getAsUnmodifiable ();
+  }
+
+  /**
+   * @param aPath
+   *        The path to resolve. May be <code>null</code>.
+   * @return The first concept with the provided path in document order or
+   *         <code>null</code> if there is none.
+   */
+  @Nullable
+  public ConceptPojo getFirst (@Nullable final ConceptPath aPath)
+  {
+    final ICommonsList <ConceptPojo> ret = aPath == null ? null : m_aByPath.get (aPath);
+    return ret == null ? null : ret.getFirst ();
+  }
+
+  /**
+   * @param aPath
+   *        The path to resolve. May be <code>null</code>.
+   * @return The value of the first concept with the provided path or
+   *         <code>null</code> if there is no such concept or if it has no
+   *         value.
+   */
+  @Nullable
+  public ConceptValuePojo getFirstValue (@Nullable final ConceptPath aPath)
+  {
+    final ConceptPojo aConcept = getFirst (aPath);
+    return aConcept == null ? null : aConcept.getValue ();
+  }
+
+  /**
+   * @param aName
+   *        The concept name to search. May be <code>null</code>.
+   * @return All concepts with the provided name at any level in document
+   *         order. Never <code>null</code> but maybe empty.
+   */
+  @Nonnull
+  @ReturnsImmutableObject
+  public List <ConceptPojo> getAllByName (@Nullable final QName aName)
+  {
+    final ICommonsList <ConceptPojo> ret = aName == null ? null : m_aByName.get (aName);
+    return ret == null ? Collections.emptyList () : ret.getAsUnmodifiable ();
+  }
+
+  @Nonnull
+  @ReturnsImmutableObject
+  public List <ConceptPojo> getAllByName (@Nullable final IConceptName aName)
+  {
+    return getAllByName (aName == null ? null : aName.getAsQName ());
+  }
+
+  /**
+   * @param aName
+   *        The concept name to search. May be <code>null</code>.
+   * @return The first concept with the provided name at any level in document
+   *         order or <code>null</code> if there is none.
+   */
+  @Nullable
+  public ConceptPojo getFirstByName (@Nullable final QName aName)
+  {
+    final ICommonsList <ConceptPojo> ret = aName == null ? null : m_aByName.get (aName);
+    return ret == null ? null : ret.getFirst ();
+  }
+
+  @Nullable
+  public ConceptPojo getFirstByName (@Nullable final IConceptName aName)
+  {
+    return getFirstByName (aName == null ? null : aName.getAsQName ());
+  }
+
+  /**
+   * @param aName
+   *        The concept name to search. May be <code>null</code>.
+   * @return The value of the first concept with the provided name or
+   *         <code>null</code> if there is no such concept or if it has no
+   *         value.
+   */
+  @Nullable
+  public ConceptValuePojo getFirstValueByName (@Nullable final QName aName)
+  {
+    final ConceptPojo aConcept = getFirstByName (aName);
+    return aConcept == null ? null : aConcept.getValue ();
+  }
+
+  @Nullable
+  public ConceptValuePojo getFirstValueByName (@Nullable final IConceptName aName)
+  {
+    return getFirstValueByName (aName == null ? null : aName.getAsQName ());
+  }
+
+  /**
+   * Find all concepts selected by the provided expression.
+   *
+   * @param aExpression
+   *        The expression to evaluate. May not be <code>null</code>.
+   * @return All matching concepts in document order. Never <code>null</code>
+   *         but maybe empty.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ConceptPojo> findAll (@Nonnull final ConceptPathExpression aExpression)
+  {
+    ValueEnforcer.notNull (aExpression, "Expression");
+
+    final ConceptPath aExactPath = aExpression.getExactPath ();
+    if (aExactPath != null)
+    {
+      final ICommonsList <ConceptPojo> aMatches = m_aByPath.get (aExactPath);
+      return aMatches == null ? new CommonsArrayList <> () : aMatches.getClone ();
+    }
+
+    // Match each distinct path only once
+    final ICommonsMap <ConceptPath, Boolean> aMatchingPaths = new CommonsHashMap <> ();
+    for (final ConceptPath aPath : m_aByPath.keySet ())
+      aMatchingPaths.put (aPath, Boolean.valueOf (aExpression.matches (aPath)));
+
+    final ICommonsList <ConceptPojo> ret = new CommonsArrayList <> ();
+    for (int i = 0; i < m_aNodes.size (); ++i)
+      if (aMatchingPaths.get (m_aNodePaths.get (i)).booleanValue ())
+        ret.add (m_aNodes.get (i));
+    return ret;
+  }
+
+  /**
+   * Find all concepts selected by the provided expression.
+   *
+   * @param sExpression
+   *        The expression to compile and evaluate. May neither be
+   *        <code>null</code> nor empty.
+   * @return All matching concepts in document order. Never <code>null</code>
+   *         but maybe empty.
+   * @throws IllegalArgumentException
+   *         If the expression is syntactically invalid
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ConceptPojo> findAll (@Nonnull @Nonempty final String sExpression)
+  {
+    return findAll (ConceptPathExpression.compile (sExpression));
+  }
+
+  /**
+   * Find the first concept selected by the provided expression.
+   *
+   * @param aExpression
+   *        The expression to evaluate. May not be <code>null</code>.
+   * @return The first matching concept in document order or <code>null</code>
+   *         if there is none.
+   */
+  @Nullable
+  public ConceptPojo findFirst (@Nonnull final ConceptPathExpression aExpression)
+  {
+    ValueEnforcer.notNull (aExpression, "Expression");
+
+    final ConceptPath aExactPath = aExpression.getExactPath ();
+    if (aExactPath != null)
+      return getFirst (aExactPath);
+
+    for (int i = 0; i < m_aNodes.size (); ++i)
+      if (aExpression.matches (m_aNodePaths.get (i)))
+        return m_aNodes.get (i);
+    return null;
+  }
+
+  @Nullable
+  public ConceptPojo findFirst (@Nonnull @Nonempty final String sExpression)
+  {
+    return findFirst (ConceptPathExpression.compile (sExpression));
+  }
+
+  /**
+   * Find the value of the first concept selected by the provided expression.
+   *
+   * @param aExpression
+   *        The expression to evaluate. May not be <code>null</code>.
+   * @return The value of the first matching concept or <code>null</code> if
+   *         there is no such concept or if it has no value.
+   */
+  @Nullable
+  public ConceptValuePojo findFirstValue (@Nonnull final ConceptPathExpression aExpression)
+  {
+    final ConceptPojo aConcept = findFirst (aExpression);
+    return aConcept == null ? null : aConcept.getValue ();
+  }
+
+  @Nullable
+  public ConceptValuePojo findFirstValue (@Nonnull @Nonempty final String sExpression)
+  {
+    return findFirstValue (ConceptPathExpression.compile (sExpression));
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Root", m_aRoot.getName ())
+                                       .append ("ConceptCount", m_aNodes.size ())
+                                       .append ("PathCount", m_aByPath.size ())
+                                       .getToString ();
+  }
+
+  /**
+   * Build the index for the provided tree.
+   *
+   * @param aRoot
+   *        The root concept. May not be <code>null</code>.
+   * @return The new index. Never <code>null</code>.
+   */
+  @Nonnull
+  public static ConceptIndex of (@Nonnull final ConceptPojo aRoot)
+  {
+    ValueEnforcer.notNull (aRoot, "Root");
+    return new ConceptIndex (aRoot);
+  }
+}
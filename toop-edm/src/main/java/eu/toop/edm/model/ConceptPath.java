@@ -0,0 +1,261 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import java.util.List;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.namespace.QName;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsImmutableObject;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.StringHelper;
+
+/**
+ * The path to a concept inside a {@link ConceptPojo} tree, expressed as the
+ * concept names from the root concept (inclusive) down to the addressed
+ * concept. At each level the first child with the respective name is used.<br>
+ * A path only stores its last segment and a reference to its parent path, so
+ * that {@link #getChildPath(QName)} does not copy the parent segments. The
+ * list of all segments is created on first indexed access.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class ConceptPath
+{
+  private final ConceptPath m_aParent;
+  private final QName m_aName;
+  private final int m_nSegmentCount;
+  // Same as List.hashCode of all segments
+  private final int m_nHashCode;
+
+  // Status vars
+  private volatile ICommonsList <QName> m_aSegments;
+
+  private ConceptPath (@Nullable final ConceptPath aParent, @Nonnull final QName aName)
+  {
+    m_aParent = aParent;
+    m_aName = aName;
+    m_nSegmentCount = aParent == null ? 1 : aParent.m_nSegmentCount + 1;
+    m_nHashCode = 31 * (aParent == null ? 1 : aParent.m_nHashCode) + aName.hashCode ();
+  }
+
+  @Nonnull
+  private ICommonsList <QName> _getSegments ()
+  {
+    ICommonsList <QName> ret = m_aSegments;
+    if (ret == null)
+    {
+      final QName [] aSegments = new QName [m_nSegmentCount];
+      ConceptPath aCur = this;
+      for (int i = m_nSegmentCount - 1; i >= 0; --i)
+      {
+        aSegments[i] = aCur.m_aName;
+        aCur = aCur.m_aParent;
+      }
+      ret = m_aSegments = new CommonsArrayList <> (aSegments);
+    }
+    return ret;
+  }
+
+  /**
+   * @return The number of segments. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getSegmentCount ()
+  {
+    return m_nSegmentCount;
+  }
+
+  /**
+   * @param nIndex
+   *        The 0-based index. 0 is the root concept.
+   * @return The concept name at the provided index.
+   */
+  @Nonnull
+  public QName getSegmentAtIndex (@Nonnegative final int nIndex)
+  {
+    return _getSegments ().get (nIndex);
+  }
+
+  /**
+   * @return The name of the addressed concept. Never <code>null</code>.
+   */
+  @Nonnull
+  public QName getLastSegment ()
+  {
+    return m_aName;
+  }
+
+  @Nonnull
+  @ReturnsImmutableObject
+  public List <QName> segments ()
+  {
+    return _getSegments ().getAsUnmodifiable ();
+  }
+
+  /**
+   * @return The path to the parent concept or <code>null</code> if this path
+   *         points to a root concept.
+   */
+  @Nullable
+  public ConceptPath getParentPath ()
+  {
+    return m_aParent;
+  }
+
+  /**
+   * @param aName
+   *        The child concept name. May not be <code>null</code>.
+   * @return A new path that points to the child with the provided name. It
+   *         shares this path as its parent, so this is a constant time
+   *         operation.
+   */
+  @Nonnull
+  public ConceptPath getChildPath (@Nonnull final QName aName)
+  {
+    ValueEnforcer.notNull (aName, "Name");
+    return new ConceptPath (this, aName);
+  }
+
+  /**
+   * @param aPrefix
+   *        The path to check. May be <code>null</code>.
+   * @return <code>true</code> if this path equals or is below the provided
+   *         path.
+   */
+  public boolean startsWith (@Nullable final ConceptPath aPrefix)
+  {
+    if (aPrefix == null || aPrefix.m_nSegmentCount > m_nSegmentCount)
+      return false;
+    ConceptPath aCur = this;
+    while (aCur.m_nSegmentCount > aPrefix.m_nSegmentCount)
+      aCur = aCur.m_aParent;
+    return aCur.equals (aPrefix);
+  }
+
+  /**
+   * Check if the provided segment matches the provided concept.
+   *
+   * @param nIndex
+   *        The segment index
+   * @param aConcept
+   *        The concept to check. May not be <code>null</code>.
+   * @return <code>true</code> if the name of the concept equals the segment.
+   */
+  boolean matches (@Nonnegative final int nIndex, @Nonnull final ConceptPojo aConcept)
+  {
+    return getSegmentAtIndex (nIndex).equals (aConcept.getName ());
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final ConceptPath rhs = (ConceptPath) o;
+    if (m_nSegmentCount != rhs.m_nSegmentCount || m_nHashCode != rhs.m_nHashCode)
+      return false;
+    // Compare up to the first shared parent
+    ConceptPath aLhs = this;
+    ConceptPath aRhs = rhs;
+    while (aLhs != aRhs)
+    {
+      if (!aLhs.m_aName.equals (aRhs.m_aName))
+        return false;
+      aLhs = aLhs.m_aParent;
+      aRhs = aRhs.m_aParent;
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return m_nHashCode;
+  }
+
+  /**
+   * @return The segments in Clark notation ("{namespace}local") separated by
+   *         '/'.
+   */
+  @Override
+  public String toString ()
+  {
+    return StringHelper.getImplodedMapped ('/', _getSegments (), QName::toString);
+  }
+
+  @Nonnull
+  private static ConceptPath _of (@Nonnull @Nonempty final ICommonsList <QName> aSegments)
+  {
+    ConceptPath ret = null;
+    for (final QName aSegment : aSegments)
+      ret = new ConceptPath (ret, aSegment);
+    ret.m_aSegments = aSegments;
+    return ret;
+  }
+
+  @Nonnull
+  public static ConceptPath of (@Nonnull @Nonempty final QName... aSegments)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aSegments, "Segments");
+    return _of (new CommonsArrayList <> (aSegments));
+  }
+
+  @Nonnull
+  public static ConceptPath of (@Nonnull @Nonempty final Iterable <QName> aSegments)
+  {
+    ValueEnforcer.notNull (aSegments, "Segments");
+    final ICommonsList <QName> aList = new CommonsArrayList <> (aSegments);
+    ValueEnforcer.notEmptyNoNullValue (aList, "Segments");
+    return _of (aList);
+  }
+
+  @Nonnull
+  public static ConceptPath of (@Nonnull @Nonempty final IConceptName... aSegments)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aSegments, "Segments");
+    return _of (new CommonsArrayList <> (aSegments, IConceptName::getAsQName));
+  }
+}
@@ -0,0 +1,319 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.namespace.QName;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * A compiled path expression to select concepts from a {@link ConceptPojo}
+ * tree, e.g. via {@link ConceptIndex#findAll(ConceptPathExpression)}. The
+ * syntax is a small subset of XPath:
+ * <ul>
+ * <li>Steps are separated by '/' and the first step matches the root
+ * concept.</li>
+ * <li>A step is either a name in Clark notation (<code>{namespace}local</code>),
+ * which must match exactly, a local name only, which matches in any namespace,
+ * or <code>*</code>, which matches any concept.</li>
+ * <li><code>//</code> instead of '/' skips an arbitrary number of levels
+ * (including none). A leading <code>//</code> finds concepts at any
+ * level.</li>
+ * </ul>
+ * Examples: <code>RegisteredOrganization/CompanyName</code>,
+ * <code>//CompanyName</code>, <code>*&#47;*&#47;Locality</code>. The string
+ * representation of a {@link ConceptPath} is a valid expression that selects
+ * exactly this path.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class ConceptPathExpression
+{
+  private static final String WILDCARD = "*";
+
+  private static final class Step
+  {
+    // true if an arbitrary number of levels may be skipped before this step
+    private final boolean m_bDescendant;
+    // null for the wildcard
+    private final String m_sNamespaceURI;
+    // null for the wildcard
+    private final String m_sLocalName;
+
+    Step (final boolean bDescendant, @Nullable final String sNamespaceURI, @Nullable final String sLocalName)
+    {
+      m_bDescendant = bDescendant;
+      m_sNamespaceURI = sNamespaceURI;
+      m_sLocalName = sLocalName;
+    }
+
+    boolean matches (@Nonnull final QName aName)
+    {
+      if (m_sLocalName == null)
+        return true;
+      if (!m_sLocalName.equals (aName.getLocalPart ()))
+        return false;
+      return m_sNamespaceURI == null || m_sNamespaceURI.equals (aName.getNamespaceURI ());
+    }
+
+    boolean isExact ()
+    {
+      return !m_bDescendant && m_sNamespaceURI != null && m_sLocalName != null;
+    }
+  }
+
+  private final String m_sExpression;
+  private final ICommonsList <Step> m_aSteps;
+  // Set if the expression selects exactly one path
+  private final ConceptPath m_aExactPath;
+
+  private ConceptPathExpression (@Nonnull final String sExpression, @Nonnull @Nonempty final ICommonsList <Step> aSteps)
+  {
+    m_sExpression = sExpression;
+    m_aSteps = aSteps;
+    if (aSteps.containsOnly (Step::isExact))
+      m_aExactPath = ConceptPath.of (new CommonsArrayList <> (aSteps, x -> new QName (x.m_sNamespaceURI, x.m_sLocalName)));
+    else
+      m_aExactPath = null;
+  }
+
+  /**
+   * @return The expression string as provided to {@link #compile(String)}.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @Nonempty
+  public String getExpression ()
+  {
+    return m_sExpression;
+  }
+
+  /**
+   * @return The only path matched by this expression, if it contains neither
+   *         wildcards, nor descendant steps nor local names without namespace.
+   *         <code>null</code> otherwise.
+   */
+  @Nullable
+  public ConceptPath getExactPath ()
+  {
+    return m_aExactPath;
+  }
+
+  private boolean _matches (@Nonnull final ConceptPath aPath, @Nonnegative final int nStep, @Nonnegative final int nSegment)
+  {
+    final int nSegmentCount = aPath.getSegmentCount ();
+    if (nStep == m_aSteps.size ())
+      return nSegment == nSegmentCount;
+
+    final Step aStep = m_aSteps.get (nStep);
+    if (aStep.m_bDescendant)
+    {
+      // Try all possible segments for this step
+      for (int i = nSegment; i < nSegmentCount; ++i)
+        if (aStep.matches (aPath.getSegmentAtIndex (i)) && _matches (aPath, nStep + 1, i + 1))
+          return true;
+      return false;
+    }
+    return nSegment < nSegmentCount && aStep.matches (aPath.getSegmentAtIndex (nSegment)) && _matches (aPath, nStep + 1, nSegment + 1);
+  }
+
+  /**
+   * Check if the provided path is selected by this expression.
+   *
+   * @param aPath
+   *        The path to check. May be <code>null</code>.
+   * @return <code>true</code> if the path matches.
+   */
+  public boolean matches (@Nullable final ConceptPath aPath)
+  {
+    if (aPath == null)
+      return false;
+    if (m_aExactPath != null)
+      return m_aExactPath.equals (aPath);
+    return _matches (aPath, 0, 0);
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final ConceptPathExpression rhs = (ConceptPathExpression) o;
+    return m_sExpression.equals (rhs.m_sExpression);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return m_sExpression.hashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return m_sExpression;
+  }
+
+  @Nonnull
+  private static Step _parseStep (@Nonnull final String sExpression, final boolean bDescendant, @Nonnull final String sStep)
+  {
+    if (sStep.isEmpty ())
+      throw new IllegalArgumentException ("Empty step in concept path expression '" + sExpression + "'");
+    if (WILDCARD.equals (sStep))
+      return new Step (bDescendant, null, null);
+    if (sStep.charAt (0) == '{')
+    {
+      final int nEnd = sStep.indexOf ('}');
+      if (nEnd < 0 || nEnd == sStep.length () - 1)
+        throw new IllegalArgumentException ("Invalid step '" + sStep + "' in concept path expression '" + sExpression + "'");
+      return new Step (bDescendant, sStep.substring (1, nEnd), sStep.substring (nEnd + 1));
+    }
+    if (sStep.indexOf ('}') >= 0 || sStep.indexOf ('*') >= 0)
+      throw new IllegalArgumentException ("Invalid step '" + sStep + "' in concept path expression '" + sExpression + "'");
+    return new Step (bDescendant, null, sStep);
+  }
+
+  /**
+   * Compile the provided path expression.
+   *
+   * @param sExpression
+   *        The expression to compile. May neither be <code>null</code> nor
+   *        empty.
+   * @return The compiled expression and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the expression is syntactically invalid
+   */
+  @Nonnull
+  public static ConceptPathExpression compile (@Nonnull @Nonempty final String sExpression)
+  {
+    ValueEnforcer.notEmpty (sExpression, "Expression");
+
+    final ICommonsList <Step> aSteps = new CommonsArrayList <> ();
+    final int nLen = sExpression.length ();
+    int nIndex = 0;
+    boolean bDescendant = false;
+    if (sExpression.startsWith ("//"))
+    {
+      bDescendant = true;
+      nIndex = 2;
+    }
+    else
+      if (sExpression.charAt (0) == '/')
+      {
+        // Absolute path - the first step is always the root
+        nIndex = 1;
+      }
+
+    final StringBuilder aStep = new StringBuilder ();
+    boolean bInNamespace = false;
+    while (nIndex < nLen)
+    {
+      final char c = sExpression.charAt (nIndex);
+      if (bInNamespace)
+      {
+        // Namespace URIs may contain slashes
+        if (c == '}')
+          bInNamespace = false;
+        aStep.append (c);
+        nIndex++;
+      }
+      else
+        if (c == '/')
+        {
+          aSteps.add (_parseStep (sExpression, bDescendant, aStep.toString ()));
+          aStep.setLength (0);
+          bDescendant = nIndex + 1 < nLen && sExpression.charAt (nIndex + 1) == '/';
+          nIndex += bDescendant ? 2 : 1;
+        }
+        else
+        {
+          if (c == '{')
+            bInNamespace = true;
+          aStep.append (c);
+          nIndex++;
+        }
+    }
+    if (bInNamespace)
+      throw new IllegalArgumentException ("Unterminated namespace URI in concept path expression '" + sExpression + "'");
+    aSteps.add (_parseStep (sExpression, bDescendant, aStep.toString ()));
+    return new ConceptPathExpression (sExpression, aSteps);
+  }
+
+  /**
+   * Create an expression that selects exactly the provided path.
+   *
+   * @param aPath
+   *        The path to use. May not be <code>null</code>.
+   * @return The compiled expression and never <code>null</code>.
+   */
+  @Nonnull
+  public static ConceptPathExpression of (@Nonnull final ConceptPath aPath)
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    return new ConceptPathExpression (aPath.toString (),
+                                      new CommonsArrayList <> (aPath.segments (),
+                                                               x -> new Step (false, x.getNamespaceURI (), x.getLocalPart ())));
+  }
+
+  /**
+   * @param aName
+   *        The concept name to search. May not be <code>null</code>.
+   * @return An expression that selects all concepts with the provided name at
+   *         any level. Never <code>null</code>.
+   */
+  @Nonnull
+  public static ConceptPathExpression anywhere (@Nonnull final QName aName)
+  {
+    ValueEnforcer.notNull (aName, "Name");
+    return compile ("//" + aName.toString ());
+  }
+
+  @Nonnull
+  public static ConceptPathExpression anywhere (@Nonnull final IConceptName aName)
+  {
+    ValueEnforcer.notNull (aName, "Name");
+    return anywhere (aName.getAsQName ());
+  }
+}
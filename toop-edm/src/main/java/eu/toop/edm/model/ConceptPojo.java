@@ -37,6 +37,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.UUID;
 import java.util.function.Consumer;
@@ -49,12 +51,16 @@ import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.xml.namespace.QName;
 
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsImmutableObject;
 import com.helger.commons.annotation.ReturnsMutableCopy;
-import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
+import com.helger.commons.hierarchy.visit.DefaultHierarchyVisitorCallback;
+import com.helger.commons.hierarchy.visit.EHierarchyVisitorReturn;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
 
@@ -65,7 +71,13 @@ import eu.toop.edm.jaxb.cv.cbc.IDType;
 
 /**
  * Represents a "Concept" that can be recursively nested. Only response concepts
- * can have values.
+ * can have values.<br>
+ * Since 2.1.2 instances are immutable, including all their descendants: all
+ * fields are final and the children list can only be read. They can therefore
+ * be published safely to other threads without synchronization and used as
+ * keys in concurrent caches. The hash code is calculated once on first use.
+ * Note that this does not apply to lists holding concepts, e.g. the concepts
+ * of a response payload, which may still be modifiable.
  *
  * @author Philip Helger
  */
@@ -86,6 +98,10 @@ public class ConceptPojo
   private final QName m_aName;
   private final ConceptValuePojo m_aValue;
   private final ICommonsList <ConceptPojo> m_aChildren = new CommonsArrayList <> ();
+  private final ICommonsList <ConceptPojo> m_aChildrenView = new UnmodifiableCommonsList <> (m_aChildren);
+
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
 
   public ConceptPojo (@Nullable final String sID,
                       @Nullable final QName aName,
@@ -146,10 +162,10 @@ public class ConceptPojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final ICommonsList <ConceptPojo> children ()
   {
-    return m_aChildren;
+    return m_aChildrenView;
   }
 
   @Nonnull
@@ -159,19 +175,17 @@ public class ConceptPojo
     return m_aChildren.getClone ();
   }
 
-  private void _visitRecursive (final int nLevel, @Nonnull final IConceptVisitor aVisitor)
-  {
-    // Invoke
-    aVisitor.onConcept (nLevel, this);
-
-    // For all children; aka depth first search
-    for (final ConceptPojo aItem : m_aChildren)
-      aItem._visitRecursive (nLevel + 1, aVisitor);
-  }
-
+  /**
+   * Visit this concept and all descendants in depth first order. The
+   * traversal is not recursive, so arbitrarily deep trees are supported.
+   *
+   * @param aVisitor
+   *        The visitor to invoke. May not be <code>null</code>.
+   * @see ConceptTraversal for filtering and early termination
+   */
   public void visitRecursive (@Nonnull final IConceptVisitor aVisitor)
   {
-    _visitRecursive (0, aVisitor);
+    ConceptTraversal.ALL.forEach (this, aVisitor);
   }
 
   @Nonnull
@@ -180,14 +194,111 @@ public class ConceptPojo
     return builder (this);
   }
 
+  /**
+   * Create a modified version of this concept tree. The modification handler
+   * is invoked for every concept, children before their parents. Concepts that
+   * are not changed by the handler and that have no changed children are
+   * shared between this tree and the result.
+   *
+   * @param aModificationHandler
+   *        The modification handler. May be <code>null</code>.
+   * @return The modified concept tree. Is <code>this</code> if nothing was
+   *         changed.
+   */
   @Nonnull
   public ConceptPojo cloneAndModify (@Nullable final Consumer <? super ConceptPojo.Builder> aModificationHandler)
   {
-    return builder (this, aModificationHandler).build ();
+    if (aModificationHandler == null)
+      return this;
+
+    final Builder aBuilder = builder (this, aModificationHandler);
+    return aBuilder.isUnchanged (this) ? this : aBuilder.build ();
   }
 
+  /**
+   * Create a new concept tree in which the value of the concept identified by
+   * the provided path is replaced. Only the concepts from this root down to
+   * the modified concept are copied - all other concepts are shared.
+   *
+   * @param aPath
+   *        The path to the concept to be changed. The first segment must be
+   *        the name of this concept. May not be <code>null</code>.
+   * @param aValue
+   *        The new value. May be <code>null</code> to remove the value.
+   * @return The modified concept tree. Is <code>this</code> if nothing was
+   *         changed.
+   * @throws IllegalArgumentException
+   *         If the path does not match this tree.
+   * @since 2.1.2
+   */
   @Nonnull
-  public CCCEVConceptType getAsCCCEVConcept ()
+  public ConceptPojo with (@Nonnull final ConceptPath aPath, @Nullable final ConceptValuePojo aValue)
+  {
+    return withModification (aPath, x -> x.value (aValue));
+  }
+
+  /**
+   * Create a new concept tree in which the concept identified by the provided
+   * path is modified. Only the concepts from this root down to the modified
+   * concept are copied - all other concepts are shared.
+   *
+   * @param aPath
+   *        The path to the concept to be changed. The first segment must be
+   *        the name of this concept. May not be <code>null</code>.
+   * @param aModificationHandler
+   *        The handler that modifies the builder of the addressed concept. May
+   *        not be <code>null</code>.
+   * @return The modified concept tree. Is <code>this</code> if nothing was
+   *         changed.
+   * @throws IllegalArgumentException
+   *         If the path does not match this tree.
+   * @since 2.1.2
+   */
+  @Nonnull
+  public ConceptPojo withModification (@Nonnull final ConceptPath aPath,
+                                       @Nonnull final Consumer <? super ConceptPojo.Builder> aModificationHandler)
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    ValueEnforcer.notNull (aModificationHandler, "ModificationHandler");
+    if (!aPath.matches (0, this))
+      throw new IllegalArgumentException ("The path '" + aPath + "' does not start at concept '" + m_aName + "'");
+    return _withModification (aPath, 0, aModificationHandler);
+  }
+
+  @Nonnull
+  private ConceptPojo _withModification (@Nonnull final ConceptPath aPath,
+                                         final int nIndex,
+                                         @Nonnull final Consumer <? super ConceptPojo.Builder> aModificationHandler)
+  {
+    if (nIndex == aPath.getSegmentCount () - 1)
+    {
+      // Found the concept to modify
+      final Builder aBuilder = new Builder ().id (m_sID).name (m_aName).value (m_aValue).children (m_aChildren);
+      aModificationHandler.accept (aBuilder);
+      return aBuilder.isUnchanged (this) ? this : aBuilder.build ();
+    }
+
+    final int nChildCount = m_aChildren.size ();
+    for (int i = 0; i < nChildCount; ++i)
+    {
+      final ConceptPojo aChild = m_aChildren.get (i);
+      if (aPath.matches (nIndex + 1, aChild))
+      {
+        final ConceptPojo aNewChild = aChild._withModification (aPath, nIndex + 1, aModificationHandler);
+        if (aNewChild == aChild)
+          return this;
+
+        // Copy only this level of the spine
+        final ICommonsList <ConceptPojo> aNewChildren = m_aChildren.getClone ();
+        aNewChildren.set (i, aNewChild);
+        return new ConceptPojo (m_sID, m_aName, m_aValue, aNewChildren);
+      }
+    }
+    throw new IllegalArgumentException ("Found no concept '" + aPath.getSegmentAtIndex (nIndex + 1) + "' of path '" + aPath + "'");
+  }
+
+  @Nonnull
+  private CCCEVConceptType _getAsCCCEVConceptWithoutChildren ()
   {
     final CCCEVConceptType ret = new CCCEVConceptType ();
     if (StringHelper.hasText (m_sID))
@@ -204,13 +315,38 @@ public class ConceptPojo
       if (aValue != null)
         ret.addValue (aValue);
     }
-
-    // Recursive call
-    for (final ConceptPojo aChild : m_aChildren)
-      ret.addConcept (aChild.getAsCCCEVConcept ());
     return ret;
   }
 
+  @Nonnull
+  public CCCEVConceptType getAsCCCEVConcept ()
+  {
+    // Non-recursive, to support deep trees
+    final Deque <CCCEVConceptType> aStack = new ArrayDeque <> ();
+    final CCCEVConceptType [] ret = new CCCEVConceptType [1];
+    ConceptTreeWalker.walk (this, ConceptPojo::children, new DefaultHierarchyVisitorCallback <ConceptPojo> ()
+    {
+      @Override
+      public EHierarchyVisitorReturn onItemBeforeChildren (final ConceptPojo aItem)
+      {
+        aStack.push (aItem._getAsCCCEVConceptWithoutChildren ());
+        return EHierarchyVisitorReturn.CONTINUE;
+      }
+
+      @Override
+      public EHierarchyVisitorReturn onItemAfterChildren (final ConceptPojo aItem)
+      {
+        final CCCEVConceptType aConcept = aStack.pop ();
+        if (aStack.isEmpty ())
+          ret[0] = aConcept;
+        else
+          aStack.peek ().addConcept (aConcept);
+        return EHierarchyVisitorReturn.CONTINUE;
+      }
+    });
+    return ret[0];
+  }
+
   @Override
   public boolean equals (final Object o)
   {
@@ -228,7 +364,10 @@ public class ConceptPojo
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_sID).append (m_aName).append (m_aValue).append (m_aChildren).getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_sID).append (m_aName).append (m_aValue).append (m_aChildren).getHashCode ();
+    return ret;
   }
 
   @Override
@@ -248,23 +387,48 @@ public class ConceptPojo
   }
 
   @Nonnull
-  public static Builder builder (@Nullable final CCCEVConceptType a)
+  private static Builder _builderWithoutChildren (@Nonnull final CCCEVConceptType a)
   {
     final Builder ret = new Builder ();
-    if (a != null)
+    if (a.hasIdEntries ())
+      ret.id (a.getIdAtIndex (0).getValue ());
+    if (a.hasQNameEntries ())
+      ret.name (EDMInterner.internQName (a.getQNameAtIndex (0)));
+    if (a.hasValueEntries ())
+      ret.value (ConceptValuePojo.builder (a.getValueAtIndex (0)));
+    return ret;
+  }
+
+  @Nonnull
+  public static Builder builder (@Nullable final CCCEVConceptType a)
+  {
+    if (a == null)
+      return new Builder ();
+
+    // Non-recursive, to support deep trees
+    final Deque <Builder> aStack = new ArrayDeque <> ();
+    final Builder [] ret = new Builder [1];
+    ConceptTreeWalker.walk (a, CCCEVConceptType::getConcept, new DefaultHierarchyVisitorCallback <CCCEVConceptType> ()
     {
-      if (a.hasIdEntries ())
-        ret.id (a.getIdAtIndex (0).getValue ());
-      if (a.hasQNameEntries ())
-        ret.name (a.getQNameAtIndex (0));
-      if (a.hasValueEntries ())
-        ret.value (ConceptValuePojo.builder (a.getValueAtIndex (0)));
+      @Override
+      public EHierarchyVisitorReturn onItemBeforeChildren (final CCCEVConceptType aItem)
+      {
+        aStack.push (_builderWithoutChildren (aItem));
+        return EHierarchyVisitorReturn.CONTINUE;
+      }
 
-      // Recursive call
-      for (final CCCEVConceptType aChild : a.getConcept ())
-        ret.addChild (builder (aChild));
-    }
-    return ret;
+      @Override
+      public EHierarchyVisitorReturn onItemAfterChildren (final CCCEVConceptType aItem)
+      {
+        final Builder aBuilder = aStack.pop ();
+        if (aStack.isEmpty ())
+          ret[0] = aBuilder;
+        else
+          aStack.peek ().addChild (aBuilder);
+        return EHierarchyVisitorReturn.CONTINUE;
+      }
+    });
+    return ret[0];
   }
 
   @Nonnull
@@ -276,20 +440,37 @@ public class ConceptPojo
   @Nonnull
   public static Builder builder (@Nullable final ConceptPojo a, @Nullable final Consumer <? super ConceptPojo.Builder> aModificationHandler)
   {
-    final Builder ret = new Builder ();
-    if (a != null)
-    {
-      ret.id (a.getID ()).name (a.getName ()).value (a.getValue ());
-
-      // Recursive call
-      for (final ConceptPojo aChild : a.children ())
-        ret.addChild (builder (aChild, aModificationHandler));
+    if (a == null)
+      return new Builder ();
+    if (aModificationHandler == null)
+      return new Builder ().id (a.m_sID).name (a.m_aName).value (a.m_aValue).children (a.m_aChildren);
+
+    // Non-recursive, to support deep trees. The handler is called after the
+    // children and unchanged children are shared
+    final Deque <Builder> aStack = new ArrayDeque <> ();
+    final Builder [] ret = new Builder [1];
+    ConceptTreeWalker.walk (a, ConceptPojo::children, new DefaultHierarchyVisitorCallback <ConceptPojo> ()
+    {
+      @Override
+      public EHierarchyVisitorReturn onItemBeforeChildren (final ConceptPojo aItem)
+      {
+        aStack.push (new Builder ().id (aItem.m_sID).name (aItem.m_aName).value (aItem.m_aValue));
+        return EHierarchyVisitorReturn.CONTINUE;
+      }
 
-      // Call handler after children
-      if (aModificationHandler != null)
-        aModificationHandler.accept (ret);
-    }
-    return ret;
+      @Override
+      public EHierarchyVisitorReturn onItemAfterChildren (final ConceptPojo aItem)
+      {
+        final Builder aBuilder = aStack.pop ();
+        aModificationHandler.accept (aBuilder);
+        if (aStack.isEmpty ())
+          ret[0] = aBuilder;
+        else
+          aStack.peek ().addChild (aBuilder.isUnchanged (aItem) ? aItem : aBuilder.build ());
+        return EHierarchyVisitorReturn.CONTINUE;
+      }
+    });
+    return ret[0];
   }
 
   /**
@@ -638,6 +819,31 @@ public class ConceptPojo
       return this;
     }
 
+    /**
+     * Check if building would result in a concept equal to the provided one
+     * that also has the identical children.
+     *
+     * @param a
+     *        The concept to compare to. May not be <code>null</code>.
+     * @return <code>true</code> if the provided concept can be used instead of
+     *         building a new one.
+     * @since 2.1.2
+     */
+    boolean isUnchanged (@Nonnull final ConceptPojo a)
+    {
+      if (!EqualsHelper.equals (m_sID, a.m_sID) ||
+          !EqualsHelper.equals (m_aName, a.m_aName) ||
+          !EqualsHelper.equals (m_aValue, a.m_aValue))
+        return false;
+      final int nCount = m_aChildren.size ();
+      if (nCount != a.m_aChildren.size ())
+        return false;
+      for (int i = 0; i < nCount; ++i)
+        if (m_aChildren.get (i) != a.m_aChildren.get (i))
+          return false;
+      return true;
+    }
+
     @Nonnull
     public ConceptPojo build ()
     {
@@ -0,0 +1,552 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.namespace.QName;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.hierarchy.visit.DefaultHierarchyVisitorCallback;
+import com.helger.commons.hierarchy.visit.EHierarchyVisitorReturn;
+import com.helger.commons.state.EContinue;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A configurable, non-recursive traversal of {@link ConceptPojo} trees in
+ * depth-first pre-order. Filters on the level (the root has level 0) and on
+ * the concept name decide which concepts are reported. Concepts that are not
+ * reported are still descended into, except beyond the maximum level.<br>
+ * Besides visitors that may end the traversal early, the matching concepts are
+ * available as {@link Stream}. The parallel stream splits wide trees by
+ * sibling subtrees.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class ConceptTraversal
+{
+  /**
+   * A visitor for concepts that controls how the traversal continues.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  public interface IConceptTraversalVisitor
+  {
+    /**
+     * @param nLevel
+     *        The level of the concept. The root has level 0.
+     * @param aConcept
+     *        The matching concept. Never <code>null</code>.
+     * @return {@link EHierarchyVisitorReturn#CONTINUE} to continue normally,
+     *         {@link EHierarchyVisitorReturn#USE_NEXT_SIBLING} to skip the
+     *         children,
+     *         {@link EHierarchyVisitorReturn#USE_PARENTS_NEXT_SIBLING} to skip
+     *         the children and the following siblings, or
+     *         {@link EHierarchyVisitorReturn#STOP_ITERATION} to end the
+     *         traversal.
+     */
+    @Nonnull
+    EHierarchyVisitorReturn onConcept (@Nonnegative int nLevel, @Nonnull ConceptPojo aConcept);
+  }
+
+  /**
+   * A visitor for concepts together with their {@link ConceptPath}.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  public interface IConceptPathVisitor
+  {
+    /**
+     * @param aPath
+     *        The path of the concept. Never <code>null</code>.
+     * @param aConcept
+     *        The matching concept. Never <code>null</code>.
+     */
+    void onConcept (@Nonnull ConceptPath aPath, @Nonnull ConceptPojo aConcept);
+  }
+
+  /**
+   * The path of a named concept on the traversal stack.
+   */
+  private static final class PathFrame
+  {
+    private final ConceptPath m_aPath;
+    // Created on demand
+    private ICommonsMap <QName, ConceptPath> m_aChildPaths;
+
+    PathFrame (@Nonnull final ConceptPath aPath)
+    {
+      m_aPath = aPath;
+    }
+
+    @Nonnull
+    ConceptPath getChildPath (@Nonnull final QName aName)
+    {
+      // Siblings with the same name share the path object
+      if (m_aChildPaths == null)
+        m_aChildPaths = new CommonsHashMap <> ();
+      return m_aChildPaths.computeIfAbsent (aName, m_aPath::getChildPath);
+    }
+  }
+
+  /** Reports all concepts */
+  public static final ConceptTraversal ALL = builder ().build ();
+
+  private final int m_nMinLevel;
+  private final int m_nMaxLevel;
+  private final Set <QName> m_aNames;
+  private final Predicate <? super ConceptPojo> m_aFilter;
+
+  private ConceptTraversal (@Nonnegative final int nMinLevel,
+                            @Nonnegative final int nMaxLevel,
+                            @Nonnull final Set <QName> aNames,
+                            @Nullable final Predicate <? super ConceptPojo> aFilter)
+  {
+    m_nMinLevel = nMinLevel;
+    m_nMaxLevel = nMaxLevel;
+    m_aNames = aNames;
+    m_aFilter = aFilter;
+  }
+
+  /**
+   * @return The minimum level of reported concepts. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getMinLevel ()
+  {
+    return m_nMinLevel;
+  }
+
+  /**
+   * @return The maximum level of reported concepts. Concepts below are not
+   *         traversed at all.
+   */
+  @Nonnegative
+  public int getMaxLevel ()
+  {
+    return m_nMaxLevel;
+  }
+
+  /**
+   * Check if a concept is reported.
+   *
+   * @param nLevel
+   *        The level of the concept.
+   * @param aConcept
+   *        The concept to check. May not be <code>null</code>.
+   * @return <code>true</code> if all filters match.
+   */
+  public boolean isMatching (final int nLevel, @Nonnull final ConceptPojo aConcept)
+  {
+    return nLevel >= m_nMinLevel &&
+           nLevel <= m_nMaxLevel &&
+           (m_aNames.isEmpty () || m_aNames.contains (aConcept.getName ())) &&
+           (m_aFilter == null || m_aFilter.test (aConcept));
+  }
+
+  /**
+   * Traverse the tree and invoke the visitor for all matching concepts.
+   *
+   * @param aRoot
+   *        The root concept. May not be <code>null</code>.
+   * @param aVisitor
+   *        The visitor to invoke. May not be <code>null</code>.
+   * @return {@link EContinue#BREAK} if the visitor stopped the traversal.
+   */
+  @Nonnull
+  public EContinue traverse (@Nonnull final ConceptPojo aRoot, @Nonnull final IConceptTraversalVisitor aVisitor)
+  {
+    ValueEnforcer.notNull (aRoot, "Root");
+    ValueEnforcer.notNull (aVisitor, "Visitor");
+
+    final EHierarchyVisitorReturn eRet = ConceptTreeWalker.walk (aRoot, ConceptPojo::children, new DefaultHierarchyVisitorCallback <ConceptPojo> ()
+    {
+      @Override
+      public EHierarchyVisitorReturn onItemBeforeChildren (final ConceptPojo aConcept)
+      {
+        final int nLevel = getLevel ();
+        EHierarchyVisitorReturn ret = EHierarchyVisitorReturn.CONTINUE;
+        if (isMatching (nLevel, aConcept))
+          ret = aVisitor.onConcept (nLevel, aConcept);
+        if (ret == EHierarchyVisitorReturn.CONTINUE && nLevel >= m_nMaxLevel)
+          ret = EHierarchyVisitorReturn.USE_NEXT_SIBLING;
+        return ret;
+      }
+    });
+    return eRet == EHierarchyVisitorReturn.STOP_ITERATION ? EContinue.BREAK : EContinue.CONTINUE;
+  }
+
+  /**
+   * Invoke the visitor for all matching concepts.
+   *
+   * @param aRoot
+   *        The root concept. May not be <code>null</code>.
+   * @param aVisitor
+   *        The visitor to invoke. May not be <code>null</code>.
+   */
+  public void forEach (@Nonnull final ConceptPojo aRoot, @Nonnull final ConceptPojo.IConceptVisitor aVisitor)
+  {
+    ValueEnforcer.notNull (aVisitor, "Visitor");
+    traverse (aRoot, (nLevel, aConcept) -> {
+      aVisitor.onConcept (nLevel, aConcept);
+      return EHierarchyVisitorReturn.CONTINUE;
+    });
+  }
+
+  /**
+   * Invoke the visitor for all matching concepts together with their paths, in
+   * pre-order. Concepts without a name have no path, so they are skipped
+   * together with their children. Siblings with the same name share the same
+   * path object.
+   *
+   * @param aRoot
+   *        The root concept. May not be <code>null</code>.
+   * @param aVisitor
+   *        The visitor to invoke. May not be <code>null</code>.
+   */
+  public void forEachWithPath (@Nonnull final ConceptPojo aRoot, @Nonnull final IConceptPathVisitor aVisitor)
+  {
+    ValueEnforcer.notNull (aRoot, "Root");
+    ValueEnforcer.notNull (aVisitor, "Visitor");
+
+    final Deque <PathFrame> aStack = new ArrayDeque <> ();
+    ConceptTreeWalker.walk (aRoot, ConceptPojo::children, new DefaultHierarchyVisitorCallback <ConceptPojo> ()
+    {
+      @Override
+      public EHierarchyVisitorReturn onItemBeforeChildren (final ConceptPojo aConcept)
+      {
+        final QName aName = aConcept.getName ();
+        if (aName == null)
+          return EHierarchyVisitorReturn.USE_NEXT_SIBLING;
+
+        final ConceptPath aPath = aStack.isEmpty () ? ConceptPath.of (aName) : aStack.peek ().getChildPath (aName);
+        aStack.push (new PathFrame (aPath));
+        final int nLevel = getLevel ();
+        if (isMatching (nLevel, aConcept))
+          aVisitor.onConcept (aPath, aConcept);
+        return nLevel >= m_nMaxLevel ? EHierarchyVisitorReturn.USE_NEXT_SIBLING : EHierarchyVisitorReturn.CONTINUE;
+      }
+
+      @Override
+      public EHierarchyVisitorReturn onItemAfterChildren (final ConceptPojo aConcept)
+      {
+        if (aConcept.getName () != null)
+          aStack.pop ();
+        return EHierarchyVisitorReturn.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Find the first matching concept in pre-order that also matches the passed
+   * predicate. The traversal ends as soon as it is found.
+   *
+   * @param aRoot
+   *        The root concept. May not be <code>null</code>.
+   * @param aPredicate
+   *        The additional predicate. May not be <code>null</code>.
+   * @return <code>null</code> if no concept matches.
+   */
+  @Nullable
+  public ConceptPojo findFirst (@Nonnull final ConceptPojo aRoot, @Nonnull final Predicate <? super ConceptPojo> aPredicate)
+  {
+    ValueEnforcer.notNull (aPredicate, "Predicate");
+    final ConceptPojo [] ret = new ConceptPojo [1];
+    traverse (aRoot, (nLevel, aConcept) -> {
+      if (!aPredicate.test (aConcept))
+        return EHierarchyVisitorReturn.CONTINUE;
+      ret[0] = aConcept;
+      return EHierarchyVisitorReturn.STOP_ITERATION;
+    });
+    return ret[0];
+  }
+
+  /**
+   * @param aRoot
+   *        The root concept. May not be <code>null</code>.
+   * @return A spliterator over all matching concepts in pre-order. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public Spliterator <ConceptPojo> spliterator (@Nonnull final ConceptPojo aRoot)
+  {
+    ValueEnforcer.notNull (aRoot, "Root");
+    final Deque <Pending> aPending = new ArrayDeque <> ();
+    aPending.add (new Pending (aRoot, 0, true));
+    return new ConceptSpliterator (aPending);
+  }
+
+  /**
+   * @param aRoot
+   *        The root concept. May not be <code>null</code>.
+   * @return A sequential stream of all matching concepts in pre-order. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public Stream <ConceptPojo> stream (@Nonnull final ConceptPojo aRoot)
+  {
+    return StreamSupport.stream (spliterator (aRoot), false);
+  }
+
+  /**
+   * @param aRoot
+   *        The root concept. May not be <code>null</code>.
+   * @return A parallel stream of all matching concepts. The encounter order is
+   *         pre-order. Never <code>null</code>.
+   */
+  @Nonnull
+  public Stream <ConceptPojo> parallelStream (@Nonnull final ConceptPojo aRoot)
+  {
+    return StreamSupport.stream (spliterator (aRoot), true);
+  }
+
+  /**
+   * A concept still to be reported by the spliterator, either alone or
+   * including its subtree.
+   */
+  private static final class Pending
+  {
+    private final ConceptPojo m_aConcept;
+    private final int m_nLevel;
+    private final boolean m_bWithChildren;
+
+    Pending (@Nonnull final ConceptPojo aConcept, final int nLevel, final boolean bWithChildren)
+    {
+      m_aConcept = aConcept;
+      m_nLevel = nLevel;
+      m_bWithChildren = bWithChildren;
+    }
+  }
+
+  /**
+   * Pre-order spliterator. The pending deque is in encounter order. Splitting
+   * hands out the first half of the pending subtrees; a single pending subtree
+   * is first replaced by its root and its child subtrees.
+   */
+  @NotThreadSafe
+  private final class ConceptSpliterator implements Spliterator <ConceptPojo>
+  {
+    private final Deque <Pending> m_aPending;
+
+    ConceptSpliterator (@Nonnull final Deque <Pending> aPending)
+    {
+      m_aPending = aPending;
+    }
+
+    private boolean _hasChildrenToTraverse (@Nonnull final Pending aPending)
+    {
+      return aPending.m_bWithChildren && aPending.m_nLevel < m_nMaxLevel && !aPending.m_aConcept.children ().isEmpty ();
+    }
+
+    public boolean tryAdvance (@Nonnull final Consumer <? super ConceptPojo> aAction)
+    {
+      Pending aCur;
+      while ((aCur = m_aPending.pollFirst ()) != null)
+      {
+        if (_hasChildrenToTraverse (aCur))
+        {
+          final List <ConceptPojo> aChildren = aCur.m_aConcept.children ();
+          for (int i = aChildren.size () - 1; i >= 0; --i)
+            m_aPending.addFirst (new Pending (aChildren.get (i), aCur.m_nLevel + 1, true));
+        }
+        if (isMatching (aCur.m_nLevel, aCur.m_aConcept))
+        {
+          aAction.accept (aCur.m_aConcept);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Nullable
+    public Spliterator <ConceptPojo> trySplit ()
+    {
+      if (m_aPending.size () == 1)
+      {
+        // Expand the single subtree
+        final Pending aOnly = m_aPending.peekFirst ();
+        if (!_hasChildrenToTraverse (aOnly) || aOnly.m_aConcept.children ().size () < 2)
+          return null;
+        m_aPending.clear ();
+        m_aPending.add (new Pending (aOnly.m_aConcept, aOnly.m_nLevel, false));
+        for (final ConceptPojo aChild : aOnly.m_aConcept.children ())
+          m_aPending.add (new Pending (aChild, aOnly.m_nLevel + 1, true));
+      }
+      final int nSplit = m_aPending.size () / 2;
+      if (nSplit == 0)
+        return null;
+
+      // The prefix goes to the new spliterator
+      final Deque <Pending> aPrefix = new ArrayDeque <> (nSplit);
+      for (int i = 0; i < nSplit; ++i)
+        aPrefix.add (m_aPending.pollFirst ());
+      return new ConceptSpliterator (aPrefix);
+    }
+
+    public long estimateSize ()
+    {
+      return m_aPending.isEmpty () ? 0 : Long.MAX_VALUE;
+    }
+
+    public int characteristics ()
+    {
+      return ORDERED | NONNULL | IMMUTABLE;
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MinLevel", m_nMinLevel)
+                                       .append ("MaxLevel", m_nMaxLevel)
+                                       .append ("Names", m_aNames)
+                                       .appendIfNotNull ("Filter", m_aFilter)
+                                       .getToString ();
+  }
+
+  @Nonnull
+  public static Builder builder ()
+  {
+    return new Builder ();
+  }
+
+  /**
+   * A builder for this class
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static class Builder
+  {
+    private int m_nMinLevel = 0;
+    private int m_nMaxLevel = Integer.MAX_VALUE;
+    private final ICommonsSet <QName> m_aNames = new CommonsHashSet <> ();
+    private Predicate <? super ConceptPojo> m_aFilter;
+
+    public Builder ()
+    {}
+
+    @Nonnull
+    public Builder minLevel (final int n)
+    {
+      m_nMinLevel = n;
+      return this;
+    }
+
+    @Nonnull
+    public Builder maxLevel (final int n)
+    {
+      m_nMaxLevel = n;
+      return this;
+    }
+
+    /**
+     * Only report concepts on exactly the passed level.
+     *
+     * @param n
+     *        The level. The root has level 0.
+     * @return this for chaining
+     */
+    @Nonnull
+    public Builder level (final int n)
+    {
+      return minLevel (n).maxLevel (n);
+    }
+
+    @Nonnull
+    public Builder addName (@Nullable final QName a)
+    {
+      if (a != null)
+        m_aNames.add (a);
+      return this;
+    }
+
+    @Nonnull
+    public Builder addName (@Nullable final IConceptName a)
+    {
+      return addName (a == null ? null : a.getAsQName ());
+    }
+
+    @Nonnull
+    public Builder names (@Nullable final QName... a)
+    {
+      m_aNames.setAll (a);
+      return this;
+    }
+
+    @Nonnull
+    public Builder filter (@Nullable final Predicate <? super ConceptPojo> a)
+    {
+      m_aFilter = a;
+      return this;
+    }
+
+    public void checkConsistency ()
+    {
+      if (m_nMinLevel < 0)
+        throw new IllegalStateException ("Min level must be >= 0");
+      if (m_nMaxLevel < m_nMinLevel)
+        throw new IllegalStateException ("Max level must be >= min level");
+    }
+
+    @Nonnull
+    public ConceptTraversal build ()
+    {
+      checkConsistency ();
+      return new ConceptTraversal (m_nMinLevel, m_nMaxLevel, Collections.unmodifiableSet (m_aNames.getClone ()), m_aFilter);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.hierarchy.visit.EHierarchyVisitorReturn;
+import com.helger.commons.hierarchy.visit.IHierarchyVisitorCallback;
+
+/**
+ * A non-recursive depth-first walker for concept trees - both
+ * {@link ConceptPojo} and JAXB trees. It has the same callback contract as
+ * {@link com.helger.commons.hierarchy.visit.ChildrenProviderHierarchyVisitor}
+ * but uses an explicit stack, so that arbitrarily deep trees cannot overflow
+ * the thread stack. The return value of
+ * {@link IHierarchyVisitorCallback#onItemBeforeChildren(Object)} is handled as
+ * follows:
+ * <ul>
+ * <li>{@link EHierarchyVisitorReturn#CONTINUE}: the children are
+ * visited</li>
+ * <li>{@link EHierarchyVisitorReturn#USE_NEXT_SIBLING}: the children are
+ * skipped</li>
+ * <li>{@link EHierarchyVisitorReturn#USE_PARENTS_NEXT_SIBLING}: the children
+ * and all following siblings are skipped</li>
+ * <li>{@link EHierarchyVisitorReturn#STOP_ITERATION}: the walk ends
+ * immediately</li>
+ * </ul>
+ * {@link IHierarchyVisitorCallback#onItemAfterChildren(Object)} is invoked for
+ * every item that was not stopped, and may return
+ * {@link EHierarchyVisitorReturn#USE_PARENTS_NEXT_SIBLING} or
+ * {@link EHierarchyVisitorReturn#STOP_ITERATION} as well.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class ConceptTreeWalker
+{
+  private static final class Frame <T>
+  {
+    private final T m_aItem;
+    private List <? extends T> m_aChildren;
+    private int m_nNextChild;
+    private boolean m_bEntered;
+    private boolean m_bLevelDown;
+
+    Frame (@Nonnull final T aItem)
+    {
+      m_aItem = aItem;
+    }
+
+    void skipRemainingChildren ()
+    {
+      m_nNextChild = m_aChildren == null ? 0 : m_aChildren.size ();
+    }
+  }
+
+  private ConceptTreeWalker ()
+  {}
+
+  /**
+   * Walk the tree starting at the passed root.
+   *
+   * @param aRoot
+   *        The root item. It is passed to the callback as well. May not be
+   *        <code>null</code>.
+   * @param aChildrenProvider
+   *        Resolves the children of an item. May return <code>null</code> for
+   *        no children. May not be <code>null</code>.
+   * @param aCallback
+   *        The callback to invoke. May not be <code>null</code>.
+   * @return {@link EHierarchyVisitorReturn#STOP_ITERATION} if the callback
+   *         stopped the walk, {@link EHierarchyVisitorReturn#CONTINUE}
+   *         otherwise.
+   * @param <T>
+   *        The item type
+   */
+  @Nonnull
+  public static <T> EHierarchyVisitorReturn walk (@Nonnull final T aRoot,
+                                                  @Nonnull final Function <? super T, ? extends List <? extends T>> aChildrenProvider,
+                                                  @Nonnull final IHierarchyVisitorCallback <? super T> aCallback)
+  {
+    ValueEnforcer.notNull (aRoot, "Root");
+    ValueEnforcer.notNull (aChildrenProvider, "ChildrenProvider");
+    ValueEnforcer.notNull (aCallback, "Callback");
+
+    aCallback.begin ();
+    try
+    {
+      final Deque <Frame <T>> aStack = new ArrayDeque <> ();
+      aStack.push (new Frame <> (aRoot));
+      while (!aStack.isEmpty ())
+      {
+        final Frame <T> aFrame = aStack.peek ();
+        if (!aFrame.m_bEntered)
+        {
+          aFrame.m_bEntered = true;
+          final EHierarchyVisitorReturn eRet = aCallback.onItemBeforeChildren (aFrame.m_aItem);
+          if (eRet == EHierarchyVisitorReturn.STOP_ITERATION)
+            return EHierarchyVisitorReturn.STOP_ITERATION;
+          if (eRet == EHierarchyVisitorReturn.CONTINUE)
+          {
+            final List <? extends T> aChildren = aChildrenProvider.apply (aFrame.m_aItem);
+            if (aChildren != null && !aChildren.isEmpty ())
+            {
+              aFrame.m_aChildren = aChildren;
+              aFrame.m_bLevelDown = true;
+              aCallback.onLevelDown ();
+            }
+          }
+          else
+            if (eRet == EHierarchyVisitorReturn.USE_PARENTS_NEXT_SIBLING)
+              _skipParentsRemainingChildren (aStack);
+        }
+
+        if (aFrame.m_aChildren != null && aFrame.m_nNextChild < aFrame.m_aChildren.size ())
+        {
+          aStack.push (new Frame <> (aFrame.m_aChildren.get (aFrame.m_nNextChild++)));
+          continue;
+        }
+
+        // All children are done
+        if (aFrame.m_bLevelDown)
+          aCallback.onLevelUp ();
+        aStack.pop ();
+        final EHierarchyVisitorReturn eRet = aCallback.onItemAfterChildren (aFrame.m_aItem);
+        if (eRet == EHierarchyVisitorReturn.STOP_ITERATION)
+          return EHierarchyVisitorReturn.STOP_ITERATION;
+        if (eRet == EHierarchyVisitorReturn.USE_PARENTS_NEXT_SIBLING)
+        {
+          // The current frame is already removed
+          final Frame <T> aParent = aStack.peek ();
+          if (aParent != null)
+            aParent.skipRemainingChildren ();
+        }
+      }
+      return EHierarchyVisitorReturn.CONTINUE;
+    }
+    finally
+    {
+      aCallback.end ();
+    }
+  }
+
+  private static <T> void _skipParentsRemainingChildren (@Nonnull final Deque <Frame <T>> aStack)
+  {
+    // The parent frame is the second element
+    final Frame <T> aCurrent = aStack.pop ();
+    final Frame <T> aParent = aStack.peek ();
+    if (aParent != null)
+      aParent.skipRemainingChildren ();
+    aStack.push (aCurrent);
+  }
+}
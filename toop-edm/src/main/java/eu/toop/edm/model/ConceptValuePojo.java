@@ -40,6 +40,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -51,43 +52,46 @@ import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.xml.datatype.XMLGregorianCalendar;
 
+import com.helger.commons.annotation.ReturnsImmutableObject;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
 import com.helger.commons.math.MathHelper;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.StringParser;
 import com.helger.commons.string.ToStringGenerator;
-import com.helger.datetime.util.PDTXMLConverter;
 
 import eu.toop.edm.error.IToopErrorCode;
 import eu.toop.edm.jaxb.cccev.CCCEVValueType;
 import eu.toop.edm.jaxb.cv.cbc.TextType;
 import eu.toop.edm.xml.cccev.CCCEVValueHelper;
+import eu.toop.regrep.datetime.XSDDateTimeConverter;
 
 /**
  * Represents a single "Value" in a concept. Usually only used in responses.
+ * <br>
+ * Only one of the values is usually set, so internally only the type and the
+ * value object are stored. In the unusual case that more than one value is
+ * provided, all values are retained in an array indexed by
+ * {@link EConceptValueType#ordinal()}.
  *
  * @author Philip Helger
  */
 @Immutable
 public class ConceptValuePojo
 {
-  private final String m_sIdentifier;
-  private final AmountPojo m_aAmount;
-  private final String m_sCode;
-  private final LocalDate m_aDate;
-  private final Boolean m_aIndicator;
-  private final MeasurePojo m_aMeasure;
-  private final BigDecimal m_aNumeric;
-  private final PeriodPojo m_aPeriod;
-  private final QuantityPojo m_aQuantity;
-  private final ICommonsList <String> m_aText = new CommonsArrayList <> ();
-  private final LocalTime m_aTime;
-  private final String m_sURI;
-  private final String m_sErrorCode;
+  private static final EConceptValueType [] TYPES = EConceptValueType.values ();
+
+  // null if no value or more than one value is present
+  private final EConceptValueType m_eType;
+  // The single value, or an Object[] if more than one value is present
+  private final Object m_aValue;
+
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
 
   public ConceptValuePojo (@Nullable final String sIdentifier,
                            @Nullable final AmountPojo aAmount,
@@ -103,111 +107,168 @@ public class ConceptValuePojo
                            @Nullable final String sURI,
                            @Nullable final String sErrorCode)
   {
-    m_sIdentifier = sIdentifier;
-    m_aAmount = aAmount;
-    m_sCode = sCode;
-    m_aDate = aDate;
-    m_aIndicator = aIndicator;
-    m_aMeasure = aMeasure;
-    m_aNumeric = aNumeric;
-    m_aPeriod = aPeriod;
-    m_aQuantity = aQuantity;
-    if (aText != null)
-      m_aText.addAll (aText);
-    m_aTime = aTime;
-    m_sURI = sURI;
-    m_sErrorCode = sErrorCode;
+    // Same order as EConceptValueType
+    final Object [] aValues = { sIdentifier,
+                                aAmount,
+                                sCode,
+                                aDate,
+                                aIndicator,
+                                aMeasure,
+                                aNumeric,
+                                aPeriod,
+                                aQuantity,
+                                aText == null || aText.isEmpty () ? null : new CommonsArrayList <> (aText),
+                                aTime,
+                                sURI,
+                                sErrorCode };
+    EConceptValueType eType = null;
+    int nCount = 0;
+    for (int i = 0; i < aValues.length; ++i)
+      if (aValues[i] != null)
+      {
+        if (eType == null)
+          eType = TYPES[i];
+        nCount++;
+      }
+
+    if (nCount <= 1)
+    {
+      m_eType = eType;
+      m_aValue = eType == null ? null : aValues[eType.ordinal ()];
+    }
+    else
+    {
+      m_eType = null;
+      m_aValue = aValues;
+    }
+  }
+
+  @Nullable
+  private Object _getValue (@Nonnull final EConceptValueType eType)
+  {
+    if (m_eType == eType)
+      return m_aValue;
+    if (m_eType == null && m_aValue != null)
+      return ((Object []) m_aValue)[eType.ordinal ()];
+    return null;
   }
 
   @Nullable
   public final String getIdentifier ()
   {
-    return m_sIdentifier;
+    return (String) _getValue (EConceptValueType.IDENTIFIER);
   }
 
   @Nullable
   public final AmountPojo getAmount ()
   {
-    return m_aAmount;
+    return (AmountPojo) _getValue (EConceptValueType.AMOUNT);
   }
 
   @Nullable
   public final String getCode ()
   {
-    return m_sCode;
+    return (String) _getValue (EConceptValueType.CODE);
   }
 
   @Nullable
   public final LocalDate getDate ()
   {
-    return m_aDate;
+    return (LocalDate) _getValue (EConceptValueType.DATE);
   }
 
   @Nullable
   public final Boolean getBoolean ()
   {
-    return m_aIndicator;
+    return (Boolean) _getValue (EConceptValueType.INDICATOR);
   }
 
   @Nullable
   public final MeasurePojo getMeasure ()
   {
-    return m_aMeasure;
+    return (MeasurePojo) _getValue (EConceptValueType.MEASURE);
   }
 
   @Nullable
   public final BigDecimal getNumeric ()
   {
-    return m_aNumeric;
+    return (BigDecimal) _getValue (EConceptValueType.NUMERIC);
   }
 
   @Nullable
   public final PeriodPojo getPeriod ()
   {
-    return m_aPeriod;
+    return (PeriodPojo) _getValue (EConceptValueType.PERIOD);
   }
 
   @Nullable
   public final QuantityPojo getQuantity ()
   {
-    return m_aQuantity;
+    return (QuantityPojo) _getValue (EConceptValueType.QUANTITY);
+  }
+
+  @Nullable
+  @SuppressWarnings ("unchecked")
+  private ICommonsList <String> _getText ()
+  {
+    return (ICommonsList <String>) _getValue (EConceptValueType.TEXT);
   }
 
   @Nonnull
-  @ReturnsMutableCopy
+  @ReturnsImmutableObject
   public final List <String> text ()
   {
-    return m_aText;
+    final ICommonsList <String> ret = _getText ();
+    return ret == null ? Collections.emptyList () : ret.getAsUnmodifiable ();
   }
 
   @Nonnull
   @ReturnsMutableCopy
   public final List <String> getAllTexts ()
   {
-    return m_aText.getClone ();
+    final ICommonsList <String> ret = _getText ();
+    return ret == null ? new CommonsArrayList <> () : ret.getClone ();
   }
 
   @Nullable
   public final LocalTime getTime ()
   {
-    return m_aTime;
+    return (LocalTime) _getValue (EConceptValueType.TIME);
   }
 
   @Nullable
   public final String getURI ()
   {
-    return m_sURI;
+    return (String) _getValue (EConceptValueType.URI);
   }
 
   @Nullable
   public final String getErrorCode ()
   {
-    return m_sErrorCode;
+    return (String) _getValue (EConceptValueType.ERROR_CODE);
   }
 
   public final boolean isErrorCodeValue ()
   {
-    return StringHelper.hasText (m_sErrorCode);
+    return StringHelper.hasText (getErrorCode ());
+  }
+
+  /**
+   * @return The type of the contained value or <code>null</code> if no value
+   *         is part. If multiple values are set, the same precedence as in
+   *         {@link #getAsString()} applies.
+   * @since 2.1.2
+   */
+  @Nullable
+  public EConceptValueType getValueType ()
+  {
+    if (m_eType != null || m_aValue == null)
+      return m_eType;
+    final Object [] aValues = (Object []) m_aValue;
+    for (int i = 0; i < aValues.length; ++i)
+      if (aValues[i] != null)
+        return TYPES[i];
+    return null;
   }
 
   /**
@@ -217,65 +278,79 @@ public class ConceptValuePojo
   @Nullable
   public String getAsString ()
   {
-    if (m_sIdentifier != null)
-      return m_sIdentifier;
-    if (m_aAmount != null)
-      return m_aAmount.getAsString ();
-    if (m_sCode != null)
-      return m_sCode;
-    if (m_aDate != null)
-      return m_aDate.toString ();
-    if (m_aIndicator != null)
-      return m_aIndicator.toString ();
-    if (m_aMeasure != null)
-      return m_aMeasure.getAsString ();
-    if (m_aNumeric != null)
-      return m_aNumeric.toString ();
-    if (m_aPeriod != null)
-      return m_aPeriod.getAsString ();
-    if (m_aQuantity != null)
-      return m_aQuantity.getAsString ();
-    if (m_aText.isNotEmpty ())
-      return StringHelper.getImploded ('\n', m_aText);
-    if (m_aTime != null)
-      return m_aTime.toString ();
-    if (m_sURI != null)
-      return m_sURI;
-    if (m_sErrorCode != null)
-      return m_sErrorCode;
-    return null;
+    final EConceptValueType eType = getValueType ();
+    if (eType == null)
+      return null;
+    switch (eType)
+    {
+      case IDENTIFIER:
+        return getIdentifier ();
+      case AMOUNT:
+        return getAmount ().getAsString ();
+      case CODE:
+        return getCode ();
+      case DATE:
+        return getDate ().toString ();
+      case INDICATOR:
+        return getBoolean ().toString ();
+      case MEASURE:
+        return getMeasure ().getAsString ();
+      case NUMERIC:
+        return getNumeric ().toString ();
+      case PERIOD:
+        return getPeriod ().getAsString ();
+      case QUANTITY:
+        return getQuantity ().getAsString ();
+      case TEXT:
+        return StringHelper.getImploded ('\n', _getText ());
+      case TIME:
+        return getTime ().toString ();
+      case URI:
+        return getURI ();
+      case ERROR_CODE:
+        return getErrorCode ();
+      default:
+        throw new IllegalStateException ("Unsupported value type " + eType);
+    }
   }
 
   @Nullable
   public CCCEVValueType getAsCCCEVValueType ()
   {
-    if (m_sIdentifier != null)
-      return CCCEVValueHelper.createID (m_sIdentifier);
-    if (m_aAmount != null)
-      return CCCEVValueHelper.create (m_aAmount.getAsAmount ());
-    if (m_sCode != null)
-      return CCCEVValueHelper.createCode (m_sCode);
-    if (m_aDate != null)
-      return CCCEVValueHelper.create (m_aDate);
-    if (m_aIndicator != null)
-      return CCCEVValueHelper.create (m_aIndicator);
-    if (m_aMeasure != null)
-      return CCCEVValueHelper.create (m_aMeasure.getAsMeasure ());
-    if (m_aNumeric != null)
-      return CCCEVValueHelper.create (m_aNumeric);
-    if (m_aPeriod != null)
-      return CCCEVValueHelper.create (m_aPeriod.getAsPeriod ());
-    if (m_aQuantity != null)
-      return CCCEVValueHelper.create (m_aQuantity.getAsQuantity ());
-    if (m_aText.isNotEmpty ())
-      return CCCEVValueHelper.createText (m_aText);
-    if (m_aTime != null)
-      return CCCEVValueHelper.create (m_aTime);
-    if (m_sURI != null)
-      return CCCEVValueHelper.createURI (m_sURI);
-    if (m_sErrorCode != null)
-      return CCCEVValueHelper.createError (m_sErrorCode);
-    return null;
+    final EConceptValueType eType = getValueType ();
+    if (eType == null)
+      return null;
+    switch (eType)
+    {
+      case IDENTIFIER:
+        return CCCEVValueHelper.createID (getIdentifier ());
+      case AMOUNT:
+        return CCCEVValueHelper.create (getAmount ().getAsAmount ());
+      case CODE:
+        return CCCEVValueHelper.createCode (getCode ());
+      case DATE:
+        return CCCEVValueHelper.create (getDate ());
+      case INDICATOR:
+        return CCCEVValueHelper.create (getBoolean ());
+      case MEASURE:
+        return CCCEVValueHelper.create (getMeasure ().getAsMeasure ());
+      case NUMERIC:
+        return CCCEVValueHelper.create (getNumeric ());
+      case PERIOD:
+        return CCCEVValueHelper.create (getPeriod ().getAsPeriod ());
+      case QUANTITY:
+        return CCCEVValueHelper.create (getQuantity ().getAsQuantity ());
+      case TEXT:
+        return CCCEVValueHelper.createText (_getText ());
+      case TIME:
+        return CCCEVValueHelper.create (getTime ());
+      case URI:
+        return CCCEVValueHelper.createURI (getURI ());
+      case ERROR_CODE:
+        return CCCEVValueHelper.createError (getErrorCode ());
+      default:
+        throw new IllegalStateException ("Unsupported value type " + eType);
+    }
   }
 
   @Override
@@ -286,56 +361,34 @@ public class ConceptValuePojo
     if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final ConceptValuePojo rhs = (ConceptValuePojo) o;
-    return EqualsHelper.equals (m_sIdentifier, rhs.m_sIdentifier) &&
-           EqualsHelper.equals (m_aAmount, rhs.m_aAmount) &&
-           EqualsHelper.equals (m_sCode, rhs.m_sCode) &&
-           EqualsHelper.equals (m_aDate, rhs.m_aDate) &&
-           EqualsHelper.equals (m_aIndicator, rhs.m_aIndicator) &&
-           EqualsHelper.equals (m_aMeasure, rhs.m_aMeasure) &&
-           EqualsHelper.equals (m_aNumeric, rhs.m_aNumeric) &&
-           EqualsHelper.equals (m_aPeriod, rhs.m_aPeriod) &&
-           EqualsHelper.equals (m_aQuantity, rhs.m_aQuantity) &&
-           EqualsHelper.equals (m_aText, rhs.m_aText) &&
-           EqualsHelper.equals (m_aTime, rhs.m_aTime) &&
-           EqualsHelper.equals (m_sURI, rhs.m_sURI) &&
-           EqualsHelper.equals (m_sErrorCode, rhs.m_sErrorCode);
+    return EqualsHelper.equals (m_eType, rhs.m_eType) && EqualsHelper.equals (m_aValue, rhs.m_aValue);
   }
 
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_sIdentifier)
-                                       .append (m_aAmount)
-                                       .append (m_sCode)
-                                       .append (m_aDate)
-                                       .append (m_aIndicator)
-                                       .append (m_aMeasure)
-                                       .append (m_aNumeric)
-                                       .append (m_aPeriod)
-                                       .append (m_aQuantity)
-                                       .append (m_aText)
-                                       .append (m_aTime)
-                                       .append (m_sURI)
-                                       .append (m_sErrorCode)
-                                       .getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_eType).append (m_aValue).getHashCode ();
+    return ret;
   }
 
   @Override
   public String toString ()
   {
-    return new ToStringGenerator (this).appendIfNotNull ("Identifier", m_sIdentifier)
-                                       .appendIfNotNull ("Amount", m_aAmount)
-                                       .appendIfNotNull ("Code", m_sCode)
-                                       .appendIfNotNull ("Date", m_aDate)
-                                       .appendIfNotNull ("Indicator", m_aIndicator)
-                                       .appendIfNotNull ("Measure", m_aMeasure)
-                                       .appendIfNotNull ("Numeric", m_aNumeric)
-                                       .appendIfNotNull ("Period", m_aPeriod)
-                                       .appendIfNotNull ("Quantity", m_aQuantity)
-                                       .appendIfNotNull ("Text", m_aText)
-                                       .appendIfNotNull ("Time", m_aTime)
-                                       .appendIfNotNull ("URI", m_sURI)
-                                       .appendIfNotNull ("ErrorCode", m_sErrorCode)
+    return new ToStringGenerator (this).appendIfNotNull ("Identifier", getIdentifier ())
+                                       .appendIfNotNull ("Amount", getAmount ())
+                                       .appendIfNotNull ("Code", getCode ())
+                                       .appendIfNotNull ("Date", getDate ())
+                                       .appendIfNotNull ("Indicator", getBoolean ())
+                                       .appendIfNotNull ("Measure", getMeasure ())
+                                       .appendIfNotNull ("Numeric", getNumeric ())
+                                       .appendIfNotNull ("Period", getPeriod ())
+                                       .appendIfNotNull ("Quantity", getQuantity ())
+                                       .appendIfNotNull ("Text", _getText ())
+                                       .appendIfNotNull ("Time", getTime ())
+                                       .appendIfNotNull ("URI", getURI ())
+                                       .appendIfNotNull ("ErrorCode", getErrorCode ())
                                        .getToString ();
   }
 
@@ -441,7 +494,7 @@ public class ConceptValuePojo
     @Nonnull
     public Builder date (@Nullable final XMLGregorianCalendar a)
     {
-      return date (PDTXMLConverter.getLocalDate (a));
+      return date (XSDDateTimeConverter.getLocalDate (a));
     }
 
     @Nonnull
@@ -600,7 +653,7 @@ public class ConceptValuePojo
     @Nonnull
     public Builder time (@Nullable final XMLGregorianCalendar a)
     {
-      return time (PDTXMLConverter.getLocalTime (a));
+      return time (XSDDateTimeConverter.getLocalTime (a));
     }
 
     @Nonnull
@@ -48,22 +48,23 @@ import javax.xml.datatype.XMLGregorianCalendar;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsImmutableObject;
 import com.helger.commons.annotation.ReturnsMutableCopy;
-import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.datetime.PDTFactory;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
-import com.helger.datetime.util.PDTXMLConverter;
 
 import eu.toop.edm.jaxb.cccev.CCCEVDocumentReferenceType;
 import eu.toop.edm.jaxb.cv.agent.AgentType;
 import eu.toop.edm.jaxb.dcatap.DCatAPDatasetType;
 import eu.toop.edm.jaxb.dcatap.DCatAPRelationshipType;
 import eu.toop.edm.jaxb.dcterms.DCPeriodOfTimeType;
+import eu.toop.regrep.datetime.XSDDateTimeConverter;
 
 /**
  * Contains a response "Dataset" for a "document response"
@@ -85,6 +86,9 @@ public class DatasetPojo
   private final LocalDate m_aValidTo;
   private final ICommonsList <QualifiedRelationPojo> m_aQualifiedRelations = new CommonsArrayList <> ();
 
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
+
   public DatasetPojo (@Nonnull @Nonempty final ICommonsList <String> aDescriptions,
                       @Nonnull @Nonempty final ICommonsList <String> aTitles,
                       @Nullable final DocumentReferencePojo aDistribution,
@@ -118,10 +122,10 @@ public class DatasetPojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final List <String> descriptions ()
   {
-    return m_aDescriptions;
+    return m_aDescriptions.getAsUnmodifiable ();
   }
 
   @Nonnull
@@ -132,10 +136,10 @@ public class DatasetPojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final List <String> titles ()
   {
-    return m_aTitles;
+    return m_aTitles.getAsUnmodifiable ();
   }
 
   @Nonnull
@@ -158,10 +162,10 @@ public class DatasetPojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final List <String> ids ()
   {
-    return m_aIDs;
+    return m_aIDs.getAsUnmodifiable ();
   }
 
   @Nonnull
@@ -202,10 +206,10 @@ public class DatasetPojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final List <QualifiedRelationPojo> qualifiedRelations ()
   {
-    return m_aQualifiedRelations;
+    return m_aQualifiedRelations.getAsUnmodifiable ();
   }
 
   @Nonnull
@@ -273,18 +277,21 @@ public class DatasetPojo
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aDescriptions)
-                                       .append (m_aTitles)
-                                       .append (m_aDistribution)
-                                       .append (m_aCreator)
-                                       .append (m_aIDs)
-                                       .append (m_aIssuedDT)
-                                       .append (m_sLanguage)
-                                       .append (m_aLastModifiedDT)
-                                       .append (m_aValidFrom)
-                                       .append (m_aValidTo)
-                                       .append (m_aQualifiedRelations)
-                                       .getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_aDescriptions)
+                                                      .append (m_aTitles)
+                                                      .append (m_aDistribution)
+                                                      .append (m_aCreator)
+                                                      .append (m_aIDs)
+                                                      .append (m_aIssuedDT)
+                                                      .append (m_sLanguage)
+                                                      .append (m_aLastModifiedDT)
+                                                      .append (m_aValidFrom)
+                                                      .append (m_aValidTo)
+                                                      .append (m_aQualifiedRelations)
+                                                      .getHashCode ();
+    return ret;
   }
 
   @Override
@@ -323,7 +330,7 @@ public class DatasetPojo
         ret.creator (AgentPojo.builder ((AgentType) a.getCreator ()));
       ret.ids (a.getIdentifier ()).issued (a.getIssued ());
       if (a.hasLanguageEntries ())
-        ret.language (a.getLanguageAtIndex (0));
+        ret.language (EDMInterner.internCode (a.getLanguageAtIndex (0)));
       ret.lastModified (a.getModified ());
       if (a.hasTemporalEntries ())
       {
@@ -544,7 +551,7 @@ public class DatasetPojo
     @Nonnull
     public Builder issued (@Nullable final XMLGregorianCalendar a)
     {
-      return issued (PDTXMLConverter.getLocalDateTime (a));
+      return issued (XSDDateTimeConverter.getLocalDateTime (a));
     }
 
     @Nonnull
@@ -576,7 +583,7 @@ public class DatasetPojo
     @Nonnull
     public Builder lastModified (@Nullable final XMLGregorianCalendar a)
     {
-      return lastModified (PDTXMLConverter.getLocalDateTime (a));
+      return lastModified (XSDDateTimeConverter.getLocalDateTime (a));
     }
 
     @Nonnull
@@ -595,7 +602,7 @@ public class DatasetPojo
     @Nonnull
     public Builder validFrom (@Nullable final XMLGregorianCalendar a)
     {
-      return validFrom (PDTXMLConverter.getLocalDate (a));
+      return validFrom (XSDDateTimeConverter.getLocalDate (a));
     }
 
     @Nonnull
@@ -608,7 +615,7 @@ public class DatasetPojo
     @Nonnull
     public Builder validTo (@Nullable final XMLGregorianCalendar a)
     {
-      return validTo (PDTXMLConverter.getLocalDate (a));
+      return validTo (XSDDateTimeConverter.getLocalDate (a));
     }
 
     @Nonnull
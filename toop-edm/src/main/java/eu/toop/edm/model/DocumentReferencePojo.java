@@ -42,12 +42,13 @@ import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsImmutableObject;
 import com.helger.commons.annotation.ReturnsMutableCopy;
-import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
 
@@ -66,6 +67,9 @@ public class DocumentReferencePojo
   private final ICommonsList <String> m_aDocumentDescriptions = new CommonsArrayList <> ();
   private final String m_sDocumentType;
 
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
+
   public DocumentReferencePojo (@Nonnull final String sDocumentURI,
                                 @Nullable final List <String> aDocumentDescriptions,
                                 @Nullable final String sDocumentType)
@@ -84,10 +88,10 @@ public class DocumentReferencePojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final List <String> documentDescriptions ()
   {
-    return m_aDocumentDescriptions;
+    return m_aDocumentDescriptions.getAsUnmodifiable ();
   }
 
   @Nonnull
@@ -136,7 +140,13 @@ public class DocumentReferencePojo
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_sDocumentURI).append (m_aDocumentDescriptions).append (m_sDocumentType).getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_sDocumentURI)
+                                                      .append (m_aDocumentDescriptions)
+                                                      .append (m_sDocumentType)
+                                                      .getHashCode ();
+    return ret;
   }
 
   @Override
@@ -0,0 +1,95 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.id.IHasID;
+import com.helger.commons.lang.EnumHelper;
+
+/**
+ * The different kinds of values a {@link ConceptValuePojo} can have. The ID is
+ * the local name of the respective element in the CCCEV value.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+public enum EConceptValueType implements IHasID <String>
+{
+  IDENTIFIER ("identifierValue"),
+  AMOUNT ("amountValue"),
+  CODE ("codeValue"),
+  DATE ("dateValue"),
+  INDICATOR ("indicatorValue"),
+  MEASURE ("measureValue"),
+  NUMERIC ("numericValue"),
+  PERIOD ("periodValue"),
+  QUANTITY ("quantityValue"),
+  TEXT ("textValue"),
+  TIME ("timeValue"),
+  URI ("uriValue"),
+  ERROR_CODE ("error");
+
+  private final String m_sID;
+
+  EConceptValueType (@Nonnull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return <code>true</code> if the value has a decimal number, being
+   *         {@link #AMOUNT}, {@link #MEASURE}, {@link #NUMERIC} or
+   *         {@link #QUANTITY}.
+   */
+  public boolean isDecimal ()
+  {
+    return this == AMOUNT || this == MEASURE || this == NUMERIC || this == QUANTITY;
+  }
+
+  @Nullable
+  public static EConceptValueType getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDOrNull (EConceptValueType.class, sID);
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.namespace.QName;
+
+/**
+ * Global, optional canonicalization of sub-objects that recur in many EDM
+ * messages. Used by the XML and JSON readers so that e.g. the same data
+ * consumer, the same concept names and the same codes share one instance.
+ * Disabled by default - in that case all <code>intern*</code> methods return
+ * their parameter unchanged.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@ThreadSafe
+public final class EDMInterner
+{
+  public static final int MAX_AGENTS = 1_000;
+  public static final int MAX_QNAMES = 10_000;
+  public static final int MAX_CODES = 10_000;
+
+  private static final AtomicBoolean ENABLED = new AtomicBoolean (false);
+  private static final InterningCache <AgentPojo> AGENTS = new InterningCache <> ("Agents", MAX_AGENTS);
+  private static final InterningCache <QName> QNAMES = new InterningCache <> ("QNames", MAX_QNAMES);
+  private static final InterningCache <String> CODES = new InterningCache <> ("Codes", MAX_CODES);
+
+  private EDMInterner ()
+  {}
+
+  /**
+   * @return <code>true</code> if interning is enabled, <code>false</code> if
+   *         not. Default is <code>false</code>.
+   */
+  public static boolean isEnabled ()
+  {
+    return ENABLED.get ();
+  }
+
+  /**
+   * Enable or disable interning. Disabling does not clear the caches.
+   *
+   * @param bEnabled
+   *        <code>true</code> to enable, <code>false</code> to disable.
+   */
+  public static void setEnabled (final boolean bEnabled)
+  {
+    ENABLED.set (bEnabled);
+  }
+
+  @Nullable
+  public static AgentPojo internAgent (@Nullable final AgentPojo a)
+  {
+    return ENABLED.get () ? AGENTS.intern (a) : a;
+  }
+
+  @Nullable
+  public static QName internQName (@Nullable final QName a)
+  {
+    return ENABLED.get () ? QNAMES.intern (a) : a;
+  }
+
+  /**
+   * Intern short code values like country codes, currency codes or language
+   * codes.
+   *
+   * @param s
+   *        The code to intern. May be <code>null</code>.
+   * @return The canonical instance.
+   */
+  @Nullable
+  public static String internCode (@Nullable final String s)
+  {
+    return ENABLED.get () ? CODES.intern (s) : s;
+  }
+
+  @Nonnull
+  public static InterningCache <AgentPojo> getAgentCache ()
+  {
+    return AGENTS;
+  }
+
+  @Nonnull
+  public static InterningCache <QName> getQNameCache ()
+  {
+    return QNAMES;
+  }
+
+  @Nonnull
+  public static InterningCache <String> getCodeCache ()
+  {
+    return CODES;
+  }
+
+  /**
+   * Clear all caches and their statistics.
+   */
+  public static void clearAll ()
+  {
+    AGENTS.clear ();
+    QNAMES.clear ();
+    CODES.clear ();
+  }
+}
@@ -0,0 +1,191 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A bounded, concurrent canonicalization cache. For every value passed to
+ * {@link #intern(Object)} an equal, previously interned instance is returned
+ * if present. Only immutable objects with a proper
+ * {@link Object#equals(Object)} and {@link Object#hashCode()} implementation
+ * may be used.<br>
+ * If the maximum size is reached, new values are no longer retained but
+ * returned unchanged. The existing entries stay, as they are the most likely
+ * ones to be hit again.
+ *
+ * @author Philip Helger
+ * @param <T>
+ *        The type of objects to be interned.
+ * @since 2.1.2
+ */
+@ThreadSafe
+public class InterningCache <T>
+{
+  private final String m_sName;
+  private final int m_nMaxSize;
+  private final ConcurrentHashMap <T, T> m_aMap = new ConcurrentHashMap <> ();
+  private final LongAdder m_aHits = new LongAdder ();
+  private final LongAdder m_aMisses = new LongAdder ();
+
+  public InterningCache (@Nonnull @Nonempty final String sName, @Nonnegative final int nMaxSize)
+  {
+    ValueEnforcer.notEmpty (sName, "Name");
+    ValueEnforcer.isGT0 (nMaxSize, "MaxSize");
+    m_sName = sName;
+    m_nMaxSize = nMaxSize;
+  }
+
+  /**
+   * @return The name of the cache as provided in the constructor. Neither
+   *         <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public final String getName ()
+  {
+    return m_sName;
+  }
+
+  /**
+   * @return The maximum number of retained values. Always &gt; 0.
+   */
+  @Nonnegative
+  public final int getMaxSize ()
+  {
+    return m_nMaxSize;
+  }
+
+  /**
+   * Get the canonical instance of the passed value.
+   *
+   * @param aValue
+   *        The value to be interned. May be <code>null</code>.
+   * @return A previously retained instance equal to the passed value, or the
+   *         passed value itself. <code>null</code> only if the parameter is
+   *         <code>null</code>.
+   */
+  @Nullable
+  public T intern (@Nullable final T aValue)
+  {
+    if (aValue == null)
+      return null;
+
+    final T aExisting = m_aMap.get (aValue);
+    if (aExisting != null)
+    {
+      m_aHits.increment ();
+      return aExisting;
+    }
+
+    m_aMisses.increment ();
+    // Concurrent misses may exceed the limit by a few entries
+    if (m_aMap.size () >= m_nMaxSize)
+      return aValue;
+    final T aOld = m_aMap.putIfAbsent (aValue, aValue);
+    return aOld != null ? aOld : aValue;
+  }
+
+  /**
+   * @return The number of currently retained values. This is an entry count
+   *         and not a memory size. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getRetainedCount ()
+  {
+    return m_aMap.size ();
+  }
+
+  /**
+   * @return The number of {@link #intern(Object)} calls that returned an
+   *         already retained instance.
+   */
+  @Nonnegative
+  public long getHits ()
+  {
+    return m_aHits.sum ();
+  }
+
+  /**
+   * @return The number of {@link #intern(Object)} calls with a
+   *         non-<code>null</code> value that did not find a retained instance.
+   */
+  @Nonnegative
+  public long getMisses ()
+  {
+    return m_aMisses.sum ();
+  }
+
+  /**
+   * @return The hit rate between 0 and 1. If nothing was interned so far, 0 is
+   *         returned.
+   */
+  public double getHitRate ()
+  {
+    final long nHits = getHits ();
+    final long nTotal = nHits + getMisses ();
+    return nTotal == 0 ? 0 : (double) nHits / nTotal;
+  }
+
+  /**
+   * Remove all retained values and reset the statistics.
+   */
+  public void clear ()
+  {
+    m_aMap.clear ();
+    m_aHits.reset ();
+    m_aMisses.reset ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Name", m_sName)
+                                       .append ("MaxSize", m_nMaxSize)
+                                       .append ("RetainedCount", getRetainedCount ())
+                                       .append ("Hits", getHits ())
+                                       .append ("Misses", getMisses ())
+                                       .getToString ();
+  }
+}
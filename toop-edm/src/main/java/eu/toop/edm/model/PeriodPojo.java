@@ -49,9 +49,9 @@ import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
-import com.helger.datetime.util.PDTXMLConverter;
 
 import eu.toop.edm.jaxb.cv.cac.PeriodType;
+import eu.toop.regrep.datetime.XSDDateTimeConverter;
 
 /**
  * Represents a single "Period".
@@ -212,7 +212,7 @@ public class PeriodPojo
     @Nonnull
     public Builder startDateTime (@Nullable final XMLGregorianCalendar a)
     {
-      return startDateTime (PDTXMLConverter.getLocalDateTime (a));
+      return startDateTime (XSDDateTimeConverter.getLocalDateTime (a));
     }
 
     @Nonnull
@@ -230,7 +230,7 @@ public class PeriodPojo
     @Nonnull
     public Builder startDate (@Nullable final XMLGregorianCalendar a)
     {
-      return startDate (PDTXMLConverter.getLocalDate (a));
+      return startDate (XSDDateTimeConverter.getLocalDate (a));
     }
 
     @Nonnull
@@ -249,7 +249,7 @@ public class PeriodPojo
     @Nonnull
     public Builder startTime (@Nullable final XMLGregorianCalendar a)
     {
-      return startTime (PDTXMLConverter.getLocalTime (a));
+      return startTime (XSDDateTimeConverter.getLocalTime (a));
     }
 
     @Nonnull
@@ -268,7 +268,7 @@ public class PeriodPojo
     @Nonnull
     public Builder endDateTime (@Nullable final XMLGregorianCalendar a)
     {
-      return endDateTime (PDTXMLConverter.getLocalDateTime (a));
+      return endDateTime (XSDDateTimeConverter.getLocalDateTime (a));
     }
 
     @Nonnull
@@ -286,7 +286,7 @@ public class PeriodPojo
     @Nonnull
     public Builder endDate (@Nullable final XMLGregorianCalendar a)
     {
-      return endDate (PDTXMLConverter.getLocalDate (a));
+      return endDate (XSDDateTimeConverter.getLocalDate (a));
     }
 
     @Nonnull
@@ -305,7 +305,7 @@ public class PeriodPojo
     @Nonnull
     public Builder endTime (@Nullable final XMLGregorianCalendar a)
     {
-      return endTime (PDTXMLConverter.getLocalTime (a));
+      return endTime (XSDDateTimeConverter.getLocalTime (a));
     }
 
     @Nonnull
@@ -45,9 +45,9 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
-import com.helger.datetime.util.PDTXMLConverter;
 
 import eu.toop.edm.jaxb.w3.cv.ac.CoreLocationType;
 import eu.toop.edm.jaxb.w3.cv.ac.CorePersonType;
@@ -57,6 +57,7 @@ import eu.toop.edm.jaxb.w3.cv.bc.PersonFamilyNameType;
 import eu.toop.edm.jaxb.w3.cv.bc.PersonGenderCodeType;
 import eu.toop.edm.jaxb.w3.cv.bc.PersonGivenNameType;
 import eu.toop.edm.jaxb.w3.cv.bc.PersonIDType;
+import eu.toop.regrep.datetime.XSDDateTimeConverter;
 
 /**
  * Representation of a "Person"
@@ -76,6 +77,9 @@ public class PersonPojo
   private final String m_sBirthTown;
   private final AddressPojo m_aAddress;
 
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
+
   public PersonPojo (@Nonnull final String sID,
                      @Nonnull final String sIDSchemeID,
                      @Nonnull final String sFamilyName,
@@ -233,16 +237,19 @@ public class PersonPojo
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_sID)
-                                       .append (m_sIDSchemeID)
-                                       .append (m_sFamilyName)
-                                       .append (m_sGivenName)
-                                       .append (m_sGenderCode)
-                                       .append (m_sBirthName)
-                                       .append (m_aBirthDate)
-                                       .append (m_sBirthTown)
-                                       .append (m_aAddress)
-                                       .getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_sID)
+                                                      .append (m_sIDSchemeID)
+                                                      .append (m_sFamilyName)
+                                                      .append (m_sGivenName)
+                                                      .append (m_sGenderCode)
+                                                      .append (m_sBirthName)
+                                                      .append (m_aBirthDate)
+                                                      .append (m_sBirthTown)
+                                                      .append (m_aAddress)
+                                                      .getHashCode ();
+    return ret;
   }
 
   @Override
@@ -399,7 +406,7 @@ public class PersonPojo
     @Nonnull
     public Builder birthDate (@Nullable final XMLGregorianCalendar a)
     {
-      return birthDate (PDTXMLConverter.getLocalDate (a));
+      return birthDate (XSDDateTimeConverter.getLocalDate (a));
     }
 
     @Nonnull
@@ -43,12 +43,13 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsImmutableObject;
 import com.helger.commons.annotation.ReturnsMutableCopy;
-import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
 
@@ -68,6 +69,9 @@ public class QualifiedRelationPojo
   private final ICommonsList <String> m_aTitles = new CommonsArrayList <> ();
   private final ICommonsList <String> m_aIDs = new CommonsArrayList <> ();
 
+  // Status vars
+  private int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
+
   public QualifiedRelationPojo (@Nonnull @Nonempty final ICommonsList <String> aDescriptions,
                                 @Nonnull @Nonempty final ICommonsList <String> aTitles,
                                 @Nullable final ICommonsList <String> aIDs)
@@ -83,10 +87,10 @@ public class QualifiedRelationPojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final List <String> descriptions ()
   {
-    return m_aDescriptions;
+    return m_aDescriptions.getAsUnmodifiable ();
   }
 
   @Nonnull
@@ -97,10 +101,10 @@ public class QualifiedRelationPojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final List <String> titles ()
   {
-    return m_aTitles;
+    return m_aTitles.getAsUnmodifiable ();
   }
 
   @Nonnull
@@ -111,10 +115,10 @@ public class QualifiedRelationPojo
   }
 
   @Nonnull
-  @ReturnsMutableObject
+  @ReturnsImmutableObject
   public final List <String> ids ()
   {
-    return m_aIDs;
+    return m_aIDs.getAsUnmodifiable ();
   }
 
   @Nonnull
@@ -155,7 +159,10 @@ public class QualifiedRelationPojo
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aDescriptions).append (m_aTitles).append (m_aIDs).getHashCode ();
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_aDescriptions).append (m_aTitles).append (m_aIDs).getHashCode ();
+    return ret;
   }
 
   @Override
@@ -0,0 +1,91 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * A read-only {@link ICommonsList} view on another list. All modifying
+ * methods throw an {@link UnsupportedOperationException}, like
+ * {@link java.util.Collections#unmodifiableList(List)}. {@link #getClone()}
+ * returns a modifiable copy.
+ *
+ * @author Philip Helger
+ * @param <ELEMENTTYPE>
+ *        The element type.
+ * @since 2.1.2
+ */
+@Immutable
+final class UnmodifiableCommonsList <ELEMENTTYPE> extends AbstractList <ELEMENTTYPE> implements
+                                    ICommonsList <ELEMENTTYPE>,
+                                    RandomAccess
+{
+  private final List <? extends ELEMENTTYPE> m_aList;
+
+  UnmodifiableCommonsList (@Nonnull final List <? extends ELEMENTTYPE> aList)
+  {
+    ValueEnforcer.notNull (aList, "List");
+    m_aList = aList;
+  }
+
+  @Override
+  public ELEMENTTYPE get (final int nIndex)
+  {
+    return m_aList.get (nIndex);
+  }
+
+  @Override
+  public int size ()
+  {
+    return m_aList.size ();
+  }
+
+  @Override
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ELEMENTTYPE> getClone ()
+  {
+    return new CommonsArrayList <> (m_aList);
+  }
+}
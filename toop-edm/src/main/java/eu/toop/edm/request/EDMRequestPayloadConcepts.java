@@ -34,6 +34,7 @@
 package eu.toop.edm.request;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Nonempty;
@@ -45,43 +46,80 @@ import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
 import com.helger.commons.string.ToStringGenerator;
 
+import eu.toop.edm.jaxb.cccev.CCCEVConceptType;
 import eu.toop.edm.model.ConceptPojo;
 import eu.toop.edm.slot.SlotConceptRequestList;
 import eu.toop.regrep.slot.ISlotProvider;
 
 /**
- * Request payload: Concepts
+ * Request payload: Concepts<br>
+ * Since 2.1.2 an instance can also be created as a view on existing JAXB
+ * concepts (see {@link #createView(ICommonsList)}). In that case the
+ * {@link ConceptPojo} objects are only created when they are accessed for the
+ * first time.
  *
  * @author Philip Helger
  * @since 2.0.0-beta3
  */
 public class EDMRequestPayloadConcepts implements IEDMRequestPayloadConcepts
 {
-  private final ICommonsList <ConceptPojo> m_aConcepts = new CommonsArrayList <> ();
+  // Status vars - exactly one of them is non-null
+  private ICommonsList <CCCEVConceptType> m_aSourceConcepts;
+  private ICommonsList <ConceptPojo> m_aConcepts;
+
+  private EDMRequestPayloadConcepts (@Nullable final ICommonsList <CCCEVConceptType> aSourceConcepts,
+                                     @Nullable final ICommonsList <ConceptPojo> aConcepts)
+  {
+    m_aSourceConcepts = aSourceConcepts;
+    m_aConcepts = aConcepts;
+  }
 
   public EDMRequestPayloadConcepts (@Nonnull @Nonempty final ICommonsList <ConceptPojo> aConcepts)
   {
-    ValueEnforcer.notEmpty (aConcepts, "Concepts");
-    m_aConcepts.addAll (aConcepts);
+    this (null, new CommonsArrayList <> (ValueEnforcer.notEmpty (aConcepts, "Concepts")));
+  }
+
+  /**
+   * @return <code>true</code> if the concepts are available as
+   *         {@link ConceptPojo} objects, <code>false</code> if this is still a
+   *         view on the source JAXB concepts.
+   * @since 2.1.2
+   */
+  public final synchronized boolean isMaterialized ()
+  {
+    return m_aConcepts != null;
+  }
+
+  @Nonnull
+  private synchronized ICommonsList <ConceptPojo> _getConcepts ()
+  {
+    if (m_aConcepts == null)
+    {
+      m_aConcepts = m_aSourceConcepts.getAllMapped (x -> ConceptPojo.builder (x).build ());
+      m_aSourceConcepts = null;
+    }
+    return m_aConcepts;
   }
 
   @Nonnull
   @ReturnsMutableObject
   public final ICommonsList <ConceptPojo> concepts ()
   {
-    return m_aConcepts;
+    return _getConcepts ();
   }
 
   @Nonnull
   @ReturnsMutableCopy
   public final ICommonsList <ConceptPojo> getAllConcepts ()
   {
-    return m_aConcepts.getClone ();
+    return _getConcepts ().getClone ();
   }
 
   @Nonnull
-  public ISlotProvider getAsSlotProvider ()
+  public synchronized ISlotProvider getAsSlotProvider ()
   {
+    if (m_aSourceConcepts != null)
+      return new SlotConceptRequestList (m_aSourceConcepts.toArray (new CCCEVConceptType [0]));
     return new SlotConceptRequestList (m_aConcepts);
   }
 
@@ -93,18 +131,34 @@ public class EDMRequestPayloadConcepts implements IEDMRequestPayloadConcepts
     if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final EDMRequestPayloadConcepts rhs = (EDMRequestPayloadConcepts) o;
-    return EqualsHelper.equals (m_aConcepts, rhs.m_aConcepts);
+    return EqualsHelper.equals (_getConcepts (), rhs._getConcepts ());
   }
 
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aConcepts).getHashCode ();
+    return new HashCodeGenerator (this).append (_getConcepts ()).getHashCode ();
   }
 
   @Override
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("Concepts", m_aConcepts).getToString ();
+    return new ToStringGenerator (this).append ("Concepts", _getConcepts ()).getToString ();
+  }
+
+  /**
+   * Create a payload that is a view on the provided JAXB concepts. The JAXB
+   * objects are not copied, so they must not be modified afterwards.
+   *
+   * @param aConcepts
+   *        The source concepts. May neither be <code>null</code> nor empty.
+   * @return Never <code>null</code>.
+   * @since 2.1.2
+   */
+  @Nonnull
+  public static EDMRequestPayloadConcepts createView (@Nonnull @Nonempty final ICommonsList <CCCEVConceptType> aConcepts)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aConcepts, "Concepts");
+    return new EDMRequestPayloadConcepts (aConcepts.getClone (), null);
   }
 }
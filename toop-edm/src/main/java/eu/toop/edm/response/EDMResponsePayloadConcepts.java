@@ -48,12 +48,17 @@ import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
 import com.helger.commons.string.ToStringGenerator;
 
+import eu.toop.edm.jaxb.cccev.CCCEVConceptType;
 import eu.toop.edm.model.ConceptPojo;
 import eu.toop.edm.slot.SlotConceptValues;
 import eu.toop.regrep.rim.ExtrinsicObjectType;
 
 /**
- * Represents a single "Concept response" payload.
+ * Represents a single "Concept response" payload.<br>
+ * Since 2.1.2 an instance can also be created as a view on existing JAXB
+ * concepts (see {@link #createView(String, ICommonsList)}). In that case the
+ * {@link ConceptPojo} objects are only created when they are accessed for the
+ * first time and writing the payload uses the JAXB objects directly.
  *
  * @author Philip Helger
  * @since 2.0.0-beta3
@@ -61,16 +66,25 @@ import eu.toop.regrep.rim.ExtrinsicObjectType;
 public class EDMResponsePayloadConcepts implements IEDMResponsePayloadConcepts
 {
   private final String m_sRegistryObjectID;
-  private final ICommonsList <ConceptPojo> m_aConcepts = new CommonsArrayList <> ();
+  // Status vars - exactly one of them is non-null
+  private ICommonsList <CCCEVConceptType> m_aSourceConcepts;
+  private ICommonsList <ConceptPojo> m_aConcepts;
 
-  public EDMResponsePayloadConcepts (@Nonnull @Nonempty final String sRegistryObjectID,
-                                     @Nullable final ICommonsList <ConceptPojo> aConcepts)
+  private EDMResponsePayloadConcepts (@Nonnull @Nonempty final String sRegistryObjectID,
+                                      @Nullable final ICommonsList <CCCEVConceptType> aSourceConcepts,
+                                      @Nullable final ICommonsList <ConceptPojo> aConcepts)
   {
     ValueEnforcer.notEmpty (sRegistryObjectID, "RegistryObjectID");
-    ValueEnforcer.notEmpty (aConcepts, "Concepts");
 
     m_sRegistryObjectID = sRegistryObjectID;
-    m_aConcepts.addAll (aConcepts);
+    m_aSourceConcepts = aSourceConcepts;
+    m_aConcepts = aConcepts;
+  }
+
+  public EDMResponsePayloadConcepts (@Nonnull @Nonempty final String sRegistryObjectID,
+                                     @Nullable final ICommonsList <ConceptPojo> aConcepts)
+  {
+    this (sRegistryObjectID, null, new CommonsArrayList <> (ValueEnforcer.notEmpty (aConcepts, "Concepts")));
   }
 
   @Nonnull
@@ -80,18 +94,59 @@ public class EDMResponsePayloadConcepts implements IEDMResponsePayloadConcepts
     return m_sRegistryObjectID;
   }
 
+  /**
+   * @return <code>true</code> if the concepts are available as
+   *         {@link ConceptPojo} objects, <code>false</code> if this is still a
+   *         view on the source JAXB concepts.
+   * @since 2.1.2
+   */
+  public final synchronized boolean isMaterialized ()
+  {
+    return m_aConcepts != null;
+  }
+
+  @Nonnull
+  private synchronized ICommonsList <ConceptPojo> _getConcepts ()
+  {
+    if (m_aConcepts == null)
+    {
+      m_aConcepts = m_aSourceConcepts.getAllMapped (x -> ConceptPojo.builder (x).build ());
+      m_aSourceConcepts = null;
+    }
+    return m_aConcepts;
+  }
+
   @Nonnull
   @ReturnsMutableObject
   public final List <ConceptPojo> concepts ()
   {
-    return m_aConcepts;
+    return _getConcepts ();
   }
 
   @Nonnull
   @ReturnsMutableCopy
   public final List <ConceptPojo> getAllConcepts ()
   {
-    return m_aConcepts.getClone ();
+    return _getConcepts ().getClone ();
+  }
+
+  /**
+   * Create a copy of this payload with its own concept list. Because
+   * {@link ConceptPojo} objects are immutable, modifying the concept list of
+   * the copy does not affect this object and vice versa. If this payload is
+   * still a view on JAXB concepts, the copy is a view on the same JAXB
+   * concepts.
+   *
+   * @return A new payload and never <code>null</code>.
+   * @since 2.1.2
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public synchronized EDMResponsePayloadConcepts getClone ()
+  {
+    if (m_aSourceConcepts != null)
+      return new EDMResponsePayloadConcepts (m_sRegistryObjectID, m_aSourceConcepts.getClone (), null);
+    return new EDMResponsePayloadConcepts (m_sRegistryObjectID, null, m_aConcepts.getClone ());
   }
 
   @Nonnull
@@ -102,7 +157,13 @@ public class EDMResponsePayloadConcepts implements IEDMResponsePayloadConcepts
     ret.setId (m_sRegistryObjectID);
 
     // ConceptValues
-    ret.addSlot (new SlotConceptValues (m_aConcepts).createSlot ());
+    final SlotConceptValues aSlot;
+    synchronized (this)
+    {
+      aSlot = m_aSourceConcepts != null ? new SlotConceptValues (m_aSourceConcepts.toArray (new CCCEVConceptType [0]))
+                                        : new SlotConceptValues (m_aConcepts);
+    }
+    ret.addSlot (aSlot.createSlot ());
 
     return ret;
   }
@@ -115,18 +176,39 @@ public class EDMResponsePayloadConcepts implements IEDMResponsePayloadConcepts
     if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final EDMResponsePayloadConcepts rhs = (EDMResponsePayloadConcepts) o;
-    return EqualsHelper.equals (m_sRegistryObjectID, rhs.m_sRegistryObjectID) && EqualsHelper.equals (m_aConcepts, rhs.m_aConcepts);
+    return EqualsHelper.equals (m_sRegistryObjectID, rhs.m_sRegistryObjectID) && EqualsHelper.equals (_getConcepts (), rhs._getConcepts ());
   }
 
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_sRegistryObjectID).append (m_aConcepts).getHashCode ();
+    return new HashCodeGenerator (this).append (m_sRegistryObjectID).append (_getConcepts ()).getHashCode ();
   }
 
   @Override
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("RegistryObjectID", m_sRegistryObjectID).append ("Concepts", m_aConcepts).getToString ();
+    return new ToStringGenerator (this).append ("RegistryObjectID", m_sRegistryObjectID)
+                                       .append ("Concepts", _getConcepts ())
+                                       .getToString ();
+  }
+
+  /**
+   * Create a payload that is a view on the provided JAXB concepts. The JAXB
+   * objects are not copied, so they must not be modified afterwards.
+   *
+   * @param sRegistryObjectID
+   *        Registry object ID. May neither be <code>null</code> nor empty.
+   * @param aConcepts
+   *        The source concepts. May neither be <code>null</code> nor empty.
+   * @return Never <code>null</code>.
+   * @since 2.1.2
+   */
+  @Nonnull
+  public static EDMResponsePayloadConcepts createView (@Nonnull @Nonempty final String sRegistryObjectID,
+                                                       @Nonnull @Nonempty final ICommonsList <CCCEVConceptType> aConcepts)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aConcepts, "Concepts");
+    return new EDMResponsePayloadConcepts (sRegistryObjectID, aConcepts.getClone (), null);
   }
 }
@@ -34,27 +34,49 @@
 package eu.toop.edm.schematron;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
 
 import org.w3c.dom.Document;
 
+import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.io.resource.IReadableResource;
 import com.helger.schematron.ISchematronResource;
 import com.helger.schematron.svrl.AbstractSVRLMessage;
 import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.schematron.svrl.SVRLMarshaller;
 import com.helger.schematron.svrl.jaxb.SchematronOutputType;
 import com.helger.schematron.xslt.SchematronResourceXSLT;
+import com.helger.xml.XMLFactory;
 import com.helger.xml.serialize.read.DOMReader;
 
 /**
  * Abstract TOOP Schematron validator. Validate DOM documents or other resources
- * using the predefined TOOP Schematron rules.
+ * using the predefined TOOP Schematron rules.<br>
+ * The XSLT rules are compiled only once per resource and the compiled
+ * templates are shared by all validator instances (see
+ * {@link SchematronPrecompiler}). Each thread reuses its own
+ * {@link Transformer}, so validations run concurrently without locking.
  *
  * @author Philip Helger
  */
+@ThreadSafe
 public abstract class AbstractSchematronValidator
 {
+  private volatile CompiledSchematron m_aCompiled;
+  private final ThreadLocal <Transformer> m_aTransformer = new ThreadLocal <> ();
+  private volatile SchematronRuleProfiler m_aRuleProfiler;
+  private final ThreadLocal <Transformer> m_aProfilingTransformer = new ThreadLocal <> ();
+
   protected AbstractSchematronValidator ()
   {}
 
@@ -64,15 +86,28 @@ public abstract class AbstractSchematronValidator
   @Nonnull
   protected abstract IReadableResource getSchematronXSLTResource ();
 
+  /**
+   * Get the Schematron XSLT rule resource applied by this validator. In
+   * contrast to {@link #getCompiledSchematron()} this does not compile the
+   * rules.
+   *
+   * @return The Schematron XSLT rule resource. Never <code>null</code>.
+   * @since 2.1.2
+   */
+  @Nonnull
+  public final IReadableResource getRuleResource ()
+  {
+    return getSchematronXSLTResource ();
+  }
+
   /**
    * Create a new {@link ISchematronResource} that is configured correctly so
-   * that it can be used to validate TOOP messages. This method is only used
-   * internally and is extracted to allow potential modifications in derived
-   * classes.
+   * that it can be used to validate TOOP messages. This method is no longer
+   * used by {@link #validateDocument(Document)} but kept for callers that need
+   * a full {@link ISchematronResource}.
    *
    * @return A new instance every time.
-   * @see #validateDocument(Document)
-   * @see #validateResource(IReadableResource)
+   * @see #getCompiledSchematron()
    */
   @Nonnull
   public final ISchematronResource createSchematronResource ()
@@ -84,16 +119,150 @@ public abstract class AbstractSchematronValidator
     return aSchematron;
   }
 
+  /**
+   * Get the compiled rules. They are compiled on first access, unless they
+   * were precompiled, and shared between all validators using the same XSLT
+   * resource.
+   *
+   * @return The compiled XSLT. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the XSLT cannot be compiled.
+   * @see SchematronPrecompiler
+   * @since 2.1.2
+   */
+  @Nonnull
+  public final CompiledSchematron getCompiledSchematron ()
+  {
+    CompiledSchematron ret = m_aCompiled;
+    if (ret == null)
+      ret = m_aCompiled = SchematronPrecompiler.getCompiled (getSchematronXSLTResource ());
+    return ret;
+  }
+
+  @Nonnull
+  private Transformer _getTransformer () throws TransformerConfigurationException
+  {
+    Transformer ret = m_aTransformer.get ();
+    if (ret == null)
+    {
+      ret = getCompiledSchematron ().newTransformer ();
+      m_aTransformer.set (ret);
+    }
+    return ret;
+  }
+
+  /**
+   * @return The rule profiler that is currently used or <code>null</code> if
+   *         profiling is disabled (which is the default).
+   * @since 2.1.2
+   */
+  @Nullable
+  public final SchematronRuleProfiler getRuleProfiler ()
+  {
+    return m_aRuleProfiler;
+  }
+
+  /**
+   * Enable or disable the profiling of the Schematron rules. If a profiler is
+   * set, all validations except the ones via
+   * {@link #createContentHandler()} use an instrumented version of the XSLT
+   * and record their data in the profiler. A
+   * {@link ShardedSchematronValidator} wrapping this validator does not split
+   * the patterns while a profiler is set. Profiling slows down the validation
+   * and should not be enabled permanently.
+   *
+   * @param aRuleProfiler
+   *        The profiler to use. May be <code>null</code> to disable profiling.
+   * @since 2.1.2
+   */
+  public final void setRuleProfiler (@Nullable final SchematronRuleProfiler aRuleProfiler)
+  {
+    m_aRuleProfiler = aRuleProfiler;
+  }
+
+  @Nonnull
+  private Transformer _getProfilingTransformer () throws TransformerConfigurationException
+  {
+    Transformer ret = m_aProfilingTransformer.get ();
+    if (ret == null)
+    {
+      ret = SchematronPrecompiler.getCompiledForProfiling (getSchematronXSLTResource ()).newTransformer ();
+      m_aProfilingTransformer.set (ret);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  private ICommonsList <AbstractSVRLMessage> _validateProfiled (@Nonnull final Source aXMLSource,
+                                                                @Nonnull final SchematronValidationMode aMode,
+                                                                @Nonnull final SchematronRuleProfiler aRuleProfiler)
+  {
+    final FilteringSVRLCollector aCollector = new FilteringSVRLCollector (aMode);
+    try
+    {
+      _getProfilingTransformer ().transform (aXMLSource, new SAXResult (aRuleProfiler.createHandler (aCollector)));
+    }
+    catch (final TransformerException | RuntimeException ex)
+    {
+      // Don't reuse a transformer that was aborted
+      m_aProfilingTransformer.remove ();
+      if (!aCollector.isStopped ())
+        throw new IllegalStateException ("Error applying SCH onto XML", ex);
+    }
+    return readSVRL (aCollector.getSVRLDocument ());
+  }
+
+  /**
+   * Interpret the SVRL created by a Schematron XSLT.
+   *
+   * @param aSVRLDoc
+   *        The SVRL document. May not be <code>null</code>.
+   * @return The list of all failed asserts/successful reports
+   * @throws IllegalStateException
+   *         If the SVRL is empty or cannot be interpreted
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  static ICommonsList <AbstractSVRLMessage> readSVRL (@Nonnull final Document aSVRLDoc)
+  {
+    if (aSVRLDoc.getDocumentElement () == null)
+      throw new IllegalStateException ("Internal error: created SVRL DOM Document has no document node!");
+
+    final SchematronOutputType aSOT = new SVRLMarshaller ().read (aSVRLDoc);
+    if (aSOT == null)
+      throw new IllegalStateException ("Internal error: failed to interpret the created SVRL");
+    return SVRLHelper.getAllFailedAssertionsAndSuccessfulReports (aSOT);
+  }
+
   @Nonnull
   @ReturnsMutableCopy
   public final ICommonsList <AbstractSVRLMessage> validateResource (@Nonnull final IReadableResource aXML)
+  {
+    return validateResource (aXML, SchematronValidationMode.ALL);
+  }
+
+  /**
+   * Validate the provided resource using the provided validation mode.
+   *
+   * @param aXML
+   *        The XML resource to be validated. May not be <code>null</code>.
+   * @param aMode
+   *        The validation mode. May not be <code>null</code>.
+   * @return The list of all collected failed asserts/successful reports
+   * @since 2.1.2
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateResource (@Nonnull final IReadableResource aXML,
+                                                                    @Nonnull final SchematronValidationMode aMode)
   {
     // Parse XML to DOM
     final Document aXMLDoc = DOMReader.readXMLDOM (aXML);
     if (aXMLDoc == null)
       throw new IllegalStateException ("Failed to read the provided XML");
 
-    return validateDocument (aXMLDoc);
+    return validateDocument (aXMLDoc, aMode);
   }
 
   /**
@@ -107,16 +276,104 @@ public abstract class AbstractSchematronValidator
   @ReturnsMutableCopy
   public final ICommonsList <AbstractSVRLMessage> validateDocument (@Nonnull final Document aXMLDoc)
   {
+    return validateSource (new DOMSource (aXMLDoc));
+  }
+
+  /**
+   * Validate the provided XML source. This allows e.g. to validate a document
+   * tree that was built once by the XSLT processor (see
+   * {@link CompositeSchematronValidator}).
+   *
+   * @param aXMLSource
+   *        The XML source to be validated. May not be <code>null</code>.
+   * @return The list of all failed asserts/successful reports
+   * @since 2.1.2
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateSource (@Nonnull final Source aXMLSource)
+  {
+    final SchematronRuleProfiler aRuleProfiler = m_aRuleProfiler;
+    if (aRuleProfiler != null)
+      return _validateProfiled (aXMLSource, SchematronValidationMode.ALL, aRuleProfiler);
+
     try
     {
-      final ISchematronResource aSchematron = createSchematronResource ();
       // No base URI needed since Schematron contains no includes
-      final SchematronOutputType aSOT = aSchematron.applySchematronValidationToSVRL (aXMLDoc, null);
-      return SVRLHelper.getAllFailedAssertionsAndSuccessfulReports (aSOT);
+      final Document aSVRLDoc = XMLFactory.newDocument ();
+      _getTransformer ().transform (aXMLSource, new DOMResult (aSVRLDoc));
+      return readSVRL (aSVRLDoc);
     }
     catch (final Exception ex)
     {
+      // Don't reuse a transformer that may be in an inconsistent state
+      m_aTransformer.remove ();
       throw new IllegalStateException ("Error applying SCH onto XML", ex);
     }
   }
+
+  /**
+   * Validate the provided DOM representation of a TOOP Request or Response
+   * using the provided validation mode. Messages below the minimum level of the
+   * mode are not collected, and in fail-fast mode the XSLT is aborted as soon
+   * as the first collected message was created.
+   *
+   * @param aXMLDoc
+   *        The XML DOM node to be validated. May not be <code>null</code>.
+   * @param aMode
+   *        The validation mode. May not be <code>null</code>.
+   * @return The list of all collected failed asserts/successful reports
+   * @since 2.1.2
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateDocument (@Nonnull final Document aXMLDoc,
+                                                                    @Nonnull final SchematronValidationMode aMode)
+  {
+    ValueEnforcer.notNull (aMode, "Mode");
+    if (aMode.isCollectAll ())
+      return validateDocument (aXMLDoc);
+
+    final SchematronRuleProfiler aRuleProfiler = m_aRuleProfiler;
+    if (aRuleProfiler != null)
+      return _validateProfiled (new DOMSource (aXMLDoc), aMode, aRuleProfiler);
+
+    final FilteringSVRLCollector aCollector = new FilteringSVRLCollector (aMode);
+    try
+    {
+      _getTransformer ().transform (new DOMSource (aXMLDoc), new SAXResult (aCollector));
+    }
+    catch (final TransformerException | RuntimeException ex)
+    {
+      // Don't reuse a transformer that was aborted
+      m_aTransformer.remove ();
+      if (!aCollector.isStopped ())
+        throw new IllegalStateException ("Error applying SCH onto XML", ex);
+    }
+    return readSVRL (aCollector.getSVRLDocument ());
+  }
+
+  /**
+   * Create a new SAX content handler that validates the document it receives
+   * as SAX events. This allows to validate a document while it is written or
+   * read, without creating a DOM first. Each handler can only be used for a
+   * single document.
+   *
+   * @return A new handler. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the handler cannot be created.
+   * @since 2.1.2
+   */
+  @Nonnull
+  public final SchematronContentHandler createContentHandler ()
+  {
+    try
+    {
+      return new SchematronContentHandler (getCompiledSchematron ().newTransformerHandler ());
+    }
+    catch (final TransformerConfigurationException ex)
+    {
+      throw new IllegalStateException ("Error creating SAX handler for SCH", ex);
+    }
+  }
 }
@@ -0,0 +1,177 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Hash based access to the codes of the genericode code lists below
+ * <code>codelist/</code> on the class path. Each code list is read only once.
+ * The codes are the whitespace normalized values of the <code>code</code>
+ * column, so lookups are equivalent to the XPath expression
+ * <code>Value[@ColumnRef='code']/SimpleValue[normalize-space(.) = $x]</code>
+ * used in the business rules.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@ThreadSafe
+public final class CodeListCache
+{
+  /** The class path directory of the code lists */
+  public static final String CODELIST_BASE_PATH = "codelist/";
+
+  private static final ConcurrentHashMap <String, Set <String>> CODES = new ConcurrentHashMap <> ();
+
+  private CodeListCache ()
+  {}
+
+  private static boolean _isXMLWhitespace (final char c)
+  {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+  }
+
+  /**
+   * Same as the XPath function <code>normalize-space</code>.
+   *
+   * @param s
+   *        Source string. May not be <code>null</code>.
+   * @return The string without leading and trailing whitespace and with all
+   *         inner whitespace sequences replaced by a single space.
+   */
+  @Nonnull
+  public static String getNormalizedSpace (@Nonnull final String s)
+  {
+    final StringBuilder aSB = new StringBuilder (s.length ());
+    boolean bPendingSpace = false;
+    for (int i = 0; i < s.length (); ++i)
+    {
+      final char c = s.charAt (i);
+      if (_isXMLWhitespace (c))
+        bPendingSpace = aSB.length () > 0;
+      else
+      {
+        if (bPendingSpace)
+        {
+          aSB.append (' ');
+          bPendingSpace = false;
+        }
+        aSB.append (c);
+      }
+    }
+    return aSB.toString ();
+  }
+
+  @Nullable
+  private static Element _getFirstChild (@Nonnull final Node aParent, @Nonnull final String sLocalName)
+  {
+    for (Node aChild = aParent.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+      if (aChild.getNodeType () == Node.ELEMENT_NODE && sLocalName.equals (aChild.getLocalName ()))
+        return (Element) aChild;
+    return null;
+  }
+
+  @Nonnull
+  private static Set <String> _read (@Nonnull final String sPath)
+  {
+    final ClassPathResource aRes = new ClassPathResource (CODELIST_BASE_PATH + sPath, CodeListCache.class.getClassLoader ());
+    final Document aDoc = DOMReader.readXMLDOM (aRes);
+    if (aDoc == null)
+      throw new IllegalStateException ("Failed to read code list " + aRes.getPath ());
+
+    final CommonsHashSet <String> ret = new CommonsHashSet <> ();
+    final Element aSimpleCodeList = _getFirstChild (aDoc.getDocumentElement (), "SimpleCodeList");
+    if (aSimpleCodeList != null)
+      for (Node aRow = aSimpleCodeList.getFirstChild (); aRow != null; aRow = aRow.getNextSibling ())
+        if (aRow.getNodeType () == Node.ELEMENT_NODE && "Row".equals (aRow.getLocalName ()))
+          for (Node aValue = aRow.getFirstChild (); aValue != null; aValue = aValue.getNextSibling ())
+            if (aValue.getNodeType () == Node.ELEMENT_NODE &&
+                "Value".equals (aValue.getLocalName ()) &&
+                "code".equals (((Element) aValue).getAttribute ("ColumnRef")))
+              for (Node aSV = aValue.getFirstChild (); aSV != null; aSV = aSV.getNextSibling ())
+                if (aSV.getNodeType () == Node.ELEMENT_NODE && "SimpleValue".equals (aSV.getLocalName ()))
+                  ret.add (getNormalizedSpace (aSV.getTextContent ()));
+    return ret.getAsUnmodifiable ();
+  }
+
+  /**
+   * Get all codes of a code list.
+   *
+   * @param sPath
+   *        The path relative to {@link #CODELIST_BASE_PATH}, e.g.
+   *        <code>toop/Gender-CodeList.gc</code>. May neither be
+   *        <code>null</code> nor empty.
+   * @return The immutable set of whitespace normalized codes. Never
+   *         <code>null</code>.
+   * @throws IllegalStateException
+   *         If the code list cannot be read
+   */
+  @Nonnull
+  public static Set <String> getAllCodes (@Nonnull @Nonempty final String sPath)
+  {
+    ValueEnforcer.notEmpty (sPath, "Path");
+    return CODES.computeIfAbsent (sPath, CodeListCache::_read);
+  }
+
+  /**
+   * Check if a code is contained in a code list.
+   *
+   * @param sPath
+   *        The path relative to {@link #CODELIST_BASE_PATH}. May neither be
+   *        <code>null</code> nor empty.
+   * @param sCode
+   *        The code to check. It is compared as is, without normalization.
+   *        May be <code>null</code>.
+   * @return <code>true</code> if the code is contained.
+   */
+  public static boolean containsCode (@Nonnull @Nonempty final String sPath, @Nullable final String sCode)
+  {
+    return sCode != null && getAllCodes (sPath).contains (sCode);
+  }
+}
@@ -0,0 +1,302 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.XMLConstants;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsSet;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.expr.XPathContext;
+import net.sf.saxon.lib.ExtensionFunctionCall;
+import net.sf.saxon.lib.ExtensionFunctionDefinition;
+import net.sf.saxon.om.Item;
+import net.sf.saxon.om.Sequence;
+import net.sf.saxon.om.SequenceIterator;
+import net.sf.saxon.om.StructuredQName;
+import net.sf.saxon.trans.XPathException;
+import net.sf.saxon.value.BooleanValue;
+import net.sf.saxon.value.SequenceType;
+
+/**
+ * Replaces the linear code list checks of the generated business rules XSLT
+ * with calls of a Saxon extension function backed by {@link CodeListCache}.
+ * The Schematron converter creates code list variables like
+ *
+ * <pre>
+ * &lt;xsl:variable name="x" select="document('..\codelist\...\X.gc')/gc:CodeList/SimpleCodeList/Row/Value[@ColumnRef='code']" /&gt;
+ * </pre>
+ *
+ * and tests like <code>$x/SimpleValue[normalize-space(.) = EXPR]</code>. These
+ * tests are replaced with <code>toopcl:contains('.../X.gc', EXPR)</code> which
+ * has the same effective boolean value. Only the executed
+ * <code>xsl:when</code>/<code>xsl:if</code> tests are changed, the test texts
+ * reported in the SVRL stay the same. Everything that does not match these
+ * patterns is left untouched.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+final class CodeListXSLTOptimizer
+{
+  static final String FUNCTION_NAMESPACE_URI = "urn:toop:edm:codelist-functions";
+  static final String FUNCTION_PREFIX = "toopcl";
+  static final String FUNCTION_LOCAL_NAME = "contains";
+
+  private static final Pattern CODELIST_VARIABLE = Pattern.compile ("document\\('([^']*)'\\)/gc:CodeList/SimpleCodeList/Row/Value\\[@ColumnRef='code'\\]");
+
+  /**
+   * The extension function
+   * <code>toopcl:contains($codelist as xs:string, $values as xs:anyAtomicType*) as xs:boolean</code>
+   */
+  static final class ContainsFunction extends ExtensionFunctionDefinition
+  {
+    @Override
+    public StructuredQName getFunctionQName ()
+    {
+      return new StructuredQName (FUNCTION_PREFIX, FUNCTION_NAMESPACE_URI, FUNCTION_LOCAL_NAME);
+    }
+
+    @Override
+    public SequenceType [] getArgumentTypes ()
+    {
+      return new SequenceType [] { SequenceType.SINGLE_STRING, SequenceType.ATOMIC_SEQUENCE };
+    }
+
+    @Override
+    public SequenceType getResultType (final SequenceType [] aSuppliedArgumentTypes)
+    {
+      return SequenceType.SINGLE_BOOLEAN;
+    }
+
+    @Override
+    public ExtensionFunctionCall makeCallExpression ()
+    {
+      return new ExtensionFunctionCall ()
+      {
+        @Override
+        public Sequence call (final XPathContext aContext, final Sequence [] aArgs) throws XPathException
+        {
+          final String sPath = aArgs[0].head ().getStringValue ();
+          // Same as a general comparison: true if any value matches
+          final SequenceIterator aIter = aArgs[1].iterate ();
+          Item aItem;
+          while ((aItem = aIter.next ()) != null)
+            if (CodeListCache.containsCode (sPath, aItem.getStringValue ()))
+              return BooleanValue.TRUE;
+          return BooleanValue.FALSE;
+        }
+      };
+    }
+  }
+
+  private CodeListXSLTOptimizer ()
+  {}
+
+  /**
+   * Register the extension function in the provided Saxon configuration.
+   *
+   * @param aConfig
+   *        The configuration to use. May not be <code>null</code>.
+   */
+  static void registerFunctions (@Nonnull final Configuration aConfig)
+  {
+    aConfig.registerExtensionFunction (new ContainsFunction ());
+  }
+
+  @Nullable
+  static String getCodeListPath (@Nonnull final String sDocumentURI)
+  {
+    final String sPath = sDocumentURI.replace ('\\', '/');
+    final int nIndex = sPath.lastIndexOf (CodeListCache.CODELIST_BASE_PATH);
+    if (nIndex < 0)
+      return null;
+    final String ret = sPath.substring (nIndex + CodeListCache.CODELIST_BASE_PATH.length ());
+    return ret.isEmpty () || ret.indexOf ('\'') >= 0 ? null : ret;
+  }
+
+  @Nonnull
+  private static ICommonsMap <String, String> _findCodeListVariables (@Nonnull final Document aXSLT)
+  {
+    final ICommonsMap <String, String> ret = new CommonsHashMap <> ();
+    final ICommonsSet <String> aConflicts = new CommonsHashSet <> ();
+    final NodeList aVariables = aXSLT.getElementsByTagNameNS (CSchematronXML.XSL_NS, "variable");
+    for (int i = 0; i < aVariables.getLength (); ++i)
+    {
+      final Element aVariable = (Element) aVariables.item (i);
+      final String sName = aVariable.getAttribute ("name");
+      final Matcher aMatcher = CODELIST_VARIABLE.matcher (aVariable.getAttribute ("select").trim ());
+      final String sPath = aMatcher.matches () ? getCodeListPath (aMatcher.group (1)) : null;
+      final String sOld = ret.get (sName);
+      if (sPath == null || (sOld != null && !sOld.equals (sPath)))
+        aConflicts.add (sName);
+      else
+        ret.put (sName, sPath);
+    }
+    // A name used for different values in different scopes cannot be mapped
+    ret.keySet ().removeAll (aConflicts);
+    return ret;
+  }
+
+  /**
+   * Find the index of the closing bracket of a predicate.
+   *
+   * @return -1 if not found
+   */
+  private static int _findPredicateEnd (@Nonnull final String s, @Nonnegative final int nStart)
+  {
+    int nDepth = 0;
+    char cQuote = 0;
+    for (int i = nStart; i < s.length (); ++i)
+    {
+      final char c = s.charAt (i);
+      if (cQuote != 0)
+      {
+        if (c == cQuote)
+          cQuote = 0;
+      }
+      else
+        switch (c)
+        {
+          case '\'':
+          case '"':
+            cQuote = c;
+            break;
+          case '(':
+          case '[':
+            nDepth++;
+            break;
+          case ')':
+            nDepth--;
+            break;
+          case ']':
+            if (nDepth == 0)
+              return i;
+            nDepth--;
+            break;
+        }
+    }
+    return -1;
+  }
+
+  @Nonnull
+  static String rewriteTest (@Nonnull final String sTest, @Nonnull final Map <String, String> aVariables)
+  {
+    String ret = sTest;
+    for (final Map.Entry <String, String> aEntry : aVariables.entrySet ())
+    {
+      final String sPrefix = "$" + aEntry.getKey () + "/SimpleValue[normalize-space(.) = ";
+      int nIndex;
+      int nFrom = 0;
+      while ((nIndex = ret.indexOf (sPrefix, nFrom)) >= 0)
+      {
+        final int nExprStart = nIndex + sPrefix.length ();
+        final int nEnd = _findPredicateEnd (ret, nExprStart);
+        if (nEnd < 0)
+          break;
+        final String sCall = FUNCTION_PREFIX +
+                             ':' +
+                             FUNCTION_LOCAL_NAME +
+                             "('" +
+                             aEntry.getValue () +
+                             "', " +
+                             ret.substring (nExprStart, nEnd) +
+                             ')';
+        ret = ret.substring (0, nIndex) + sCall + ret.substring (nEnd + 1);
+        nFrom = nIndex + sCall.length ();
+      }
+    }
+    return ret;
+  }
+
+  private static int _rewriteTests (@Nonnull final Document aXSLT,
+                                    @Nonnull final String sElementName,
+                                    @Nonnull final Map <String, String> aVariables)
+  {
+    int ret = 0;
+    final NodeList aElements = aXSLT.getElementsByTagNameNS (CSchematronXML.XSL_NS, sElementName);
+    for (int i = 0; i < aElements.getLength (); ++i)
+    {
+      final Element aElement = (Element) aElements.item (i);
+      final String sTest = aElement.getAttribute ("test");
+      final String sNewTest = rewriteTest (sTest, aVariables);
+      if (!sNewTest.equals (sTest))
+      {
+        aElement.setAttribute ("test", sNewTest);
+        ret++;
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Rewrite the code list checks of the provided XSLT.
+   *
+   * @param aXSLT
+   *        The XSLT DOM to be modified in place. May not be <code>null</code>.
+   * @return The number of rewritten tests. Always &ge; 0.
+   */
+  @Nonnegative
+  static int optimize (@Nonnull final Document aXSLT)
+  {
+    final Element aRoot = aXSLT.getDocumentElement ();
+    if (aRoot == null || aRoot.hasAttributeNS (XMLConstants.XMLNS_ATTRIBUTE_NS_URI, FUNCTION_PREFIX))
+      return 0;
+
+    final ICommonsMap <String, String> aVariables = _findCodeListVariables (aXSLT);
+    if (aVariables.isEmpty ())
+      return 0;
+
+    final int ret = _rewriteTests (aXSLT, "when", aVariables) + _rewriteTests (aXSLT, "if", aVariables);
+    if (ret > 0)
+      aRoot.setAttributeNS (XMLConstants.XMLNS_ATTRIBUTE_NS_URI, XMLConstants.XMLNS_ATTRIBUTE + ":" + FUNCTION_PREFIX, FUNCTION_NAMESPACE_URI);
+    return ret;
+  }
+}
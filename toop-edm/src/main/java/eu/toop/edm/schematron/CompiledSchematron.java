@@ -0,0 +1,160 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.xml.transform.LoggingTransformErrorListener;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.jaxp.SaxonTransformerFactory;
+
+/**
+ * A compiled Schematron XSLT. The compiled templates are thread-safe, the
+ * created {@link Transformer} objects are not.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ * @see SchematronPrecompiler
+ */
+@Immutable
+public final class CompiledSchematron
+{
+  private final IReadableResource m_aResource;
+  private final Templates m_aTemplates;
+  private final URIResolver m_aURIResolver;
+  private final TransformerFactory m_aTF;
+
+  CompiledSchematron (@Nonnull final IReadableResource aResource,
+                      @Nonnull final Templates aTemplates,
+                      @Nonnull final URIResolver aURIResolver,
+                      @Nonnull final TransformerFactory aTF)
+  {
+    ValueEnforcer.notNull (aResource, "Resource");
+    ValueEnforcer.notNull (aTemplates, "Templates");
+    ValueEnforcer.notNull (aURIResolver, "URIResolver");
+    ValueEnforcer.notNull (aTF, "TransformerFactory");
+    m_aResource = aResource;
+    m_aTemplates = aTemplates;
+    m_aURIResolver = aURIResolver;
+    m_aTF = aTF;
+  }
+
+  /**
+   * @return The XSLT resource this was compiled from. Never <code>null</code>.
+   */
+  @Nonnull
+  public IReadableResource getResource ()
+  {
+    return m_aResource;
+  }
+
+  /**
+   * @return The compiled templates. Never <code>null</code>.
+   */
+  @Nonnull
+  public Templates getTemplates ()
+  {
+    return m_aTemplates;
+  }
+
+  /**
+   * @return The Saxon configuration the XSLT was compiled with or
+   *         <code>null</code> if Saxon is not used.
+   */
+  @Nullable
+  Configuration getSaxonConfiguration ()
+  {
+    return m_aTF instanceof SaxonTransformerFactory ? ((SaxonTransformerFactory) m_aTF).getConfiguration () : null;
+  }
+
+  /**
+   * Create a new transformer that logs errors and resolves the relative code
+   * list references of the XSLT.
+   *
+   * @return A new transformer. Never <code>null</code>.
+   * @throws TransformerConfigurationException
+   *         If the transformer cannot be created
+   */
+  @Nonnull
+  public Transformer newTransformer () throws TransformerConfigurationException
+  {
+    final Transformer ret = m_aTemplates.newTransformer ();
+    ret.setErrorListener (new LoggingTransformErrorListener (Locale.US));
+    ret.setURIResolver (m_aURIResolver);
+    return ret;
+  }
+
+  /**
+   * Create a new SAX handler that applies the compiled XSLT onto the SAX
+   * events it receives. Like {@link #newTransformer()} it logs errors and
+   * resolves the relative code list references.
+   *
+   * @return A new transformer handler. Never <code>null</code>.
+   * @throws TransformerConfigurationException
+   *         If the handler cannot be created, e.g. because the transformer
+   *         factory used for compilation does not support SAX.
+   * @since 2.1.2
+   */
+  @Nonnull
+  public TransformerHandler newTransformerHandler () throws TransformerConfigurationException
+  {
+    if (!(m_aTF instanceof SAXTransformerFactory))
+      throw new TransformerConfigurationException ("The transformer factory " + m_aTF.getClass ().getName () + " does not support SAX");
+    final TransformerHandler ret = ((SAXTransformerFactory) m_aTF).newTransformerHandler (m_aTemplates);
+    ret.getTransformer ().setErrorListener (new LoggingTransformErrorListener (Locale.US));
+    ret.getTransformer ().setURIResolver (m_aURIResolver);
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Resource", m_aResource).getToString ();
+  }
+}
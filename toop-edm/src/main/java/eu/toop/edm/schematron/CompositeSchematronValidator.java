@@ -0,0 +1,305 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+
+import org.w3c.dom.Document;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.xml.serialize.read.DOMReader;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.trans.XPathException;
+
+/**
+ * Applies several Schematron validators onto the same document, by default
+ * {@link SchematronEDM2Validator} and
+ * {@link SchematronBusinessRules2Validator}. The document is converted only
+ * once into a read-only tree of the XSLT processor, which is then validated by
+ * all validators concurrently. The messages of all validators are merged in
+ * the order of the validators, and each message knows the validator it stems
+ * from.<br>
+ * If the XSLTs were not compiled with a shared Saxon configuration, no
+ * processor tree can be shared and the validators run one after the other on
+ * the DOM.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@ThreadSafe
+public class CompositeSchematronValidator
+{
+  private final ICommonsList <AbstractSchematronValidator> m_aValidators;
+  private final Executor m_aExecutor;
+
+  /**
+   * Constructor using {@link SchematronEDM2Validator} and
+   * {@link SchematronBusinessRules2Validator} and the common fork join pool.
+   */
+  public CompositeSchematronValidator ()
+  {
+    this (ForkJoinPool.commonPool (), new SchematronEDM2Validator (), new SchematronBusinessRules2Validator ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aExecutor
+   *        The executor to run the validations in. May not be
+   *        <code>null</code>.
+   * @param aValidators
+   *        The validators to apply, in the order of the results. May neither be
+   *        <code>null</code> nor empty.
+   */
+  public CompositeSchematronValidator (@Nonnull final Executor aExecutor,
+                                       @Nonnull @Nonempty final AbstractSchematronValidator... aValidators)
+  {
+    ValueEnforcer.notNull (aExecutor, "Executor");
+    ValueEnforcer.notEmptyNoNullValue (aValidators, "Validators");
+    m_aExecutor = aExecutor;
+    m_aValidators = new CommonsArrayList <> (aValidators);
+  }
+
+  /**
+   * @return A copy of all contained validators. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSchematronValidator> getAllValidators ()
+  {
+    return m_aValidators.getClone ();
+  }
+
+  /**
+   * @return The Saxon configuration shared by all validators or
+   *         <code>null</code> if there is none.
+   */
+  @Nullable
+  private Configuration _getSharedSaxonConfiguration ()
+  {
+    Configuration ret = null;
+    for (final AbstractSchematronValidator aValidator : m_aValidators)
+    {
+      final Configuration aConfig = aValidator.getCompiledSchematron ().getSaxonConfiguration ();
+      if (aConfig == null || (ret != null && ret != aConfig))
+        return null;
+      ret = aConfig;
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private static ICommonsList <SchematronMessageWithOrigin> _withOrigin (@Nonnull final AbstractSchematronValidator aValidator,
+                                                                         @Nonnull final ICommonsList <AbstractSVRLMessage> aMsgs)
+  {
+    return aMsgs.getAllMapped (x -> new SchematronMessageWithOrigin (aValidator, x));
+  }
+
+  @Nonnull
+  private static <T> T _join (@Nonnull final CompletableFuture <T> aFuture)
+  {
+    try
+    {
+      return aFuture.join ();
+    }
+    catch (final CompletionException ex)
+    {
+      if (ex.getCause () instanceof RuntimeException)
+        throw (RuntimeException) ex.getCause ();
+      throw ex;
+    }
+  }
+
+  /**
+   * Validate a document with all validators.
+   *
+   * @param aXMLDoc
+   *        The document to validate. May not be <code>null</code>.
+   * @param bConcurrent
+   *        <code>true</code> to run the validators concurrently,
+   *        <code>false</code> to run them in the calling thread.
+   * @return The merged messages. Never <code>null</code>.
+   */
+  @Nonnull
+  private ICommonsList <SchematronMessageWithOrigin> _validate (@Nonnull final Document aXMLDoc, final boolean bConcurrent)
+  {
+    final Configuration aConfig = _getSharedSaxonConfiguration ();
+    if (aConfig == null)
+    {
+      // A DOM may not be read concurrently
+      final ICommonsList <SchematronMessageWithOrigin> ret = new CommonsArrayList <> ();
+      for (final AbstractSchematronValidator aValidator : m_aValidators)
+        ret.addAll (_withOrigin (aValidator, aValidator.validateDocument (aXMLDoc)));
+      return ret;
+    }
+
+    // Convert once into an immutable tree that can be shared between threads
+    final Source aTree;
+    try
+    {
+      aTree = aConfig.buildDocumentTree (new DOMSource (aXMLDoc)).getRootNode ();
+    }
+    catch (final XPathException ex)
+    {
+      throw new IllegalStateException ("Failed to build the document tree", ex);
+    }
+
+    if (!bConcurrent)
+    {
+      final ICommonsList <SchematronMessageWithOrigin> ret = new CommonsArrayList <> ();
+      for (final AbstractSchematronValidator aValidator : m_aValidators)
+        ret.addAll (_withOrigin (aValidator, aValidator.validateSource (aTree)));
+      return ret;
+    }
+
+    final ICommonsList <CompletableFuture <ICommonsList <SchematronMessageWithOrigin>>> aFutures = new CommonsArrayList <> ();
+    for (final AbstractSchematronValidator aValidator : m_aValidators.subList (1, m_aValidators.size ()))
+      aFutures.add (CompletableFuture.supplyAsync ( () -> _withOrigin (aValidator, aValidator.validateSource (aTree)), m_aExecutor));
+
+    // The first one in the calling thread
+    final AbstractSchematronValidator aFirst = m_aValidators.getFirst ();
+    final ICommonsList <SchematronMessageWithOrigin> ret = _withOrigin (aFirst, aFirst.validateSource (aTree));
+    for (final CompletableFuture <ICommonsList <SchematronMessageWithOrigin>> aFuture : aFutures)
+      ret.addAll (_join (aFuture));
+    return ret;
+  }
+
+  @Nonnull
+  private static Document _read (@Nonnull final IReadableResource aXML)
+  {
+    final Document aXMLDoc = DOMReader.readXMLDOM (aXML);
+    if (aXMLDoc == null)
+      throw new IllegalStateException ("Failed to read the provided XML");
+    return aXMLDoc;
+  }
+
+  /**
+   * Validate the provided DOM representation of a TOOP Request or Response
+   * with all validators concurrently.
+   *
+   * @param aXMLDoc
+   *        The XML DOM node to be validated. May not be <code>null</code>.
+   * @return The merged list of all failed asserts/successful reports of all
+   *         validators. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <SchematronMessageWithOrigin> validateDocument (@Nonnull final Document aXMLDoc)
+  {
+    ValueEnforcer.notNull (aXMLDoc, "XMLDoc");
+    return _validate (aXMLDoc, true);
+  }
+
+  /**
+   * Read the provided resource once and validate it with all validators
+   * concurrently.
+   *
+   * @param aXML
+   *        The XML resource to be validated. May not be <code>null</code>.
+   * @return The merged list of all failed asserts/successful reports of all
+   *         validators. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <SchematronMessageWithOrigin> validateResource (@Nonnull final IReadableResource aXML)
+  {
+    ValueEnforcer.notNull (aXML, "XML");
+    return _validate (_read (aXML), true);
+  }
+
+  /**
+   * Validate several resources concurrently. Each resource is validated by all
+   * validators in one task of the executor.
+   *
+   * @param aXMLs
+   *        The XML resources to be validated. May not be <code>null</code>.
+   * @return One merged list of messages per resource, in the order of the
+   *         resources. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <ICommonsList <SchematronMessageWithOrigin>> validateAllResources (@Nonnull final Iterable <? extends IReadableResource> aXMLs)
+  {
+    ValueEnforcer.notNullNoNullValue (aXMLs, "XMLs");
+
+    final ICommonsList <CompletableFuture <ICommonsList <SchematronMessageWithOrigin>>> aFutures = new CommonsArrayList <> ();
+    for (final IReadableResource aXML : aXMLs)
+      aFutures.add (CompletableFuture.supplyAsync ( () -> _validate (_read (aXML), false), m_aExecutor));
+    return aFutures.getAllMapped (CompositeSchematronValidator::_join);
+  }
+
+  /**
+   * Validate several DOM documents concurrently. Each document is validated by
+   * all validators in one task of the executor.
+   *
+   * @param aXMLDocs
+   *        The XML documents to be validated. May not be <code>null</code>.
+   * @return One merged list of messages per document, in the order of the
+   *         documents. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <ICommonsList <SchematronMessageWithOrigin>> validateAllDocuments (@Nonnull final Iterable <? extends Document> aXMLDocs)
+  {
+    ValueEnforcer.notNullNoNullValue (aXMLDocs, "XMLDocs");
+
+    final ICommonsList <CompletableFuture <ICommonsList <SchematronMessageWithOrigin>>> aFutures = new CommonsArrayList <> ();
+    for (final Document aXMLDoc : aXMLDocs)
+      aFutures.add (CompletableFuture.supplyAsync ( () -> _validate (aXMLDoc, false), m_aExecutor));
+    return aFutures.getAllMapped (CompositeSchematronValidator::_join);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Validators", m_aValidators).getToString ();
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.id.IHasID;
+import com.helger.commons.lang.EnumHelper;
+
+/**
+ * The level of a Schematron assert or report, derived from its flag. The
+ * constants are sorted from lowest to highest level.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+public enum ESchematronFlagLevel implements IHasID <String>
+{
+  INFO ("info"),
+  WARNING ("warning"),
+  ERROR ("error"),
+  FATAL ("fatal");
+
+  private final String m_sID;
+
+  ESchematronFlagLevel (@Nonnull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @param eOther
+   *        The level to compare to. May not be <code>null</code>.
+   * @return <code>true</code> if this level is at least as high as the passed
+   *         one.
+   */
+  public boolean isAtLeast (@Nonnull final ESchematronFlagLevel eOther)
+  {
+    return compareTo (eOther) >= 0;
+  }
+
+  /**
+   * Get the level of the passed flag. The flag is matched case insensitive.
+   * Like in ph-schematron, missing and unknown flags are considered errors.
+   *
+   * @param sFlag
+   *        The flag of the assert or report. May be <code>null</code>.
+   * @return The level. Never <code>null</code>.
+   */
+  @Nonnull
+  public static ESchematronFlagLevel getFromFlag (@Nullable final String sFlag)
+  {
+    if ("warn".equalsIgnoreCase (sFlag))
+      return WARNING;
+    if ("information".equalsIgnoreCase (sFlag))
+      return INFO;
+    return EnumHelper.getFromIDCaseInsensitiveOrDefault (ESchematronFlagLevel.class, sFlag, ERROR);
+  }
+}
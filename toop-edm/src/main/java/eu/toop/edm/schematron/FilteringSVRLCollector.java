@@ -0,0 +1,157 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.StringHelper;
+import com.helger.xml.XMLFactory;
+
+/**
+ * Builds the SVRL DOM from the SAX events of a Schematron XSLT, but only keeps
+ * the failed asserts and successful reports that are collected according to
+ * the {@link SchematronValidationMode}. If the mode says so, the
+ * transformation is aborted after the first collected message by throwing
+ * {@link StopException}.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+final class FilteringSVRLCollector extends DefaultHandler
+{
+  /**
+   * Thrown to abort the transformation.
+   *
+   * @author Philip Helger
+   */
+  static final class StopException extends SAXException
+  {
+    StopException ()
+    {
+      super ("Schematron validation stopped after the first collected message");
+    }
+  }
+
+  private final SchematronValidationMode m_aMode;
+  private final Document m_aDoc = XMLFactory.newDocument ();
+  private Node m_aCurrent = m_aDoc;
+  // Depth inside a skipped element, 0 if nothing is skipped
+  private int m_nSkipDepth = 0;
+  private boolean m_bStopped = false;
+
+  FilteringSVRLCollector (@Nonnull final SchematronValidationMode aMode)
+  {
+    ValueEnforcer.notNull (aMode, "Mode");
+    m_aMode = aMode;
+  }
+
+  private static boolean _isMessage (@Nonnull final String sUri, @Nonnull final String sLocalName)
+  {
+    return CSchematronXML.SVRL_NS.equals (sUri) && ("failed-assert".equals (sLocalName) || "successful-report".equals (sLocalName));
+  }
+
+  @Override
+  public void startElement (final String sUri, final String sLocalName, final String sQName, final Attributes aAttrs)
+  {
+    if (m_nSkipDepth > 0)
+    {
+      m_nSkipDepth++;
+      return;
+    }
+    if (_isMessage (sUri, sLocalName) && !m_aMode.isCollected (aAttrs.getValue ("flag")))
+    {
+      m_nSkipDepth = 1;
+      return;
+    }
+
+    final Element eElement = m_aDoc.createElementNS (StringHelper.hasText (sUri) ? sUri : null, sQName);
+    for (int i = 0; i < aAttrs.getLength (); ++i)
+    {
+      final String sAttrUri = aAttrs.getURI (i);
+      eElement.setAttributeNS (StringHelper.hasText (sAttrUri) ? sAttrUri : null, aAttrs.getQName (i), aAttrs.getValue (i));
+    }
+    m_aCurrent = m_aCurrent.appendChild (eElement);
+  }
+
+  @Override
+  public void endElement (final String sUri, final String sLocalName, final String sQName) throws SAXException
+  {
+    if (m_nSkipDepth > 0)
+    {
+      m_nSkipDepth--;
+      return;
+    }
+    m_aCurrent = m_aCurrent.getParentNode ();
+    if (m_aMode.isStopAtFirst () && _isMessage (sUri, sLocalName))
+    {
+      m_bStopped = true;
+      throw new StopException ();
+    }
+  }
+
+  @Override
+  public void characters (final char [] aChars, final int nStart, final int nLength)
+  {
+    // No text on document level
+    if (m_nSkipDepth == 0 && m_aCurrent != m_aDoc)
+      m_aCurrent.appendChild (m_aDoc.createTextNode (new String (aChars, nStart, nLength)));
+  }
+
+  /**
+   * @return <code>true</code> if the transformation was aborted on purpose.
+   */
+  boolean isStopped ()
+  {
+    return m_bStopped;
+  }
+
+  /**
+   * @return The created SVRL document. Never <code>null</code>.
+   */
+  @Nonnull
+  Document getSVRLDocument ()
+  {
+    return m_aDoc;
+  }
+}
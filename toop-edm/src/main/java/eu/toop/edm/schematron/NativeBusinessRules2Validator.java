@@ -0,0 +1,756 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.namespace.QName;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.hierarchy.visit.DefaultHierarchyVisitorCallback;
+import com.helger.commons.hierarchy.visit.EHierarchyVisitorReturn;
+import com.helger.commons.string.StringHelper;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.schematron.svrl.SVRLMarshaller;
+import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+import com.helger.xml.XMLFactory;
+
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.error.EDMExceptionPojo;
+import eu.toop.edm.error.EEDMExceptionType;
+import eu.toop.edm.jaxb.cccev.CCCEVConceptType;
+import eu.toop.edm.jaxb.cccev.CCCEVEvidenceTypeListType;
+import eu.toop.edm.jaxb.cccev.CCCEVRequirementType;
+import eu.toop.edm.jaxb.cv.cbc.IDType;
+import eu.toop.edm.model.AddressPojo;
+import eu.toop.edm.model.AgentPojo;
+import eu.toop.edm.model.BusinessPojo;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.ConceptTraversal;
+import eu.toop.edm.model.ConceptTreeWalker;
+import eu.toop.edm.model.ConceptValuePojo;
+import eu.toop.edm.model.DatasetPojo;
+import eu.toop.edm.model.DistributionPojo;
+import eu.toop.edm.model.EConceptValueType;
+import eu.toop.edm.model.EToopResponseOptionType;
+import eu.toop.edm.model.PersonPojo;
+import eu.toop.edm.request.IEDMRequestPayloadConcepts;
+import eu.toop.edm.request.IEDMRequestPayloadDistribution;
+import eu.toop.edm.request.IEDMRequestPayloadDocumentID;
+import eu.toop.edm.request.IEDMRequestPayloadProvider;
+import eu.toop.edm.response.IEDMResponsePayloadConcepts;
+import eu.toop.edm.response.IEDMResponsePayloadProvider;
+import eu.toop.edm.response.ResponseDocumentPojo;
+import eu.toop.regrep.rim.InternationalStringType;
+import eu.toop.regrep.rim.LocalizedStringType;
+
+/**
+ * Java implementation of the TOOP business rules (see
+ * {@link CEDMSchematron#TOOP_BUSINESS_RULES_XSLT}) that works directly on the
+ * EDM objects, without creating XML and without running XSLT.<br>
+ * The result is the same as validating the XML created by the respective
+ * writer with {@link SchematronBusinessRules2Validator}: the same failed
+ * asserts in the same order, with the same ID, flag, test and text. The
+ * texts are copied verbatim from TOOP_BUSINESS_RULES.sch, including inner
+ * whitespace, and trimmed like the SVRL texts. Like in the XSLT, asserts without an own ID and flag are reported without ID and
+ * flag. Only the location differs: it is a readable path and not the full
+ * XPath created by the XSLT.<br>
+ * Rules whose context is an attribute are never triggered by the XSLT, so they
+ * are not implemented here either. Concept payloads that are still lazy views
+ * on JAXB objects are materialized. For the unique ID rule the IDs of
+ * fulfilling requirements are read from the requirements, nested requirements,
+ * evidence type lists and concepts - IDs contained in evidences, qualified
+ * relations or reference frameworks of a requirement are not considered.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@ThreadSafe
+public class NativeBusinessRules2Validator
+{
+  private static final String FLAG_ERROR = "ERROR";
+  private static final String FLAG_WARNING = "warning";
+
+  private static final String CL_COUNTRY = "external/CountryIdentificationCode-2.2.gc";
+  private static final String CL_CURRENCY = "external/CurrencyCode-2.2.gc";
+  private static final String CL_LANGUAGE = "external/LanguageCode-2.2.gc";
+  private static final String CL_MIME = "external/BinaryObjectMimeCode-2.2.gc";
+  private static final String CL_DATA_ELEMENT_ERROR = "toop/DataElementResponseErrorCode-CodeList.gc";
+  private static final String CL_DISTRIBUTION_FORMAT = "toop/DistributionFormat-CodeList.gc";
+  private static final String CL_ERROR_CODE = "toop/ErrorCode-CodeList.gc";
+  private static final String CL_ERROR_ORIGIN = "toop/ErrorOrigin-CodeList.gc";
+  private static final String CL_ERROR_SEVERITY = "toop/ErrorSeverity-CodeList.gc";
+  private static final String CL_GENDER = "toop/Gender-CodeList.gc";
+  private static final String CL_IDENTIFIER_TYPE = "toop/IdentifierType-CodeList.gc";
+  private static final String CL_PROTOCOL_EXCEPTION = "toop/ProcotolException-CodeList.gc";
+  private static final String CL_QUERY_DEFINITION = "toop/QueryDefinition-CodeList.gc";
+  private static final String CL_INDUSTRIAL_CLASS = "toop/StandardIndustrialClassCode-CodeList.gc";
+
+  // The tests as reported by the XSLT. The curly braces of the UUID regular
+  // expression are evaluated as attribute value templates by the XSLT.
+  private static final String TEST_UUID = "matches(normalize-space((.)),'^[a-f0-9]8-[a-f0-9]4-[a-f0-9]4-[a-f0-9]4-[a-f0-9]12$','i')";
+  private static final String TEST_SPEC_ID = "matches(rim:Slot[@name = 'SpecificationIdentifier']/rim:SlotValue/rim:Value/text(),'toop-edm:v2.1')";
+  private static final String TEST_CONCEPT_ID = "count(//cbc:id) = count(distinct-values(//cbc:id))";
+  private static final String TEST_CONCEPT_QNAME = "count(cccev:concept/cbc:qName) = count(distinct-values(cccev:concept/cbc:qName))";
+  private static final String TEST_LOCALIZED_STRING = "count(rim:LocalizedString) = count(distinct-values(rim:LocalizedString/@xml:lang))";
+  private static final String TEST_LEI = "( (@schemeID = 'LEI') and ( string-length(normalize-space(.)) = 20) or (@schemeID != 'LEI') )";
+  private static final String TEST_GENDER = "$gendertypecodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]";
+  private static final String TEST_COUNTRY = "$countrycodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]";
+  private static final String TEST_EIDAS_1 = "( ($countrycodes/SimpleValue[normalize-space(.) = (tokenize(normalize-space(current()/.),'/')[1])]) or ($hasEidasFormat=false()) )";
+  private static final String TEST_EIDAS_2 = "( ($countrycodes/SimpleValue[normalize-space(.) = (tokenize(normalize-space(current()/.),'/')[2])]) or ($hasEidasFormat=false()) )";
+  private static final String TEST_MIME = "$mimetypecodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]";
+  private static final String TEST_ERROR_SEVERITY = "$errorseveritycodes/SimpleValue[normalize-space(.) = normalize-space(current()/@severity)]";
+  private static final String TEST_ERROR_CODE = "$errorcodecodes/SimpleValue[normalize-space(.) = normalize-space(current()/@code)]";
+  private static final String TEST_ERROR_ORIGIN = "$errororigincodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]";
+  private static final String TEST_DISTRIBUTION_FORMAT = "$distributionformatcodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]";
+  private static final String TEST_QUERY_DEFINITION = "$querydefinitions/SimpleValue[normalize-space(.) = normalize-space(current()/@queryDefinition)]";
+  private static final String TEST_CURRENCY = "$currencytypecodes/SimpleValue[normalize-space(.) = normalize-space(current()/@currencyID)]";
+  private static final String TEST_LANGUAGE = "$languagecodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]";
+  private static final String TEST_DATA_ELEMENT_ERROR = "$dataelementresponseerrorcodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]";
+  private static final String TEST_SIC = "( (@schemeID = 'SIC') and ($industrialtypecodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]) or (@schemeID != 'SIC') )";
+  private static final String TEST_PROTOCOL_EXCEPTION = "$procotolexceptioncodes/SimpleValue[normalize-space(.) = normalize-space(substring-after($datatype,':'))]";
+  private static final String TEST_IDENTIFIER_TYPE = "$identifiertypecodes/SimpleValue[normalize-space(.) = normalize-space(current()/@schemeID)]";
+
+  private static final Pattern UUID_PATTERN = Pattern.compile ("^[a-f0-9]{8}-[a-f0-9]{4}-[a-f0-9]{4}-[a-f0-9]{4}-[a-f0-9]{12}$",
+                                                              Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+  private static final Pattern SPEC_ID_PATTERN = Pattern.compile ("toop-edm:v2.1");
+  private static final Pattern EIDAS_PATTERN = Pattern.compile ("^[a-z]{2}/[a-z]{2}/(.*?)", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+  private static final String LOC_REQUEST = "/query:QueryRequest";
+  private static final String LOC_QUERY = LOC_REQUEST + "/query:Query";
+  private static final String LOC_RESPONSE = "/query:QueryResponse";
+
+  /** The local XSD type name of each exception type, as used in xsi:type */
+  private static final Map <EEDMExceptionType, String> EXCEPTION_TYPE_NAMES = new EnumMap <> (EEDMExceptionType.class);
+  static
+  {
+    for (final EEDMExceptionType e : EEDMExceptionType.values ())
+    {
+      final Class <?> aClass = e.invoke ().getClass ();
+      final XmlType aXmlType = aClass.getAnnotation (XmlType.class);
+      EXCEPTION_TYPE_NAMES.put (e, aXmlType != null ? aXmlType.name () : aClass.getSimpleName ());
+    }
+  }
+
+  /**
+   * A single failed assert.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  private static final class Failure
+  {
+    private final String m_sID;
+    private final String m_sFlag;
+    private final String m_sLocation;
+    private final String m_sTest;
+    private final String m_sText;
+
+    Failure (@Nullable final String sID,
+             @Nullable final String sFlag,
+             @Nonnull final String sLocation,
+             @Nonnull final String sTest,
+             @Nonnull final String sText)
+    {
+      m_sID = sID;
+      m_sFlag = sFlag;
+      m_sLocation = sLocation;
+      m_sTest = sTest;
+      m_sText = sText;
+    }
+  }
+
+  public NativeBusinessRules2Validator ()
+  {}
+
+  @Nonnull
+  private static String _norm (@Nullable final String s)
+  {
+    return s == null ? "" : CodeListCache.getNormalizedSpace (s);
+  }
+
+  private static boolean _isInCodeList (@Nonnull final String sCodeList, @Nullable final String sValue)
+  {
+    return CodeListCache.containsCode (sCodeList, _norm (sValue));
+  }
+
+  @Nonnull
+  private static String _slot (@Nonnull final String sName)
+  {
+    return "/rim:Slot[@name='" + sName + "']/rim:SlotValue";
+  }
+
+  private static void _checkSpecificationIdentifier (@Nullable final String sSpecID,
+                                                     @Nonnull final String sLocation,
+                                                     @Nonnull final List <Failure> aTarget)
+  {
+    if (!SPEC_ID_PATTERN.matcher (StringHelper.getNotNull (sSpecID)).find ())
+      aTarget.add (new Failure ("br_mandatory_res_specs_id",
+                                FLAG_ERROR,
+                                sLocation,
+                                TEST_SPEC_ID,
+                                "Rule: The message MUST have the specification identifier \"toop-edm:v2.1\"."));
+  }
+
+  private static void _checkLEI (@Nullable final String sValue,
+                                 @Nullable final String sSchemeID,
+                                 @Nonnull final String sLocation,
+                                 @Nonnull final List <Failure> aTarget)
+  {
+    if (StringHelper.hasText (sValue))
+    {
+      // A missing schemeID fails both comparisons
+      final String sNorm = _norm (sValue);
+      final boolean bValid = "LEI".equals (sSchemeID) ? sNorm.codePointCount (0, sNorm.length ()) == 20 : sSchemeID != null;
+      if (!bValid)
+        aTarget.add (new Failure ("br_invalid_lei_length", FLAG_WARNING, sLocation, TEST_LEI, "The LEI code length should be 20."));
+    }
+  }
+
+  private static void _checkSIC (@Nullable final String sValue,
+                                 @Nullable final String sSchemeID,
+                                 @Nonnull final String sLocation,
+                                 @Nonnull final List <Failure> aTarget)
+  {
+    if (StringHelper.hasText (sValue))
+    {
+      final boolean bValid = "SIC".equals (sSchemeID) ? _isInCodeList (CL_INDUSTRIAL_CLASS, sValue) : sSchemeID != null;
+      if (!bValid)
+        aTarget.add (new Failure ("br_check_sic_code",
+                                  FLAG_WARNING,
+                                  sLocation,
+                                  TEST_SIC,
+                                  "A standard industrial classification code should always be specified using the correct code list."));
+    }
+  }
+
+  private static void _checkIdentifierType (@Nullable final String sValue,
+                                            @Nullable final String sSchemeID,
+                                            @Nonnull final String sLocation,
+                                            @Nonnull final List <Failure> aTarget)
+  {
+    if (StringHelper.hasText (sValue) && !_isInCodeList (CL_IDENTIFIER_TYPE, sSchemeID))
+      aTarget.add (new Failure ("br_check_identifier_code",
+                                FLAG_WARNING,
+                                sLocation,
+                                TEST_IDENTIFIER_TYPE,
+                                "An identifier type code SHOULD always be specified using the correct code list."));
+  }
+
+  private static void _checkGender (@Nullable final PersonPojo aPerson,
+                                    @Nonnull final String sLocation,
+                                    @Nonnull final List <Failure> aTarget)
+  {
+    if (aPerson != null && StringHelper.hasText (aPerson.getGenderCode ()) && !_isInCodeList (CL_GENDER, aPerson.getGenderCode ()))
+      aTarget.add (new Failure ("br_check_gender_code",
+                                FLAG_ERROR,
+                                sLocation + "/cvb:PersonGenderCode",
+                                TEST_GENDER,
+                                "A gender code must always be specified using the correct code list."));
+  }
+
+  private static void _checkCountry (@Nullable final AddressPojo aAddress,
+                                     @Nonnull final String sElementName,
+                                     @Nonnull final String sLocation,
+                                     @Nonnull final List <Failure> aTarget)
+  {
+    if (aAddress != null && StringHelper.hasText (aAddress.getCountryCode ()) && !_isInCodeList (CL_COUNTRY, aAddress.getCountryCode ()))
+      aTarget.add (new Failure (null,
+                                null,
+                                sLocation + "/" + sElementName,
+                                TEST_COUNTRY,
+                                "The country code must always be specified using the correct code list. Please check " + sElementName + "."));
+  }
+
+  private static void _checkEidasCountries (@Nullable final String sValue,
+                                            @Nullable final String sSchemeID,
+                                            @Nonnull final String sLocation,
+                                            @Nonnull final List <Failure> aTarget)
+  {
+    if (StringHelper.hasText (sValue) && "EIDAS".equals (sSchemeID))
+    {
+      final String sNorm = _norm (sValue);
+      if (EIDAS_PATTERN.matcher (sNorm).find ())
+      {
+        // The format guarantees the first two tokens
+        final String sFirst = sNorm.substring (0, 2);
+        final String sSecond = sNorm.substring (3, 5);
+        if (!CodeListCache.containsCode (CL_COUNTRY, sFirst))
+          aTarget.add (new Failure (null,
+                                    null,
+                                    sLocation,
+                                    TEST_EIDAS_1,
+                                    "If the EIDAS code has the format \"XX/YY/12345\", the country code in the first part of the identifier must always be specified using the correct code list (found:" +
+                                                  sFirst +
+                                                  ")."));
+        if (!CodeListCache.containsCode (CL_COUNTRY, sSecond))
+          aTarget.add (new Failure (null,
+                                    null,
+                                    sLocation,
+                                    TEST_EIDAS_2,
+                                    "If the EIDAS code has the format \"XX/YY/12345\", the country code in the second part of the identifier must always be specified using the correct code list (found:" +
+                                                  sSecond +
+                                                  ")."));
+      }
+    }
+  }
+
+  private static void _checkMediaType (@Nullable final String sMediaType,
+                                       @Nonnull final String sLocation,
+                                       @Nonnull final List <Failure> aTarget)
+  {
+    if (StringHelper.hasText (sMediaType) && !_isInCodeList (CL_MIME, sMediaType))
+      aTarget.add (new Failure (null,
+                                null,
+                                sLocation + "/dcat:mediaType",
+                                TEST_MIME,
+                                "A mimetype code SHOULD always be specified using the correct code list."));
+  }
+
+  private static void _addIDs (@Nonnull final List <IDType> aIDs, @Nonnull final List <String> aTarget)
+  {
+    for (final IDType aID : aIDs)
+      aTarget.add (aID.getValue ());
+  }
+
+  private static void _collectRequirementIDs (@Nonnull final CCCEVRequirementType aRequirement, @Nonnull final List <String> aTarget)
+  {
+    // The cbc:id elements of the requirement, the nested requirements, the
+    // evidence type lists and the concept trees. The order is not relevant
+    // for the uniqueness check.
+    ConceptTreeWalker.walk (aRequirement, CCCEVRequirementType::getRequirement, new DefaultHierarchyVisitorCallback <CCCEVRequirementType> ()
+    {
+      @Override
+      public EHierarchyVisitorReturn onItemBeforeChildren (final CCCEVRequirementType aItem)
+      {
+        _addIDs (aItem.getId (), aTarget);
+        for (final CCCEVEvidenceTypeListType aList : aItem.getEvidenceTypeCombinationList ())
+          _addIDs (aList.getId (), aTarget);
+        for (final CCCEVConceptType aConcept : aItem.getConcept ())
+          ConceptTreeWalker.walk (aConcept, CCCEVConceptType::getConcept, new DefaultHierarchyVisitorCallback <CCCEVConceptType> ()
+          {
+            @Override
+            public EHierarchyVisitorReturn onItemBeforeChildren (final CCCEVConceptType aConceptItem)
+            {
+              _addIDs (aConceptItem.getId (), aTarget);
+              return EHierarchyVisitorReturn.CONTINUE;
+            }
+          });
+        return EHierarchyVisitorReturn.CONTINUE;
+      }
+    });
+  }
+
+  @Nonnull
+  private static ICommonsList <AbstractSVRLMessage> _getAsSVRLMessages (@Nonnull final List <Failure> aFailures)
+  {
+    if (aFailures.isEmpty ())
+      return new CommonsArrayList <> ();
+
+    // Go through SVRL, so that the messages are created exactly like for the
+    // XSLT
+    final Document aDoc = XMLFactory.newDocument ();
+    final Element eRoot = (Element) aDoc.appendChild (aDoc.createElementNS (CSchematronXML.SVRL_NS, "svrl:schematron-output"));
+    eRoot.appendChild (aDoc.createElementNS (CSchematronXML.SVRL_NS, "svrl:active-pattern"));
+    for (final Failure aFailure : aFailures)
+    {
+      final Element eFiredRule = (Element) eRoot.appendChild (aDoc.createElementNS (CSchematronXML.SVRL_NS, "svrl:fired-rule"));
+      eFiredRule.setAttribute ("context", aFailure.m_sLocation);
+
+      final Element eFailedAssert = (Element) eRoot.appendChild (aDoc.createElementNS (CSchematronXML.SVRL_NS, "svrl:failed-assert"));
+      eFailedAssert.setAttribute ("test", aFailure.m_sTest);
+      if (aFailure.m_sID != null)
+        eFailedAssert.setAttribute ("id", aFailure.m_sID);
+      if (aFailure.m_sFlag != null)
+        eFailedAssert.setAttribute ("flag", aFailure.m_sFlag);
+      eFailedAssert.setAttribute ("location", aFailure.m_sLocation);
+      eFailedAssert.appendChild (aDoc.createElementNS (CSchematronXML.SVRL_NS, "svrl:text")).appendChild (aDoc.createTextNode (aFailure.m_sText));
+    }
+
+    final SchematronOutputType aSOT = new SVRLMarshaller ().read (aDoc);
+    if (aSOT == null)
+      throw new IllegalStateException ("Internal error: failed to interpret the created SVRL");
+    return SVRLHelper.getAllFailedAssertionsAndSuccessfulReports (aSOT);
+  }
+
+  /**
+   * Validate a request.
+   *
+   * @param aRequest
+   *        The request to validate. May not be <code>null</code>.
+   * @return The list of all failed asserts. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <AbstractSVRLMessage> validateRequest (@Nonnull final EDMRequest aRequest)
+  {
+    ValueEnforcer.notNull (aRequest, "Request");
+
+    final ICommonsList <Failure> aFailures = new CommonsArrayList <> ();
+    final IEDMRequestPayloadProvider aPayload = aRequest.getPayloadProvider ();
+    final List <ConceptPojo> aConcepts = aPayload instanceof IEDMRequestPayloadConcepts ? ((IEDMRequestPayloadConcepts) aPayload).concepts ()
+                                                                                         : null;
+    final List <DistributionPojo> aDistributions = aPayload instanceof IEDMRequestPayloadDistribution ? ((IEDMRequestPayloadDistribution) aPayload).distributions ()
+                                                                                                       : null;
+    final AgentPojo aDC = aRequest.getDataConsumer ();
+    final BusinessPojo aLP = aRequest.getDataSubjectLegalPerson ();
+    final PersonPojo aNP = aRequest.getDataSubjectNaturalPerson ();
+    final PersonPojo aAR = aRequest.getAuthorizedRepresentative ();
+    final String sLocDC = LOC_REQUEST + _slot ("DataConsumer") + "/cagv:Agent/cagv:location/locn:address";
+    final String sLocLP = LOC_QUERY + _slot ("LegalPerson") + "/cva:CoreBusiness";
+    final String sLocNP = LOC_QUERY + _slot ("NaturalPerson") + "/cva:CorePerson";
+    final String sLocAR = LOC_QUERY + _slot ("AuthorizedRepresentative") + "/cva:CorePerson";
+    final String sLocConcepts = LOC_QUERY + _slot ("ConceptRequestList") + "/rim:Element";
+    final String sLocDistributions = LOC_QUERY + _slot ("DistributionRequestList") + "/rim:Element";
+
+    // UUID format - only the document ID, the attribute contexts never fire
+    if (aPayload instanceof IEDMRequestPayloadDocumentID)
+    {
+      final String sNorm = _norm (((IEDMRequestPayloadDocumentID) aPayload).getDocumentID ());
+      if (!UUID_PATTERN.matcher (sNorm).find ())
+        aFailures.add (new Failure ("br_wrong_uuid_format",
+                                    FLAG_ERROR,
+                                    LOC_QUERY + _slot ("id") + "/rim:Value",
+                                    TEST_UUID,
+                                    "Rule: The UUID MUST be created following the UUID Version 4 specification. \n                Please check rim:Value, found: " +
+                                               sNorm +
+                                               " ."));
+    }
+
+    // Specification identifier
+    _checkSpecificationIdentifier (aRequest.getSpecificationIdentifier (), LOC_REQUEST, aFailures);
+
+    if (aConcepts != null)
+    {
+      // Unique IDs in the whole document
+      final ICommonsList <String> aAllIDs = new CommonsArrayList <> ();
+      if (aDC != null && StringHelper.hasText (aDC.getID ()))
+        aAllIDs.add (aDC.getID ());
+      for (final CCCEVRequirementType aRequirement : aRequest.getAllFullfillingRequirements ())
+        _collectRequirementIDs (aRequirement, aAllIDs);
+      for (final ConceptPojo aConcept : aConcepts)
+        ConceptTraversal.ALL.forEach (aConcept, (nLevel, x) -> {
+          if (StringHelper.hasText (x.getID ()))
+            aAllIDs.add (x.getID ());
+        });
+      if (new CommonsHashSet <> (aAllIDs).size () != aAllIDs.size ())
+        for (int i = 0; i < aConcepts.size (); ++i)
+          aFailures.add (new Failure ("br_request_concept_id_not_unique",
+                                      FLAG_ERROR,
+                                      sLocConcepts + "[" + (i + 1) + "]/cccev:concept",
+                                      TEST_CONCEPT_ID,
+                                      "In a QueryRequest,  two or more concepts can not share the same ID."));
+
+      // Unique QNames of the direct children of the top-level concepts
+      for (int i = 0; i < aConcepts.size (); ++i)
+      {
+        final ICommonsSet <QName> aNames = new CommonsHashSet <> ();
+        boolean bUnique = true;
+        for (final ConceptPojo aChild : aConcepts.get (i).children ())
+          if (aChild.getName () != null && !aNames.add (aChild.getName ()))
+            bUnique = false;
+        if (!bUnique)
+          aFailures.add (new Failure ("br_request_concept_qname_not_unique",
+                                      FLAG_ERROR,
+                                      sLocConcepts + "[" + (i + 1) + "]/cccev:concept",
+                                      TEST_CONCEPT_QNAME,
+                                      "In a QueryRequest,  two or more concepts at the same level (with a common parent) can not share the same Qname."));
+      }
+    }
+
+    // Unique languages of the procedure
+    final InternationalStringType aProcedure = aRequest.getProcedure ();
+    if (aProcedure != null)
+    {
+      final ICommonsSet <String> aLangs = new CommonsHashSet <> ();
+      for (final LocalizedStringType aLS : aProcedure.getLocalizedString ())
+        if (aLS.getLang () != null)
+          aLangs.add (aLS.getLang ());
+      if (aLangs.size () != aProcedure.getLocalizedString ().size ())
+        aFailures.add (new Failure (null,
+                                    null,
+                                    LOC_REQUEST + _slot ("Procedure") + "/rim:Value",
+                                    TEST_LOCALIZED_STRING,
+                                    "When there are several LocalizedStrings, they all need to have a different language ID."));
+    }
+
+    // Unique schemeIDs of the legal person and natural person IDs: the POJOs
+    // have at most one ID each, so these rules cannot fail
+
+    // LEI length
+    if (aLP != null)
+    {
+      _checkLEI (aLP.getLegalID (), aLP.getLegalIDSchemeID (), sLocLP + "/cvb:LegalEntityLegalID", aFailures);
+      _checkLEI (aLP.getID (), aLP.getIDSchemeID (), sLocLP + "/cvb:LegalEntityID", aFailures);
+    }
+
+    // Gender code
+    _checkGender (aNP, sLocNP, aFailures);
+    _checkGender (aAR, sLocAR, aFailures);
+
+    // Country codes in document order
+    if (aDC != null)
+      _checkCountry (aDC.getAddress (), "locn:adminUnitLevel1", sLocDC, aFailures);
+    if (aLP != null)
+    {
+      _checkEidasCountries (aLP.getLegalID (), aLP.getLegalIDSchemeID (), sLocLP + "/cvb:LegalEntityLegalID", aFailures);
+      _checkEidasCountries (aLP.getID (), aLP.getIDSchemeID (), sLocLP + "/cvb:LegalEntityID", aFailures);
+      _checkCountry (aLP.getAddress (), "cvb:AddressAdminUnitLocationOne", sLocLP + "/cva:LegalEntityCoreAddress", aFailures);
+    }
+    for (final PersonPojo aPerson : new PersonPojo [] { aNP, aAR })
+      if (aPerson != null)
+      {
+        final String sLoc = aPerson == aNP ? sLocNP : sLocAR;
+        _checkEidasCountries (aPerson.getID (), aPerson.getIDSchemeID (), sLoc + "/cvb:PersonID", aFailures);
+        _checkCountry (aPerson.getAddress (), "cvb:AddressAdminUnitLocationOne", sLoc + "/cva:PersonCoreAddress", aFailures);
+      }
+
+    // Media types
+    if (aDistributions != null)
+      for (int i = 0; i < aDistributions.size (); ++i)
+        _checkMediaType (aDistributions.get (i).getMediaType (), sLocDistributions + "[" + (i + 1) + "]/dcat:distribution", aFailures);
+
+    // Distribution formats
+    if (aDistributions != null)
+      for (int i = 0; i < aDistributions.size (); ++i)
+      {
+        final DistributionPojo aDistribution = aDistributions.get (i);
+        if (aDistribution.getFormat () != null && !_isInCodeList (CL_DISTRIBUTION_FORMAT, aDistribution.getFormat ().getID ()))
+          aFailures.add (new Failure (null,
+                                      null,
+                                      sLocDistributions + "[" + (i + 1) + "]/dcat:distribution/dct:format",
+                                      TEST_DISTRIBUTION_FORMAT,
+                                      "A distribution format code must always be specified using the correct code list."));
+      }
+
+    // Query definition
+    if (!_isInCodeList (CL_QUERY_DEFINITION, aRequest.getQueryDefinition ().getID ()))
+      aFailures.add (new Failure (null,
+                                  null,
+                                  LOC_QUERY,
+                                  TEST_QUERY_DEFINITION,
+                                  "A query definition code must always be specified using the correct code list."));
+
+    // Standard industrial class codes
+    if (aLP != null)
+    {
+      _checkSIC (aLP.getLegalID (), aLP.getLegalIDSchemeID (), sLocLP + "/cvb:LegalEntityLegalID", aFailures);
+      _checkSIC (aLP.getID (), aLP.getIDSchemeID (), sLocLP + "/cvb:LegalEntityID", aFailures);
+    }
+
+    // Identifier types in document order
+    if (aLP != null)
+    {
+      _checkIdentifierType (aLP.getLegalID (), aLP.getLegalIDSchemeID (), sLocLP + "/cvb:LegalEntityLegalID", aFailures);
+      _checkIdentifierType (aLP.getID (), aLP.getIDSchemeID (), sLocLP + "/cvb:LegalEntityID", aFailures);
+    }
+    if (aNP != null)
+      _checkIdentifierType (aNP.getID (), aNP.getIDSchemeID (), sLocNP + "/cvb:PersonID", aFailures);
+    if (aAR != null)
+      _checkIdentifierType (aAR.getID (), aAR.getIDSchemeID (), sLocAR + "/cvb:PersonID", aFailures);
+
+    return _getAsSVRLMessages (aFailures);
+  }
+
+  /**
+   * Validate a response.
+   *
+   * @param aResponse
+   *        The response to validate. May not be <code>null</code>.
+   * @return The list of all failed asserts. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <AbstractSVRLMessage> validateResponse (@Nonnull final EDMResponse aResponse)
+  {
+    ValueEnforcer.notNull (aResponse, "Response");
+
+    final ICommonsList <Failure> aFailures = new CommonsArrayList <> ();
+    // Only inline responses contain the rule contexts of the payload
+    final List <IEDMResponsePayloadProvider> aPayloads = aResponse.getResponseOption () == EToopResponseOptionType.INLINE ? aResponse.getAllPayloadProviders ()
+                                                                                                                          : new CommonsArrayList <> ();
+    final String sLocRO = LOC_RESPONSE + "/rim:RegistryObjectList/rim:RegistryObject";
+
+    // Specification identifier
+    _checkSpecificationIdentifier (aResponse.getSpecificationIdentifier (), LOC_RESPONSE, aFailures);
+
+    // Media types
+    for (int i = 0; i < aPayloads.size (); ++i)
+      if (aPayloads.get (i) instanceof ResponseDocumentPojo)
+      {
+        final DatasetPojo aDataset = ((ResponseDocumentPojo) aPayloads.get (i)).getDataset ();
+        if (aDataset.getDistribution () != null)
+          _checkMediaType (aDataset.getDistribution ().getDocumentType (),
+                           sLocRO + "[" + (i + 1) + "]" + _slot ("DocumentMetadata") + "/dcat:dataset/dcat:distribution",
+                           aFailures);
+      }
+
+    // Currency codes
+    for (int i = 0; i < aPayloads.size (); ++i)
+      if (aPayloads.get (i) instanceof IEDMResponsePayloadConcepts)
+      {
+        final String sLoc = sLocRO + "[" + (i + 1) + "]" + _slot ("ConceptValues") + "/rim:Element";
+        for (final ConceptPojo aConcept : ((IEDMResponsePayloadConcepts) aPayloads.get (i)).concepts ())
+          ConceptTraversal.ALL.forEach (aConcept, (nLevel, x) -> {
+            final ConceptValuePojo aValue = x.getValue ();
+            if (aValue != null &&
+                aValue.getValueType () == EConceptValueType.AMOUNT &&
+                !_isInCodeList (CL_CURRENCY, aValue.getAmount ().getCurrencyID ()))
+              aFailures.add (new Failure (null,
+                                          null,
+                                          sLoc + "//cccev:concept[cbc:id='" + x.getID () + "']/cccev:value/cccev:amountValue",
+                                          TEST_CURRENCY,
+                                          "A currency type code must always be specified using the correct code list."));
+          });
+      }
+
+    // Language codes
+    for (int i = 0; i < aPayloads.size (); ++i)
+      if (aPayloads.get (i) instanceof ResponseDocumentPojo)
+      {
+        final String sLanguage = ((ResponseDocumentPojo) aPayloads.get (i)).getDataset ().getLanguage ();
+        if (StringHelper.hasText (sLanguage) && !_isInCodeList (CL_LANGUAGE, sLanguage))
+          aFailures.add (new Failure (null,
+                                      null,
+                                      sLocRO + "[" + (i + 1) + "]" + _slot ("DocumentMetadata") + "/dcat:dataset/dct:language",
+                                      TEST_LANGUAGE,
+                                      "A language code must always be specified using the correct code list."));
+      }
+
+    // Data element response error codes
+    for (int i = 0; i < aPayloads.size (); ++i)
+      if (aPayloads.get (i) instanceof IEDMResponsePayloadConcepts)
+      {
+        final String sLoc = sLocRO + "[" + (i + 1) + "]" + _slot ("ConceptValues") + "/rim:Element";
+        for (final ConceptPojo aConcept : ((IEDMResponsePayloadConcepts) aPayloads.get (i)).concepts ())
+          ConceptTraversal.ALL.forEach (aConcept, (nLevel, x) -> {
+            final ConceptValuePojo aValue = x.getValue ();
+            if (aValue != null &&
+                aValue.getValueType () == EConceptValueType.ERROR_CODE &&
+                !_isInCodeList (CL_DATA_ELEMENT_ERROR, aValue.getErrorCode ()))
+              aFailures.add (new Failure ("br_check_error_data_element_response",
+                                          FLAG_WARNING,
+                                          sLoc + "//cccev:concept[cbc:id='" + x.getID () + "']/cccev:value/cccev:error",
+                                          TEST_DATA_ELEMENT_ERROR,
+                                          "An error code must always be specified using the correct code list."));
+          });
+      }
+
+    return _getAsSVRLMessages (aFailures);
+  }
+
+  /**
+   * Validate an error response.
+   *
+   * @param aErrorResponse
+   *        The error response to validate. May not be <code>null</code>.
+   * @return The list of all failed asserts. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <AbstractSVRLMessage> validateErrorResponse (@Nonnull final EDMErrorResponse aErrorResponse)
+  {
+    ValueEnforcer.notNull (aErrorResponse, "ErrorResponse");
+
+    final ICommonsList <Failure> aFailures = new CommonsArrayList <> ();
+    final List <EDMExceptionPojo> aExceptions = aErrorResponse.getAllExceptions ();
+
+    // Specification identifier
+    _checkSpecificationIdentifier (aErrorResponse.getSpecificationIdentifier (), LOC_RESPONSE, aFailures);
+
+    // Error severities and error codes
+    for (int i = 0; i < aExceptions.size (); ++i)
+    {
+      final EDMExceptionPojo aException = aExceptions.get (i);
+      final String sLoc = LOC_RESPONSE + "/rs:Exception[" + (i + 1) + "]";
+      if (!_isInCodeList (CL_ERROR_SEVERITY, aException.getSeverity () == null ? null : aException.getSeverity ().getID ()))
+        aFailures.add (new Failure ("br_check_error_severity",
+                                    null,
+                                    sLoc,
+                                    TEST_ERROR_SEVERITY,
+                                    "An error severity code must always be specified using the correct code list."));
+      if (!_isInCodeList (CL_ERROR_CODE, aException.getErrorCode ()))
+        aFailures.add (new Failure ("br_check_error_code",
+                                    null,
+                                    sLoc,
+                                    TEST_ERROR_CODE,
+                                    "An error code must always be specified using the correct code list."));
+    }
+
+    // Error origins
+    for (int i = 0; i < aExceptions.size (); ++i)
+    {
+      final String sOrigin = aExceptions.get (i).getErrorOrigin ();
+      if (StringHelper.hasText (sOrigin) && !_isInCodeList (CL_ERROR_ORIGIN, sOrigin))
+        aFailures.add (new Failure (null,
+                                    null,
+                                    LOC_RESPONSE + "/rs:Exception[" + (i + 1) + "]" + _slot ("ErrorOrigin") + "/rim:Value",
+                                    TEST_ERROR_ORIGIN,
+                                    "An error origin code must always be specified using the correct code list."));
+    }
+
+    // Protocol exception types
+    for (int i = 0; i < aExceptions.size (); ++i)
+    {
+      final EEDMExceptionType eType = aExceptions.get (i).getExceptionType ();
+      if (!_isInCodeList (CL_PROTOCOL_EXCEPTION, eType == null ? null : EXCEPTION_TYPE_NAMES.get (eType)))
+        aFailures.add (new Failure ("br_check_error_protocol_exception",
+                                    FLAG_ERROR,
+                                    LOC_RESPONSE + "/rs:Exception[" + (i + 1) + "]",
+                                    TEST_PROTOCOL_EXCEPTION,
+                                    "A protocol exception code must always be specified using the correct code list."));
+    }
+
+    return _getAsSVRLMessages (aFailures);
+  }
+}
@@ -36,21 +36,63 @@ package eu.toop.edm.schematron;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.io.resource.IReadableResource;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
 
 /**
  * TOOP Schematron validator for the 2.0.0 data model Business Rules. Apply only
  * <b>after</b> EDM. Validate DOM documents or other resources using the
  * predefined TOOP Schematron rules. This should be run AFTER
- * {@link SchematronEDM2Validator}.
+ * {@link SchematronEDM2Validator}.<br>
+ * EDM objects can be validated directly. By default they are serialized and
+ * validated with the XSLT. Optionally the same rules can be evaluated natively
+ * on the objects (see {@link NativeBusinessRules2Validator}), which avoids the
+ * serialization and the XSLT and is meant for hot paths.
  *
  * @author Philip Helger
  */
 @ThreadSafe
 public class SchematronBusinessRules2Validator extends AbstractSchematronValidator
 {
+  private static final NativeBusinessRules2Validator NATIVE_VALIDATOR = new NativeBusinessRules2Validator ();
+
+  private final boolean m_bUseNativeRules;
+
   public SchematronBusinessRules2Validator ()
-  {}
+  {
+    this (false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param bUseNativeRules
+   *        <code>true</code> to validate EDM objects with the native rule
+   *        implementation, <code>false</code> to serialize them and use the
+   *        XSLT. Resources and documents are always validated with the XSLT.
+   * @since 2.1.2
+   */
+  public SchematronBusinessRules2Validator (final boolean bUseNativeRules)
+  {
+    m_bUseNativeRules = bUseNativeRules;
+  }
+
+  /**
+   * @return <code>true</code> if EDM objects are validated with the native
+   *         rule implementation, <code>false</code> if the XSLT is used.
+   * @since 2.1.2
+   */
+  public final boolean isUseNativeRules ()
+  {
+    return m_bUseNativeRules;
+  }
 
   @Override
   @Nonnull
@@ -58,4 +100,61 @@ public class SchematronBusinessRules2Validator extends AbstractSchematronValidat
   {
     return CEDMSchematron.TOOP_BUSINESS_RULES_XSLT;
   }
+
+  /**
+   * Validate an EDM request.
+   *
+   * @param aRequest
+   *        The request to validate. May not be <code>null</code>.
+   * @return The list of all failed asserts and successful reports. Never
+   *         <code>null</code>.
+   * @since 2.1.2
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateRequest (@Nonnull final EDMRequest aRequest)
+  {
+    ValueEnforcer.notNull (aRequest, "Request");
+    if (m_bUseNativeRules)
+      return NATIVE_VALIDATOR.validateRequest (aRequest);
+    return validateDocument (aRequest.getWriter ().getAsDocument ());
+  }
+
+  /**
+   * Validate an EDM response.
+   *
+   * @param aResponse
+   *        The response to validate. May not be <code>null</code>.
+   * @return The list of all failed asserts and successful reports. Never
+   *         <code>null</code>.
+   * @since 2.1.2
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateResponse (@Nonnull final EDMResponse aResponse)
+  {
+    ValueEnforcer.notNull (aResponse, "Response");
+    if (m_bUseNativeRules)
+      return NATIVE_VALIDATOR.validateResponse (aResponse);
+    return validateDocument (aResponse.getWriter ().getAsDocument ());
+  }
+
+  /**
+   * Validate an EDM error response.
+   *
+   * @param aErrorResponse
+   *        The error response to validate. May not be <code>null</code>.
+   * @return The list of all failed asserts and successful reports. Never
+   *         <code>null</code>.
+   * @since 2.1.2
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateErrorResponse (@Nonnull final EDMErrorResponse aErrorResponse)
+  {
+    ValueEnforcer.notNull (aErrorResponse, "ErrorResponse");
+    if (m_bUseNativeRules)
+      return NATIVE_VALIDATOR.validateErrorResponse (aErrorResponse);
+    return validateDocument (aErrorResponse.getWriter ().getAsDocument ());
+  }
 }
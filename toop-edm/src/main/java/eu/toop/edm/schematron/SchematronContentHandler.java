@@ -0,0 +1,113 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.TransformerHandler;
+
+import org.w3c.dom.Document;
+import org.xml.sax.ContentHandler;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.xml.XMLFactory;
+
+/**
+ * Validates a single document that is provided as SAX events. Send all events
+ * of the document to {@link #getContentHandler()} and call
+ * {@link #getResult()} afterwards. Instances are created by
+ * {@link AbstractSchematronValidator#createContentHandler()}.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+public final class SchematronContentHandler
+{
+  private final TransformerHandler m_aHandler;
+  private final Document m_aSVRLDoc;
+
+  SchematronContentHandler (@Nonnull final TransformerHandler aHandler)
+  {
+    ValueEnforcer.notNull (aHandler, "Handler");
+    m_aHandler = aHandler;
+    m_aSVRLDoc = XMLFactory.newDocument ();
+    m_aHandler.setResult (new DOMResult (m_aSVRLDoc));
+  }
+
+  /**
+   * @return The SAX handler that receives the document to be validated. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ContentHandler getContentHandler ()
+  {
+    return m_aHandler;
+  }
+
+  /**
+   * @return <code>true</code> if the whole document was received and the
+   *         result is available.
+   */
+  public boolean isComplete ()
+  {
+    return m_aSVRLDoc.getDocumentElement () != null;
+  }
+
+  /**
+   * Get the validation result. May only be called after the end of the
+   * document was received.
+   *
+   * @return The list of all failed asserts/successful reports
+   * @throws IllegalStateException
+   *         If the document was not yet completely received.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <AbstractSVRLMessage> getResult ()
+  {
+    return AbstractSchematronValidator.readSVRL (m_aSVRLDoc);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Complete", isComplete ()).getToString ();
+  }
+}
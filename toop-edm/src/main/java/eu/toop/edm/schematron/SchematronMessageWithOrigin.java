@@ -0,0 +1,98 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+
+/**
+ * A Schematron message together with the validator that created it.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ * @see CompositeSchematronValidator
+ */
+@Immutable
+public final class SchematronMessageWithOrigin
+{
+  private final AbstractSchematronValidator m_aValidator;
+  private final AbstractSVRLMessage m_aMessage;
+
+  public SchematronMessageWithOrigin (@Nonnull final AbstractSchematronValidator aValidator, @Nonnull final AbstractSVRLMessage aMessage)
+  {
+    ValueEnforcer.notNull (aValidator, "Validator");
+    ValueEnforcer.notNull (aMessage, "Message");
+    m_aValidator = aValidator;
+    m_aMessage = aMessage;
+  }
+
+  /**
+   * @return The validator that created the message. Never <code>null</code>.
+   */
+  @Nonnull
+  public AbstractSchematronValidator getValidator ()
+  {
+    return m_aValidator;
+  }
+
+  /**
+   * @return The rule set (Schematron XSLT) that created the message. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public IReadableResource getRuleSet ()
+  {
+    return m_aValidator.getCompiledSchematron ().getResource ();
+  }
+
+  /**
+   * @return The message itself. Never <code>null</code>.
+   */
+  @Nonnull
+  public AbstractSVRLMessage getMessage ()
+  {
+    return m_aMessage;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("RuleSet", getRuleSet ().getPath ()).append ("Message", m_aMessage).getToString ();
+  }
+}
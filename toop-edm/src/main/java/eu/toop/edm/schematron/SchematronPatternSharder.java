@@ -0,0 +1,281 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.xml.XMLHelper;
+
+/**
+ * Splits a Schematron XSLT into independent XSLTs that each contain a
+ * contiguous group of patterns. The Schematron converter creates a root
+ * template like
+ *
+ * <pre>
+ * &lt;xsl:template match="/"&gt;
+ *   &lt;svrl:schematron-output ...&gt;
+ *     ...
+ *     &lt;svrl:active-pattern&gt;...&lt;/svrl:active-pattern&gt;
+ *     &lt;xsl:apply-templates mode="M15" select="/" /&gt;
+ *     &lt;svrl:active-pattern&gt;...&lt;/svrl:active-pattern&gt;
+ *     &lt;xsl:apply-templates mode="M16" select="/" /&gt;
+ *     ...
+ * </pre>
+ *
+ * and one set of top-level templates per pattern mode. Each created XSLT keeps
+ * everything else (parameters, variables, helper modes) and only the pattern
+ * calls and pattern templates of its own group. As the groups are contiguous,
+ * applying all of them in order and concatenating the failed asserts and
+ * successful reports gives the same result as the original XSLT. If the XSLT
+ * does not have the expected structure, it is not split.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+final class SchematronPatternSharder
+{
+  /**
+   * A single pattern: the <code>svrl:active-pattern</code> element, the
+   * following <code>xsl:apply-templates</code> and the number of templates in
+   * its mode as a rough measure of the work.
+   */
+  private static final class Pattern
+  {
+    private final Element m_aActivePattern;
+    private final Element m_aApplyTemplates;
+    private final String m_sMode;
+    private int m_nTemplateCount;
+
+    Pattern (@Nonnull final Element aActivePattern, @Nonnull final Element aApplyTemplates)
+    {
+      m_aActivePattern = aActivePattern;
+      m_aApplyTemplates = aApplyTemplates;
+      m_sMode = aApplyTemplates.getAttribute ("mode");
+    }
+  }
+
+  private SchematronPatternSharder ()
+  {}
+
+  @Nonnull
+  @ReturnsMutableCopy
+  private static ICommonsList <Element> _getChildElements (@Nonnull final Element aParent,
+                                                           @Nonnull final String sNamespaceURI,
+                                                           @Nonnull final String sLocalName)
+  {
+    final ICommonsList <Element> ret = new CommonsArrayList <> ();
+    for (Node aCur = aParent.getFirstChild (); aCur != null; aCur = aCur.getNextSibling ())
+      if (aCur.getNodeType () == Node.ELEMENT_NODE &&
+          sNamespaceURI.equals (aCur.getNamespaceURI ()) &&
+          sLocalName.equals (aCur.getLocalName ()))
+        ret.add ((Element) aCur);
+    return ret;
+  }
+
+  @Nullable
+  private static Element _getNextElement (@Nonnull final Node aNode)
+  {
+    Node aCur = aNode.getNextSibling ();
+    while (aCur != null && aCur.getNodeType () != Node.ELEMENT_NODE)
+      aCur = aCur.getNextSibling ();
+    return (Element) aCur;
+  }
+
+  @Nullable
+  private static Element _findSchematronOutput (@Nonnull final Element aRoot)
+  {
+    for (final Element aTemplate : _getChildElements (aRoot, CSchematronXML.XSL_NS, "template"))
+      if ("/".equals (aTemplate.getAttribute ("match")) && !aTemplate.hasAttribute ("mode"))
+        return XMLHelper.getFirstChildElementOfName (aTemplate, CSchematronXML.SVRL_NS, "schematron-output");
+    return null;
+  }
+
+  /**
+   * Find all patterns in the order of execution.
+   *
+   * @return <code>null</code> if the XSLT does not have the expected structure
+   */
+  @Nullable
+  private static ICommonsList <Pattern> _findPatterns (@Nonnull final Element aRoot)
+  {
+    final Element aOutput = _findSchematronOutput (aRoot);
+    if (aOutput == null)
+      return null;
+
+    final ICommonsList <Pattern> ret = new CommonsArrayList <> ();
+    final ICommonsSet <String> aModes = new CommonsHashSet <> ();
+    for (final Element aActivePattern : _getChildElements (aOutput, CSchematronXML.SVRL_NS, "active-pattern"))
+    {
+      final Element aNext = _getNextElement (aActivePattern);
+      if (aNext == null ||
+          !CSchematronXML.XSL_NS.equals (aNext.getNamespaceURI ()) ||
+          !"apply-templates".equals (aNext.getLocalName ()) ||
+          !aNext.hasAttribute ("mode"))
+        return null;
+      final Pattern aPattern = new Pattern (aActivePattern, aNext);
+      // Each pattern needs its own mode
+      if (!aModes.add (aPattern.m_sMode))
+        return null;
+      ret.add (aPattern);
+    }
+
+    for (final Element aTemplate : _getChildElements (aRoot, CSchematronXML.XSL_NS, "template"))
+    {
+      final String sMode = aTemplate.getAttribute ("mode");
+      for (final Pattern aPattern : ret)
+        if (aPattern.m_sMode.equals (sMode))
+          aPattern.m_nTemplateCount++;
+    }
+    return ret;
+  }
+
+  /**
+   * Split the patterns into at most the provided number of contiguous groups
+   * with a similar number of templates.
+   *
+   * @return The start index of each group. Never empty.
+   */
+  @Nonnull
+  private static int [] _partition (@Nonnull final ICommonsList <Pattern> aPatterns, @Nonnegative final int nMaxShards)
+  {
+    int nTotal = 0;
+    for (final Pattern aPattern : aPatterns)
+      nTotal += Math.max (aPattern.m_nTemplateCount, 1);
+
+    final ICommonsList <Integer> aStarts = new CommonsArrayList <> ();
+    aStarts.add (Integer.valueOf (0));
+    int nSum = 0;
+    for (int i = 0; i < aPatterns.size () - 1 && aStarts.size () < nMaxShards; ++i)
+    {
+      nSum += Math.max (aPatterns.get (i).m_nTemplateCount, 1);
+      // Start a new group when the share of the current group is reached
+      if (nSum * (long) nMaxShards >= nTotal * (long) aStarts.size ())
+        aStarts.add (Integer.valueOf (i + 1));
+    }
+
+    final int [] ret = new int [aStarts.size ()];
+    for (int i = 0; i < ret.length; ++i)
+      ret[i] = aStarts.get (i).intValue ();
+    return ret;
+  }
+
+  /**
+   * Get the number of patterns of the provided XSLT that can be split.
+   *
+   * @param aXSLT
+   *        The XSLT DOM. May not be <code>null</code>.
+   * @return 0 if the XSLT does not have the expected structure.
+   */
+  @Nonnegative
+  static int getPatternCount (@Nonnull final Document aXSLT)
+  {
+    final Element aRoot = aXSLT.getDocumentElement ();
+    if (aRoot == null)
+      return 0;
+    final ICommonsList <Pattern> aPatterns = _findPatterns (aRoot);
+    return aPatterns == null ? 0 : aPatterns.size ();
+  }
+
+  /**
+   * Split the provided XSLT.
+   *
+   * @param aXSLT
+   *        The XSLT DOM. Is not modified. May not be <code>null</code>.
+   * @param nMaxShards
+   *        The maximum number of XSLTs to create. Must be &gt; 0.
+   * @return A list with one XSLT per pattern group in execution order. If no
+   *         split is possible, the list contains only the provided XSLT. Never
+   *         <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  @ReturnsMutableCopy
+  static ICommonsList <Document> split (@Nonnull final Document aXSLT, @Nonnegative final int nMaxShards)
+  {
+    ValueEnforcer.notNull (aXSLT, "XSLT");
+    ValueEnforcer.isGT0 (nMaxShards, "MaxShards");
+
+    final ICommonsList <Document> ret = new CommonsArrayList <> ();
+    final Element aRoot = aXSLT.getDocumentElement ();
+    final ICommonsList <Pattern> aPatterns = nMaxShards > 1 && aRoot != null ? _findPatterns (aRoot) : null;
+    if (aPatterns == null || aPatterns.size () < 2)
+    {
+      ret.add (aXSLT);
+      return ret;
+    }
+
+    final int [] aStarts = _partition (aPatterns, nMaxShards);
+    for (int nShard = 0; nShard < aStarts.length; ++nShard)
+    {
+      final int nStart = aStarts[nShard];
+      final int nEnd = nShard + 1 < aStarts.length ? aStarts[nShard + 1] : aPatterns.size ();
+
+      // Work on a copy and remove everything of the other groups
+      final Document aShard = (Document) aXSLT.cloneNode (true);
+      final Element aShardRoot = aShard.getDocumentElement ();
+      final ICommonsList <Pattern> aShardPatterns = _findPatterns (aShardRoot);
+      final ICommonsSet <String> aOtherModes = new CommonsHashSet <> ();
+      for (int i = 0; i < aShardPatterns.size (); ++i)
+        if (i < nStart || i >= nEnd)
+        {
+          final Pattern aPattern = aShardPatterns.get (i);
+          aOtherModes.add (aPattern.m_sMode);
+          aPattern.m_aActivePattern.getParentNode ().removeChild (aPattern.m_aActivePattern);
+          aPattern.m_aApplyTemplates.getParentNode ().removeChild (aPattern.m_aApplyTemplates);
+        }
+
+      for (final Element aTemplate : _getChildElements (aShardRoot, CSchematronXML.XSL_NS, "template"))
+        if (aOtherModes.contains (aTemplate.getAttribute ("mode")))
+          aShardRoot.removeChild (aTemplate);
+
+      ret.add (aShard);
+    }
+    return ret;
+  }
+}
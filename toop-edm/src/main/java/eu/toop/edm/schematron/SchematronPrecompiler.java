@@ -0,0 +1,469 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.net.URL;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.schematron.saxon.SchematronTransformerFactory;
+import com.helger.schematron.xslt.SchematronResourceXSLT;
+import com.helger.xml.serialize.read.DOMReader;
+import com.helger.xml.transform.LoggingTransformErrorListener;
+import com.helger.xml.transform.TransformSourceFactory;
+
+import net.sf.saxon.jaxp.SaxonTransformerFactory;
+import net.sf.saxon.jaxp.TemplatesImpl;
+import net.sf.saxon.s9api.Location;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XmlProcessingError;
+import net.sf.saxon.s9api.XsltCompiler;
+
+/**
+ * Compiles the TOOP Schematron XSLTs once and shares the result. Services
+ * should call {@link #precompileAllAsync()} during startup, so that the
+ * stylesheets are compiled in parallel in the background and the first message
+ * does not pay for the compilation. Resources that were not precompiled are
+ * compiled on first use. A request for a resource whose compilation is already
+ * running waits for that compilation instead of starting another one.<br>
+ * With Saxon, the linear code list checks of the XSLTs are replaced with hash
+ * lookups (see {@link CodeListCache}). XSLTs without code list checks are
+ * compiled unchanged from their byte stream. All XSLTs are compiled with the
+ * same Saxon configuration, so that a document tree built once can be
+ * validated with all of them. The shared configuration is set up once and not
+ * modified by the compilations.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@ThreadSafe
+public final class SchematronPrecompiler
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (SchematronPrecompiler.class);
+
+  // By resource ID
+  private static final ConcurrentHashMap <String, CompletableFuture <CompiledSchematron>> COMPILED = new ConcurrentHashMap <> ();
+  // By resource ID and maximum number of shards
+  private static final ConcurrentHashMap <String, ICommonsList <CompiledSchematron>> COMPILED_SHARDS = new ConcurrentHashMap <> ();
+  // By resource ID
+  private static final ConcurrentHashMap <String, CompiledSchematron> COMPILED_PROFILING = new ConcurrentHashMap <> ();
+
+  // The Saxon transformer factory and processor shared by all compiled XSLTs
+  // - written once while holding the class lock
+  private static boolean s_bSaxonInitialized = false;
+  private static SaxonTransformerFactory s_aSaxonTF;
+  private static Processor s_aSaxonProcessor;
+
+  private SchematronPrecompiler ()
+  {}
+
+  @Nonnull
+  private static TransformerFactory _createTransformerFactory (@Nullable final URIResolver aURIResolver)
+  {
+    return SchematronTransformerFactory.createTransformerFactorySaxonFirst (SchematronPrecompiler.class.getClassLoader (),
+                                                                           new LoggingTransformErrorListener (Locale.US),
+                                                                           aURIResolver);
+  }
+
+  /**
+   * Create and configure the shared Saxon objects once. They are never
+   * modified afterwards: each compilation uses its own XSLT compiler and each
+   * transformer its own URI resolver, so that concurrent compilations do not
+   * interfere.
+   *
+   * @return <code>true</code> if Saxon is used, <code>false</code> if not.
+   */
+  private static synchronized boolean _initSharedSaxon ()
+  {
+    if (!s_bSaxonInitialized)
+    {
+      s_bSaxonInitialized = true;
+      // No URI resolver - it differs per resource
+      final TransformerFactory aTF = _createTransformerFactory (null);
+      if (aTF instanceof SaxonTransformerFactory)
+      {
+        s_aSaxonTF = (SaxonTransformerFactory) aTF;
+        CodeListXSLTOptimizer.registerFunctions (s_aSaxonTF.getConfiguration ());
+        s_aSaxonProcessor = new Processor (s_aSaxonTF.getConfiguration ());
+      }
+    }
+    return s_aSaxonTF != null;
+  }
+
+  private static void _logCompilationError (@Nonnull final XmlProcessingError aError)
+  {
+    final Location aLocation = aError.getLocation ();
+    final String sMsg = (aLocation == null ? ""
+                                           : "[" +
+                                             aLocation.getSystemId () +
+                                             "(" +
+                                             aLocation.getLineNumber () +
+                                             ":" +
+                                             aLocation.getColumnNumber () +
+                                             ")] ") +
+                        aError.getMessage ();
+    if (aError.isWarning ())
+      LOGGER.warn (sMsg);
+    else
+      LOGGER.error (sMsg, aError.getCause ());
+  }
+
+  @Nonnull
+  private static Templates _compileSaxon (@Nonnull final Source aSource, @Nonnull final URIResolver aURIResolver) throws SaxonApiException
+  {
+    // Only called after _initSharedSaxon, which published the processor
+    final XsltCompiler aCompiler = s_aSaxonProcessor.newXsltCompiler ();
+    // Only for this compilation
+    aCompiler.setURIResolver (aURIResolver);
+    aCompiler.setErrorReporter (SchematronPrecompiler::_logCompilationError);
+    return new TemplatesImpl (aCompiler.compile (aSource));
+  }
+
+  /**
+   * Compile the provided XSLT without caching.
+   *
+   * @param aRes
+   *        The XSLT resource. May not be <code>null</code>.
+   * @return The compiled XSLT. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the XSLT cannot be compiled
+   */
+  @Nonnull
+  public static CompiledSchematron compile (@Nonnull final IReadableResource aRes)
+  {
+    return _compile (aRes, 1, false).getFirst ();
+  }
+
+  /**
+   * Split the patterns of the provided XSLT into at most the provided number of
+   * groups and compile each group separately, without caching. Applying all
+   * groups in order and concatenating the results creates the same failed
+   * asserts and successful reports as the original XSLT (see
+   * {@link ShardedSchematronValidator}).
+   *
+   * @param aRes
+   *        The XSLT resource. May not be <code>null</code>.
+   * @param nMaxShards
+   *        The maximum number of groups. Must be &gt; 0.
+   * @return The compiled pattern groups in pattern order. Never
+   *         <code>null</code> nor empty.
+   * @throws IllegalStateException
+   *         If the XSLT cannot be compiled
+   * @since 2.1.2
+   */
+  @Nonnull
+  @Nonempty
+  @ReturnsMutableCopy
+  public static ICommonsList <CompiledSchematron> compileShards (@Nonnull final IReadableResource aRes, @Nonnegative final int nMaxShards)
+  {
+    ValueEnforcer.isGT0 (nMaxShards, "MaxShards");
+    return _compile (aRes, nMaxShards, false);
+  }
+
+  @Nonnull
+  @Nonempty
+  private static ICommonsList <CompiledSchematron> _compile (@Nonnull final IReadableResource aRes,
+                                                             final int nMaxShards,
+                                                             final boolean bProfiling)
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+
+    final long nStart = System.nanoTime ();
+    // Use the same URI resolver as a fresh Schematron resource
+    final URIResolver aURIResolver = new SchematronResourceXSLT (aRes).getURIResolver ();
+    final boolean bSaxon = _initSharedSaxon ();
+    // With Saxon all XSLTs are compiled with the shared configuration, so that
+    // a document tree can be used with all of them
+    final TransformerFactory aTF = bSaxon ? s_aSaxonTF : _createTransformerFactory (aURIResolver);
+
+    // Read only once
+    final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+    if (aBytes == null)
+      throw new IllegalStateException ("Failed to read Schematron/XSLT " + aRes.getPath ());
+
+    final ICommonsList <Source> aSources = new CommonsArrayList <> ();
+    if (bSaxon || nMaxShards > 1 || bProfiling)
+    {
+      final Document aDoc = DOMReader.readXMLDOM (aBytes);
+      if (aDoc == null)
+        throw new IllegalStateException ("Failed to read Schematron/XSLT " + aRes.getPath ());
+
+      // Replace code list lookups with hash set lookups, if there are any
+      final int nRewritten = bSaxon ? CodeListXSLTOptimizer.optimize (aDoc) : 0;
+      if (nRewritten > 0 && LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Rewrote " + nRewritten + " code list checks in " + aRes.getPath ());
+      if (bProfiling)
+      {
+        // Add the markers needed by the rule profiler
+        final int nInstrumented = SchematronProfilingInstrumenter.instrument (aDoc);
+        if (LOGGER.isDebugEnabled ())
+          LOGGER.debug ("Instrumented " + nInstrumented + " rules in " + aRes.getPath ());
+      }
+
+      if (nRewritten > 0 || nMaxShards > 1 || bProfiling)
+      {
+        for (final Document aShard : SchematronPatternSharder.split (aDoc, nMaxShards))
+          aSources.add (TransformSourceFactory.create (aShard));
+      }
+    }
+    if (aSources.isEmpty ())
+    {
+      // Unchanged
+      aSources.add (TransformSourceFactory.create (aBytes));
+    }
+
+    final URL aURL = aRes.getAsURL ();
+    final ICommonsList <CompiledSchematron> ret = new CommonsArrayList <> ();
+    try
+    {
+      for (final Source aSource : aSources)
+      {
+        // To resolve relative references
+        if (aURL != null)
+          aSource.setSystemId (aURL.toExternalForm ());
+
+        final Templates aTemplates = bSaxon ? _compileSaxon (aSource, aURIResolver) : aTF.newTemplates (aSource);
+        if (aTemplates == null)
+          throw new IllegalStateException ("Failed to compile Schematron/XSLT " + aRes.getPath ());
+        ret.add (new CompiledSchematron (aRes, aTemplates, aURIResolver, aTF));
+      }
+    }
+    catch (final TransformerConfigurationException | SaxonApiException ex)
+    {
+      throw new IllegalStateException ("Failed to compile Schematron/XSLT " + aRes.getPath (), ex);
+    }
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Compiled Schematron/XSLT " +
+                    aRes.getPath () +
+                    (ret.size () > 1 ? " into " + ret.size () + " shards" : "") +
+                    " in " +
+                    (System.nanoTime () - nStart) / 1_000_000 +
+                    " ms");
+    return ret;
+  }
+
+  /**
+   * Get the shared compiled pattern groups of the provided XSLT. They are
+   * compiled in the calling thread on first access.
+   *
+   * @param aRes
+   *        The XSLT resource. May not be <code>null</code>.
+   * @param nMaxShards
+   *        The maximum number of groups. Must be &gt; 0.
+   * @return The compiled pattern groups in pattern order. Never
+   *         <code>null</code> nor empty.
+   * @throws IllegalStateException
+   *         If the XSLT cannot be compiled
+   * @see #compileShards(IReadableResource, int)
+   * @since 2.1.2
+   */
+  @Nonnull
+  @Nonempty
+  @ReturnsMutableCopy
+  public static ICommonsList <CompiledSchematron> getCompiledShards (@Nonnull final IReadableResource aRes,
+                                                                     @Nonnegative final int nMaxShards)
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+    ValueEnforcer.isGT0 (nMaxShards, "MaxShards");
+    return COMPILED_SHARDS.computeIfAbsent (aRes.getResourceID () + "#" + nMaxShards, k -> compileShards (aRes, nMaxShards))
+                          .getClone ();
+  }
+
+  /**
+   * Compile the provided XSLT with the markers needed by the
+   * {@link SchematronRuleProfiler}, without caching. The created SVRL contains
+   * additional elements and attributes and should only be interpreted via the
+   * profiler.
+   *
+   * @param aRes
+   *        The XSLT resource. May not be <code>null</code>.
+   * @return The compiled XSLT. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the XSLT cannot be compiled
+   * @since 2.1.2
+   */
+  @Nonnull
+  public static CompiledSchematron compileForProfiling (@Nonnull final IReadableResource aRes)
+  {
+    return _compile (aRes, 1, true).getFirst ();
+  }
+
+  /**
+   * Get the shared XSLT compiled for profiling. It is compiled in the calling
+   * thread on first access.
+   *
+   * @param aRes
+   *        The XSLT resource. May not be <code>null</code>.
+   * @return The compiled XSLT. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the XSLT cannot be compiled
+   * @see #compileForProfiling(IReadableResource)
+   * @since 2.1.2
+   */
+  @Nonnull
+  public static CompiledSchematron getCompiledForProfiling (@Nonnull final IReadableResource aRes)
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+    return COMPILED_PROFILING.computeIfAbsent (aRes.getResourceID (), k -> compileForProfiling (aRes));
+  }
+
+  @Nonnull
+  private static CompletableFuture <CompiledSchematron> _getOrStart (@Nonnull final IReadableResource aRes,
+                                                                     @Nullable final Executor aExecutor)
+  {
+    final String sKey = aRes.getResourceID ();
+    final CompletableFuture <CompiledSchematron> aNew = new CompletableFuture <> ();
+    final CompletableFuture <CompiledSchematron> aOld = COMPILED.putIfAbsent (sKey, aNew);
+    if (aOld != null)
+      return aOld;
+
+    final Runnable aCompilation = () -> {
+      try
+      {
+        aNew.complete (compile (aRes));
+      }
+      catch (final RuntimeException ex)
+      {
+        // Allow a later retry
+        COMPILED.remove (sKey, aNew);
+        aNew.completeExceptionally (ex);
+      }
+    };
+    if (aExecutor == null)
+      aCompilation.run ();
+    else
+      aExecutor.execute (aCompilation);
+    return aNew;
+  }
+
+  /**
+   * Get the shared compiled version of the provided XSLT. If it is not yet
+   * compiled, it is compiled in the calling thread. If it is currently being
+   * compiled, this method waits for the result.
+   *
+   * @param aRes
+   *        The XSLT resource. May not be <code>null</code>.
+   * @return The compiled XSLT. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the XSLT cannot be compiled
+   */
+  @Nonnull
+  public static CompiledSchematron getCompiled (@Nonnull final IReadableResource aRes)
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+    try
+    {
+      return _getOrStart (aRes, null).join ();
+    }
+    catch (final CompletionException ex)
+    {
+      if (ex.getCause () instanceof RuntimeException)
+        throw (RuntimeException) ex.getCause ();
+      throw ex;
+    }
+  }
+
+  /**
+   * Start compiling the provided XSLTs in parallel in the background.
+   *
+   * @param aResources
+   *        The XSLT resources. May not be <code>null</code>.
+   * @return A future that is completed when all XSLTs are compiled. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static CompletableFuture <Void> precompileAsync (@Nonnull final IReadableResource... aResources)
+  {
+    ValueEnforcer.notNullNoNullValue (aResources, "Resources");
+    final CompletableFuture <?> [] aFutures = new CompletableFuture <?> [aResources.length];
+    for (int i = 0; i < aResources.length; ++i)
+      aFutures[i] = _getOrStart (aResources[i], ForkJoinPool.commonPool ());
+    return CompletableFuture.allOf (aFutures);
+  }
+
+  /**
+   * Start compiling all XSLTs from {@link CEDMSchematron} in parallel in the
+   * background.
+   *
+   * @return A future that is completed when all XSLTs are compiled. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static CompletableFuture <Void> precompileAllAsync ()
+  {
+    return precompileAsync (CEDMSchematron.TOOP_EDM2_XSLT,
+                            CEDMSchematron.TOOP_BUSINESS_RULES_XSLT,
+                            CEDMSchematron.TOOP_IS_REQUEST,
+                            CEDMSchematron.TOOP_IS_RESPONSE,
+                            CEDMSchematron.TOOP_IS_ERROR_RESPONSE);
+  }
+
+  /**
+   * @param aRes
+   *        The XSLT resource. May not be <code>null</code>.
+   * @return <code>true</code> if the XSLT is compiled and ready to use.
+   */
+  public static boolean isCompiled (@Nonnull final IReadableResource aRes)
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+    final CompletableFuture <CompiledSchematron> aFuture = COMPILED.get (aRes.getResourceID ());
+    return aFuture != null && aFuture.isDone () && !aFuture.isCompletedExceptionally ();
+  }
+}
@@ -0,0 +1,248 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.XMLConstants;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.helger.commons.collection.impl.CommonsLinkedHashSet;
+import com.helger.commons.collection.impl.ICommonsOrderedSet;
+import com.helger.commons.string.StringHelper;
+
+/**
+ * Adds the markers needed by {@link SchematronRuleProfiler} to a Schematron
+ * XSLT. The Schematron converter creates one template per rule like
+ *
+ * <pre>
+ * &lt;xsl:template match="query:QueryRequest" mode="M16" priority="1000"&gt;
+ *   &lt;svrl:fired-rule context="query:QueryRequest" /&gt;
+ *   ... asserts and reports ...
+ *   &lt;xsl:apply-templates mode="M16" select="*|comment()|processing-instruction()" /&gt;
+ * &lt;/xsl:template&gt;
+ * </pre>
+ *
+ * The <code>svrl:fired-rule</code> element gets the mode and the IDs of all
+ * asserts and reports of the rule as additional attributes, a
+ * <code>toopprof:assert-end</code> element with the ID is emitted after each
+ * assert or report, and a <code>toopprof:rule-end</code> element is emitted
+ * after the last assert or report, before the child nodes are processed. So
+ * the time between the <code>svrl:fired-rule</code> element and the
+ * <code>toopprof:rule-end</code> element is the time spent in evaluating the
+ * rule, and the time since the previous marker is the time spent in
+ * evaluating a single assert or report. Everything else is left untouched.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+final class SchematronProfilingInstrumenter
+{
+  static final String PROFILING_NAMESPACE_URI = "urn:toop:edm:profiling";
+  static final String PROFILING_PREFIX = "toopprof";
+  static final String ATTR_MODE = "mode";
+  static final String ATTR_ASSERTS = "asserts";
+  static final String ELEMENT_RULE_END = "rule-end";
+  static final String ELEMENT_ASSERT_END = "assert-end";
+  static final String ATTR_ID = "id";
+
+  private SchematronProfilingInstrumenter ()
+  {}
+
+  @Nullable
+  private static Element _getFirstChildElement (@Nonnull final Element aParent, @Nonnull final String sNamespaceURI, @Nonnull final String sLocalName)
+  {
+    for (Node aCur = aParent.getFirstChild (); aCur != null; aCur = aCur.getNextSibling ())
+      if (aCur.getNodeType () == Node.ELEMENT_NODE &&
+          sNamespaceURI.equals (aCur.getNamespaceURI ()) &&
+          sLocalName.equals (aCur.getLocalName ()))
+        return (Element) aCur;
+    return null;
+  }
+
+  @Nullable
+  private static Element _getLastChildElement (@Nonnull final Element aParent)
+  {
+    Node aCur = aParent.getLastChild ();
+    while (aCur != null && aCur.getNodeType () != Node.ELEMENT_NODE)
+      aCur = aCur.getPreviousSibling ();
+    return (Element) aCur;
+  }
+
+  /**
+   * Get the ID of an assert or report. The converter creates it as
+   * <code>xsl:attribute</code> child element.
+   */
+  @Nullable
+  private static String _getMessageID (@Nonnull final Element aMessage)
+  {
+    if (aMessage.hasAttribute ("id"))
+      return aMessage.getAttribute ("id");
+    for (Node aCur = aMessage.getFirstChild (); aCur != null; aCur = aCur.getNextSibling ())
+      if (aCur.getNodeType () == Node.ELEMENT_NODE &&
+          CSchematronXML.XSL_NS.equals (aCur.getNamespaceURI ()) &&
+          "attribute".equals (aCur.getLocalName ()) &&
+          "id".equals (((Element) aCur).getAttribute ("name")))
+        return aCur.getTextContent ().trim ();
+    return null;
+  }
+
+  /**
+   * Get the ID of an assert or report if it can be used as a literal attribute
+   * value.
+   */
+  @Nullable
+  private static String _getUsableMessageID (@Nonnull final Element aMessage)
+  {
+    final String sID = _getMessageID (aMessage);
+    // Curly braces would be interpreted as attribute value template
+    if (StringHelper.hasText (sID) && sID.indexOf ('{') < 0 && sID.indexOf ('}') < 0)
+      return sID;
+    return null;
+  }
+
+  private static void _addMessageIDs (@Nonnull final Element aTemplate,
+                                      @Nonnull final String sLocalName,
+                                      @Nonnull final ICommonsOrderedSet <String> aTarget)
+  {
+    final NodeList aMessages = aTemplate.getElementsByTagNameNS (CSchematronXML.SVRL_NS, sLocalName);
+    for (int i = 0; i < aMessages.getLength (); ++i)
+    {
+      final String sID = _getUsableMessageID ((Element) aMessages.item (i));
+      if (sID != null)
+        aTarget.add (sID);
+    }
+  }
+
+  /**
+   * @return The first assert or report below the provided element or
+   *         <code>null</code> if there is none.
+   */
+  @Nullable
+  private static Element _getMessage (@Nonnull final Element aElement)
+  {
+    for (final String sLocalName : new String [] { "failed-assert", "successful-report" })
+    {
+      final NodeList aMessages = aElement.getElementsByTagNameNS (CSchematronXML.SVRL_NS, sLocalName);
+      if (aMessages.getLength () > 0)
+        return (Element) aMessages.item (0);
+    }
+    return null;
+  }
+
+  private static void _addAssertEnds (@Nonnull final Document aXSLT, @Nonnull final Element aTemplate)
+  {
+    // Each assert (xsl:choose) and report (xsl:if) is a direct child of the
+    // template
+    Node aCur = aTemplate.getFirstChild ();
+    while (aCur != null)
+    {
+      final Node aNext = aCur.getNextSibling ();
+      if (aCur.getNodeType () == Node.ELEMENT_NODE && CSchematronXML.XSL_NS.equals (aCur.getNamespaceURI ()))
+      {
+        final Element aMessage = _getMessage ((Element) aCur);
+        if (aMessage != null)
+        {
+          final Element aAssertEnd = aXSLT.createElementNS (PROFILING_NAMESPACE_URI, PROFILING_PREFIX + ':' + ELEMENT_ASSERT_END);
+          final String sID = _getUsableMessageID (aMessage);
+          if (sID != null)
+            aAssertEnd.setAttribute (ATTR_ID, sID);
+          aTemplate.insertBefore (aAssertEnd, aNext);
+        }
+      }
+      aCur = aNext;
+    }
+  }
+
+  /**
+   * Instrument the rules of the provided XSLT.
+   *
+   * @param aXSLT
+   *        The XSLT DOM to be modified in place. May not be <code>null</code>.
+   * @return The number of instrumented rules. Always &ge; 0.
+   */
+  @Nonnegative
+  static int instrument (@Nonnull final Document aXSLT)
+  {
+    final Element aRoot = aXSLT.getDocumentElement ();
+    if (aRoot == null || aRoot.hasAttributeNS (XMLConstants.XMLNS_ATTRIBUTE_NS_URI, PROFILING_PREFIX))
+      return 0;
+
+    int ret = 0;
+    for (Node aCur = aRoot.getFirstChild (); aCur != null; aCur = aCur.getNextSibling ())
+    {
+      if (aCur.getNodeType () != Node.ELEMENT_NODE ||
+          !CSchematronXML.XSL_NS.equals (aCur.getNamespaceURI ()) ||
+          !"template".equals (aCur.getLocalName ()))
+        continue;
+
+      final Element aTemplate = (Element) aCur;
+      final String sMode = aTemplate.getAttribute ("mode");
+      final Element aFiredRule = _getFirstChildElement (aTemplate, CSchematronXML.SVRL_NS, "fired-rule");
+      if (sMode.isEmpty () || aFiredRule == null)
+        continue;
+
+      final ICommonsOrderedSet <String> aIDs = new CommonsLinkedHashSet <> ();
+      _addMessageIDs (aTemplate, "failed-assert", aIDs);
+      _addMessageIDs (aTemplate, "successful-report", aIDs);
+      aFiredRule.setAttributeNS (PROFILING_NAMESPACE_URI, PROFILING_PREFIX + ':' + ATTR_MODE, sMode);
+      aFiredRule.setAttributeNS (PROFILING_NAMESPACE_URI, PROFILING_PREFIX + ':' + ATTR_ASSERTS, StringHelper.getImploded (' ', aIDs));
+      _addAssertEnds (aXSLT, aTemplate);
+
+      // Before the processing of the child nodes, if present
+      final Element aRuleEnd = aXSLT.createElementNS (PROFILING_NAMESPACE_URI, PROFILING_PREFIX + ':' + ELEMENT_RULE_END);
+      final Element aLast = _getLastChildElement (aTemplate);
+      if (aLast != aFiredRule &&
+          CSchematronXML.XSL_NS.equals (aLast.getNamespaceURI ()) &&
+          "apply-templates".equals (aLast.getLocalName ()) &&
+          sMode.equals (aLast.getAttribute ("mode")))
+        aTemplate.insertBefore (aRuleEnd, aLast);
+      else
+        aTemplate.appendChild (aRuleEnd);
+      ret++;
+    }
+    if (ret > 0)
+      aRoot.setAttributeNS (XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                            XMLConstants.XMLNS_ATTRIBUTE + ":" + PROFILING_PREFIX,
+                            PROFILING_NAMESPACE_URI);
+    return ret;
+  }
+}
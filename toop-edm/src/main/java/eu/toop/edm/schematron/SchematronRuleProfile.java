@@ -0,0 +1,195 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * The profiling data of a single Schematron rule as collected by
+ * {@link SchematronRuleProfiler}.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class SchematronRuleProfile
+{
+  private final String m_sMode;
+  private final String m_sContext;
+  private final long m_nEvaluationCount;
+  private final long m_nCumulativeNanos;
+  private final ICommonsOrderedMap <String, Long> m_aAssertFirings;
+  private final ICommonsOrderedMap <String, Long> m_aAssertNanos;
+
+  SchematronRuleProfile (@Nonnull @Nonempty final String sMode,
+                         @Nonnull final String sContext,
+                         @Nonnegative final long nEvaluationCount,
+                         @Nonnegative final long nCumulativeNanos,
+                         @Nonnull final ICommonsOrderedMap <String, Long> aAssertFirings,
+                         @Nonnull final ICommonsOrderedMap <String, Long> aAssertNanos)
+  {
+    ValueEnforcer.notEmpty (sMode, "Mode");
+    ValueEnforcer.notNull (sContext, "Context");
+    ValueEnforcer.notNull (aAssertFirings, "AssertFirings");
+    ValueEnforcer.notNull (aAssertNanos, "AssertNanos");
+    m_sMode = sMode;
+    m_sContext = sContext;
+    m_nEvaluationCount = nEvaluationCount;
+    m_nCumulativeNanos = nCumulativeNanos;
+    m_aAssertFirings = aAssertFirings;
+    m_aAssertNanos = aAssertNanos;
+  }
+
+  /**
+   * @return The XSLT mode of the pattern the rule belongs to, e.g.
+   *         <code>M16</code>. Neither <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public String getMode ()
+  {
+    return m_sMode;
+  }
+
+  /**
+   * @return The rule context as in the Schematron. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getContext ()
+  {
+    return m_sContext;
+  }
+
+  /**
+   * @return How often the rule matched a node and its asserts and reports were
+   *         evaluated.
+   */
+  @Nonnegative
+  public long getEvaluationCount ()
+  {
+    return m_nEvaluationCount;
+  }
+
+  /**
+   * @return The summed up time spent in evaluating the asserts and reports of
+   *         the rule, including the creation of the messages.
+   */
+  @Nonnegative
+  public long getCumulativeNanos ()
+  {
+    return m_nCumulativeNanos;
+  }
+
+  /**
+   * @return The summed up time spent in evaluating the rule. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public Duration getCumulativeDuration ()
+  {
+    return Duration.ofNanos (m_nCumulativeNanos);
+  }
+
+  /**
+   * @return The average time of a single evaluation in nano seconds or 0 if
+   *         the rule was never evaluated.
+   */
+  @Nonnegative
+  public long getAverageNanos ()
+  {
+    return m_nEvaluationCount == 0 ? 0 : m_nCumulativeNanos / m_nEvaluationCount;
+  }
+
+  /**
+   * @return The number of failed asserts and successful reports of this rule.
+   */
+  @Nonnegative
+  public long getFiringCount ()
+  {
+    long ret = 0;
+    for (final Long aCount : m_aAssertFirings.values ())
+      ret += aCount.longValue ();
+    return ret;
+  }
+
+  /**
+   * @return A copy of the number of failed asserts/successful reports by
+   *         assert/report ID, in the order of the rule. Each assert and report
+   *         was evaluated {@link #getEvaluationCount()} times. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsOrderedMap <String, Long> getAllAssertFirings ()
+  {
+    return new CommonsLinkedHashMap <> (m_aAssertFirings);
+  }
+
+  /**
+   * @return A copy of the summed up time in nano seconds spent in evaluating
+   *         each assert/report, including the creation of the messages, by
+   *         assert/report ID in the order of the rule. Asserts and reports
+   *         without an ID are summed up with the empty ID. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsOrderedMap <String, Long> getAllAssertCumulativeNanos ()
+  {
+    return new CommonsLinkedHashMap <> (m_aAssertNanos);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Mode", m_sMode)
+                                       .append ("Context", m_sContext)
+                                       .append ("EvaluationCount", m_nEvaluationCount)
+                                       .append ("CumulativeNanos", m_nCumulativeNanos)
+                                       .append ("AssertFirings", m_aAssertFirings)
+                                       .append ("AssertNanos", m_aAssertNanos)
+                                       .getToString ();
+  }
+}
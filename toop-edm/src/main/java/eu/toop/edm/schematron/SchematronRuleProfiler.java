@@ -0,0 +1,351 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Collects per rule profiling data of Schematron validations across many
+ * documents and threads. For each rule the number of evaluations, the
+ * cumulative evaluation time and, per assert/report ID, the cumulative
+ * evaluation time and the number of failed asserts/successful reports are
+ * recorded. The profiler is activated for a validator via
+ * {@link AbstractSchematronValidator#setRuleProfiler(SchematronRuleProfiler)},
+ * which then uses an instrumented version of the XSLT (see
+ * {@link SchematronPrecompiler#getCompiledForProfiling(com.helger.commons.io.resource.IReadableResource)}).
+ * The same profiler may be used by several validators.<br>
+ * The time of a rule is measured from the moment the rule fired until its
+ * last assert or report was evaluated. The time of an assert or report is
+ * measured from the end of the previous one, so it includes the creation of
+ * its message. Asserts and reports without an ID share the empty ID. The
+ * matching of the rule contexts and the processing of nodes without a
+ * matching rule are not attributed to any rule.<br>
+ * {@link ShardedSchematronValidator} and the handlers created by
+ * {@link AbstractSchematronValidator#createContentHandler()} do not use the
+ * instrumented XSLT: the former delegates to the wrapped validator while a
+ * profiler is set, the latter is not profiled at all.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@ThreadSafe
+public class SchematronRuleProfiler
+{
+  private static final String PROFILING_NS = SchematronProfilingInstrumenter.PROFILING_NAMESPACE_URI;
+
+  private static final class RuleCounter
+  {
+    private final String m_sMode;
+    private final String m_sContext;
+    // The assert/report IDs in the order of the rule
+    private final ICommonsList <String> m_aAssertIDs;
+    private final LongAdder m_aEvaluations = new LongAdder ();
+    private final LongAdder m_aNanos = new LongAdder ();
+    private final ConcurrentHashMap <String, LongAdder> m_aFirings = new ConcurrentHashMap <> ();
+    private final ConcurrentHashMap <String, LongAdder> m_aAssertNanos = new ConcurrentHashMap <> ();
+
+    RuleCounter (@Nonnull final String sMode, @Nonnull final String sContext, @Nullable final String sAssertIDs)
+    {
+      m_sMode = sMode;
+      m_sContext = sContext;
+      m_aAssertIDs = StringHelper.getExploded (' ', StringHelper.getNotNull (sAssertIDs).trim ());
+      m_aAssertIDs.removeIf (StringHelper::hasNoText);
+    }
+
+    void fired (@Nullable final String sID)
+    {
+      m_aFirings.computeIfAbsent (StringHelper.getNotNull (sID), k -> new LongAdder ()).increment ();
+    }
+
+    void assertEvaluated (@Nullable final String sID, final long nNanos)
+    {
+      m_aAssertNanos.computeIfAbsent (StringHelper.getNotNull (sID), k -> new LongAdder ()).add (nNanos);
+    }
+
+    @Nonnull
+    private ICommonsOrderedMap <String, Long> _getSums (@Nonnull final Map <String, LongAdder> aMap,
+                                                        @Nonnull final ICommonsList <String> aAllIDs)
+    {
+      final ICommonsOrderedMap <String, Long> ret = new CommonsLinkedHashMap <> ();
+      for (final String sID : aAllIDs)
+      {
+        final LongAdder aSum = aMap.get (sID);
+        ret.put (sID, Long.valueOf (aSum == null ? 0 : aSum.sum ()));
+      }
+      return ret;
+    }
+
+    @Nonnull
+    SchematronRuleProfile getSnapshot ()
+    {
+      final ICommonsList <String> aAllIDs = new CommonsArrayList <> (m_aAssertIDs);
+      // IDs that were not known in advance
+      final ICommonsList <String> aOtherIDs = new CommonsArrayList <> (m_aFirings.keySet ());
+      aOtherIDs.addAll (m_aAssertNanos.keySet ());
+      aOtherIDs.removeAll (m_aAssertIDs);
+      aOtherIDs.sort (Comparator.naturalOrder ());
+      for (final String sID : aOtherIDs)
+        if (!aAllIDs.contains (sID))
+          aAllIDs.add (sID);
+      return new SchematronRuleProfile (m_sMode,
+                                        m_sContext,
+                                        m_aEvaluations.sum (),
+                                        m_aNanos.sum (),
+                                        _getSums (m_aFirings, aAllIDs),
+                                        _getSums (m_aAssertNanos, aAllIDs));
+    }
+  }
+
+  /**
+   * Records the profiling data of a single transformation and forwards all
+   * regular SVRL events to the target handler.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  private final class ProfilingHandler extends DefaultHandler
+  {
+    private final DefaultHandler m_aTarget;
+    private RuleCounter m_aCurrent;
+    private long m_nStartNanos;
+    // End of the previous assert or start of the rule
+    private long m_nMarkNanos;
+
+    ProfilingHandler (@Nonnull final DefaultHandler aTarget)
+    {
+      m_aTarget = aTarget;
+    }
+
+    @Nonnull
+    private Attributes _getWithoutProfilingAttributes (@Nonnull final Attributes aAttrs)
+    {
+      if (aAttrs.getIndex (PROFILING_NS, SchematronProfilingInstrumenter.ATTR_MODE) < 0 &&
+          aAttrs.getIndex (PROFILING_NS, SchematronProfilingInstrumenter.ATTR_ASSERTS) < 0)
+        return aAttrs;
+      final AttributesImpl ret = new AttributesImpl ();
+      for (int i = 0; i < aAttrs.getLength (); ++i)
+        if (!PROFILING_NS.equals (aAttrs.getURI (i)))
+          ret.addAttribute (aAttrs.getURI (i), aAttrs.getLocalName (i), aAttrs.getQName (i), aAttrs.getType (i), aAttrs.getValue (i));
+      return ret;
+    }
+
+    @Override
+    public void startElement (final String sUri, final String sLocalName, final String sQName, final Attributes aAttrs) throws SAXException
+    {
+      if (PROFILING_NS.equals (sUri))
+      {
+        if (m_aCurrent != null)
+        {
+          final long nNow = System.nanoTime ();
+          if (SchematronProfilingInstrumenter.ELEMENT_ASSERT_END.equals (sLocalName))
+          {
+            m_aCurrent.assertEvaluated (aAttrs.getValue (SchematronProfilingInstrumenter.ATTR_ID), nNow - m_nMarkNanos);
+            // Start measuring the next assert after the own overhead
+            m_nMarkNanos = System.nanoTime ();
+          }
+          else
+            if (SchematronProfilingInstrumenter.ELEMENT_RULE_END.equals (sLocalName))
+            {
+              m_aCurrent.m_aNanos.add (nNow - m_nStartNanos);
+              m_aCurrent = null;
+            }
+        }
+        return;
+      }
+
+      if (CSchematronXML.SVRL_NS.equals (sUri))
+      {
+        if ("fired-rule".equals (sLocalName))
+        {
+          final String sMode = aAttrs.getValue (PROFILING_NS, SchematronProfilingInstrumenter.ATTR_MODE);
+          if (sMode != null)
+          {
+            m_aCurrent = _getCounter (sMode,
+                                      StringHelper.getNotNull (aAttrs.getValue ("context")),
+                                      aAttrs.getValue (PROFILING_NS, SchematronProfilingInstrumenter.ATTR_ASSERTS));
+            m_aCurrent.m_aEvaluations.increment ();
+          }
+        }
+        else
+          if (m_aCurrent != null && ("failed-assert".equals (sLocalName) || "successful-report".equals (sLocalName)))
+            m_aCurrent.fired (aAttrs.getValue ("id"));
+      }
+
+      m_aTarget.startElement (sUri, sLocalName, sQName, _getWithoutProfilingAttributes (aAttrs));
+
+      // Start measuring after the own overhead
+      if (m_aCurrent != null && CSchematronXML.SVRL_NS.equals (sUri) && "fired-rule".equals (sLocalName))
+      {
+        m_nStartNanos = System.nanoTime ();
+        m_nMarkNanos = m_nStartNanos;
+      }
+    }
+
+    @Override
+    public void endElement (final String sUri, final String sLocalName, final String sQName) throws SAXException
+    {
+      if (!PROFILING_NS.equals (sUri))
+        m_aTarget.endElement (sUri, sLocalName, sQName);
+    }
+
+    @Override
+    public void characters (final char [] aChars, final int nStart, final int nLength) throws SAXException
+    {
+      m_aTarget.characters (aChars, nStart, nLength);
+    }
+  }
+
+  // By mode and context
+  private final ConcurrentHashMap <String, RuleCounter> m_aRules = new ConcurrentHashMap <> ();
+
+  public SchematronRuleProfiler ()
+  {}
+
+  @Nonnull
+  private RuleCounter _getCounter (@Nonnull final String sMode, @Nonnull final String sContext, @Nullable final String sAssertIDs)
+  {
+    return m_aRules.computeIfAbsent (sMode + ' ' + sContext, k -> new RuleCounter (sMode, sContext, sAssertIDs));
+  }
+
+  /**
+   * Create a new SAX handler for the output of an XSLT compiled for profiling.
+   *
+   * @param aTarget
+   *        The handler that receives the regular SVRL events. May not be
+   *        <code>null</code>.
+   * @return A new handler for a single transformation. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  DefaultHandler createHandler (@Nonnull final DefaultHandler aTarget)
+  {
+    ValueEnforcer.notNull (aTarget, "Target");
+    return new ProfilingHandler (aTarget);
+  }
+
+  /**
+   * @return A snapshot of the profiling data of all rules that were evaluated
+   *         at least once, sorted by descending cumulative time. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <SchematronRuleProfile> getSnapshot ()
+  {
+    final ICommonsList <SchematronRuleProfile> ret = new CommonsArrayList <> ();
+    for (final RuleCounter aCounter : m_aRules.values ())
+      ret.add (aCounter.getSnapshot ());
+    ret.sort (Comparator.comparingLong (SchematronRuleProfile::getCumulativeNanos)
+                        .reversed ()
+                        .thenComparing (SchematronRuleProfile::getMode)
+                        .thenComparing (SchematronRuleProfile::getContext));
+    return ret;
+  }
+
+  /**
+   * Create a human readable report with one line per rule and one indented
+   * line per assert/report, sorted by descending cumulative time. The
+   * evaluation count is only shown for rules, because each assert and report
+   * is evaluated whenever its rule is evaluated.
+   *
+   * @return The report. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getReportAsString ()
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    aSB.append (String.format (Locale.US, "%12s %12s %12s %10s  %s%n", "total [ms]", "evaluations", "avg [us]", "firings", "rule / assert"));
+    for (final SchematronRuleProfile aRule : getSnapshot ())
+    {
+      aSB.append (String.format (Locale.US,
+                                 "%12.3f %12d %12.3f %10d  %s [%s]%n",
+                                 Double.valueOf (aRule.getCumulativeNanos () / 1_000_000d),
+                                 Long.valueOf (aRule.getEvaluationCount ()),
+                                 Double.valueOf (aRule.getAverageNanos () / 1_000d),
+                                 Long.valueOf (aRule.getFiringCount ()),
+                                 aRule.getContext (),
+                                 aRule.getMode ()));
+      final ICommonsOrderedMap <String, Long> aAssertNanos = aRule.getAllAssertCumulativeNanos ();
+      for (final Map.Entry <String, Long> aEntry : aRule.getAllAssertFirings ().entrySet ())
+      {
+        final long nNanos = aAssertNanos.getOrDefault (aEntry.getKey (), Long.valueOf (0)).longValue ();
+        aSB.append (String.format (Locale.US,
+                                   "%12.3f %12s %12.3f %10d    %s%n",
+                                   Double.valueOf (nNanos / 1_000_000d),
+                                   "",
+                                   Double.valueOf (aRule.getEvaluationCount () == 0 ? 0 : nNanos / 1_000d / aRule.getEvaluationCount ()),
+                                   aEntry.getValue (),
+                                   aEntry.getKey ()));
+      }
+    }
+    return aSB.toString ();
+  }
+
+  /**
+   * Remove all collected data.
+   */
+  public void reset ()
+  {
+    m_aRules.clear ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("RuleCount", m_aRules.size ()).getToString ();
+  }
+}
@@ -0,0 +1,158 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Defines which Schematron messages are collected and whether the validation
+ * stops at the first collected message. Messages below the minimum level are
+ * discarded while the XSLT output is read, so that they never end up in the
+ * result.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class SchematronValidationMode
+{
+  /** Collect all messages - the default */
+  public static final SchematronValidationMode ALL = new SchematronValidationMode (ESchematronFlagLevel.INFO, false);
+  /** Stop at the first error or fatal error */
+  public static final SchematronValidationMode FAIL_FAST = new SchematronValidationMode (ESchematronFlagLevel.ERROR, true);
+
+  private final ESchematronFlagLevel m_eMinimumLevel;
+  private final boolean m_bStopAtFirst;
+
+  private SchematronValidationMode (@Nonnull final ESchematronFlagLevel eMinimumLevel, final boolean bStopAtFirst)
+  {
+    m_eMinimumLevel = eMinimumLevel;
+    m_bStopAtFirst = bStopAtFirst;
+  }
+
+  /**
+   * @return The minimum level of the collected messages. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ESchematronFlagLevel getMinimumLevel ()
+  {
+    return m_eMinimumLevel;
+  }
+
+  /**
+   * @return <code>true</code> if the validation stops after the first
+   *         collected message.
+   */
+  public boolean isStopAtFirst ()
+  {
+    return m_bStopAtFirst;
+  }
+
+  /**
+   * @return <code>true</code> if all messages are collected.
+   */
+  public boolean isCollectAll ()
+  {
+    return m_eMinimumLevel == ESchematronFlagLevel.INFO && !m_bStopAtFirst;
+  }
+
+  /**
+   * @param sFlag
+   *        The flag of an assert or report. May be <code>null</code>.
+   * @return <code>true</code> if a message with this flag is collected.
+   */
+  public boolean isCollected (@Nullable final String sFlag)
+  {
+    return ESchematronFlagLevel.getFromFlag (sFlag).isAtLeast (m_eMinimumLevel);
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final SchematronValidationMode rhs = (SchematronValidationMode) o;
+    return m_eMinimumLevel == rhs.m_eMinimumLevel && m_bStopAtFirst == rhs.m_bStopAtFirst;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_eMinimumLevel).append (m_bStopAtFirst).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MinimumLevel", m_eMinimumLevel).append ("StopAtFirst", m_bStopAtFirst).getToString ();
+  }
+
+  /**
+   * Collect all messages at or above the provided level.
+   *
+   * @param eMinimumLevel
+   *        The minimum level. May not be <code>null</code>.
+   * @return The validation mode. Never <code>null</code>.
+   */
+  @Nonnull
+  public static SchematronValidationMode minimumLevel (@Nonnull final ESchematronFlagLevel eMinimumLevel)
+  {
+    ValueEnforcer.notNull (eMinimumLevel, "MinimumLevel");
+    return eMinimumLevel == ESchematronFlagLevel.INFO ? ALL : new SchematronValidationMode (eMinimumLevel, false);
+  }
+
+  /**
+   * Stop the validation at the first message at or above the provided level.
+   * The result contains at most one message.
+   *
+   * @param eMinimumLevel
+   *        The minimum level. May not be <code>null</code>.
+   * @return The validation mode. Never <code>null</code>.
+   */
+  @Nonnull
+  public static SchematronValidationMode failFast (@Nonnull final ESchematronFlagLevel eMinimumLevel)
+  {
+    ValueEnforcer.notNull (eMinimumLevel, "MinimumLevel");
+    return eMinimumLevel == ESchematronFlagLevel.ERROR ? FAIL_FAST : new SchematronValidationMode (eMinimumLevel, true);
+  }
+}
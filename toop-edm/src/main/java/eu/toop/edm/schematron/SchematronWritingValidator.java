@@ -0,0 +1,290 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.io.OutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillClose;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.PropertyException;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.helpers.ValidationEventImpl;
+import javax.xml.bind.helpers.ValidationEventLocatorImpl;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.state.ESuccess;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.xml.transform.XMLTransformerFactory;
+
+import eu.toop.edm.xml.IJAXBVersatileWriter;
+import eu.toop.edm.xml.IVersatileWriter;
+
+/**
+ * Writes an EDM object and validates it against the XSD and the Schematron
+ * rules in the same pass. The SAX events created by JAXB are sent to the
+ * serializer and to one SAX handler per Schematron validator, so the XML is
+ * neither parsed again nor kept as a DOM. The XSD validation uses the schema
+ * of the JAXB writer, but runs next to the Schematron validation instead of
+ * inside the marshaller, because the marshaller aborts on the first XSD
+ * error.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class SchematronWritingValidator
+{
+  // Xalan and the JDK serializer
+  private static final String OUTPUT_INDENT_AMOUNT = "{http://xml.apache.org/xslt}indent-amount";
+  // The JAXB RI property for the indentation string
+  private static final String JAXB_INDENT_STRING = "com.sun.xml.bind.indentString";
+
+  private SchematronWritingValidator ()
+  {}
+
+  /**
+   * Collects all XSD errors as JAXB validation events.
+   */
+  private static final class CollectingXSDErrorHandler implements ErrorHandler
+  {
+    private final ICommonsList <ValidationEvent> m_aEvents;
+
+    CollectingXSDErrorHandler (@Nonnull final ICommonsList <ValidationEvent> aEvents)
+    {
+      m_aEvents = aEvents;
+    }
+
+    private void _add (final int nSeverity, @Nonnull final SAXParseException ex)
+    {
+      m_aEvents.add (new ValidationEventImpl (nSeverity, ex.getMessage (), new ValidationEventLocatorImpl (ex), ex));
+    }
+
+    public void warning (@Nonnull final SAXParseException ex)
+    {
+      _add (ValidationEvent.WARNING, ex);
+    }
+
+    public void error (@Nonnull final SAXParseException ex)
+    {
+      _add (ValidationEvent.ERROR, ex);
+    }
+
+    public void fatalError (@Nonnull final SAXParseException ex) throws SAXException
+    {
+      _add (ValidationEvent.FATAL_ERROR, ex);
+      throw ex;
+    }
+  }
+
+  @Nullable
+  private static Object _getProperty (@Nonnull final Marshaller aMarshaller, @Nonnull final String sName)
+  {
+    try
+    {
+      return aMarshaller.getProperty (sName);
+    }
+    catch (final PropertyException ex)
+    {
+      // Not supported by this JAXB implementation
+      return null;
+    }
+  }
+
+  /**
+   * Create the serializer with the output settings of the provided marshaller,
+   * that was configured by the JAXB writer.
+   */
+  @Nonnull
+  private static TransformerHandler _createSerializer (@Nonnull final Marshaller aMarshaller,
+                                                       @Nonnull final OutputStream aOS) throws TransformerConfigurationException
+  {
+    final TransformerFactory aTF = XMLTransformerFactory.getDefaultTransformerFactory ();
+    if (!(aTF instanceof SAXTransformerFactory))
+      throw new TransformerConfigurationException ("The transformer factory " + aTF.getClass ().getName () + " does not support SAX");
+    final TransformerHandler ret = ((SAXTransformerFactory) aTF).newTransformerHandler ();
+    final Transformer aTransformer = ret.getTransformer ();
+
+    final Object aEncoding = _getProperty (aMarshaller, Marshaller.JAXB_ENCODING);
+    if (aEncoding instanceof String)
+      aTransformer.setOutputProperty (OutputKeys.ENCODING, (String) aEncoding);
+
+    final boolean bFormatted = Boolean.TRUE.equals (_getProperty (aMarshaller, Marshaller.JAXB_FORMATTED_OUTPUT));
+    aTransformer.setOutputProperty (OutputKeys.INDENT, bFormatted ? "yes" : "no");
+    if (bFormatted)
+    {
+      final Object aIndent = _getProperty (aMarshaller, JAXB_INDENT_STRING);
+      if (aIndent instanceof String && ((String) aIndent).replace (" ", "").isEmpty ())
+        try
+        {
+          aTransformer.setOutputProperty (OUTPUT_INDENT_AMOUNT, Integer.toString (((String) aIndent).length ()));
+        }
+        catch (final IllegalArgumentException ex)
+        {
+          // Property not supported by the serializer
+        }
+    }
+    ret.setResult (new StreamResult (aOS));
+    return ret;
+  }
+
+  @Nonnull
+  private static <T> ESuccess _write (@Nonnull final IJAXBVersatileWriter <T> aWriter,
+                                      @Nonnull final OutputStream aOS,
+                                      @Nonnull final SchematronContentHandler [] aSchematrons,
+                                      @Nonnull final ICommonsList <ValidationEvent> aXSDEvents,
+                                      @Nonnull final TeeContentHandler [] aTee)
+  {
+    return aWriter.write ( (aMarshaller, aJAXBElement) -> {
+      final TransformerHandler aSerializer;
+      try
+      {
+        aSerializer = _createSerializer (aMarshaller, aOS);
+      }
+      catch (final TransformerConfigurationException ex)
+      {
+        throw new IllegalStateException ("Failed to create XML serializer", ex);
+      }
+
+      // The marshaller aborts on the first XSD error, so the schema is
+      // validated next to the Schematron rules and the errors are collected
+      final Schema aSchema = aMarshaller.getSchema ();
+      ValidatorHandler aXSDHandler = null;
+      if (aSchema != null)
+      {
+        aMarshaller.setSchema (null);
+        aXSDHandler = aSchema.newValidatorHandler ();
+        aXSDHandler.setErrorHandler (new CollectingXSDErrorHandler (aXSDEvents));
+      }
+
+      // Only the serializer may abort the writing
+      final ContentHandler [] aHandlers = new ContentHandler [aSchematrons.length + (aXSDHandler != null ? 1 : 0)];
+      for (int i = 0; i < aSchematrons.length; ++i)
+        aHandlers[i] = aSchematrons[i].getContentHandler ();
+      if (aXSDHandler != null)
+        aHandlers[aSchematrons.length] = aXSDHandler;
+      aTee[0] = new TeeContentHandler (aSerializer, aHandlers);
+
+      aMarshaller.marshal (aJAXBElement, aTee[0]);
+    });
+  }
+
+  /**
+   * Write the object of the provided writer to an {@link OutputStream} and
+   * validate it in the same pass. XSD validation errors are collected instead
+   * of aborting the writing. The XSD validation only happens if the JAXB
+   * writer uses the XML Schema, which is the default. The XML is serialized
+   * with the encoding and formatting of the JAXB writer.<br>
+   * If a Schematron validator fails, the writing continues and the exception
+   * is contained in the result.
+   *
+   * @param aWriter
+   *        The writer to use, e.g. from <code>EDMRequest.getWriter ()</code>.
+   *        Must be an {@link IJAXBVersatileWriter}. May not be
+   *        <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. Will always be closed. May not be
+   *        <code>null</code>.
+   * @param aValidators
+   *        The Schematron validators to apply. May not be <code>null</code>
+   *        but may be empty.
+   * @return The write and validation result. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the writer is not based on JAXB
+   */
+  @Nonnull
+  public static WriteAndValidateResult writeAndValidate (@Nonnull final IVersatileWriter <?> aWriter,
+                                                         @Nonnull @WillClose final OutputStream aOS,
+                                                         @Nonnull final AbstractSchematronValidator... aValidators)
+  {
+    try
+    {
+      ValueEnforcer.notNull (aWriter, "Writer");
+      ValueEnforcer.isTrue (aWriter instanceof IJAXBVersatileWriter <?>, "Only JAXB based writers are supported");
+      ValueEnforcer.notNull (aOS, "OutputStream");
+      ValueEnforcer.notNullNoNullValue (aValidators, "Validators");
+
+      final SchematronContentHandler [] aSchematrons = new SchematronContentHandler [aValidators.length];
+      for (int i = 0; i < aValidators.length; ++i)
+        aSchematrons[i] = aValidators[i].createContentHandler ();
+
+      final ICommonsList <ValidationEvent> aXSDEvents = new CommonsArrayList <> ();
+      final TeeContentHandler [] aTee = new TeeContentHandler [1];
+      final ESuccess eSuccess = _write ((IJAXBVersatileWriter <?>) aWriter, aOS, aSchematrons, aXSDEvents, aTee);
+
+      final ICommonsList <AbstractSVRLMessage> aSchematronMessages = new CommonsArrayList <> ();
+      final ICommonsList <Exception> aFailures = new CommonsArrayList <> ();
+      if (eSuccess.isSuccess ())
+        for (int i = 0; i < aSchematrons.length; ++i)
+        {
+          final Exception aFailure = aTee[0].getFailure (i);
+          if (aFailure != null)
+            aFailures.add (aFailure);
+          else
+            try
+            {
+              aSchematronMessages.addAll (aSchematrons[i].getResult ());
+            }
+            catch (final RuntimeException ex)
+            {
+              aFailures.add (ex);
+            }
+        }
+      return new WriteAndValidateResult (eSuccess, aXSDEvents, aSchematronMessages, aFailures);
+    }
+    finally
+    {
+      StreamHelper.close (aOS);
+    }
+  }
+}
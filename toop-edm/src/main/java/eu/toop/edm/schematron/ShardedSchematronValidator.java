@@ -0,0 +1,434 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+
+import org.w3c.dom.Document;
+import org.xml.sax.XMLReader;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.xml.EXMLParserFeature;
+import com.helger.xml.XMLFactory;
+import com.helger.xml.sax.InputSourceFactory;
+import com.helger.xml.serialize.read.DOMReader;
+import com.helger.xml.serialize.read.SAXReaderFactory;
+import com.helger.xml.serialize.read.SAXReaderSettings;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.trans.XPathException;
+
+/**
+ * Validates a single document with the rules of a Schematron validator by
+ * splitting the patterns of its XSLT into independently compiled groups (see
+ * {@link SchematronPrecompiler#getCompiledShards(IReadableResource, int)}).
+ * The document is converted only once into a read-only tree of the XSLT
+ * processor, which is then validated by all groups concurrently. The results
+ * of the groups are concatenated in pattern order, so the result is identical
+ * to the one of the wrapped validator.<br>
+ * This reduces the latency of a single large validation, whereas
+ * {@link CompositeSchematronValidator} is better suited to increase the
+ * throughput of many validations.<br>
+ * If a {@link SchematronRuleProfiler} is set on the wrapped validator, the
+ * pattern groups are not used and all validations are delegated to the
+ * wrapped validator, because only its instrumented XSLT records the profile.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@ThreadSafe
+public class ShardedSchematronValidator
+{
+  private final AbstractSchematronValidator m_aValidator;
+  private final int m_nMaxShards;
+  private final Executor m_aExecutor;
+  private volatile ICommonsList <CompiledSchematron> m_aShards;
+  // One transformer per shard and thread
+  private final ThreadLocal <Transformer []> m_aTransformers = new ThreadLocal <> ();
+
+  /**
+   * Constructor using one group per available processor and the common fork
+   * join pool.
+   *
+   * @param aValidator
+   *        The validator whose rules should be applied. May not be
+   *        <code>null</code>.
+   */
+  public ShardedSchematronValidator (@Nonnull final AbstractSchematronValidator aValidator)
+  {
+    this (aValidator, Runtime.getRuntime ().availableProcessors (), ForkJoinPool.commonPool ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aValidator
+   *        The validator whose rules should be applied. May not be
+   *        <code>null</code>.
+   * @param nMaxShards
+   *        The maximum number of pattern groups. Must be &gt; 0.
+   * @param aExecutor
+   *        The executor to run the pattern groups in. May not be
+   *        <code>null</code>.
+   */
+  public ShardedSchematronValidator (@Nonnull final AbstractSchematronValidator aValidator,
+                                     @Nonnegative final int nMaxShards,
+                                     @Nonnull final Executor aExecutor)
+  {
+    ValueEnforcer.notNull (aValidator, "Validator");
+    ValueEnforcer.isGT0 (nMaxShards, "MaxShards");
+    ValueEnforcer.notNull (aExecutor, "Executor");
+    m_aValidator = aValidator;
+    m_nMaxShards = nMaxShards;
+    m_aExecutor = aExecutor;
+  }
+
+  /**
+   * @return The validator whose rules are applied. Never <code>null</code>.
+   */
+  @Nonnull
+  public final AbstractSchematronValidator getValidator ()
+  {
+    return m_aValidator;
+  }
+
+  /**
+   * @return The maximum number of pattern groups. Always &gt; 0.
+   */
+  @Nonnegative
+  public final int getMaxShards ()
+  {
+    return m_nMaxShards;
+  }
+
+  /**
+   * Get the compiled pattern groups. They are compiled on first access.
+   *
+   * @return A copy of the compiled pattern groups in pattern order. Never
+   *         <code>null</code> nor empty.
+   * @throws IllegalStateException
+   *         If the XSLT cannot be compiled.
+   */
+  @Nonnull
+  @Nonempty
+  @ReturnsMutableCopy
+  public final ICommonsList <CompiledSchematron> getAllCompiledShards ()
+  {
+    return _getShards ().getClone ();
+  }
+
+  @Nonnull
+  private ICommonsList <CompiledSchematron> _getShards ()
+  {
+    ICommonsList <CompiledSchematron> ret = m_aShards;
+    if (ret == null)
+      ret = m_aShards = SchematronPrecompiler.getCompiledShards (m_aValidator.getSchematronXSLTResource (), m_nMaxShards);
+    return ret;
+  }
+
+  @Nonnull
+  private Transformer _getTransformer (@Nonnegative final int nShard) throws TransformerConfigurationException
+  {
+    Transformer [] aTransformers = m_aTransformers.get ();
+    if (aTransformers == null)
+    {
+      aTransformers = new Transformer [_getShards ().size ()];
+      m_aTransformers.set (aTransformers);
+    }
+    Transformer ret = aTransformers[nShard];
+    if (ret == null)
+    {
+      ret = _getShards ().get (nShard).newTransformer ();
+      aTransformers[nShard] = ret;
+    }
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  private ICommonsList <AbstractSVRLMessage> _validateShard (@Nonnegative final int nShard,
+                                                             @Nonnull final Source aXMLSource,
+                                                             @Nonnull final SchematronValidationMode aMode)
+  {
+    final Transformer aTransformer;
+    try
+    {
+      aTransformer = _getTransformer (nShard);
+    }
+    catch (final TransformerConfigurationException ex)
+    {
+      throw new IllegalStateException ("Error creating transformer for SCH", ex);
+    }
+
+    if (aMode.isCollectAll ())
+    {
+      try
+      {
+        final Document aSVRLDoc = XMLFactory.newDocument ();
+        aTransformer.transform (aXMLSource, new DOMResult (aSVRLDoc));
+        return AbstractSchematronValidator.readSVRL (aSVRLDoc);
+      }
+      catch (final Exception ex)
+      {
+        // Don't reuse a transformer that may be in an inconsistent state
+        m_aTransformers.get ()[nShard] = null;
+        throw new IllegalStateException ("Error applying SCH onto XML", ex);
+      }
+    }
+
+    final FilteringSVRLCollector aCollector = new FilteringSVRLCollector (aMode);
+    try
+    {
+      aTransformer.transform (aXMLSource, new SAXResult (aCollector));
+    }
+    catch (final TransformerException | RuntimeException ex)
+    {
+      // Don't reuse a transformer that was aborted
+      m_aTransformers.get ()[nShard] = null;
+      if (!aCollector.isStopped ())
+        throw new IllegalStateException ("Error applying SCH onto XML", ex);
+    }
+    return AbstractSchematronValidator.readSVRL (aCollector.getSVRLDocument ());
+  }
+
+  @Nonnull
+  private static <T> T _join (@Nonnull final CompletableFuture <T> aFuture)
+  {
+    try
+    {
+      return aFuture.join ();
+    }
+    catch (final CompletionException ex)
+    {
+      if (ex.getCause () instanceof RuntimeException)
+        throw (RuntimeException) ex.getCause ();
+      throw ex;
+    }
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  private ICommonsList <AbstractSVRLMessage> _validateTree (@Nonnull final Source aTree,
+                                                            @Nonnull final SchematronValidationMode aMode)
+  {
+    final int nShards = _getShards ().size ();
+    final ICommonsList <CompletableFuture <ICommonsList <AbstractSVRLMessage>>> aFutures = new CommonsArrayList <> ();
+    for (int i = 1; i < nShards; ++i)
+    {
+      final int nShard = i;
+      aFutures.add (CompletableFuture.supplyAsync ( () -> _validateShard (nShard, aTree, aMode), m_aExecutor));
+    }
+
+    // The first one in the calling thread
+    final ICommonsList <AbstractSVRLMessage> ret = _validateShard (0, aTree, aMode);
+    for (final CompletableFuture <ICommonsList <AbstractSVRLMessage>> aFuture : aFutures)
+    {
+      // In fail-fast mode each group stops at its first message, so the first
+      // group with a message contains the overall first one
+      if (aMode.isStopAtFirst () && ret.isNotEmpty ())
+        break;
+      ret.addAll (_join (aFuture));
+    }
+    return ret;
+  }
+
+  /**
+   * Validate the provided DOM representation of a TOOP Request or Response
+   * with all pattern groups concurrently.
+   *
+   * @param aXMLDoc
+   *        The XML DOM node to be validated. May not be <code>null</code>.
+   * @return The list of all failed asserts/successful reports in the same order
+   *         as {@link AbstractSchematronValidator#validateDocument(Document)}.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateDocument (@Nonnull final Document aXMLDoc)
+  {
+    return validateDocument (aXMLDoc, SchematronValidationMode.ALL);
+  }
+
+  /**
+   * Validate the provided DOM representation of a TOOP Request or Response
+   * with all pattern groups concurrently, using the provided validation mode.
+   * In fail-fast mode all groups are still started, but only the message of
+   * the first group that created one is returned.
+   *
+   * @param aXMLDoc
+   *        The XML DOM node to be validated. May not be <code>null</code>.
+   * @param aMode
+   *        The validation mode. May not be <code>null</code>.
+   * @return The list of all collected failed asserts/successful reports in the
+   *         same order as
+   *         {@link AbstractSchematronValidator#validateDocument(Document, SchematronValidationMode)}.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateDocument (@Nonnull final Document aXMLDoc,
+                                                                    @Nonnull final SchematronValidationMode aMode)
+  {
+    ValueEnforcer.notNull (aXMLDoc, "XMLDoc");
+    ValueEnforcer.notNull (aMode, "Mode");
+
+    // Profiling requires the instrumented XSLT of the wrapped validator
+    if (m_aValidator.getRuleProfiler () != null)
+      return m_aValidator.validateDocument (aXMLDoc, aMode);
+
+    final ICommonsList <CompiledSchematron> aShards = _getShards ();
+    final Configuration aConfig = aShards.getFirst ().getSaxonConfiguration ();
+    if (aConfig == null)
+    {
+      // A DOM may not be read concurrently
+      final ICommonsList <AbstractSVRLMessage> ret = new CommonsArrayList <> ();
+      for (int i = 0; i < aShards.size (); ++i)
+      {
+        if (aMode.isStopAtFirst () && ret.isNotEmpty ())
+          break;
+        ret.addAll (_validateShard (i, new DOMSource (aXMLDoc), aMode));
+      }
+      return ret;
+    }
+
+    // Convert once into an immutable tree that can be shared between threads
+    final Source aTree;
+    try
+    {
+      aTree = aConfig.buildDocumentTree (new DOMSource (aXMLDoc)).getRootNode ();
+    }
+    catch (final XPathException ex)
+    {
+      throw new IllegalStateException ("Failed to build the document tree", ex);
+    }
+    return _validateTree (aTree, aMode);
+  }
+
+  /**
+   * Read the provided resource and validate it with all pattern groups
+   * concurrently.
+   *
+   * @param aXML
+   *        The XML resource to be validated. May not be <code>null</code>.
+   * @return The list of all failed asserts/successful reports in the same order
+   *         as
+   *         {@link AbstractSchematronValidator#validateResource(IReadableResource)}.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateResource (@Nonnull final IReadableResource aXML)
+  {
+    return validateResource (aXML, SchematronValidationMode.ALL);
+  }
+
+  /**
+   * Read the provided resource and validate it with all pattern groups
+   * concurrently, using the provided validation mode. With Saxon the resource
+   * is parsed directly into the tree of the XSLT processor, without creating a
+   * DOM first.
+   *
+   * @param aXML
+   *        The XML resource to be validated. May not be <code>null</code>.
+   * @param aMode
+   *        The validation mode. May not be <code>null</code>.
+   * @return The list of all collected failed asserts/successful reports in the
+   *         same order as
+   *         {@link AbstractSchematronValidator#validateResource(IReadableResource, SchematronValidationMode)}.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsList <AbstractSVRLMessage> validateResource (@Nonnull final IReadableResource aXML,
+                                                                    @Nonnull final SchematronValidationMode aMode)
+  {
+    ValueEnforcer.notNull (aXML, "XML");
+    ValueEnforcer.notNull (aMode, "Mode");
+
+    // Profiling requires the instrumented XSLT of the wrapped validator
+    if (m_aValidator.getRuleProfiler () != null)
+      return m_aValidator.validateResource (aXML, aMode);
+
+    final Configuration aConfig = _getShards ().getFirst ().getSaxonConfiguration ();
+    if (aConfig == null)
+    {
+      final Document aXMLDoc = DOMReader.readXMLDOM (aXML);
+      if (aXMLDoc == null)
+        throw new IllegalStateException ("Failed to read the provided XML");
+      return validateDocument (aXMLDoc, aMode);
+    }
+
+    // Same parser settings as for reading a DOM
+    final XMLReader aParser = SAXReaderFactory.createXMLReader ();
+    new SAXReaderSettings ().setFeatureValues (EXMLParserFeature.AVOID_XML_ATTACKS).applyToSAXReader (aParser);
+    final Source aTree;
+    try
+    {
+      aTree = aConfig.buildDocumentTree (new SAXSource (aParser, InputSourceFactory.create (aXML))).getRootNode ();
+    }
+    catch (final XPathException ex)
+    {
+      throw new IllegalStateException ("Failed to read the provided XML", ex);
+    }
+    return _validateTree (aTree, aMode);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Validator", m_aValidator).append ("MaxShards", m_nMaxShards).getToString ();
+  }
+}
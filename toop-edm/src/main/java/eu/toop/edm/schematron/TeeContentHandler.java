@@ -0,0 +1,163 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+import com.helger.commons.ValueEnforcer;
+
+/**
+ * A SAX content handler that forwards all events to a primary handler and to
+ * several secondary handlers, in the provided order. Exceptions of the primary
+ * handler are propagated. A secondary handler that throws an exception is
+ * remembered as failed and receives no further events, so that the primary
+ * handler still gets the complete document.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+final class TeeContentHandler implements ContentHandler
+{
+  @FunctionalInterface
+  private interface ISAXCall
+  {
+    void apply (@Nonnull ContentHandler aHandler) throws SAXException;
+  }
+
+  private final ContentHandler m_aPrimary;
+  private final ContentHandler [] m_aSecondaries;
+  private final Exception [] m_aFailures;
+
+  TeeContentHandler (@Nonnull final ContentHandler aPrimary, @Nonnull final ContentHandler... aSecondaries)
+  {
+    ValueEnforcer.notNull (aPrimary, "Primary");
+    ValueEnforcer.notNullNoNullValue (aSecondaries, "Secondaries");
+    m_aPrimary = aPrimary;
+    m_aSecondaries = aSecondaries.clone ();
+    m_aFailures = new Exception [aSecondaries.length];
+  }
+
+  /**
+   * @param nIndex
+   *        The index of the secondary handler.
+   * @return The exception the secondary handler with the provided index failed
+   *         with or <code>null</code> if it did not fail.
+   */
+  @Nullable
+  Exception getFailure (@Nonnegative final int nIndex)
+  {
+    return m_aFailures[nIndex];
+  }
+
+  private void _forward (@Nonnull final ISAXCall aCall) throws SAXException
+  {
+    aCall.apply (m_aPrimary);
+    for (int i = 0; i < m_aSecondaries.length; ++i)
+      if (m_aFailures[i] == null)
+        try
+        {
+          aCall.apply (m_aSecondaries[i]);
+        }
+        catch (final SAXException | RuntimeException ex)
+        {
+          m_aFailures[i] = ex;
+        }
+  }
+
+  public void setDocumentLocator (final Locator aLocator)
+  {
+    m_aPrimary.setDocumentLocator (aLocator);
+    for (final ContentHandler aHandler : m_aSecondaries)
+      aHandler.setDocumentLocator (aLocator);
+  }
+
+  public void startDocument () throws SAXException
+  {
+    _forward (ContentHandler::startDocument);
+  }
+
+  public void endDocument () throws SAXException
+  {
+    _forward (ContentHandler::endDocument);
+  }
+
+  public void startPrefixMapping (final String sPrefix, final String sUri) throws SAXException
+  {
+    _forward (x -> x.startPrefixMapping (sPrefix, sUri));
+  }
+
+  public void endPrefixMapping (final String sPrefix) throws SAXException
+  {
+    _forward (x -> x.endPrefixMapping (sPrefix));
+  }
+
+  public void startElement (final String sUri, final String sLocalName, final String sQName, final Attributes aAttrs) throws SAXException
+  {
+    _forward (x -> x.startElement (sUri, sLocalName, sQName, aAttrs));
+  }
+
+  public void endElement (final String sUri, final String sLocalName, final String sQName) throws SAXException
+  {
+    _forward (x -> x.endElement (sUri, sLocalName, sQName));
+  }
+
+  public void characters (final char [] aChars, final int nStart, final int nLength) throws SAXException
+  {
+    _forward (x -> x.characters (aChars, nStart, nLength));
+  }
+
+  public void ignorableWhitespace (final char [] aChars, final int nStart, final int nLength) throws SAXException
+  {
+    _forward (x -> x.ignorableWhitespace (aChars, nStart, nLength));
+  }
+
+  public void processingInstruction (final String sTarget, final String sData) throws SAXException
+  {
+    _forward (x -> x.processingInstruction (sTarget, sData));
+  }
+
+  public void skippedEntity (final String sName) throws SAXException
+  {
+    _forward (x -> x.skippedEntity (sName));
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.bind.ValidationEvent;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.state.ESuccess;
+import com.helger.commons.state.ISuccessIndicator;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+
+/**
+ * The result of writing an object and validating it in the same pass (see
+ * {@link SchematronWritingValidator#writeAndValidate(eu.toop.edm.xml.IVersatileWriter, java.io.OutputStream, AbstractSchematronValidator...)}).
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class WriteAndValidateResult implements ISuccessIndicator
+{
+  private final ESuccess m_eSuccess;
+  private final ICommonsList <ValidationEvent> m_aXSDEvents;
+  private final ICommonsList <AbstractSVRLMessage> m_aSchematronMessages;
+  private final ICommonsList <Exception> m_aValidatorFailures;
+
+  public WriteAndValidateResult (@Nonnull final ESuccess eSuccess,
+                                 @Nonnull final Iterable <? extends ValidationEvent> aXSDEvents,
+                                 @Nonnull final Iterable <? extends AbstractSVRLMessage> aSchematronMessages,
+                                 @Nonnull final Iterable <? extends Exception> aValidatorFailures)
+  {
+    ValueEnforcer.notNull (eSuccess, "Success");
+    ValueEnforcer.notNull (aXSDEvents, "XSDEvents");
+    ValueEnforcer.notNull (aSchematronMessages, "SchematronMessages");
+    ValueEnforcer.notNull (aValidatorFailures, "ValidatorFailures");
+    m_eSuccess = eSuccess;
+    m_aXSDEvents = new CommonsArrayList <> (aXSDEvents);
+    m_aSchematronMessages = new CommonsArrayList <> (aSchematronMessages);
+    m_aValidatorFailures = new CommonsArrayList <> (aValidatorFailures);
+  }
+
+  /**
+   * @return <code>true</code> if the object was completely written. Only in
+   *         this case the Schematron messages are available.
+   */
+  public boolean isSuccess ()
+  {
+    return m_eSuccess.isSuccess ();
+  }
+
+  /**
+   * @return All XSD validation events that occurred while writing. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ValidationEvent> getAllXSDEvents ()
+  {
+    return m_aXSDEvents.getClone ();
+  }
+
+  /**
+   * @return All Schematron failed asserts/successful reports, in the order of
+   *         the provided validators. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <AbstractSVRLMessage> getAllSchematronMessages ()
+  {
+    return m_aSchematronMessages.getClone ();
+  }
+
+  /**
+   * @return The exceptions of all Schematron validators that failed while
+   *         writing. The messages of failed validators are not contained in
+   *         {@link #getAllSchematronMessages()}. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <Exception> getAllValidatorFailures ()
+  {
+    return m_aValidatorFailures.getClone ();
+  }
+
+  /**
+   * @return <code>true</code> if the object was written, all validators ran
+   *         successfully and neither XSD nor Schematron validation reported
+   *         anything.
+   */
+  public boolean isValid ()
+  {
+    return isSuccess () && m_aXSDEvents.isEmpty () && m_aSchematronMessages.isEmpty () && m_aValidatorFailures.isEmpty ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Success", m_eSuccess)
+                                       .append ("XSDEvents", m_aXSDEvents)
+                                       .append ("SchematronMessages", m_aSchematronMessages)
+                                       .append ("ValidatorFailures", m_aValidatorFailures)
+                                       .getToString ();
+  }
+}
@@ -40,6 +40,7 @@ import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 
+import eu.toop.edm.jaxb.cccev.CCCEVConceptType;
 import eu.toop.edm.model.ConceptPojo;
 import eu.toop.edm.xml.cccev.ConceptMarshaller;
 import eu.toop.regrep.rim.SlotType;
@@ -57,15 +58,29 @@ public class SlotConceptValues implements ISlotProvider
 {
   public static final String NAME = "ConceptValues";
 
-  private final ICommonsList <ConceptPojo> m_aConcepts = new CommonsArrayList <> ();
+  private final ICommonsList <CCCEVConceptType> m_aConcepts = new CommonsArrayList <> ();
 
   public SlotConceptValues (@Nonnull final ConceptPojo... aConcepts)
   {
     ValueEnforcer.noNullValue (aConcepts, "Concepts");
-    m_aConcepts.addAll (aConcepts);
+    m_aConcepts.addAllMapped (aConcepts, ConceptPojo::getAsCCCEVConcept);
   }
 
   public SlotConceptValues (@Nonnull final Iterable <ConceptPojo> aConcepts)
+  {
+    ValueEnforcer.noNullValue (aConcepts, "Concepts");
+    m_aConcepts.addAllMapped (aConcepts, ConceptPojo::getAsCCCEVConcept);
+  }
+
+  /**
+   * Constructor for already existing JAXB concepts. The objects are used as
+   * they are and are not copied.
+   *
+   * @param aConcepts
+   *        The concepts to use. May not be <code>null</code>.
+   * @since 2.1.2
+   */
+  public SlotConceptValues (@Nonnull final CCCEVConceptType... aConcepts)
   {
     ValueEnforcer.noNullValue (aConcepts, "Concepts");
     m_aConcepts.addAll (aConcepts);
@@ -84,8 +99,7 @@ public class SlotConceptValues implements ISlotProvider
     final ConceptMarshaller m = new ConceptMarshaller ();
     return new SlotBuilder ().setName (NAME)
                              .setValue (ERegRepCollectionType.SET,
-                                        m_aConcepts.getAllMapped (x -> SlotHelper.createSlotValue (m.getAsDocument (x.getAsCCCEVConcept ())
-                                                                                                    .getDocumentElement ())))
+                                        m_aConcepts.getAllMapped (x -> SlotHelper.createSlotValue (m.getAsDocument (x).getDocumentElement ())))
                              .build ();
   }
 }
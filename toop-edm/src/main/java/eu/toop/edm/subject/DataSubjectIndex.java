@@ -0,0 +1,456 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.subject;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.state.EChange;
+import com.helger.commons.string.ToStringGenerator;
+
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.model.BusinessPojo;
+import eu.toop.edm.model.PersonPojo;
+
+/**
+ * An in-memory index for data providers that resolves the data subject of an
+ * {@link EDMRequest} to a local record. Legal persons are matched by their
+ * legal ID and by their ID, natural persons by their ID. All identifiers are
+ * normalized with {@link DataSubjectKeys}, so e.g. eIDAS identifiers with
+ * different destination countries match the same record.<br>
+ * Optionally natural persons that are not found by ID are matched by family
+ * name, given name and birth date. This fallback only matches if exactly one
+ * record has this combination.<br>
+ * Both lookups are plain {@link ConcurrentHashMap}s: the identifiers use the
+ * normalized String keys, and the fallback buckets use a boxed {@link Long}
+ * that combines the birth date and the name hash. There are no primitive
+ * keyed maps.<br>
+ * All methods may be called concurrently. Each identifier is updated
+ * atomically, but a data subject with more than one identifier is updated one
+ * identifier after the other. A concurrent lookup may therefore briefly find
+ * the new record under one identifier and the old record under another.
+ *
+ * @author Philip Helger
+ * @param <T>
+ *        The type of the local records.
+ * @since 2.1.2
+ */
+@ThreadSafe
+public class DataSubjectIndex <T>
+{
+  private static final class Entry <T>
+  {
+    private final T m_aValue;
+    // All identifier keys the entry is registered under
+    private final String [] m_aKeys;
+    private final String m_sNameKey;
+    private final long m_nFallbackKey;
+
+    Entry (@Nonnull final T aValue, @Nonnull final String [] aKeys, @Nullable final String sNameKey, final long nFallbackKey)
+    {
+      m_aValue = aValue;
+      m_aKeys = aKeys;
+      m_sNameKey = sNameKey;
+      m_nFallbackKey = nFallbackKey;
+    }
+
+    boolean hasKey (@Nonnull final String sKey)
+    {
+      for (final String s : m_aKeys)
+        if (s.equals (sKey))
+          return true;
+      return false;
+    }
+  }
+
+  private static final Entry <?> [] NO_ENTRIES = new Entry <?> [0];
+
+  private final boolean m_bNameAndBirthDateFallback;
+  private final ConcurrentHashMap <String, Entry <T>> m_aByID;
+  private final ConcurrentHashMap <Long, Entry <?> []> m_aFallback;
+
+  /**
+   * Constructor
+   *
+   * @param nExpectedSize
+   *        The expected number of identifiers, to avoid rehashing during batch
+   *        loads. Must be &ge; 0.
+   * @param bNameAndBirthDateFallback
+   *        <code>true</code> to match natural persons by name and birth date if
+   *        the ID is unknown.
+   */
+  public DataSubjectIndex (@Nonnegative final int nExpectedSize, final boolean bNameAndBirthDateFallback)
+  {
+    ValueEnforcer.isGE0 (nExpectedSize, "ExpectedSize");
+    m_bNameAndBirthDateFallback = bNameAndBirthDateFallback;
+    m_aByID = new ConcurrentHashMap <> (nExpectedSize);
+    m_aFallback = bNameAndBirthDateFallback ? new ConcurrentHashMap <> (nExpectedSize) : null;
+  }
+
+  /**
+   * @return <code>true</code> if natural persons are matched by name and birth
+   *         date if the ID is unknown.
+   */
+  public final boolean isNameAndBirthDateFallback ()
+  {
+    return m_bNameAndBirthDateFallback;
+  }
+
+  private static long _getFallbackKey (@Nonnull final LocalDate aBirthDate, @Nonnull final String sNameKey)
+  {
+    return (aBirthDate.toEpochDay () << 32) | (sNameKey.hashCode () & 0xffff_ffffL);
+  }
+
+  private void _addFallback (@Nonnull final Entry <T> aEntry)
+  {
+    m_aFallback.merge (Long.valueOf (aEntry.m_nFallbackKey), new Entry <?> [] { aEntry }, (aOld, aNew) -> {
+      final Entry <?> [] ret = Arrays.copyOf (aOld, aOld.length + 1);
+      ret[aOld.length] = aNew[0];
+      return ret;
+    });
+  }
+
+  private void _removeFallback (@Nonnull final Entry <T> aEntry)
+  {
+    m_aFallback.computeIfPresent (Long.valueOf (aEntry.m_nFallbackKey), (k, aOld) -> {
+      final Entry <?> [] ret = Arrays.stream (aOld).filter (x -> x != aEntry).toArray (Entry <?> []::new);
+      return ret.length == 0 ? null : ret;
+    });
+  }
+
+  private void _put (@Nonnull final String sKey, @Nonnull final Entry <T> aEntry)
+  {
+    final Object [] aReplaced = { null };
+    m_aByID.compute (sKey, (k, aOld) -> {
+      if (aOld != null && aOld.m_sNameKey != null)
+        _removeFallback (aOld);
+      if (aEntry.m_sNameKey != null)
+        _addFallback (aEntry);
+      aReplaced[0] = aOld;
+      return aEntry;
+    });
+
+    // Remove the other keys of the replaced entry, if they changed
+    final Object aOld = aReplaced[0];
+    if (aOld != null && aOld != aEntry)
+      for (final String sOldKey : ((Entry <?>) aOld).m_aKeys)
+        if (!aEntry.hasKey (sOldKey))
+          m_aByID.remove (sOldKey, aOld);
+  }
+
+  @Nonnull
+  private EChange _remove (@Nullable final String sKey)
+  {
+    if (sKey == null)
+      return EChange.UNCHANGED;
+    final boolean [] aRemoved = { false };
+    m_aByID.computeIfPresent (sKey, (k, aOld) -> {
+      if (aOld.m_sNameKey != null)
+        _removeFallback (aOld);
+      aRemoved[0] = true;
+      return null;
+    });
+    return EChange.valueOf (aRemoved[0]);
+  }
+
+  /**
+   * Add or replace a legal person. The record is registered under the legal
+   * ID and the ID of the business. The two identifiers are updated one after
+   * the other and not atomically together.
+   *
+   * @param aBusiness
+   *        The business. May not be <code>null</code>.
+   * @param aValue
+   *        The local record. May not be <code>null</code>.
+   * @return {@link EChange#UNCHANGED} if the business has no identifier.
+   */
+  @Nonnull
+  public EChange addBusiness (@Nonnull final BusinessPojo aBusiness, @Nonnull final T aValue)
+  {
+    ValueEnforcer.notNull (aBusiness, "Business");
+    ValueEnforcer.notNull (aValue, "Value");
+
+    final String sLegalIDKey = DataSubjectKeys.getIdentifierKey (aBusiness.getLegalIDSchemeID (), aBusiness.getLegalID ());
+    final String sIDKey = DataSubjectKeys.getIdentifierKey (aBusiness.getIDSchemeID (), aBusiness.getID ());
+    final String [] aKeys;
+    if (sLegalIDKey != null)
+      aKeys = sIDKey != null ? new String [] { sLegalIDKey, sIDKey } : new String [] { sLegalIDKey };
+    else
+      if (sIDKey != null)
+        aKeys = new String [] { sIDKey };
+      else
+        return EChange.UNCHANGED;
+
+    final Entry <T> aEntry = new Entry <> (aValue, aKeys, null, 0);
+    for (final String sKey : aKeys)
+      _put (sKey, aEntry);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * Add or replace a natural person. The record is registered under the ID
+   * and, if enabled, under the name and the birth date.
+   *
+   * @param aPerson
+   *        The person. May not be <code>null</code>.
+   * @param aValue
+   *        The local record. May not be <code>null</code>.
+   * @return {@link EChange#UNCHANGED} if the person has no usable identifier.
+   */
+  @Nonnull
+  public EChange addPerson (@Nonnull final PersonPojo aPerson, @Nonnull final T aValue)
+  {
+    ValueEnforcer.notNull (aPerson, "Person");
+    ValueEnforcer.notNull (aValue, "Value");
+
+    final String sIDKey = DataSubjectKeys.getIdentifierKey (aPerson.getIDSchemeID (), aPerson.getID ());
+    if (sIDKey == null)
+      return EChange.UNCHANGED;
+
+    // The fallback requires a birth date
+    final LocalDate aBirthDate = aPerson.getBirthDate ();
+    final String sNameKey = m_bNameAndBirthDateFallback && aBirthDate != null ? DataSubjectKeys.getNameKey (aPerson.getFamilyName (),
+                                                                                                         aPerson.getGivenName ())
+                                                                              : null;
+    final long nFallbackKey = sNameKey == null ? 0 : _getFallbackKey (aBirthDate, sNameKey);
+    _put (sIDKey, new Entry <> (aValue, new String [] { sIDKey }, sNameKey, nFallbackKey));
+    return EChange.CHANGED;
+  }
+
+  /**
+   * Add or replace many legal persons at once. The entries are added in
+   * parallel, so if the same identifier occurs more than once it is undefined
+   * which record is used.
+   *
+   * @param aMap
+   *        The businesses and their local records. May not be
+   *        <code>null</code>.
+   */
+  public void addAllBusinesses (@Nonnull final Map <? extends BusinessPojo, ? extends T> aMap)
+  {
+    ValueEnforcer.notNull (aMap, "Map");
+    aMap.entrySet ().parallelStream ().forEach (x -> addBusiness (x.getKey (), x.getValue ()));
+  }
+
+  /**
+   * Add or replace many natural persons at once. The entries are added in
+   * parallel, so if the same identifier occurs more than once it is undefined
+   * which record is used.
+   *
+   * @param aMap
+   *        The persons and their local records. May not be <code>null</code>.
+   */
+  public void addAllPersons (@Nonnull final Map <? extends PersonPojo, ? extends T> aMap)
+  {
+    ValueEnforcer.notNull (aMap, "Map");
+    aMap.entrySet ().parallelStream ().forEach (x -> addPerson (x.getKey (), x.getValue ()));
+  }
+
+  /**
+   * Remove a legal person by its legal ID and its ID.
+   *
+   * @param aBusiness
+   *        The business to remove. May not be <code>null</code>.
+   * @return {@link EChange#CHANGED} if at least one identifier was removed.
+   */
+  @Nonnull
+  public EChange removeBusiness (@Nonnull final BusinessPojo aBusiness)
+  {
+    ValueEnforcer.notNull (aBusiness, "Business");
+    final EChange eLegalID = _remove (DataSubjectKeys.getIdentifierKey (aBusiness.getLegalIDSchemeID (), aBusiness.getLegalID ()));
+    final EChange eID = _remove (DataSubjectKeys.getIdentifierKey (aBusiness.getIDSchemeID (), aBusiness.getID ()));
+    return eLegalID.or (eID);
+  }
+
+  /**
+   * Remove a natural person by its ID.
+   *
+   * @param aPerson
+   *        The person to remove. May not be <code>null</code>.
+   * @return {@link EChange#CHANGED} if the person was removed.
+   */
+  @Nonnull
+  public EChange removePerson (@Nonnull final PersonPojo aPerson)
+  {
+    ValueEnforcer.notNull (aPerson, "Person");
+    return _remove (DataSubjectKeys.getIdentifierKey (aPerson.getIDSchemeID (), aPerson.getID ()));
+  }
+
+  /**
+   * Remove all entries.
+   */
+  public void clear ()
+  {
+    m_aByID.clear ();
+    if (m_aFallback != null)
+      m_aFallback.clear ();
+  }
+
+  @Nullable
+  private T _get (@Nullable final String sKey)
+  {
+    if (sKey == null)
+      return null;
+    final Entry <T> aEntry = m_aByID.get (sKey);
+    return aEntry == null ? null : aEntry.m_aValue;
+  }
+
+  /**
+   * Find a record by identifier.
+   *
+   * @param sSchemeID
+   *        The identifier scheme. May be <code>null</code>.
+   * @param sValue
+   *        The identifier value. May be <code>null</code>.
+   * @return <code>null</code> if no such record is present.
+   */
+  @Nullable
+  public T findByIdentifier (@Nullable final String sSchemeID, @Nullable final String sValue)
+  {
+    return _get (DataSubjectKeys.getIdentifierKey (sSchemeID, sValue));
+  }
+
+  /**
+   * Find a legal person, first by its legal ID and second by its ID.
+   *
+   * @param aBusiness
+   *        The business to search. May not be <code>null</code>.
+   * @return <code>null</code> if no such record is present.
+   */
+  @Nullable
+  public T findBusiness (@Nonnull final BusinessPojo aBusiness)
+  {
+    ValueEnforcer.notNull (aBusiness, "Business");
+    final T ret = findByIdentifier (aBusiness.getLegalIDSchemeID (), aBusiness.getLegalID ());
+    return ret != null ? ret : findByIdentifier (aBusiness.getIDSchemeID (), aBusiness.getID ());
+  }
+
+  /**
+   * Find a natural person only by name and birth date.
+   *
+   * @param sFamilyName
+   *        Family name. May be <code>null</code>.
+   * @param sGivenName
+   *        Given name. May be <code>null</code>.
+   * @param aBirthDate
+   *        Birth date. May be <code>null</code>.
+   * @return <code>null</code> if the fallback is disabled, or if not exactly
+   *         one record matches.
+   */
+  @Nullable
+  public T findByNameAndBirthDate (@Nullable final String sFamilyName,
+                                   @Nullable final String sGivenName,
+                                   @Nullable final LocalDate aBirthDate)
+  {
+    if (!m_bNameAndBirthDateFallback || aBirthDate == null)
+      return null;
+    final String sNameKey = DataSubjectKeys.getNameKey (sFamilyName, sGivenName);
+    if (sNameKey == null)
+      return null;
+
+    final Entry <?> [] aBucket = m_aFallback.getOrDefault (Long.valueOf (_getFallbackKey (aBirthDate, sNameKey)), NO_ENTRIES);
+    Entry <?> aMatch = null;
+    for (final Entry <?> aEntry : aBucket)
+      if (aEntry.m_sNameKey.equals (sNameKey))
+      {
+        // Ambiguous
+        if (aMatch != null)
+          return null;
+        aMatch = aEntry;
+      }
+    @SuppressWarnings ("unchecked")
+    final T ret = aMatch == null ? null : (T) aMatch.m_aValue;
+    return ret;
+  }
+
+  /**
+   * Find a natural person by ID and, if enabled and the ID is unknown, by name
+   * and birth date.
+   *
+   * @param aPerson
+   *        The person to search. May not be <code>null</code>.
+   * @return <code>null</code> if no such record is present.
+   */
+  @Nullable
+  public T findPerson (@Nonnull final PersonPojo aPerson)
+  {
+    ValueEnforcer.notNull (aPerson, "Person");
+    final T ret = findByIdentifier (aPerson.getIDSchemeID (), aPerson.getID ());
+    return ret != null ? ret : findByNameAndBirthDate (aPerson.getFamilyName (), aPerson.getGivenName (), aPerson.getBirthDate ());
+  }
+
+  /**
+   * Find the data subject of a request.
+   *
+   * @param aRequest
+   *        The request to resolve. May not be <code>null</code>.
+   * @return <code>null</code> if no such record is present.
+   */
+  @Nullable
+  public T find (@Nonnull final EDMRequest aRequest)
+  {
+    ValueEnforcer.notNull (aRequest, "Request");
+    if (aRequest.getDataSubjectLegalPerson () != null)
+      return findBusiness (aRequest.getDataSubjectLegalPerson ());
+    if (aRequest.getDataSubjectNaturalPerson () != null)
+      return findPerson (aRequest.getDataSubjectNaturalPerson ());
+    return null;
+  }
+
+  /**
+   * @return The number of indexed identifiers. A business with legal ID and
+   *         ID counts twice.
+   */
+  @Nonnegative
+  public int getIdentifierCount ()
+  {
+    return m_aByID.size ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("NameAndBirthDateFallback", m_bNameAndBirthDateFallback)
+                                       .append ("IdentifierCount", getIdentifierCount ())
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,176 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.subject;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.string.StringHelper;
+
+import eu.toop.edm.model.EToopIdentifierType;
+
+/**
+ * Normalization of data subject identifiers and names, so that equivalent
+ * spellings result in the same lookup key.
+ * <ul>
+ * <li>Identifiers are prefixed with their scheme, all whitespace is removed
+ * and they are upper cased.</li>
+ * <li>eIDAS identifiers of the form <code>CC/CC/xxx</code> only keep the
+ * country of origin and the identifier - the destination country depends on
+ * the receiver and is therefore ignored. The identifier part keeps its
+ * case.</li>
+ * <li>Names are lower cased and diacritics, punctuation and duplicate spaces
+ * are removed.</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class DataSubjectKeys
+{
+  private static final Pattern EIDAS_ID = Pattern.compile ("([A-Za-z]{2})/([A-Za-z]{2})/(.+)");
+  private static final Pattern WHITESPACE = Pattern.compile ("\\s+");
+  private static final Pattern COMBINING_MARKS = Pattern.compile ("\\p{M}+");
+  private static final Pattern NON_NAME_CHARS = Pattern.compile ("[^\\p{L}\\p{N}]+");
+
+  private DataSubjectKeys ()
+  {}
+
+  @Nonnull
+  private static String _getNormalizedScheme (@Nullable final String sSchemeID)
+  {
+    if (StringHelper.hasNoText (sSchemeID))
+      return "";
+    final String sTrimmed = sSchemeID.trim ();
+    for (final EToopIdentifierType e : EToopIdentifierType.values ())
+      if (e.getID ().equalsIgnoreCase (sTrimmed))
+        return e.getID ();
+    return sTrimmed.toUpperCase (Locale.ROOT);
+  }
+
+  /**
+   * Get the normalized eIDAS identifier.
+   *
+   * @param sValue
+   *        The identifier value. May be <code>null</code>.
+   * @return <code>null</code> if the value is not in the <code>CC/CC/xxx</code>
+   *         form. Otherwise <code>CC/xxx</code> with the upper cased country of
+   *         origin.
+   */
+  @Nullable
+  public static String getNormalizedEIDASIdentifier (@Nullable final String sValue)
+  {
+    if (sValue == null)
+      return null;
+    final String sStripped = WHITESPACE.matcher (sValue).replaceAll ("");
+    final Matcher aMatcher = EIDAS_ID.matcher (sStripped);
+    if (!aMatcher.matches ())
+      return null;
+    return aMatcher.group (1).toUpperCase (Locale.ROOT) + "/" + aMatcher.group (3);
+  }
+
+  /**
+   * Get the lookup key of an identifier.
+   *
+   * @param sSchemeID
+   *        The identifier scheme, usually the ID of an
+   *        {@link EToopIdentifierType}. May be <code>null</code>.
+   * @param sValue
+   *        The identifier value. May be <code>null</code>.
+   * @return <code>null</code> if the value is empty.
+   */
+  @Nullable
+  public static String getIdentifierKey (@Nullable final String sSchemeID, @Nullable final String sValue)
+  {
+    if (sValue == null)
+      return null;
+    final String sStripped = WHITESPACE.matcher (sValue).replaceAll ("");
+    if (sStripped.isEmpty ())
+      return null;
+
+    final String sScheme = _getNormalizedScheme (sSchemeID);
+    if (sScheme.isEmpty () || sScheme.equals (EToopIdentifierType.EIDAS.getID ()))
+    {
+      final String sEIDAS = getNormalizedEIDASIdentifier (sStripped);
+      if (sEIDAS != null)
+        return EToopIdentifierType.EIDAS.getID () + ':' + sEIDAS;
+    }
+    return sScheme + ':' + sStripped.toUpperCase (Locale.ROOT);
+  }
+
+  /**
+   * Get the normalized version of a single name.
+   *
+   * @param sName
+   *        The name to normalize. May be <code>null</code>.
+   * @return The normalized name and never <code>null</code>. Name parts are
+   *         separated by a single space.
+   */
+  @Nonnull
+  public static String getNormalizedName (@Nullable final String sName)
+  {
+    if (sName == null)
+      return "";
+    String ret = Normalizer.normalize (sName, Normalizer.Form.NFD);
+    ret = COMBINING_MARKS.matcher (ret).replaceAll ("");
+    ret = NON_NAME_CHARS.matcher (ret).replaceAll (" ");
+    return ret.trim ().toLowerCase (Locale.ROOT);
+  }
+
+  /**
+   * Get the lookup key of a natural person name.
+   *
+   * @param sFamilyName
+   *        Family name. May be <code>null</code>.
+   * @param sGivenName
+   *        Given name. May be <code>null</code>.
+   * @return <code>null</code> if both names are empty after normalization.
+   */
+  @Nullable
+  public static String getNameKey (@Nullable final String sFamilyName, @Nullable final String sGivenName)
+  {
+    final String sFamily = getNormalizedName (sFamilyName);
+    final String sGiven = getNormalizedName (sGivenName);
+    if (sFamily.isEmpty () && sGiven.isEmpty ())
+      return null;
+    return sFamily + '|' + sGiven;
+  }
+}
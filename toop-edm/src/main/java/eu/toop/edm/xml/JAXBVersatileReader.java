@@ -34,18 +34,31 @@
 package eu.toop.edm.xml;
 
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.debug.GlobalDebug;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
 import com.helger.jaxb.IJAXBReader;
+import com.helger.xml.EXMLParserFeature;
+import com.helger.xml.sax.InputSourceFactory;
+import com.helger.xml.serialize.read.SAXReaderFactory;
+import com.helger.xml.serialize.read.SAXReaderSettings;
+import com.helger.xml.transform.XMLTransformerFactory;
 
 /**
  * Default implementation of {@link IJAXBVersatileReader}
@@ -62,13 +75,71 @@ public class JAXBVersatileReader <JAXBTYPE, T> implements IJAXBVersatileReader <
 
   private final IJAXBReader <JAXBTYPE> m_aReader;
   private final Function <JAXBTYPE, T> m_aMapper;
+  private final UnaryOperator <XMLReader> m_aXMLReaderCustomizer;
 
   public JAXBVersatileReader (@Nonnull final IJAXBReader <JAXBTYPE> aReader, @Nonnull final Function <JAXBTYPE, T> aMapper)
+  {
+    this (aReader, aMapper, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aReader
+   *        The JAXB reader to use. May not be <code>null</code>.
+   * @param aMapper
+   *        The mapper from the JAXB type to the target type. May not be
+   *        <code>null</code>.
+   * @param aXMLReaderCustomizer
+   *        An optional customizer that is invoked for every parse with the SAX
+   *        parser, and may return a wrapped parser (e.g. an
+   *        {@link org.xml.sax.XMLFilter}). If present, all sources are parsed
+   *        via SAX, and DOM nodes are serialized before. May be
+   *        <code>null</code>.
+   * @since 2.1.2
+   */
+  public JAXBVersatileReader (@Nonnull final IJAXBReader <JAXBTYPE> aReader,
+                              @Nonnull final Function <JAXBTYPE, T> aMapper,
+                              @Nullable final UnaryOperator <XMLReader> aXMLReaderCustomizer)
   {
     ValueEnforcer.notNull (aReader, "Reader");
     ValueEnforcer.notNull (aMapper, "Mapper");
     m_aReader = aReader;
     m_aMapper = aMapper;
+    m_aXMLReaderCustomizer = aXMLReaderCustomizer;
+  }
+
+  @Nonnull
+  private Source _getCustomizedSource (@Nonnull final Source aSource)
+  {
+    if (aSource instanceof DOMSource)
+    {
+      // A DOM node has no SAX events - serialize it. The identity transformation
+      // retains all namespace declarations, including the ones only used in
+      // attribute values (like xsi:type)
+      try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+      {
+        XMLTransformerFactory.newTransformer ().transform (aSource, new StreamResult (aBAOS));
+        return _getCustomizedSource (new SAXSource (InputSourceFactory.create (aBAOS.getBufferOrCopy ())));
+      }
+      catch (final TransformerException ex)
+      {
+        throw new IllegalArgumentException ("Failed to serialize the DOM source " + aSource, ex);
+      }
+    }
+
+    final InputSource aIS = SAXSource.sourceToInputSource (aSource);
+    if (aIS == null)
+      throw new IllegalArgumentException ("The source " + aSource + " cannot be parsed with a customized XML reader");
+
+    XMLReader aParser = aSource instanceof SAXSource ? ((SAXSource) aSource).getXMLReader () : null;
+    if (aParser == null)
+    {
+      // Same as in IJAXBVersatileReader.read (SAXReaderSettings, InputSource)
+      aParser = SAXReaderFactory.createXMLReader ();
+      new SAXReaderSettings ().setFeatureValues (EXMLParserFeature.AVOID_XML_ATTACKS).applyToSAXReader (aParser);
+    }
+    return new SAXSource (m_aXMLReaderCustomizer.apply (aParser), aIS);
   }
 
   @Nullable
@@ -89,14 +160,15 @@ public class JAXBVersatileReader <JAXBTYPE, T> implements IJAXBVersatileReader <
   @Nullable
   public T read (@Nonnull final Source aSource)
   {
-    final JAXBTYPE aObj = m_aReader.read (aSource);
+    final JAXBTYPE aObj = m_aReader.read (m_aXMLReaderCustomizer == null ? aSource : _getCustomizedSource (aSource));
     return aObj == null ? null : _read (aObj);
   }
 
   @Nullable
   public T read (@Nonnull final Node aNode)
   {
-    final JAXBTYPE aObj = m_aReader.read (aNode);
+    final JAXBTYPE aObj = m_aXMLReaderCustomizer == null ? m_aReader.read (aNode)
+                                                         : m_aReader.read (_getCustomizedSource (new DOMSource (aNode)));
     return aObj == null ? null : _read (aObj);
   }
 }
@@ -58,6 +58,7 @@ import eu.toop.edm.jaxb.cv.cbc.QuantityType;
 import eu.toop.edm.jaxb.cv.cbc.TextType;
 import eu.toop.edm.jaxb.cv.cbc.TimeType;
 import eu.toop.edm.jaxb.cv.cbc.URIType;
+import eu.toop.regrep.datetime.XSDDateTimeConverter;
 
 /**
  * Helper class to easily create {@link CCCEVValueType} objects from Java types.
@@ -115,6 +116,12 @@ public final class CCCEVValueHelper
     return ret;
   }
 
+  @Nonnull
+  public static CCCEVValueType createDate (@Nullable final String sValue)
+  {
+    return create (XSDDateTimeConverter.parseLocalDate (sValue));
+  }
+
   @Nonnull
   public static CCCEVValueType create (@Nullable final LocalDate a)
   {
@@ -248,6 +255,12 @@ public final class CCCEVValueHelper
     return ret;
   }
 
+  @Nonnull
+  public static CCCEVValueType createTime (@Nullable final String sValue)
+  {
+    return create (XSDDateTimeConverter.parseLocalTime (sValue));
+  }
+
   @Nonnull
   public static CCCEVValueType create (@Nullable final LocalTime a)
   {
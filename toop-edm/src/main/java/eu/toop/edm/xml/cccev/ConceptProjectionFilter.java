@@ -0,0 +1,368 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.xml.cccev;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+
+import eu.toop.edm.model.ConceptPath;
+
+/**
+ * A SAX filter that removes all <code>cccev:concept</code> elements that are
+ * not part of a projection, before they reach the JAXB unmarshaller. A concept
+ * is retained if its path is a projection path, is below a projection path
+ * (the whole branch is retained) or is on the way to a projection path. The
+ * concept name is only known after the <code>cbc:qName</code> child element,
+ * so the events of a concept are buffered until then; afterwards the concept
+ * is either passed through or skipped at token level without any further
+ * buffering.<br>
+ * An instance may only be used for a single parse.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@NotThreadSafe
+public class ConceptProjectionFilter extends XMLFilterImpl
+{
+  public static final String NS_CCCEV = "https://data.europe.eu/semanticassets/ns/cv/cccev_v2.0.0#";
+  public static final String NS_CBC = "https://data.europe.eu/semanticassets/ns/cv/common/cbc_v2.0.0#";
+  private static final String ELEMENT_CONCEPT = "concept";
+  private static final String ELEMENT_QNAME = "qName";
+
+  @FunctionalInterface
+  private interface ISAXEvent
+  {
+    void replay (@Nonnull ContentHandler aHandler) throws SAXException;
+  }
+
+  private enum EState
+  {
+    /** Name not yet known - events are buffered */
+    PENDING,
+    /** Retained, because it is on the way to a projection path */
+    ON_PATH,
+    /** Retained including all descendants */
+    SELECTED
+  }
+
+  private static final class Frame
+  {
+    private final int m_nDepth;
+    private final ConceptPath m_aParentPath;
+    private EState m_eState = EState.PENDING;
+    private ConceptPath m_aPath;
+
+    Frame (final int nDepth, @Nullable final ConceptPath aParentPath)
+    {
+      m_nDepth = nDepth;
+      m_aParentPath = aParentPath;
+    }
+  }
+
+  private final ICommonsList <ConceptPath> m_aProjection;
+  // All prefix mappings, including the ones of skipped elements
+  private final ICommonsMap <String, Deque <String>> m_aPrefixes = new CommonsHashMap <> ();
+  private final Deque <Frame> m_aFrames = new ArrayDeque <> ();
+  private final ICommonsList <ISAXEvent> m_aBuffer = new CommonsArrayList <> ();
+  private int m_nDepth = 0;
+  // If > 0 all events are dropped until the end of the element at this depth
+  private int m_nSkipDepth = 0;
+  // Collects the text of the first cbc:qName of a pending concept
+  private StringBuilder m_aQNameText;
+
+  public ConceptProjectionFilter (@Nonnull final XMLReader aParent, @Nonnull @Nonempty final Iterable <ConceptPath> aProjection)
+  {
+    super (aParent);
+    ValueEnforcer.notNull (aProjection, "Projection");
+    m_aProjection = new CommonsArrayList <> (aProjection);
+    ValueEnforcer.notEmptyNoNullValue (m_aProjection, "Projection");
+  }
+
+  @Nullable
+  private Frame _getPendingFrame ()
+  {
+    final Frame aFrame = m_aFrames.peek ();
+    return aFrame != null && aFrame.m_eState == EState.PENDING ? aFrame : null;
+  }
+
+  private void _emit (@Nonnull final ISAXEvent aEvent) throws SAXException
+  {
+    if (m_nSkipDepth > 0)
+      return;
+    if (_getPendingFrame () != null)
+      m_aBuffer.add (aEvent);
+    else
+    {
+      final ContentHandler aHandler = getContentHandler ();
+      if (aHandler != null)
+        aEvent.replay (aHandler);
+    }
+  }
+
+  @Nullable
+  private QName _resolveQName (@Nonnull final String sText)
+  {
+    final String sQName = sText.trim ();
+    if (sQName.isEmpty ())
+      return null;
+    final int nColon = sQName.indexOf (':');
+    final String sPrefix = nColon < 0 ? XMLConstants.DEFAULT_NS_PREFIX : sQName.substring (0, nColon);
+    final Deque <String> aURIs = m_aPrefixes.get (sPrefix);
+    final String sNamespaceURI = aURIs == null || aURIs.isEmpty () ? null : aURIs.peek ();
+    if (sNamespaceURI == null && nColon >= 0)
+    {
+      // Unbound prefix
+      return null;
+    }
+    return new QName (sNamespaceURI == null ? XMLConstants.NULL_NS_URI : sNamespaceURI, sQName.substring (nColon + 1), sPrefix);
+  }
+
+  @Nonnull
+  private EState _getState (@Nonnull final ConceptPath aPath)
+  {
+    boolean bOnPath = false;
+    for (final ConceptPath aProjection : m_aProjection)
+    {
+      if (aPath.startsWith (aProjection))
+        return EState.SELECTED;
+      if (aProjection.startsWith (aPath))
+        bOnPath = true;
+    }
+    return bOnPath ? EState.ON_PATH : null;
+  }
+
+  /**
+   * Decide about the pending concept on top of the stack.
+   *
+   * @param aName
+   *        The concept name or <code>null</code> if the concept has no name.
+   */
+  private void _decide (@Nullable final QName aName) throws SAXException
+  {
+    final Frame aFrame = m_aFrames.peek ();
+    EState eState = null;
+    if (aName != null)
+    {
+      aFrame.m_aPath = aFrame.m_aParentPath == null ? ConceptPath.of (aName) : aFrame.m_aParentPath.getChildPath (aName);
+      eState = _getState (aFrame.m_aPath);
+    }
+
+    if (eState == null)
+    {
+      // Drop the whole concept
+      m_aBuffer.clear ();
+      m_aFrames.pop ();
+      m_nSkipDepth = aFrame.m_nDepth;
+    }
+    else
+    {
+      // Retain the concept and replay what was buffered
+      aFrame.m_eState = eState;
+      final ContentHandler aHandler = getContentHandler ();
+      if (aHandler != null)
+        for (final ISAXEvent aEvent : m_aBuffer)
+          aEvent.replay (aHandler);
+      m_aBuffer.clear ();
+    }
+  }
+
+  @Override
+  public void startDocument () throws SAXException
+  {
+    m_aPrefixes.clear ();
+    m_aFrames.clear ();
+    m_aBuffer.clear ();
+    m_nDepth = 0;
+    m_nSkipDepth = 0;
+    m_aQNameText = null;
+    super.startDocument ();
+  }
+
+  @Override
+  public void startPrefixMapping (final String sPrefix, final String sURI) throws SAXException
+  {
+    m_aPrefixes.computeIfAbsent (sPrefix, k -> new ArrayDeque <> ()).push (sURI);
+    _emit (x -> x.startPrefixMapping (sPrefix, sURI));
+  }
+
+  @Override
+  public void endPrefixMapping (final String sPrefix) throws SAXException
+  {
+    _emit (x -> x.endPrefixMapping (sPrefix));
+    final Deque <String> aURIs = m_aPrefixes.get (sPrefix);
+    if (aURIs != null && !aURIs.isEmpty ())
+      aURIs.pop ();
+  }
+
+  @Override
+  public void startElement (final String sURI, final String sLocalName, final String sQName, final Attributes aAttrs) throws SAXException
+  {
+    m_nDepth++;
+    if (m_nSkipDepth > 0)
+      return;
+
+    final boolean bIsConcept = NS_CCCEV.equals (sURI) && ELEMENT_CONCEPT.equals (sLocalName);
+    final Frame aPending = _getPendingFrame ();
+    if (aPending != null && m_nDepth == aPending.m_nDepth + 1)
+    {
+      if (m_aQNameText == null && aPending.m_aPath == null && NS_CBC.equals (sURI) && ELEMENT_QNAME.equals (sLocalName))
+        m_aQNameText = new StringBuilder ();
+      else
+        if (bIsConcept || NS_CCCEV.equals (sURI))
+        {
+          // Constraints, values and child concepts come after the name - so
+          // there is no name
+          _decide (null);
+          if (m_nSkipDepth > 0)
+            return;
+        }
+    }
+
+    if (bIsConcept)
+    {
+      final Frame aParent = m_aFrames.peek ();
+      if (aParent == null || aParent.m_eState == EState.ON_PATH)
+        m_aFrames.push (new Frame (m_nDepth, aParent == null ? null : aParent.m_aPath));
+    }
+
+    // Attributes objects are reused by the parser
+    final Attributes aAttrsCopy = _getPendingFrame () != null ? new AttributesImpl (aAttrs) : aAttrs;
+    _emit (x -> x.startElement (sURI, sLocalName, sQName, aAttrsCopy));
+  }
+
+  @Override
+  public void endElement (final String sURI, final String sLocalName, final String sQName) throws SAXException
+  {
+    final int nDepth = m_nDepth--;
+    if (m_nSkipDepth > 0)
+    {
+      if (nDepth == m_nSkipDepth)
+        m_nSkipDepth = 0;
+      return;
+    }
+
+    Frame aPending = _getPendingFrame ();
+    if (aPending != null && m_aQNameText != null && nDepth == aPending.m_nDepth + 1)
+    {
+      // End of the first cbc:qName
+      _emit (x -> x.endElement (sURI, sLocalName, sQName));
+      final QName aName = _resolveQName (m_aQNameText.toString ());
+      m_aQNameText = null;
+      _decide (aName);
+      return;
+    }
+
+    if (aPending != null && nDepth == aPending.m_nDepth)
+    {
+      // Concept without name
+      _decide (null);
+      if (m_nSkipDepth > 0)
+      {
+        m_nSkipDepth = 0;
+        return;
+      }
+    }
+
+    _emit (x -> x.endElement (sURI, sLocalName, sQName));
+
+    final Frame aFrame = m_aFrames.peek ();
+    if (aFrame != null && nDepth == aFrame.m_nDepth)
+      m_aFrames.pop ();
+  }
+
+  @Override
+  public void characters (final char [] aChars, final int nStart, final int nLength) throws SAXException
+  {
+    if (m_nSkipDepth > 0)
+      return;
+    if (m_aQNameText != null)
+      m_aQNameText.append (aChars, nStart, nLength);
+    if (_getPendingFrame () != null)
+    {
+      // The char array is reused by the parser
+      final char [] aCopy = new char [nLength];
+      System.arraycopy (aChars, nStart, aCopy, 0, nLength);
+      m_aBuffer.add (x -> x.characters (aCopy, 0, nLength));
+    }
+    else
+      super.characters (aChars, nStart, nLength);
+  }
+
+  @Override
+  public void ignorableWhitespace (final char [] aChars, final int nStart, final int nLength) throws SAXException
+  {
+    if (m_nSkipDepth > 0)
+      return;
+    if (_getPendingFrame () != null)
+    {
+      final char [] aCopy = new char [nLength];
+      System.arraycopy (aChars, nStart, aCopy, 0, nLength);
+      m_aBuffer.add (x -> x.ignorableWhitespace (aCopy, 0, nLength));
+    }
+    else
+      super.ignorableWhitespace (aChars, nStart, nLength);
+  }
+
+  @Override
+  public void processingInstruction (final String sTarget, final String sData) throws SAXException
+  {
+    _emit (x -> x.processingInstruction (sTarget, sData));
+  }
+
+  @Override
+  public void skippedEntity (final String sName) throws SAXException
+  {
+    _emit (x -> x.skippedEntity (sName));
+  }
+}
@@ -33,7 +33,9 @@
  */
 package eu.toop.edm;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -44,6 +46,7 @@ import java.util.Locale;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
+import javax.xml.bind.ValidationEvent;
 
 import org.junit.Test;
 import org.w3c.dom.Document;
@@ -51,6 +54,7 @@ import org.w3c.dom.Document;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.datetime.PDTFactory;
 import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
 import com.helger.commons.mime.CMimeType;
 import com.helger.commons.mock.CommonsTestHelper;
 import com.helger.schematron.svrl.AbstractSVRLMessage;
@@ -66,6 +70,12 @@ import eu.toop.edm.pilot.gbm.EToopConcept;
 import eu.toop.edm.request.EDMRequestPayloadConcepts;
 import eu.toop.edm.schematron.SchematronBusinessRules2Validator;
 import eu.toop.edm.schematron.SchematronEDM2Validator;
+import eu.toop.edm.schematron.SchematronWritingValidator;
+import eu.toop.edm.schematron.WriteAndValidateResult;
+import eu.toop.edm.xml.JAXBVersatileWriter;
+import eu.toop.edm.xml.cagv.CCAGV;
+import eu.toop.regrep.RegRep4Writer;
+import eu.toop.regrep.query.QueryRequest;
 
 /**
  * Test class for class {@link EDMRequest}.
@@ -101,6 +111,17 @@ public final class EDMRequestTest
       aMsgs = new SchematronBusinessRules2Validator ().validateDocument (aDoc);
       assertTrue (aMsgs.toString (), aMsgs.isEmpty ());
     }
+
+    {
+      // Write and validate in one pass
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+      final WriteAndValidateResult aResult = SchematronWritingValidator.writeAndValidate (aReq.getWriter (),
+                                                                                         aBAOS,
+                                                                                         new SchematronEDM2Validator (),
+                                                                                         new SchematronBusinessRules2Validator ());
+      assertTrue (aResult.toString (), aResult.isValid ());
+      assertEquals (aReq, EDMRequest.reader ().read (aBAOS.toByteArray ()));
+    }
   }
 
   @Nonnull
@@ -319,6 +340,30 @@ public final class EDMRequestTest
     }
   }
 
+  @Test
+  public void testConceptView ()
+  {
+    final EDMRequest aView = EDMRequest.reader ().read (new ClassPathResource ("Concept Request_LP.xml"));
+    assertNotNull (aView);
+    final EDMRequestPayloadConcepts aViewPayload = (EDMRequestPayloadConcepts) aView.getPayloadProvider ();
+    assertFalse (aViewPayload.isMaterialized ());
+
+    // Writing uses the JAXB objects
+    final byte [] aViewBytes = aView.getWriter ().getAsBytes ();
+    assertNotNull (aViewBytes);
+    assertFalse (aViewPayload.isMaterialized ());
+
+    // Materialize the second one before writing
+    final EDMRequest aMaterialized = EDMRequest.reader ().read (new ClassPathResource ("Concept Request_LP.xml"));
+    final EDMRequestPayloadConcepts aMaterializedPayload = (EDMRequestPayloadConcepts) aMaterialized.getPayloadProvider ();
+    assertFalse (aMaterializedPayload.concepts ().isEmpty ());
+    assertTrue (aMaterializedPayload.isMaterialized ());
+    assertArrayEquals (aMaterialized.getWriter ().getAsBytes (), aViewBytes);
+
+    assertEquals (aMaterialized, aView);
+    assertTrue (aViewPayload.isMaterialized ());
+  }
+
   @Test
   public void testBadCases ()
   {
@@ -331,4 +376,53 @@ public final class EDMRequestTest
     aRequest = EDMRequest.reader ().read (new ClassPathResource ("Error Response 1.xml"));
     assertNull (aRequest);
   }
+
+  @Test
+  public void testWriteAndValidateInvalid ()
+  {
+    final EDMRequest aRequest = _reqConcept ().specificationIdentifier ("toop-edm:v2.0").dataSubject (_np ().genderCode ("X")).build ();
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    final WriteAndValidateResult aResult = SchematronWritingValidator.writeAndValidate (aRequest.getWriter (),
+                                                                                       aBAOS,
+                                                                                       new SchematronBusinessRules2Validator ());
+    assertTrue (aResult.isSuccess ());
+    assertFalse (aResult.isValid ());
+    assertTrue (aResult.getAllXSDEvents ().isEmpty ());
+
+    // Same result as the separate validation
+    final ICommonsList <AbstractSVRLMessage> aMsgs = new SchematronBusinessRules2Validator ().validateDocument (aRequest.getWriter ()
+                                                                                                                        .getAsDocument ());
+    assertEquals (2, aMsgs.size ());
+    assertEquals (aMsgs.size (), aResult.getAllSchematronMessages ().size ());
+    for (int i = 0; i < aMsgs.size (); ++i)
+      assertEquals (aMsgs.get (i).getText (), aResult.getAllSchematronMessages ().get (i).getText ());
+
+    // The bytes were written anyway
+    assertEquals (aRequest, EDMRequest.reader ().read (aBAOS.toByteArray ()));
+  }
+
+  @Test
+  public void testWriteAndValidateXSDViolation ()
+  {
+    // The Query element is mandatory according to the XSD
+    final QueryRequest aQR = _reqConcept ().dataSubject (_lp ()).build ().getAsQueryRequest ();
+    aQR.setQuery (null);
+
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    final WriteAndValidateResult aResult = SchematronWritingValidator.writeAndValidate (new JAXBVersatileWriter <> (aQR,
+                                                                                                                   RegRep4Writer.queryRequest (CCAGV.XSDS)),
+                                                                                       aBAOS,
+                                                                                       new SchematronEDM2Validator ());
+    assertTrue (aResult.isSuccess ());
+    assertFalse (aResult.isValid ());
+    assertTrue (aResult.getAllValidatorFailures ().isEmpty ());
+
+    final ICommonsList <ValidationEvent> aXSDEvents = aResult.getAllXSDEvents ();
+    assertFalse (aXSDEvents.isEmpty ());
+    assertTrue (aXSDEvents.containsAny (x -> x.getSeverity () != ValidationEvent.WARNING));
+    assertTrue (aXSDEvents.toString (), aXSDEvents.containsAny (x -> x.getMessage () != null && x.getMessage ().contains ("Query")));
+
+    // The bytes were written anyway
+    assertTrue (aBAOS.size () > 0);
+  }
 }
@@ -33,7 +33,9 @@
  */
 package eu.toop.edm;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -58,6 +60,7 @@ import eu.toop.edm.model.DatasetPojo;
 import eu.toop.edm.model.EToopIdentifierType;
 import eu.toop.edm.model.EToopLanguageCode;
 import eu.toop.edm.pilot.gbm.EToopConcept;
+import eu.toop.edm.response.EDMResponsePayloadConcepts;
 import eu.toop.edm.schematron.SchematronBusinessRules2Validator;
 import eu.toop.edm.schematron.SchematronEDM2Validator;
 import eu.toop.regrep.ERegRepResponseStatus;
@@ -217,6 +220,35 @@ public final class EDMResponseTest
     _testWriteAndRead (aResponse);
   }
 
+  @Test
+  public void testConceptView ()
+  {
+    final EDMResponse aResponse = EDMResponse.reader ().read (new ClassPathResource ("Concept Response.xml"));
+    assertNotNull (aResponse);
+    final EDMResponsePayloadConcepts aPayload = (EDMResponsePayloadConcepts) aResponse.getAllPayloadProviders ().get (0);
+    assertFalse (aPayload.isMaterialized ());
+
+    // Writing uses the JAXB objects
+    final byte [] aBytes = aResponse.getWriter ().getAsBytes ();
+    assertNotNull (aBytes);
+    assertFalse (aPayload.isMaterialized ());
+
+    // Compare with a materialized copy
+    final EDMResponse aMaterialized = EDMResponse.builderConcept ()
+                                                 .responseStatus (aResponse.getResponseStatus ())
+                                                 .requestID (aResponse.getRequestID ())
+                                                 .specificationIdentifier (aResponse.getSpecificationIdentifier ())
+                                                 .issueDateTime (aResponse.getIssueDateTime ())
+                                                 .dataProvider (aResponse.getDataProvider ())
+                                                 .registryObjectID (aPayload.getRegistryObjectID ())
+                                                 .concepts (aPayload.concepts ())
+                                                 .build ();
+    assertTrue (aPayload.isMaterialized ());
+    assertEquals (aMaterialized, aResponse);
+    assertEquals (aMaterialized, EDMResponse.reader ().read (aBytes));
+    assertArrayEquals (aMaterialized.getWriter ().getAsBytes (), aBytes);
+  }
+
   @Test
   public void testBadCases ()
   {
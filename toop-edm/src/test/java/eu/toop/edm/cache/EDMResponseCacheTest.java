@@ -0,0 +1,287 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+import eu.toop.edm.CToopEDM;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.fingerprint.EDMFingerprinter;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.EToopIdentifierType;
+import eu.toop.edm.model.EToopResponseOptionType;
+import eu.toop.edm.pilot.gbm.EToopConcept;
+import eu.toop.edm.response.EDMResponsePayloadConcepts;
+import eu.toop.regrep.ERegRepResponseStatus;
+
+/**
+ * Test class for class {@link EDMResponseCache}.
+ *
+ * @author Philip Helger
+ */
+public final class EDMResponseCacheTest
+{
+  @Nonnull
+  private static EDMRequest _req (@Nonnull final String sLegalID, @Nonnull final String sDataConsumerName)
+  {
+    return EDMRequest.builderConcept ()
+                     .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                     .responseOption (EToopResponseOptionType.INLINE)
+                     .randomID ()
+                     .issueDateTimeNow ()
+                     .dataConsumer (x -> x.name (sDataConsumerName).id ("1234").idSchemeID (EToopIdentifierType.VATREGISTRATION))
+                     .dataSubjectBusiness (x -> x.legalID (sLegalID).legalIDSchemeID (EToopIdentifierType.EIDAS).legalName ("NiarTsiou"))
+                     .concept (x -> x.randomID ()
+                                     .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                     .addChild (y -> y.randomID ().name (EToopConcept.COMPANY_NAME)))
+                     .build ();
+  }
+
+  @Nonnull
+  private static EDMResponse _resp (@Nonnull final EDMRequest aRequest)
+  {
+    return EDMResponse.builderConcept ()
+                      .requestID (aRequest.getRequestID ())
+                      .issueDateTimeNow ()
+                      .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                      .dataProvider (x -> x.name ("DP NAME").id ("1234").idSchemeID (EToopIdentifierType.EIDAS))
+                      .responseStatus (ERegRepResponseStatus.SUCCESS)
+                      .concept (x -> x.randomID ()
+                                      .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                      .addChild (y -> y.randomID ().name (EToopConcept.COMPANY_NAME).valueText ("Helger Enterprises")))
+                      .build ();
+  }
+
+  @Test
+  public void testQueryFingerprint ()
+  {
+    final EDMRequest aReq1 = _req ("DE/AT/12345", "DC1");
+    final EDMRequest aReq2 = _req ("DE/AT/12345", "DC2");
+    // Same query from different data consumers
+    assertEquals (EDMFingerprinter.DEFAULT.getQueryFingerprint (aReq1), EDMFingerprinter.DEFAULT.getQueryFingerprint (aReq2));
+    assertNotEquals (EDMFingerprinter.DEFAULT.getFingerprint (aReq1), EDMFingerprinter.DEFAULT.getFingerprint (aReq2));
+    // Different data subject
+    assertNotEquals (EDMFingerprinter.DEFAULT.getQueryFingerprint (aReq1),
+                     EDMFingerprinter.DEFAULT.getQueryFingerprint (_req ("DE/AT/99999", "DC1")));
+  }
+
+  @Test
+  public void testHitAndRebind ()
+  {
+    final EDMResponseCache <EDMResponse> aCache = EDMResponseCache.builderForResponses ().build ();
+    final AtomicInteger aLoads = new AtomicInteger ();
+
+    final EDMRequest aReq1 = _req ("DE/AT/12345", "DC1");
+    final EDMResponse aResp1 = aCache.getOrLoad (aReq1, x -> {
+      aLoads.incrementAndGet ();
+      return _resp (x);
+    });
+    assertEquals (aReq1.getRequestID (), aResp1.getRequestID ());
+
+    final EDMRequest aReq2 = _req ("DE/AT/12345", "DC2");
+    final EDMResponse aResp2 = aCache.getOrLoad (aReq2, x -> {
+      aLoads.incrementAndGet ();
+      return _resp (x);
+    });
+    assertEquals (1, aLoads.get ());
+    assertEquals (aReq2.getRequestID (), aResp2.getRequestID ());
+    assertEquals (aResp1.payloadProviders (), aResp2.payloadProviders ());
+
+    assertEquals (1, aCache.getHits ());
+    assertEquals (1, aCache.getMisses ());
+    assertEquals (0, aCache.getCoalesced ());
+    assertEquals (0.5, aCache.getHitRate (), 0.0001);
+    assertEquals (1, aCache.getSize ());
+
+    assertTrue (aCache.invalidate (aReq2));
+    assertFalse (aCache.invalidate (aReq2));
+    assertEquals (0, aCache.getSize ());
+
+    // null values are not cached
+    assertNull (aCache.getOrLoad (aReq1, x -> null));
+    assertEquals (0, aCache.getSize ());
+  }
+
+  @Test
+  public void testCachedResponsesAreIsolated ()
+  {
+    final EDMResponseCache <EDMResponse> aCache = EDMResponseCache.builderForResponses ().build ();
+
+    final EDMRequest aReq1 = _req ("DE/AT/12345", "DC1");
+    final EDMResponse aResp1 = aCache.getOrLoad (aReq1, EDMResponseCacheTest::_resp);
+    final EDMResponse aResp2 = aCache.getOrLoad (_req ("DE/AT/12345", "DC2"), EDMResponseCacheTest::_resp);
+    final List <ConceptPojo> aConcepts = ((EDMResponsePayloadConcepts) aResp2.payloadProviders ().get (0)).concepts ();
+    assertEquals (1, aConcepts.size ());
+
+    // Modify the loaded and the served response
+    ((EDMResponsePayloadConcepts) aResp1.payloadProviders ().get (0)).concepts ().clear ();
+    aConcepts.add (aConcepts.get (0));
+
+    final EDMResponse aResp3 = aCache.getOrLoad (_req ("DE/AT/12345", "DC3"), EDMResponseCacheTest::_resp);
+    assertEquals (1, ((EDMResponsePayloadConcepts) aResp3.payloadProviders ().get (0)).concepts ().size ());
+    assertEquals (1, aCache.getMisses ());
+  }
+
+  @Test
+  public void testTTLAndMaxSize ()
+  {
+    final AtomicLong aNow = new AtomicLong ();
+    final EDMResponseCache <byte []> aCache = EDMResponseCache.builderForBytes ()
+                                                              .ttl (Duration.ofSeconds (10))
+                                                              .maxSize (2)
+                                                              .ticker (aNow::get)
+                                                              .build ();
+    final EDMRequest aReqA = _req ("A", "DC");
+    final EDMRequest aReqB = _req ("B", "DC");
+    final EDMRequest aReqC = _req ("C", "DC");
+    final byte [] aBytesA = aCache.getOrLoad (aReqA, x -> new byte [] { 1 });
+    assertSame (aBytesA, aCache.getOrLoad (aReqA, x -> new byte [] { 2 }));
+
+    // Expired
+    aNow.addAndGet (Duration.ofSeconds (10).toNanos ());
+    final byte [] aBytesA2 = aCache.getOrLoad (aReqA, x -> new byte [] { 3 });
+    assertEquals (3, aBytesA2[0]);
+    assertEquals (1, aCache.getEvictions ());
+
+    // Size limit - A was used most recently, so B is evicted
+    aCache.getOrLoad (aReqB, x -> new byte [] { 4 });
+    aCache.getOrLoad (aReqA, x -> new byte [] { 5 });
+    aCache.getOrLoad (aReqC, x -> new byte [] { 6 });
+    assertEquals (2, aCache.getSize ());
+    assertEquals (2, aCache.getEvictions ());
+    assertSame (aBytesA2, aCache.getOrLoad (aReqA, x -> new byte [] { 7 }));
+    assertEquals (8, aCache.getOrLoad (aReqB, x -> new byte [] { 8 })[0]);
+
+    aCache.clear ();
+    assertEquals (0, aCache.getSize ());
+    assertEquals (0, aCache.getHits ());
+  }
+
+  @Test
+  public void testLoaderException ()
+  {
+    final EDMResponseCache <EDMResponse> aCache = EDMResponseCache.builderForResponses ().build ();
+    final EDMRequest aReq = _req ("DE/AT/12345", "DC1");
+    try
+    {
+      aCache.getOrLoad (aReq, x -> {
+        throw new IllegalStateException ("Backend down");
+      });
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      assertEquals ("Backend down", ex.getMessage ());
+    }
+    assertEquals (0, aCache.getSize ());
+    assertEquals (aReq.getRequestID (), aCache.getOrLoad (aReq, EDMResponseCacheTest::_resp).getRequestID ());
+  }
+
+  @Test
+  public void testCoalescing () throws Exception
+  {
+    final int nThreads = 8;
+    final EDMResponseCache <EDMResponse> aCache = EDMResponseCache.builderForResponses ().build ();
+    final AtomicInteger aLoads = new AtomicInteger ();
+    final CountDownLatch aLoading = new CountDownLatch (1);
+    final CountDownLatch aRelease = new CountDownLatch (1);
+
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    try
+    {
+      final ICommonsList <EDMRequest> aRequests = new CommonsArrayList <> ();
+      final ICommonsList <Future <EDMResponse>> aFutures = new CommonsArrayList <> ();
+      for (int i = 0; i < nThreads; ++i)
+      {
+        final EDMRequest aReq = _req ("DE/AT/12345", "DC" + i);
+        aRequests.add (aReq);
+        aFutures.add (aES.submit ( () -> aCache.getOrLoad (aReq, x -> {
+          aLoads.incrementAndGet ();
+          aLoading.countDown ();
+          try
+          {
+            aRelease.await ();
+          }
+          catch (final InterruptedException ex)
+          {
+            Thread.currentThread ().interrupt ();
+          }
+          return _resp (x);
+        })));
+        if (i == 0)
+          assertTrue (aLoading.await (10, TimeUnit.SECONDS));
+      }
+
+      // Wait until all other callers are waiting for the first one
+      final long nEnd = System.currentTimeMillis () + 10_000;
+      while (aCache.getCoalesced () < nThreads - 1 && System.currentTimeMillis () < nEnd)
+        Thread.sleep (1);
+      aRelease.countDown ();
+
+      for (int i = 0; i < nThreads; ++i)
+        assertEquals (aRequests.get (i).getRequestID (), aFutures.get (i).get (10, TimeUnit.SECONDS).getRequestID ());
+      assertEquals (1, aLoads.get ());
+      assertEquals (1, aCache.getMisses ());
+      assertEquals (nThreads - 1, aCache.getCoalesced ());
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+}
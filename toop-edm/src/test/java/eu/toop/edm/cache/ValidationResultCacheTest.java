@@ -0,0 +1,165 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.error.list.ErrorList;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.xml.serialize.read.DOMReader;
+
+import eu.toop.edm.schematron.SVRLTestHelper;
+import eu.toop.edm.schematron.SchematronBusinessRules2Validator;
+import eu.toop.edm.schematron.SchematronEDM2Validator;
+import eu.toop.edm.xml.cagv.CCAGV;
+import eu.toop.regrep.CRegRep4;
+
+/**
+ * Test class for class {@link ValidationResultCache}.
+ *
+ * @author Philip Helger
+ */
+public final class ValidationResultCacheTest
+{
+  @Test
+  public void testSchematron ()
+  {
+    final ValidationResultCache aCache = ValidationResultCache.builder ().build ();
+    final SchematronEDM2Validator aEDM = new SchematronEDM2Validator ();
+    final SchematronBusinessRules2Validator aBR = new SchematronBusinessRules2Validator ();
+
+    for (final String sFile : new String [] { "Concept Request_LP.xml", "request/edm-jonas1.xml" })
+    {
+      final ClassPathResource aRes = new ClassPathResource (sFile);
+      final String sExpected = SVRLTestHelper.getAsString (aEDM.validateResource (aRes));
+      final long nMisses = aCache.getMisses ();
+
+      // Miss, then hit for the same bytes
+      assertEquals (sExpected, SVRLTestHelper.getAsString (aCache.validateSchematron (aEDM, aRes)));
+      assertEquals (nMisses + 1, aCache.getMisses ());
+      assertEquals (sExpected, SVRLTestHelper.getAsString (aCache.validateSchematron (aEDM, StreamHelper.getAllBytes (aRes))));
+      assertEquals (nMisses + 1, aCache.getMisses ());
+
+      // Other rule set, other entry
+      assertEquals (SVRLTestHelper.getAsString (aBR.validateResource (aRes)), SVRLTestHelper.getAsString (aCache.validateSchematron (aBR, aRes)));
+      assertEquals (nMisses + 2, aCache.getMisses ());
+
+      // Documents with the same content share the same entry
+      final Document aDoc = DOMReader.readXMLDOM (aRes);
+      assertNotNull (aDoc);
+      assertEquals (sExpected, SVRLTestHelper.getAsString (aCache.validateSchematron (aEDM, aDoc)));
+      assertEquals (nMisses + 3, aCache.getMisses ());
+      assertEquals (sExpected, SVRLTestHelper.getAsString (aCache.validateSchematron (aEDM, DOMReader.readXMLDOM (aRes))));
+      assertEquals (nMisses + 3, aCache.getMisses ());
+    }
+    assertEquals (6, aCache.getSize ());
+    assertEquals (4, aCache.getHits ());
+    assertEquals (0.4, aCache.getHitRate (), 0.0001);
+
+    // Returned lists are copies
+    final ClassPathResource aRes = new ClassPathResource ("request/edm-jonas1.xml");
+    aCache.validateSchematron (aEDM, aRes).clear ();
+    assertEquals (SVRLTestHelper.getAsString (aEDM.validateResource (aRes)), SVRLTestHelper.getAsString (aCache.validateSchematron (aEDM, aRes)));
+
+    aCache.clear ();
+    assertEquals (0, aCache.getSize ());
+    assertEquals (0, aCache.getHits ());
+    assertEquals (0, aCache.getHitRate (), 0);
+  }
+
+  @Test
+  public void testXSD ()
+  {
+    final ValidationResultCache aCache = ValidationResultCache.builder ().build ();
+    final ICommonsList <ClassPathResource> aXSDs = CRegRep4.getAllXSDsQuery ().getClone ();
+    aXSDs.addAll (CCAGV.XSDS);
+
+    final ClassPathResource aRes = new ClassPathResource ("Concept Request_LP.xml");
+    final ErrorList aErrors = aCache.validateXSD (aXSDs, aRes);
+    assertEquals (1, aCache.getMisses ());
+    assertEquals (aErrors.size (), aCache.validateXSD (aXSDs, aRes).size ());
+    assertEquals (1, aCache.getHits ());
+
+    // A broken document is reported as well
+    final byte [] aBroken = "<QueryRequest xmlns='urn:oasis:names:tc:ebxml-regrep:xsd:query:4.0' />".getBytes (StandardCharsets.UTF_8);
+    assertTrue (aCache.validateXSD (aXSDs, aBroken).containsAtLeastOneError ());
+    assertTrue (aCache.validateXSD (aXSDs, aBroken).containsAtLeastOneError ());
+    assertEquals (2, aCache.getMisses ());
+    assertEquals (2, aCache.getHits ());
+  }
+
+  @Test
+  public void testExpirationAndEviction ()
+  {
+    final AtomicLong aNow = new AtomicLong (0);
+    final ValidationResultCache aCache = ValidationResultCache.builder ()
+                                                              .ttl (Duration.ofSeconds (10))
+                                                              .maxSize (2)
+                                                              .ticker (aNow::get)
+                                                              .build ();
+    final SchematronEDM2Validator aEDM = new SchematronEDM2Validator ();
+    final ClassPathResource aRes1 = new ClassPathResource ("Concept Request_LP.xml");
+    final ClassPathResource aRes2 = new ClassPathResource ("Concept Request_NP.xml");
+    final ClassPathResource aRes3 = new ClassPathResource ("Concept Response.xml");
+
+    aCache.validateSchematron (aEDM, aRes1);
+    aCache.validateSchematron (aEDM, aRes2);
+    aCache.validateSchematron (aEDM, aRes1);
+    assertEquals (1, aCache.getHits ());
+
+    // Evicts the least recently used entry 2
+    aCache.validateSchematron (aEDM, aRes3);
+    assertEquals (2, aCache.getSize ());
+    assertEquals (1, aCache.getEvictions ());
+    aCache.validateSchematron (aEDM, aRes1);
+    assertEquals (2, aCache.getHits ());
+
+    // Expired
+    aNow.addAndGet (Duration.ofSeconds (10).toNanos ());
+    aCache.validateSchematron (aEDM, aRes1);
+    assertEquals (2, aCache.getHits ());
+    assertEquals (4, aCache.getMisses ());
+  }
+}
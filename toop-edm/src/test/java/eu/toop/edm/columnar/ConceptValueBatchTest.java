@@ -0,0 +1,166 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.columnar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.io.resource.ClassPathResource;
+
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.EConceptValueType;
+
+/**
+ * Test class for class {@link ConceptValueBatch}.
+ *
+ * @author Philip Helger
+ */
+public final class ConceptValueBatchTest
+{
+  private static final String NS = "urn:test";
+  private static final QName ROOT = new QName (NS, "Company");
+  private static final QName REVENUE = new QName (NS, "Revenue");
+  private static final QName FOUNDED = new QName (NS, "Founded");
+  private static final QName ACTIVE = new QName (NS, "Active");
+  private static final QName STATUS = new QName (NS, "Status");
+
+  @Nonnull
+  private static ConceptPojo _createCompany (final long nRevenue,
+                                             @Nonnull final String sCurrency,
+                                             @Nonnull final LocalDate aFounded,
+                                             final boolean bActive,
+                                             @Nonnull final String sStatus)
+  {
+    return ConceptPojo.builder ()
+                      .randomID ()
+                      .name (ROOT)
+                      .addChild (x -> x.randomID ().name (REVENUE).valueAmount (BigDecimal.valueOf (nRevenue), sCurrency))
+                      .addChild (x -> x.randomID ().name (FOUNDED).valueDate (aFounded))
+                      .addChild (x -> x.randomID ().name (ACTIVE).valueIndicator (bActive))
+                      .addChild (x -> x.randomID ().name (STATUS).valueCode (sStatus))
+                      .build ();
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final ConceptValueBatch aBatch = new ConceptValueBatch ();
+    assertEquals (0, aBatch.getRowCount ());
+    assertEquals (0, aBatch.append (new CommonsArrayList <> (_createCompany (100, "EUR", LocalDate.of (2000, 1, 1), true, "open"))));
+    assertEquals (1, aBatch.append (new CommonsArrayList <> (_createCompany (250, "USD", LocalDate.of (2010, 6, 15), false, "closed"))));
+    assertEquals (2, aBatch.append (new CommonsArrayList <> (_createCompany (50, "EUR", LocalDate.of (2020, 3, 3), true, "open"))));
+    assertEquals (3, aBatch.getRowCount ());
+    assertEquals (4, aBatch.getColumnCount ());
+    assertEquals (4, aBatch.getAllPaths ().size ());
+    // Root has no value
+    assertNull (aBatch.getColumn (ConceptPath.of (ROOT)));
+
+    final ConceptPath aRootPath = ConceptPath.of (ROOT);
+    final ConceptValueColumn aRevenue = aBatch.getColumn (aRootPath.getChildPath (REVENUE));
+    assertNotNull (aRevenue);
+    assertEquals (3, aRevenue.getSize ());
+    assertEquals (EConceptValueType.AMOUNT, aRevenue.getValueType (1));
+    assertEquals (400, aRevenue.sumDecimals (), 0);
+    assertEquals (150, aRevenue.sumDecimals ("EUR"), 0);
+    assertEquals (250, aRevenue.sumDecimals ("USD"), 0);
+    assertEquals (0, aRevenue.sumDecimals ("CHF"), 0);
+    assertEquals ("USD", aRevenue.getSymbol (1));
+    assertArrayEquals (new int [] { 0, 1 }, aRevenue.selectDecimalRange (100, 300));
+    assertArrayEquals (new int [] { 0, 2 }, aRevenue.selectSymbol ("EUR"));
+    assertEquals (150, aRevenue.sumDecimals (aRevenue.selectSymbol ("EUR")), 0);
+
+    final ConceptValueColumn aFounded = aBatch.getColumn (aRootPath.getChildPath (FOUNDED));
+    assertEquals (LocalDate.of (2010, 6, 15), aFounded.getDate (1));
+    assertEquals (0, aFounded.getDecimal (1), 0);
+    assertArrayEquals (new int [] { 1, 2 }, aFounded.selectDateRange (LocalDate.of (2005, 1, 1), LocalDate.of (2030, 1, 1)));
+    assertEquals (3, aFounded.count (EConceptValueType.DATE));
+    assertEquals (0, aFounded.count (EConceptValueType.TIME));
+
+    final ConceptValueColumn aActive = aBatch.getColumn (aRootPath.getChildPath (ACTIVE));
+    assertEquals (2, aActive.countTrue ());
+    assertTrue (aActive.getIndicator (0));
+    assertFalse (aActive.getIndicator (1));
+    assertArrayEquals (new int [] { 0, 2 }, aActive.getRows (aActive.selectTrue ()));
+
+    final ConceptValueColumn aStatus = aBatch.getColumn (aRootPath.getChildPath (STATUS));
+    assertArrayEquals (new int [] { 1 }, aStatus.selectSymbol ("closed"));
+    assertEquals (0, aStatus.selectSymbol ("unknown").length);
+    // Dictionary is shared: EUR, USD, open, closed
+    assertEquals (4, aBatch.getDictionary ().getSize ());
+    assertEquals (aBatch.getDictionary ().getID ("open"), aStatus.getSymbolID (2));
+  }
+
+  @Test
+  public void testRepeatedPathsAndResponse ()
+  {
+    final EDMResponse aResponse = EDMResponse.reader ().read (new ClassPathResource ("Concept Response.xml"));
+    assertNotNull (aResponse);
+
+    final ConceptValueBatch aBatch = new ConceptValueBatch ();
+    assertEquals (0, aBatch.append (aResponse));
+    assertEquals (1, aBatch.append (aResponse));
+    // Concept-Name-2 to Concept-Name-9
+    assertEquals (8, aBatch.getColumnCount ());
+
+    final String sNS = "http://toop.eu/registered-organization";
+    final ConceptPath aRootPath = ConceptPath.of (new QName (sNS, "CompanyData"));
+    final ConceptValueColumn aAmount = aBatch.getColumn (aRootPath.getChildPath (new QName (sNS, "Concept-Name-2")));
+    assertEquals (2, aAmount.getSize ());
+    assertArrayEquals (new int [] { 0, 1 }, aAmount.getRows (new int [] { 0, 1 }));
+    assertEquals (2000002, aAmount.sumDecimals ("EUR"), 0);
+
+    final ConceptValueColumn aError = aBatch.getColumn (aRootPath.getChildPath (new QName (sNS, "Concept-Name-9")));
+    assertEquals (EConceptValueType.ERROR_CODE, aError.getValueType (0));
+    assertEquals ("DP_ELE_001", aError.getSymbol (0));
+
+    final ConceptValueColumn aNumeric = aBatch.getColumn (aRootPath.getChildPath (new QName (sNS, "Concept-Name-8")));
+    assertEquals (110, aNumeric.sumDecimals (), 0);
+    assertEquals (110, aNumeric.sumDecimals ((String) null), 0);
+  }
+}
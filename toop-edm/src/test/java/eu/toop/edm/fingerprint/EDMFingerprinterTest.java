@@ -0,0 +1,248 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.fingerprint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Locale;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.commons.mime.CMimeType;
+import com.helger.commons.mock.CommonsTestHelper;
+
+import eu.toop.edm.CToopEDM;
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.IEDMTopLevelObject;
+import eu.toop.edm.error.EDMExceptionPojo;
+import eu.toop.edm.error.EEDMExceptionType;
+import eu.toop.edm.error.EToopErrorCode;
+import eu.toop.edm.error.EToopErrorSeverity;
+import eu.toop.edm.model.EToopDistributionFormat;
+import eu.toop.edm.model.EToopIdentifierType;
+import eu.toop.edm.model.EToopResponseOptionType;
+import eu.toop.edm.pilot.gbm.EToopConcept;
+import eu.toop.regrep.ERegRepResponseStatus;
+
+/**
+ * Test class for class {@link EDMFingerprinter}.
+ *
+ * @author Philip Helger
+ */
+public final class EDMFingerprinterTest
+{
+  private static final EDMFingerprinter NON_VOLATILE = EDMFingerprinter.builder ().excludeVolatileFields (true).build ();
+
+  @Nonnull
+  private static <T extends EDMRequest.AbstractBuilder <T>> T _req (@Nonnull final T aBuilder)
+  {
+    return aBuilder.specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                   .responseOption (EToopResponseOptionType.INLINE)
+                   .randomID ()
+                   .issueDateTimeNow ()
+                   .procedure (Locale.US, "GBM Procedure")
+                   .dataConsumer (x -> x.name ("DC NAME").id ("1234").idSchemeID (EToopIdentifierType.VATREGISTRATION))
+                   .dataSubjectBusiness (x -> x.legalID ("DE/AT/12345").legalIDSchemeID (EToopIdentifierType.EIDAS).legalName ("NiarTsiou"));
+  }
+
+  @Nonnull
+  private static EDMRequest _reqConcept (@Nonnull final BigDecimal aNumeric)
+  {
+    return _req (EDMRequest.builderConcept ()).concept (x -> x.randomID ()
+                                                              .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                                              .addChild (y -> y.randomID ().name (EToopConcept.COMPANY_NAME))
+                                                              .addChild (y -> y.randomID ()
+                                                                               .name (EToopConcept.COMPANY_CODE)
+                                                                               .valueNumeric (aNumeric)))
+                                              .build ();
+  }
+
+  @Nonnull
+  private static EDMResponse _respConcept (@Nonnull final String sCompanyName)
+  {
+    return EDMResponse.builderConcept ()
+                      .requestID (UUID.randomUUID ())
+                      .issueDateTimeNow ()
+                      .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                      .dataProvider (x -> x.name ("DP NAME").id ("1234").idSchemeID (EToopIdentifierType.EIDAS))
+                      .responseStatus (ERegRepResponseStatus.SUCCESS)
+                      .concept (x -> x.randomID ()
+                                      .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                      .addChild (y -> y.randomID ().name (EToopConcept.COMPANY_NAME).valueText (sCompanyName))
+                                      .addChild (y -> y.randomID ()
+                                                       .name (EToopConcept.FOUNDATION_DATE)
+                                                       .valueDate (PDTFactory.createLocalDate (1960, Month.AUGUST, 12))))
+                      .build ();
+  }
+
+  @Test
+  public void testRequestVolatileFields ()
+  {
+    final EDMRequest aReq1 = _reqConcept (BigDecimal.TEN);
+    final EDMRequest aReq2 = _reqConcept (BigDecimal.TEN);
+    assertNotEquals (aReq1.getRequestID (), aReq2.getRequestID ());
+
+    // All fields
+    assertNotEquals (EDMFingerprinter.DEFAULT.getFingerprint (aReq1), EDMFingerprinter.DEFAULT.getFingerprint (aReq2));
+    assertEquals (EDMFingerprinter.DEFAULT.getFingerprint (aReq1), EDMFingerprinter.DEFAULT.getFingerprint (aReq1));
+
+    // Only stable fields
+    final EDMFingerprint aFP1 = NON_VOLATILE.getFingerprint (aReq1);
+    assertEquals (128, aFP1.getBitLength ());
+    assertEquals (32, aFP1.getAsHexString ().length ());
+    assertEquals (aFP1, NON_VOLATILE.getFingerprint (aReq2));
+    assertEquals (aFP1, EDMFingerprint.ofHexString (aFP1.getAsHexString ()));
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (aFP1, NON_VOLATILE.getFingerprint (aReq2));
+
+    // Numerically equal values
+    assertEquals (aFP1, NON_VOLATILE.getFingerprint (_reqConcept (new BigDecimal ("10.000"))));
+
+    // Different content
+    assertNotEquals (aFP1, NON_VOLATILE.getFingerprint (_reqConcept (BigDecimal.ONE)));
+  }
+
+  @Test
+  public void testRequestReadBack ()
+  {
+    final EDMRequest aReq = _reqConcept (new BigDecimal ("12.5"));
+    final EDMRequest aReq2 = EDMRequest.reader ().read (aReq.getWriter ().getAsBytes ());
+    assertEquals (EDMFingerprinter.DEFAULT.getFingerprint (aReq), EDMFingerprinter.DEFAULT.getFingerprint (aReq2));
+  }
+
+  @Test
+  public void testDistributionOrder ()
+  {
+    final EDMRequest aReq1 = _req (EDMRequest.builderDocumentsByDistribution ()).addDistribution (x -> x.format (EToopDistributionFormat.STRUCTURED)
+                                                                                                          .mediaType (CMimeType.APPLICATION_PDF))
+                                                                                .addDistribution (x -> x.format (EToopDistributionFormat.UNSTRUCTURED)
+                                                                                                          .mediaType (CMimeType.IMAGE_PNG))
+                                                                                .build ();
+    final EDMRequest aReq2 = _req (EDMRequest.builderDocumentsByDistribution ()).addDistribution (x -> x.format (EToopDistributionFormat.UNSTRUCTURED)
+                                                                                                          .mediaType (CMimeType.IMAGE_PNG))
+                                                                                .addDistribution (x -> x.format (EToopDistributionFormat.STRUCTURED)
+                                                                                                          .mediaType (CMimeType.APPLICATION_PDF))
+                                                                                .build ();
+    final EDMRequest aReq3 = _req (EDMRequest.builderDocumentsByDistribution ()).addDistribution (x -> x.format (EToopDistributionFormat.STRUCTURED)
+                                                                                                          .mediaType (CMimeType.APPLICATION_PDF))
+                                                                                .build ();
+    assertEquals (NON_VOLATILE.getFingerprint (aReq1), NON_VOLATILE.getFingerprint (aReq2));
+    assertNotEquals (NON_VOLATILE.getFingerprint (aReq1), NON_VOLATILE.getFingerprint (aReq3));
+  }
+
+  @Test
+  public void testResponse ()
+  {
+    final EDMResponse aResp = _respConcept ("Helger Enterprises");
+    final EDMResponse aResp2 = EDMResponse.reader ().read (aResp.getWriter ().getAsBytes ());
+    assertEquals (EDMFingerprinter.DEFAULT.getFingerprint (aResp), EDMFingerprinter.DEFAULT.getFingerprint (aResp2));
+
+    assertEquals (NON_VOLATILE.getFingerprint (aResp), NON_VOLATILE.getFingerprint (_respConcept ("Helger Enterprises")));
+    assertNotEquals (NON_VOLATILE.getFingerprint (aResp), NON_VOLATILE.getFingerprint (_respConcept ("Other Enterprises")));
+  }
+
+  @Test
+  public void testErrorResponse ()
+  {
+    final EDMErrorResponse aResp = EDMErrorResponse.builder ()
+                                                   .requestID ("c4369c4d-740e-4b64-80f0-7b209a66d629")
+                                                   .errorProvider (x -> x.name ("DP NAME").id ("1234").idSchemeID (EToopIdentifierType.EIDAS))
+                                                   .addException (EDMExceptionPojo.builder ()
+                                                                                  .exceptionType (EEDMExceptionType.TIMEOUT)
+                                                                                  .errorCode (EToopErrorCode.GEN)
+                                                                                  .errorMessage ("What went wrong")
+                                                                                  .severity (EToopErrorSeverity.FAILURE)
+                                                                                  .timestamp (LocalDateTime.of (2020, Month.MAY, 19, 7, 59, 38)))
+                                                   .build ();
+    final EDMErrorResponse aResp2 = EDMErrorResponse.builder ()
+                                                    .requestID ("c4369c4d-740e-4b64-80f0-7b209a66d629")
+                                                    .errorProvider (x -> x.name ("DP NAME").id ("1234").idSchemeID (EToopIdentifierType.EIDAS))
+                                                    .addException (EDMExceptionPojo.builder ()
+                                                                                   .exceptionType (EEDMExceptionType.TIMEOUT)
+                                                                                   .errorCode (EToopErrorCode.GEN)
+                                                                                   .errorMessage ("What went wrong")
+                                                                                   .severity (EToopErrorSeverity.FAILURE)
+                                                                                   .timestamp (LocalDateTime.of (2020, Month.MAY, 19, 8, 0, 0)))
+                                                    .build ();
+    assertNotEquals (EDMFingerprinter.DEFAULT.getFingerprint (aResp), EDMFingerprinter.DEFAULT.getFingerprint (aResp2));
+    assertEquals (NON_VOLATILE.getFingerprint (aResp), NON_VOLATILE.getFingerprint (aResp2));
+
+    // Stable across JVMs and versions
+    assertEquals ("0e24993f89ae09add6ad8fff15d63dd8", EDMFingerprinter.DEFAULT.getFingerprint (aResp).getAsHexString ());
+    assertEquals (EDMFingerprinter.DEFAULT.getFingerprint (aResp), EDMFingerprinter.DEFAULT.getFingerprint ((IEDMTopLevelObject) aResp));
+  }
+
+  @Test
+  public void testSettings ()
+  {
+    final EDMRequest aReq = _reqConcept (BigDecimal.TEN);
+    final EDMFingerprinter aFP256 = EDMFingerprinter.builder ().bitLength (256).build ();
+    assertEquals (256, aFP256.getFingerprint (aReq).getBitLength ());
+    // Truncation of the same digest
+    assertEquals (EDMFingerprinter.DEFAULT.getFingerprint (aReq).getAsHexString (),
+                  aFP256.getFingerprint (aReq).getAsHexString ().substring (0, 32));
+
+    assertEquals (160, EDMFingerprinter.builder ().algorithm ("SHA-1").bitLength (160).build ().getFingerprint (aReq).getBitLength ());
+
+    for (final int nInvalid : new int [] { 0, 12, 264 })
+      try
+      {
+        EDMFingerprinter.builder ().bitLength (nInvalid).build ();
+        fail ();
+      }
+      catch (final IllegalStateException ex)
+      {
+        // expected
+      }
+    try
+    {
+      EDMFingerprinter.builder ().algorithm ("NoSuchAlgorithm").build ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.time.Month;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.commons.mock.CommonsTestHelper;
+
+import eu.toop.edm.CToopEDM;
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.IEDMTopLevelObject;
+import eu.toop.edm.model.EToopIdentifierType;
+import eu.toop.edm.pilot.gbm.EToopConcept;
+import eu.toop.regrep.ERegRepResponseStatus;
+
+/**
+ * Test class for class {@link EDMJsonReader}.
+ *
+ * @author Philip Helger
+ */
+public final class EDMJsonReaderTest
+{
+  private static <T extends IEDMTopLevelObject> void _testRoundTrip (@Nonnull final T aObj,
+                                                                     @Nonnull final EDMJsonReader <T> aReader)
+  {
+    assertNotNull (aObj);
+
+    final byte [] aBytes = new EDMJsonWriter ().getAsBytes (aObj);
+    final T aObj2 = aReader.read (aBytes);
+    assertEquals (aObj, aObj2);
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (aObj, aObj2);
+
+    // Formatted output must read the same
+    final T aObj3 = aReader.read (new EDMJsonWriter ().setFormattedOutput (true).getAsString (aObj));
+    assertEquals (aObj, aObj3);
+  }
+
+  @Test
+  public void testRequests ()
+  {
+    for (final String sFilename : new String [] { "Concept Request_LP.xml",
+                                                  "Concept Request_NP.xml",
+                                                  "Document Request_LP.xml",
+                                                  "Document Request_NP.xml",
+                                                  "request/request1.xml",
+                                                  "request/edm-jonas1.xml" })
+      _testRoundTrip (EDMRequest.reader ().read (new ClassPathResource (sFilename)), EDMJsonReader.request ());
+  }
+
+  @Test
+  public void testResponses ()
+  {
+    for (final String sFilename : new String [] { "Concept Response.xml", "Document Response.xml" })
+      _testRoundTrip (EDMResponse.reader ().read (new ClassPathResource (sFilename)), EDMJsonReader.response ());
+  }
+
+  @Test
+  public void testErrorResponses ()
+  {
+    for (final String sFilename : new String [] { "Error Response 1.xml", "error-response/edm-jonas2.xml" })
+      _testRoundTrip (EDMErrorResponse.reader ().read (new ClassPathResource (sFilename)), EDMJsonReader.errorResponse ());
+  }
+
+  @Test
+  public void testAllValueTypes ()
+  {
+    final EDMResponse aResp = EDMResponse.builderConcept ()
+                                         .requestID ("req-1")
+                                         .issueDateTimeNow ()
+                                         .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                                         .dataProvider (x -> x.name ("DP").id ("1234").idSchemeID (EToopIdentifierType.EIDAS))
+                                         .responseStatus (ERegRepResponseStatus.SUCCESS)
+                                         .concept (x -> x.id ("c")
+                                                         .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                                         .addChild (y -> y.id ("c1").name (EToopConcept.COMPANY_NAME).valueID ("id"))
+                                                         .addChild (y -> y.id ("c2")
+                                                                          .name (EToopConcept.COMPANY_NAME)
+                                                                          .valueAmount (new BigDecimal ("12.50"), "EUR"))
+                                                         .addChild (y -> y.id ("c3").name (EToopConcept.COMPANY_NAME).valueCode ("code"))
+                                                         .addChild (y -> y.id ("c4")
+                                                                          .name (EToopConcept.FOUNDATION_DATE)
+                                                                          .valueDate (PDTFactory.createLocalDate (1960, Month.AUGUST, 12)))
+                                                         .addChild (y -> y.id ("c5").name (EToopConcept.COMPANY_NAME).valueIndicator (true))
+                                                         .addChild (y -> y.id ("c6")
+                                                                          .name (EToopConcept.COMPANY_NAME)
+                                                                          .valueMeasure (new BigDecimal ("1E+3"), "KGM"))
+                                                         .addChild (y -> y.id ("c7").name (EToopConcept.COMPANY_NAME).valueNumeric (-17.25))
+                                                         .addChild (y -> y.id ("c8")
+                                                                          .name (EToopConcept.COMPANY_NAME)
+                                                                          .valuePeriod (PDTFactory.getCurrentLocalDateTime (),
+                                                                                        PDTFactory.getCurrentLocalDateTime ().plusDays (2)))
+                                                         .addChild (y -> y.id ("c9")
+                                                                          .name (EToopConcept.COMPANY_NAME)
+                                                                          .valueQuantity (BigDecimal.TEN, "C62"))
+                                                         .addChild (y -> y.id ("c10")
+                                                                          .name (EToopConcept.COMPANY_NAME)
+                                                                          .valueText ("a", "b \"quoted\" ä"))
+                                                         .addChild (y -> y.id ("c11")
+                                                                          .name (EToopConcept.COMPANY_NAME)
+                                                                          .valueTime (LocalTime.of (12, 34, 56)))
+                                                         .addChild (y -> y.id ("c12")
+                                                                          .name (EToopConcept.COMPANY_NAME)
+                                                                          .valueURI ("http://www.example.org"))
+                                                         .addChild (y -> y.id ("c13")
+                                                                          .name (EToopConcept.COMPANY_NAME)
+                                                                          .valueErrorCode ("GEN")))
+                                         .build ();
+    _testRoundTrip (aResp, EDMJsonReader.response ());
+  }
+
+  @Test
+  public void testFieldOrderAndUnknownFields ()
+  {
+    final String sJson = "{\"unknown\":{\"a\":[1,2,{}]}," +
+                         "\"documentID\":\"doc-1\"," +
+                         "\"issueDateTime\":\"2021-02-03T04:05:06.789\"," +
+                         "\"requestID\":\"r-1\"," +
+                         "\"responseOption\":\"LeafClassWithRepositoryItem\"," +
+                         "\"specificationIdentifier\":\"toop-edm:v2.1\"," +
+                         "\"dataConsumer\":{\"id\":\"dc\",\"name\":\"DC\"}," +
+                         "\"dataSubjectNaturalPerson\":{\"id\":\"ID\",\"idSchemeID\":\"EIDAS\",\"familyName\":\"F\",\"givenName\":\"G\",\"birthDate\":\"1999-01-01\"}," +
+                         "\"queryDefinition\":\"urn:oasis:names:tc:ebxml-regrep:query:GetObjectById\"}";
+    final EDMRequest aReq = EDMJsonReader.request ().read (sJson);
+    assertNotNull (aReq);
+    assertEquals ("r-1", aReq.getRequestID ());
+    _testRoundTrip (aReq, EDMJsonReader.request ());
+  }
+
+  @Test
+  public void testBadCases ()
+  {
+    // Syntax error
+    assertNull (EDMJsonReader.request ().read ("{"));
+    // No object
+    assertNull (EDMJsonReader.request ().read ("[]"));
+    // Consistency error
+    assertNull (EDMJsonReader.request ().read ("{}"));
+    assertNull (EDMJsonReader.response ().read ("{\"requestID\":\"r-1\"}"));
+    assertNull (EDMJsonReader.errorResponse ().read ("{\"exceptions\":[{\"exceptionType\":\"bla\"}]}"));
+  }
+
+  @Test
+  public void testBadIndicator ()
+  {
+    final EDMResponse aResp = EDMResponse.builderConcept ()
+                                         .requestID ("req-1")
+                                         .issueDateTimeNow ()
+                                         .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                                         .dataProvider (x -> x.name ("DP").id ("1234").idSchemeID (EToopIdentifierType.EIDAS))
+                                         .responseStatus (ERegRepResponseStatus.SUCCESS)
+                                         .concept (x -> x.id ("c")
+                                                         .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                                         .addChild (y -> y.id ("c1").name (EToopConcept.COMPANY_NAME).valueIndicator (true)))
+                                         .build ();
+    final String sJson = new EDMJsonWriter ().getAsString (aResp);
+    assertTrue (sJson.contains ("\"indicator\":true"));
+    assertNotNull (EDMJsonReader.response ().read (sJson));
+
+    // Only JSON booleans are accepted
+    assertNull (EDMJsonReader.response ().read (sJson.replace ("\"indicator\":true", "\"indicator\":\"true\"")));
+    assertNull (EDMJsonReader.response ().read (sJson.replace ("\"indicator\":true", "\"indicator\":1")));
+    assertNull (EDMJsonReader.response ().read (sJson.replace ("\"indicator\":true", "\"indicator\":{}")));
+  }
+
+  @Test
+  public void testMixedResponseObjects ()
+  {
+    // The response objects are written last
+    final String sDocJson = new EDMJsonWriter ().getAsString (EDMResponse.reader ().read (new ClassPathResource ("Document Response.xml")));
+    final String sConceptJson = new EDMJsonWriter ().getAsString (EDMResponse.reader ().read (new ClassPathResource ("Concept Response.xml")));
+    final String sPrefix = "\"responseObjects\":[";
+    assertTrue (sDocJson.endsWith ("]}"));
+    assertTrue (sConceptJson.endsWith ("]}"));
+    final String sConceptObject = sConceptJson.substring (sConceptJson.indexOf (sPrefix) + sPrefix.length (), sConceptJson.length () - 2);
+
+    // Concept payload after a document payload
+    assertNull (EDMJsonReader.response ().read (sDocJson.substring (0, sDocJson.length () - 2) + "," + sConceptObject + "]}"));
+  }
+}
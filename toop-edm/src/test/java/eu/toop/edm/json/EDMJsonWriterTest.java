@@ -0,0 +1,92 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.json;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.helger.commons.io.resource.ClassPathResource;
+
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.IEDMTopLevelObject;
+
+/**
+ * Test class for class {@link EDMJsonWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class EDMJsonWriterTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final EDMRequest aReq = EDMRequest.reader ().read (new ClassPathResource ("Concept Request_LP.xml"));
+    assertNotNull (aReq);
+
+    final EDMJsonWriter aWriter = new EDMJsonWriter ();
+    assertFalse (aWriter.isFormattedOutput ());
+    final String sJson = aWriter.getAsString (aReq);
+    assertTrue (sJson.startsWith ("{\"queryDefinition\":\"ConceptQuery\","));
+    assertFalse (sJson.contains ("\n"));
+    // Null values are omitted
+    assertFalse (sJson.contains ("null"));
+    assertArrayEquals (sJson.getBytes (StandardCharsets.UTF_8), aWriter.getAsBytes (aReq));
+
+    aWriter.setFormattedOutput (true);
+    assertTrue (aWriter.isFormattedOutput ());
+    assertTrue (aWriter.getAsString (aReq).contains ("\n"));
+  }
+
+  @Test
+  public void testUnsupportedObject ()
+  {
+    try
+    {
+      new EDMJsonWriter ().getAsString (new IEDMTopLevelObject ()
+      {});
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // Expected
+    }
+  }
+}
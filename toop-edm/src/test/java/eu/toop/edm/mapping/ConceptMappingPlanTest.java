@@ -0,0 +1,254 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.mapping;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+
+import eu.toop.edm.model.AmountPojo;
+import eu.toop.edm.model.ConceptIndex;
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.EConceptValueType;
+
+/**
+ * Test class for class {@link ConceptMappingPlan}.
+ *
+ * @author Philip Helger
+ */
+public final class ConceptMappingPlanTest
+{
+  private static final String NS = "urn:test";
+  private static final ConceptPath ROOT = ConceptPath.of (new QName (NS, "Company"));
+  private static final ConceptPath NAME = ROOT.getChildPath (new QName (NS, "Name"));
+  private static final ConceptPath ADDRESS = ROOT.getChildPath (new QName (NS, "Address"));
+  private static final ConceptPath CITY = ADDRESS.getChildPath (new QName (NS, "City"));
+  private static final ConceptPath FOUNDED = ROOT.getChildPath (new QName (NS, "Founded"));
+  private static final ConceptPath REVENUE = ROOT.getChildPath (new QName (NS, "Revenue"));
+  private static final ConceptPath ACTIVE = ROOT.getChildPath (new QName (NS, "Active"));
+
+  @Nonnull
+  private static ConceptMappingPlan _createPlan ()
+  {
+    final AtomicInteger aID = new AtomicInteger ();
+    return ConceptMapping.builder ()
+                         .idFactory ( () -> "c" + aID.incrementAndGet ())
+                         .field (NAME, "name", EConceptValueType.TEXT)
+                         .field (CITY, "city", EConceptValueType.TEXT)
+                         .field (FOUNDED, "founded", EConceptValueType.DATE)
+                         .field (REVENUE, "revenue", EConceptValueType.AMOUNT, "currency")
+                         .field (ACTIVE, "active", EConceptValueType.INDICATOR)
+                         .build ()
+                         .compile ();
+  }
+
+  @Nonnull
+  private static ICommonsMap <String, Object> _createRecord (final int i)
+  {
+    final ICommonsMap <String, Object> ret = new CommonsHashMap <> ();
+    ret.put ("name", "Company " + i);
+    ret.put ("city", "Vienna");
+    ret.put ("founded", "2001-02-03");
+    ret.put ("revenue", Integer.valueOf (i));
+    ret.put ("currency", "EUR");
+    ret.put ("active", Boolean.TRUE);
+    return ret;
+  }
+
+  @Test
+  public void testFieldNames ()
+  {
+    final ConceptMappingPlan aPlan = _createPlan ();
+    assertEquals (6, aPlan.getFieldCount ());
+    assertEquals (new CommonsArrayList <> ("name", "city", "founded", "revenue", "currency", "active"), aPlan.getAllFieldNames ());
+  }
+
+  @Test
+  public void testRoundTrip ()
+  {
+    final ConceptMappingPlan aPlan = _createPlan ();
+    final ConceptPojo aRoot = aPlan.toConcept (_createRecord (5));
+    assertEquals (ROOT.getLastSegment (), aRoot.getName ());
+    assertEquals (5, aRoot.getAllChildren ().size ());
+
+    final ConceptIndex aIndex = ConceptIndex.of (aRoot);
+    assertEquals ("Company 5", aIndex.getFirstValue (NAME).getAsString ());
+    assertEquals ("Vienna", aIndex.getFirstValue (CITY).getAsString ());
+    assertEquals (LocalDate.of (2001, 2, 3), aIndex.getFirstValue (FOUNDED).getDate ());
+    assertEquals (new AmountPojo (BigDecimal.valueOf (5), "EUR"), aIndex.getFirstValue (REVENUE).getAmount ());
+    assertEquals (Boolean.TRUE, aIndex.getFirstValue (ACTIVE).getBoolean ());
+
+    final ICommonsOrderedMap <String, Object> aRecord = aPlan.toRecord (aRoot);
+    assertEquals (new CommonsArrayList <> ("Company 5"), aRecord.get ("name"));
+    assertEquals (LocalDate.of (2001, 2, 3), aRecord.get ("founded"));
+    assertEquals (BigDecimal.valueOf (5), aRecord.get ("revenue"));
+    assertEquals ("EUR", aRecord.get ("currency"));
+
+    // Rows are the same as records
+    final Object [] aRow = aPlan.toRow (aRoot);
+    assertArrayEquals (aRecord.copyOfValues ().toArray (), aRow);
+    assertEquals (aRoot.getAllChildren ().size (), aPlan.toConcept (aRow).getAllChildren ().size ());
+  }
+
+  @Test
+  public void testTextsAndFloatingPoint ()
+  {
+    final ConceptMappingPlan aPlan = _createPlan ();
+    final ICommonsMap <String, Object> aRecord = _createRecord (1);
+    aRecord.put ("city", new CommonsArrayList <> ("Vienna", "Wien"));
+    aRecord.put ("revenue", Float.valueOf (0.1f));
+
+    final ConceptPojo aRoot = aPlan.toConcept (aRecord);
+    assertEquals (new BigDecimal ("0.1"), ConceptIndex.of (aRoot).getFirstValue (REVENUE).getAmount ().getValue ());
+
+    // Several texts survive the round trip
+    final ICommonsOrderedMap <String, Object> aRecord2 = aPlan.toRecord (aRoot);
+    assertEquals (new CommonsArrayList <> ("Vienna", "Wien"), aRecord2.get ("city"));
+    assertEquals (aRecord2, aPlan.toRecord (aPlan.toConcept (aRecord2)));
+  }
+
+  @Test
+  public void testMissingValues ()
+  {
+    final ConceptMappingPlan aPlan = _createPlan ();
+    final ICommonsMap <String, Object> aRecord = _createRecord (1);
+    aRecord.remove ("city");
+    aRecord.remove ("active");
+
+    // The empty address is omitted as well
+    final ConceptPojo aRoot = aPlan.toConcept (aRecord);
+    assertEquals (3, aRoot.getAllChildren ().size ());
+    assertNull (ConceptIndex.of (aRoot).getFirst (ADDRESS));
+
+    final ICommonsOrderedMap <String, Object> aRecord2 = aPlan.toRecord (aRoot);
+    assertEquals (6, aRecord2.size ());
+    assertNull (aRecord2.get ("city"));
+    assertNull (aRecord2.get ("active"));
+
+    // The root is always present
+    assertEquals (0, aPlan.toConcept (new CommonsHashMap <> ()).getAllChildren ().size ());
+  }
+
+  @Test
+  public void testErrors ()
+  {
+    final ConceptMappingPlan aPlan = _createPlan ();
+    final ICommonsMap <String, Object> aRecord = _createRecord (1);
+    aRecord.put ("active", LocalDate.now ());
+    try
+    {
+      aPlan.toConcept (aRecord);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+
+    // Unparsable date string
+    aRecord.put ("active", Boolean.TRUE);
+    aRecord.put ("founded", "not-a-date");
+    try
+    {
+      aPlan.toConcept (aRecord);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+      assertNotNull (ex.getCause ());
+    }
+
+    try
+    {
+      aPlan.toRow (ConceptPojo.builder ().randomID ().name (NS, "Other").build ());
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+
+    try
+    {
+      ConceptMapping.builder ()
+                    .field (NAME, "name", EConceptValueType.TEXT)
+                    .field (ConceptPath.of (new QName (NS, "Other")), "other", EConceptValueType.TEXT)
+                    .build ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testBatch ()
+  {
+    final ConceptMappingPlan aPlan = _createPlan ();
+    final ICommonsList <ICommonsMap <String, Object>> aRecords = new CommonsArrayList <> ();
+    for (int i = 0; i < 1000; ++i)
+      aRecords.add (_createRecord (i));
+
+    final ICommonsList <ConceptPojo> aConcepts = aPlan.toConcepts (aRecords);
+    assertEquals (1000, aConcepts.size ());
+    final ICommonsList <ICommonsOrderedMap <String, Object>> aRecords2 = aPlan.toRecords (aConcepts);
+    assertEquals (1000, aRecords2.size ());
+    for (int i = 0; i < 1000; ++i)
+    {
+      // Order is maintained
+      assertEquals (new CommonsArrayList <> ("Company " + i), aRecords2.get (i).get ("name"));
+      assertEquals (BigDecimal.valueOf (i), aRecords2.get (i).get ("revenue"));
+    }
+  }
+}
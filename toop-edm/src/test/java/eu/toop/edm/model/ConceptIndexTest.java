@@ -0,0 +1,149 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.ICommonsList;
+
+import eu.toop.edm.pilot.gbm.EToopConcept;
+
+/**
+ * Test class for class {@link ConceptIndex}.
+ *
+ * @author Philip Helger
+ */
+public final class ConceptIndexTest
+{
+  @Nonnull
+  private static ConceptPojo _createTree ()
+  {
+    return ConceptPojo.builder ()
+                      .randomID ()
+                      .name (EToopConcept.REGISTERED_ORGANIZATION)
+                      .addChild (x -> x.randomID ().name (EToopConcept.COMPANY_NAME).valueText ("Helger Enterprises"))
+                      .addChild (x -> x.randomID ().name (EToopConcept.COMPANY_CODE).valueText ("HE"))
+                      .addChild (x -> x.randomID ()
+                                       .name (EToopConcept.PERSON)
+                                       .addChild (y -> y.randomID ().name (EToopConcept.FAMILY_NAME).valueText ("Doe")))
+                      .addChild (x -> x.randomID ()
+                                       .name (EToopConcept.PERSON)
+                                       .addChild (y -> y.randomID ().name (EToopConcept.FAMILY_NAME).valueText ("Smith")))
+                      .build ();
+  }
+
+  @Test
+  public void testPathAndNameLookup ()
+  {
+    final ConceptPojo aRoot = _createTree ();
+    final ConceptIndex aIndex = ConceptIndex.of (aRoot);
+    assertSame (aRoot, aIndex.getRoot ());
+    assertEquals (7, aIndex.getConceptCount ());
+    assertEquals (5, aIndex.paths ().size ());
+
+    final ConceptPath aCompanyName = ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION, EToopConcept.COMPANY_NAME);
+    assertTrue (aIndex.containsPath (aCompanyName));
+    assertSame (aRoot.children ().get (0), aIndex.getFirst (aCompanyName));
+    assertEquals ("Helger Enterprises", aIndex.getFirstValue (aCompanyName).getAsString ());
+
+    final ConceptPath aFamilyName = ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION, EToopConcept.PERSON, EToopConcept.FAMILY_NAME);
+    final List <ConceptPojo> aFamilyNames = aIndex.getAll (aFamilyName);
+    assertEquals (2, aFamilyNames.size ());
+    assertEquals ("Doe", aFamilyNames.get (0).getValue ().getAsString ());
+    assertEquals ("Smith", aFamilyNames.get (1).getValue ().getAsString ());
+    assertEquals (aFamilyNames, aIndex.getAllByName (EToopConcept.FAMILY_NAME));
+    assertEquals ("Doe", aIndex.getFirstValueByName (EToopConcept.FAMILY_NAME).getAsString ());
+
+    // Unknown
+    final ConceptPath aUnknown = ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION, EToopConcept.VAT_NUMBER);
+    assertFalse (aIndex.containsPath (aUnknown));
+    assertNull (aIndex.getFirst (aUnknown));
+    assertNull (aIndex.getFirstValue (aUnknown));
+    assertTrue (aIndex.getAll (aUnknown).isEmpty ());
+    assertTrue (aIndex.getAllByName (EToopConcept.VAT_NUMBER).isEmpty ());
+    assertNull (aIndex.getFirstValueByName (EToopConcept.VAT_NUMBER));
+  }
+
+  @Test
+  public void testExpressions ()
+  {
+    final ConceptIndex aIndex = ConceptIndex.of (_createTree ());
+
+    assertEquals ("Helger Enterprises", aIndex.findFirstValue ("RegisteredOrganization/CompanyName").getAsString ());
+    assertEquals ("Helger Enterprises",
+                  aIndex.findFirstValue (ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION, EToopConcept.COMPANY_NAME).toString ())
+                        .getAsString ());
+
+    ICommonsList <ConceptPojo> aMatches = aIndex.findAll ("//LegalRepresentativeFamilyName");
+    assertEquals (2, aMatches.size ());
+    assertEquals ("Doe", aMatches.get (0).getValue ().getAsString ());
+
+    aMatches = aIndex.findAll ("*/*");
+    assertEquals (4, aMatches.size ());
+    assertEquals (EToopConcept.COMPANY_NAME.getAsQName (), aMatches.get (0).getName ());
+    assertEquals (EToopConcept.PERSON.getAsQName (), aMatches.get (3).getName ());
+
+    // Document order across different paths
+    aMatches = aIndex.findAll ("RegisteredOrganization//*");
+    assertEquals (6, aMatches.size ());
+    assertEquals (EToopConcept.PERSON.getAsQName (), aMatches.get (2).getName ());
+    assertEquals (EToopConcept.FAMILY_NAME.getAsQName (), aMatches.get (3).getName ());
+    assertEquals (EToopConcept.PERSON.getAsQName (), aMatches.get (4).getName ());
+
+    assertNull (aIndex.findFirst ("Person"));
+    assertTrue (aIndex.findAll ("//{urn:other}CompanyName").isEmpty ());
+  }
+
+  @Test
+  public void testDeepTree ()
+  {
+    // Must not overflow the stack
+    ConceptPojo aConcept = ConceptPojo.builder ().name ("urn:test", "leaf").valueText ("x").build ();
+    for (int i = 0; i < 10_000; ++i)
+      aConcept = ConceptPojo.builder ().name ("urn:test", "node").addChild (aConcept).build ();
+    final ConceptIndex aIndex = ConceptIndex.of (aConcept);
+    assertEquals (10_001, aIndex.getConceptCount ());
+    assertEquals ("x", aIndex.findFirstValue ("//leaf").getAsString ());
+  }
+}
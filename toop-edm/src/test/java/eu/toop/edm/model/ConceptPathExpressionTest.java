@@ -0,0 +1,112 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import eu.toop.edm.pilot.gbm.EToopConcept;
+
+/**
+ * Test class for class {@link ConceptPathExpression}.
+ *
+ * @author Philip Helger
+ */
+public final class ConceptPathExpressionTest
+{
+  private static final ConceptPath PATH = ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION,
+                                                          EToopConcept.PERSON,
+                                                          EToopConcept.FAMILY_NAME);
+
+  @Test
+  public void testMatches ()
+  {
+    for (final String s : new String [] { "RegisteredOrganization/Person/LegalRepresentativeFamilyName",
+                                          "/RegisteredOrganization/Person/LegalRepresentativeFamilyName",
+                                          "//LegalRepresentativeFamilyName",
+                                          "//Person/LegalRepresentativeFamilyName",
+                                          "RegisteredOrganization//LegalRepresentativeFamilyName",
+                                          "*/*/*",
+                                          "//*",
+                                          "RegisteredOrganization//*",
+                                          "{" + EToopConcept.NAMESPACE_URI + "}RegisteredOrganization/Person/*",
+                                          PATH.toString () })
+      assertTrue (s, ConceptPathExpression.compile (s).matches (PATH));
+
+    for (final String s : new String [] { "RegisteredOrganization/LegalRepresentativeFamilyName",
+                                          "Person/LegalRepresentativeFamilyName",
+                                          "*/*",
+                                          "*/*/*/*",
+                                          "//Person",
+                                          "{urn:other}RegisteredOrganization//*" })
+      assertFalse (s, ConceptPathExpression.compile (s).matches (PATH));
+  }
+
+  @Test
+  public void testExactPath ()
+  {
+    assertEquals (PATH, ConceptPathExpression.compile (PATH.toString ()).getExactPath ());
+    assertEquals (PATH, ConceptPathExpression.of (PATH).getExactPath ());
+    assertNull (ConceptPathExpression.compile ("RegisteredOrganization/Person").getExactPath ());
+    assertNull (ConceptPathExpression.anywhere (EToopConcept.FAMILY_NAME).getExactPath ());
+    assertTrue (ConceptPathExpression.anywhere (EToopConcept.FAMILY_NAME).matches (PATH));
+
+    final ConceptPath aNoNS = ConceptPath.of (new QName ("", "a"), new QName ("", "b"));
+    assertNotNull (ConceptPathExpression.of (aNoNS).getExactPath ());
+    assertTrue (ConceptPathExpression.compile ("{}a/{}b").matches (aNoNS));
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    for (final String s : new String [] { "a//", "a/", "a///b", "{urn:x", "{urn:x}", "a}b", "a*" })
+      try
+      {
+        ConceptPathExpression.compile (s);
+        fail (s);
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected
+      }
+  }
+}
@@ -0,0 +1,107 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.mock.CommonsTestHelper;
+
+import eu.toop.edm.pilot.gbm.EToopConcept;
+
+/**
+ * Test class for class {@link ConceptPath}.
+ *
+ * @author Philip Helger
+ */
+public final class ConceptPathTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final ConceptPath aRoot = ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION);
+    assertEquals (1, aRoot.getSegmentCount ());
+    assertNull (aRoot.getParentPath ());
+
+    final ConceptPath aChild = aRoot.getChildPath (EToopConcept.COMPANY_NAME.getAsQName ());
+    assertEquals (2, aChild.getSegmentCount ());
+    assertEquals (EToopConcept.COMPANY_NAME.getAsQName (), aChild.getLastSegment ());
+    assertEquals (aRoot, aChild.getParentPath ());
+    assertTrue (aChild.startsWith (aRoot));
+    assertTrue (aChild.startsWith (aChild));
+    assertFalse (aRoot.startsWith (aChild));
+    assertFalse (aChild.startsWith (ConceptPath.of (new QName ("urn:other", "x"))));
+    assertEquals (aChild, ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION, EToopConcept.COMPANY_NAME));
+    assertEquals ("{" + EToopConcept.NAMESPACE_URI + "}" + EToopConcept.REGISTERED_ORGANIZATION.getID () +
+                  "/{" + EToopConcept.NAMESPACE_URI + "}" + EToopConcept.COMPANY_NAME.getID (),
+                  aChild.toString ());
+
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (aChild,
+                                                                       ConceptPath.of (aChild.segments ()));
+    CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (aRoot, aChild);
+  }
+
+  @Test
+  public void testDeep ()
+  {
+    final ICommonsList <QName> aNames = new CommonsArrayList <> ();
+    ConceptPath aPath = null;
+    for (int i = 0; i < 1000; ++i)
+    {
+      final QName aName = new QName ("urn:test", "c" + (i % 7));
+      aNames.add (aName);
+      aPath = aPath == null ? ConceptPath.of (aName) : aPath.getChildPath (aName);
+    }
+    assertEquals (1000, aPath.getSegmentCount ());
+    assertEquals (aNames, aPath.segments ());
+    assertEquals (new QName ("urn:test", "c0"), aPath.getSegmentAtIndex (994));
+
+    // Built differently, but equal
+    final ConceptPath aOther = ConceptPath.of (aNames);
+    assertEquals (aPath, aOther);
+    assertEquals (aPath.hashCode (), aOther.hashCode ());
+    assertEquals (aNames.hashCode (), aOther.hashCode ());
+    assertTrue (aPath.startsWith (aOther.getParentPath ()));
+    assertFalse (aPath.getParentPath ().startsWith (aOther));
+    assertFalse (aPath.equals (aPath.getParentPath ().getChildPath (new QName ("urn:test", "other"))));
+  }
+}
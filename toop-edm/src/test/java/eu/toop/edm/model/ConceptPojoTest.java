@@ -37,12 +37,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
 
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -225,4 +228,137 @@ public final class ConceptPojoTest
 
     LOGGER.info (new ConceptMarshaller ().getAsString (y.getAsCCCEVConcept ()));
   }
+
+  @Test
+  public void testImmutable ()
+  {
+    final ConceptPojo x = ConceptPojo.builder ()
+                                     .randomID ()
+                                     .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                     .addChild (y -> y.randomID ().name (EToopConcept.COMPANY_NAME).valueText ("a", "b"))
+                                     .build ();
+    final int nHashCode = x.hashCode ();
+    assertEquals (nHashCode, x.hashCode ());
+    assertEquals (nHashCode, x.cloneAndModify (null).hashCode ());
+
+    try
+    {
+      x.children ().clear ();
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {
+      // Expected
+    }
+    try
+    {
+      x.children ().get (0).getValue ().text ().add ("c");
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {
+      // Expected
+    }
+
+    // Copies are still mutable
+    x.getAllChildren ().clear ();
+    assertEquals (1, x.children ().size ());
+    assertEquals (nHashCode, x.hashCode ());
+  }
+
+  @Nonnull
+  private static ConceptPojo _createTree (final int nWidth)
+  {
+    final ConceptPojo.Builder aRoot = ConceptPojo.builder ().randomID ().name (EToopConcept.REGISTERED_ORGANIZATION);
+    for (int i = 0; i < nWidth; ++i)
+    {
+      final ConceptPojo.Builder aChild = ConceptPojo.builder ().randomID ().name ("urn:test", "child" + i);
+      for (int j = 0; j < nWidth; ++j)
+        aChild.addChild (y -> y.randomID ().name ("urn:test", "leaf" + aChild.children ().size ()).valueText ("initial"));
+      aRoot.addChild (aChild);
+    }
+    return aRoot.build ();
+  }
+
+  private static int _countShared (@Nonnull final ConceptPojo x, @Nonnull final ConceptPojo y)
+  {
+    if (x == y)
+    {
+      final AtomicInteger ret = new AtomicInteger (0);
+      x.visitRecursive ( (nLevel, aPojo) -> ret.incrementAndGet ());
+      return ret.get ();
+    }
+    int ret = 0;
+    for (int i = 0; i < x.children ().size (); ++i)
+      ret += _countShared (x.children ().get (i), y.children ().get (i));
+    return ret;
+  }
+
+  @Test
+  public void testWithPath ()
+  {
+    final ConceptPojo x = _createTree (5);
+    final ConceptPath aPath = ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION.getAsQName (),
+                                              new QName ("urn:test", "child2"),
+                                              new QName ("urn:test", "leaf3"));
+    final ConceptValuePojo aValue = ConceptValuePojo.builder ().text ("changed").build ();
+    final ConceptPojo y = x.with (aPath, aValue);
+    assertNotSame (x, y);
+    assertNotEquals (x, y);
+
+    // Only the spine of 3 concepts was copied
+    assertEquals (1 + 5 + 25 - 3, _countShared (x, y));
+    assertSame (x.children ().get (1), y.children ().get (1));
+    assertSame (x.children ().get (2).children ().get (0), y.children ().get (2).children ().get (0));
+    assertEquals (aValue, y.children ().get (2).children ().get (3).getValue ());
+    assertEquals ("initial", x.children ().get (2).children ().get (3).getValue ().text ().get (0));
+
+    // Setting the same value again changes nothing
+    assertSame (y, y.with (aPath, aValue));
+
+    // Same as modifying everything
+    final ConceptPojo z = x.cloneAndModify (b -> {
+      if (b.name ().getLocalPart ().equals ("leaf3") && b.build ().equals (x.children ().get (2).children ().get (3)))
+        b.value (aValue);
+    });
+    assertEquals (y, z);
+
+    try
+    {
+      x.with (ConceptPath.of (new QName ("urn:test", "child2")), aValue);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // Expected
+    }
+    try
+    {
+      x.with (aPath.getParentPath ().getChildPath (new QName ("urn:test", "leaf99")), aValue);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testCloneAndModifyShares ()
+  {
+    final ConceptPojo x = _createTree (4);
+
+    // Nothing changed
+    assertSame (x, x.cloneAndModify (b -> {}));
+
+    // Change all leaves of the first child
+    final ConceptPojo y = x.cloneAndModify (b -> {
+      if (b.value () != null && b.id ().equals (x.children ().get (0).children ().get (0).getID ()))
+        b.valueText ("changed");
+    });
+    assertNotSame (x, y);
+    assertEquals (1 + 4 + 16 - 3, _countShared (x, y));
+    for (int i = 1; i < 4; ++i)
+      assertSame (x.children ().get (i), y.children ().get (i));
+  }
 }
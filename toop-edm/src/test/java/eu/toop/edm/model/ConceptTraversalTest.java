@@ -0,0 +1,269 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.hierarchy.visit.EHierarchyVisitorReturn;
+import com.helger.commons.state.EContinue;
+
+import eu.toop.edm.jaxb.cccev.CCCEVConceptType;
+
+/**
+ * Test class for class {@link ConceptTraversal}.
+ *
+ * @author Philip Helger
+ */
+public final class ConceptTraversalTest
+{
+  private static final String NS = "urn:test";
+
+  private static QName _qn (final String s)
+  {
+    return new QName (NS, s);
+  }
+
+  /**
+   * <pre>
+   * a
+   *   b
+   *     d
+   *     e
+   *   c
+   *     f
+   * </pre>
+   */
+  private static ConceptPojo _createTree ()
+  {
+    return ConceptPojo.builder ()
+                      .name (_qn ("a"))
+                      .addChild (b -> b.name (_qn ("b"))
+                                       .addChild (d -> d.name (_qn ("d")).value (v -> v.text ("1")))
+                                       .addChild (e -> e.name (_qn ("e")).value (v -> v.text ("2"))))
+                      .addChild (c -> c.name (_qn ("c")).addChild (f -> f.name (_qn ("f")).value (v -> v.text ("3"))))
+                      .build ();
+  }
+
+  private static String _names (final List <ConceptPojo> aList)
+  {
+    return aList.stream ().map (x -> x.getName ().getLocalPart ()).collect (Collectors.joining ());
+  }
+
+  @Test
+  public void testAll ()
+  {
+    final ConceptPojo aRoot = _createTree ();
+    final StringBuilder aSB = new StringBuilder ();
+    ConceptTraversal.ALL.forEach (aRoot, (nLevel, x) -> aSB.append (x.getName ().getLocalPart ()).append (nLevel));
+    assertEquals ("a0b1d2e2c1f2", aSB.toString ());
+
+    assertEquals ("abdecf", _names (ConceptTraversal.ALL.stream (aRoot).collect (Collectors.toList ())));
+
+    // Same as visitRecursive
+    final StringBuilder aSB2 = new StringBuilder ();
+    aRoot.visitRecursive ( (nLevel, x) -> aSB2.append (x.getName ().getLocalPart ()).append (nLevel));
+    assertEquals (aSB.toString (), aSB2.toString ());
+  }
+
+  @Test
+  public void testForEachWithPath ()
+  {
+    final ConceptPojo aRoot = ConceptPojo.builder ()
+                                         .name (_qn ("a"))
+                                         .addChild (b -> b.name (_qn ("b")).addChild (d -> d.name (_qn ("d"))))
+                                         .addChild (b -> b.name (_qn ("b")))
+                                         .addChild (x -> x.addChild (y -> y.name (_qn ("y"))))
+                                         .build ();
+    final ICommonsList <ConceptPath> aPaths = new CommonsArrayList <> ();
+    final StringBuilder aSB = new StringBuilder ();
+    ConceptTraversal.ALL.forEachWithPath (aRoot, (aPath, x) -> {
+      aPaths.add (aPath);
+      aSB.append (x.getName ().getLocalPart ());
+    });
+    // The unnamed concept and its children are skipped
+    assertEquals ("abdb", aSB.toString ());
+    assertEquals (ConceptPath.of (_qn ("a"), _qn ("b"), _qn ("d")), aPaths.get (2));
+    // Siblings with the same name share the path
+    assertSame (aPaths.get (1), aPaths.get (3));
+    assertSame (aPaths.get (0), aPaths.get (2).getParentPath ().getParentPath ());
+
+    // Filters are applied
+    aSB.setLength (0);
+    ConceptTraversal.builder ().level (1).build ().forEachWithPath (aRoot, (aPath, x) -> aSB.append (aPath.getSegmentCount ()));
+    assertEquals ("22", aSB.toString ());
+  }
+
+  @Test
+  public void testFilters ()
+  {
+    final ConceptPojo aRoot = _createTree ();
+    assertEquals ("bc", _names (ConceptTraversal.builder ().level (1).build ().stream (aRoot).collect (Collectors.toList ())));
+    assertEquals ("abc", _names (ConceptTraversal.builder ().maxLevel (1).build ().stream (aRoot).collect (Collectors.toList ())));
+    assertEquals ("def",
+                  _names (ConceptTraversal.builder ().minLevel (2).build ().stream (aRoot).collect (Collectors.toList ())));
+    assertEquals ("ef",
+                  _names (ConceptTraversal.builder ()
+                                          .names (_qn ("e"), _qn ("f"), _qn ("x"))
+                                          .build ()
+                                          .stream (aRoot)
+                                          .collect (Collectors.toList ())));
+    assertEquals ("def",
+                  _names (ConceptTraversal.builder ()
+                                          .filter (ConceptPojo::hasValue)
+                                          .build ()
+                                          .stream (aRoot)
+                                          .collect (Collectors.toList ())));
+
+    // Max level prunes the descent
+    final AtomicInteger aCount = new AtomicInteger ();
+    assertSame (EContinue.CONTINUE,
+                ConceptTraversal.builder ().maxLevel (1).build ().traverse (aRoot, (nLevel, x) -> {
+                  aCount.incrementAndGet ();
+                  assertTrue (nLevel <= 1);
+                  return EHierarchyVisitorReturn.CONTINUE;
+                }));
+    assertEquals (3, aCount.get ());
+  }
+
+  @Test
+  public void testEarlyTermination ()
+  {
+    final ConceptPojo aRoot = _createTree ();
+
+    // Stop
+    final ICommonsList <String> aSeen = new CommonsArrayList <> ();
+    assertSame (EContinue.BREAK, ConceptTraversal.ALL.traverse (aRoot, (nLevel, x) -> {
+      aSeen.add (x.getName ().getLocalPart ());
+      return x.getName ().getLocalPart ().equals ("d") ? EHierarchyVisitorReturn.STOP_ITERATION
+                                                       : EHierarchyVisitorReturn.CONTINUE;
+    }));
+    assertEquals ("[a, b, d]", aSeen.toString ());
+
+    // Skip children
+    aSeen.clear ();
+    assertSame (EContinue.CONTINUE, ConceptTraversal.ALL.traverse (aRoot, (nLevel, x) -> {
+      aSeen.add (x.getName ().getLocalPart ());
+      return x.getName ().getLocalPart ().equals ("b") ? EHierarchyVisitorReturn.USE_NEXT_SIBLING
+                                                       : EHierarchyVisitorReturn.CONTINUE;
+    }));
+    assertEquals ("[a, b, c, f]", aSeen.toString ());
+
+    // Skip siblings
+    aSeen.clear ();
+    ConceptTraversal.ALL.traverse (aRoot, (nLevel, x) -> {
+      aSeen.add (x.getName ().getLocalPart ());
+      return x.getName ().getLocalPart ().equals ("d") ? EHierarchyVisitorReturn.USE_PARENTS_NEXT_SIBLING
+                                                       : EHierarchyVisitorReturn.CONTINUE;
+    });
+    assertEquals ("[a, b, d, c, f]", aSeen.toString ());
+
+    // Find first
+    assertEquals ("e", ConceptTraversal.ALL.findFirst (aRoot, x -> x.hasValue () && x.getValue ().getAsString ().equals ("2"))
+                                           .getName ()
+                                           .getLocalPart ());
+    assertNull (ConceptTraversal.ALL.findFirst (aRoot, x -> false));
+  }
+
+  @Test
+  public void testParallelStream ()
+  {
+    // Wide and moderately deep tree
+    final ConceptPojo.Builder aRoot = ConceptPojo.builder ().name (_qn ("root"));
+    int nExpected = 1;
+    for (int i = 0; i < 200; ++i)
+    {
+      final ConceptPojo.Builder aChild = ConceptPojo.builder ().name (_qn ("c" + i));
+      for (int j = 0; j < 50; ++j)
+        aChild.addChild (ConceptPojo.builder ().name (_qn ("c" + i + "_" + j)));
+      aRoot.addChild (aChild);
+      nExpected += 51;
+    }
+    final ConceptPojo aTree = aRoot.build ();
+
+    final List <ConceptPojo> aSequential = ConceptTraversal.ALL.stream (aTree).collect (Collectors.toList ());
+    assertEquals (nExpected, aSequential.size ());
+
+    // Order is maintained
+    final List <ConceptPojo> aParallel = ConceptTraversal.ALL.parallelStream (aTree).collect (Collectors.toList ());
+    assertEquals (aSequential.size (), aParallel.size ());
+    for (int i = 0; i < aSequential.size (); ++i)
+      assertSame (aSequential.get (i), aParallel.get (i));
+
+    assertEquals (200, ConceptTraversal.builder ().level (1).build ().parallelStream (aTree).count ());
+    assertEquals (200 * 50, ConceptTraversal.builder ().minLevel (2).build ().parallelStream (aTree).count ());
+  }
+
+  @Test
+  public void testDeepTree ()
+  {
+    // Way too deep for recursion
+    final int nDepth = 100_000;
+    ConceptPojo aCur = new ConceptPojo (null, _qn ("leaf"), ConceptValuePojo.builder ().text ("x").build (), null);
+    for (int i = 0; i < nDepth; ++i)
+      aCur = new ConceptPojo (null, _qn ("n"), null, new CommonsArrayList <> (aCur));
+    final ConceptPojo aRoot = aCur;
+
+    final AtomicInteger aMaxLevel = new AtomicInteger ();
+    aRoot.visitRecursive ( (nLevel, x) -> aMaxLevel.set (Math.max (aMaxLevel.get (), nLevel)));
+    assertEquals (nDepth, aMaxLevel.get ());
+    assertEquals (nDepth + 1, ConceptTraversal.ALL.stream (aRoot).count ());
+    assertNotNull (ConceptTraversal.ALL.findFirst (aRoot, ConceptPojo::hasValue));
+
+    // To JAXB and back
+    final CCCEVConceptType aJaxb = aRoot.getAsCCCEVConcept ();
+    final ConceptPojo aRead = ConceptPojo.builder (aJaxb).build ();
+    assertEquals (nDepth + 1, ConceptTraversal.ALL.stream (aRead).count ());
+
+    // Modify the leaf only
+    final ConceptPojo aModified = aRoot.cloneAndModify (b -> {
+      if (b.children ().isEmpty ())
+        b.value (v -> v.text ("y"));
+    });
+    assertEquals ("y", ConceptTraversal.ALL.findFirst (aModified, ConceptPojo::hasValue).getValue ().getAsString ());
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.commons.mock.CommonsTestHelper;
+
+import eu.toop.edm.jaxb.cccev.CCCEVValueType;
+
+/**
+ * Test class for class {@link ConceptValuePojo}
+ *
+ * @author Philip Helger
+ */
+public final class ConceptValuePojoTest
+{
+  private static void _testWriteAndRead (@Nonnull final ConceptValuePojo x, @Nonnull final EConceptValueType eExpectedType)
+  {
+    assertNotNull (x);
+    assertEquals (eExpectedType, x.getValueType ());
+    assertNotNull (x.getAsString ());
+
+    final CCCEVValueType aObj = x.getAsCCCEVValueType ();
+    assertNotNull (aObj);
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (aObj, aObj.clone ());
+
+    // Re-read
+    final ConceptValuePojo y = ConceptValuePojo.builder (aObj).build ();
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (x, y);
+  }
+
+  @Test
+  public void testAllTypes ()
+  {
+    _testWriteAndRead (ConceptValuePojo.builder ().identifier ("id").build (), EConceptValueType.IDENTIFIER);
+    _testWriteAndRead (ConceptValuePojo.builder ().amount (new BigDecimal ("12.5"), "EUR").build (), EConceptValueType.AMOUNT);
+    _testWriteAndRead (ConceptValuePojo.builder ().code ("code").build (), EConceptValueType.CODE);
+    _testWriteAndRead (ConceptValuePojo.builder ().date (PDTFactory.getCurrentLocalDate ()).build (), EConceptValueType.DATE);
+    _testWriteAndRead (ConceptValuePojo.builder ().indicator (false).build (), EConceptValueType.INDICATOR);
+    _testWriteAndRead (ConceptValuePojo.builder ().measure (new BigDecimal ("3"), "KGM").build (), EConceptValueType.MEASURE);
+    _testWriteAndRead (ConceptValuePojo.builder ().numeric (42).build (), EConceptValueType.NUMERIC);
+    _testWriteAndRead (ConceptValuePojo.builder ()
+                                       .period (PDTFactory.getCurrentLocalDateTime ().minusDays (1), PDTFactory.getCurrentLocalDateTime ())
+                                       .build (),
+                       EConceptValueType.PERIOD);
+    _testWriteAndRead (ConceptValuePojo.builder ().quantity (new BigDecimal ("7"), "C62").build (), EConceptValueType.QUANTITY);
+    _testWriteAndRead (ConceptValuePojo.builder ().text ("a", "b").build (), EConceptValueType.TEXT);
+    _testWriteAndRead (ConceptValuePojo.builder ().time (LocalTime.of (10, 11, 12)).build (), EConceptValueType.TIME);
+    _testWriteAndRead (ConceptValuePojo.builder ().uri ("http://www.example.org").build (), EConceptValueType.URI);
+    _testWriteAndRead (ConceptValuePojo.builder ().errorCode ("DP_ELE_001").build (), EConceptValueType.ERROR_CODE);
+  }
+
+  @Nonnull
+  private static ConceptValuePojo _create (@Nullable final String sCode,
+                                           @Nullable final Boolean aIndicator,
+                                           @Nullable final BigDecimal aNumeric,
+                                           @Nullable final List <String> aText)
+  {
+    return new ConceptValuePojo (null, null, sCode, null, aIndicator, null, aNumeric, null, null, aText, null, null, null);
+  }
+
+  @Test
+  public void testEmpty ()
+  {
+    // Not possible via the builder
+    final ConceptValuePojo x = _create (null, null, null, new CommonsArrayList <> ());
+    assertNull (x.getValueType ());
+    assertNull (x.getAsString ());
+    assertNull (x.getAsCCCEVValueType ());
+    assertTrue (x.text ().isEmpty ());
+    assertTrue (x.getAllTexts ().isEmpty ());
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (x, _create (null, null, null, null));
+  }
+
+  @Test
+  public void testMultipleValues ()
+  {
+    // Not possible via the builder, but all values must be retained
+    final ConceptValuePojo x = _create ("code", Boolean.TRUE, BigDecimal.TEN, null);
+    assertEquals (EConceptValueType.CODE, x.getValueType ());
+    assertEquals ("code", x.getCode ());
+    assertEquals (Boolean.TRUE, x.getBoolean ());
+    assertEquals (BigDecimal.TEN, x.getNumeric ());
+    assertNull (x.getIdentifier ());
+    assertTrue (x.text ().isEmpty ());
+    assertEquals ("code", x.getAsString ());
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (x, _create ("code", Boolean.TRUE, BigDecimal.TEN, null));
+    CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (x, _create ("code", Boolean.FALSE, BigDecimal.TEN, null));
+    CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (x, ConceptValuePojo.builder ().code ("code").build ());
+  }
+}
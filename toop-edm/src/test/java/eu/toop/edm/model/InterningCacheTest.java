@@ -0,0 +1,116 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import com.helger.commons.io.resource.ClassPathResource;
+
+import eu.toop.edm.EDMRequest;
+
+/**
+ * Test class for class {@link InterningCache} and {@link EDMInterner}.
+ *
+ * @author Philip Helger
+ */
+public final class InterningCacheTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final InterningCache <String> aCache = new InterningCache <> ("Test", 2);
+    assertNull (aCache.intern (null));
+    assertEquals (0, aCache.getHits () + aCache.getMisses ());
+    assertEquals (0, aCache.getHitRate (), 0);
+
+    final String s1 = new String ("a");
+    final String s2 = new String ("a");
+    assertNotSame (s1, s2);
+    assertSame (s1, aCache.intern (s1));
+    assertSame (s1, aCache.intern (s2));
+    assertEquals (1, aCache.getHits ());
+    assertEquals (1, aCache.getMisses ());
+    assertEquals (0.5, aCache.getHitRate (), 0);
+    assertEquals (1, aCache.getRetainedCount ());
+
+    // Fill up
+    assertSame ("b", aCache.intern ("b"));
+    assertEquals (2, aCache.getRetainedCount ());
+
+    // Full - not retained
+    final String s3 = new String ("c");
+    final String s4 = new String ("c");
+    assertSame (s3, aCache.intern (s3));
+    assertSame (s4, aCache.intern (s4));
+    assertEquals (2, aCache.getRetainedCount ());
+    assertSame (s1, aCache.intern (new String ("a")));
+
+    aCache.clear ();
+    assertEquals (0, aCache.getRetainedCount ());
+    assertEquals (0, aCache.getHits ());
+    assertEquals (0, aCache.getMisses ());
+  }
+
+  @Test
+  public void testEDMInterner ()
+  {
+    final QName aQName = new QName ("urn:test", "test");
+    assertSame (aQName, EDMInterner.internQName (aQName));
+
+    EDMInterner.setEnabled (true);
+    try
+    {
+      final EDMRequest aRequest1 = EDMRequest.reader ().read (new ClassPathResource ("Concept Request_LP.xml"));
+      final EDMRequest aRequest2 = EDMRequest.reader ().read (new ClassPathResource ("Concept Request_LP.xml"));
+      assertNotSame (aRequest1, aRequest2);
+      assertEquals (aRequest1, aRequest2);
+      assertSame (aRequest1.getDataConsumer (), aRequest2.getDataConsumer ());
+      assertSame (aRequest1.getDataConsumer ().getAddress ().getCountryCode (),
+                  aRequest2.getDataConsumer ().getAddress ().getCountryCode ());
+      assertEquals (1, EDMInterner.getAgentCache ().getHits ());
+    }
+    finally
+    {
+      EDMInterner.setEnabled (false);
+      EDMInterner.clearAll ();
+    }
+  }
+}
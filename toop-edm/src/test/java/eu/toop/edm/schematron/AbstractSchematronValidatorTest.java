@@ -0,0 +1,188 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.xml.serialize.read.DOMReader;
+
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.model.EToopIdentifierType;
+import eu.toop.edm.model.EToopResponseOptionType;
+import eu.toop.edm.pilot.gbm.EToopConcept;
+
+/**
+ * Test class for class {@link AbstractSchematronValidator}.
+ *
+ * @author Philip Helger
+ */
+public final class AbstractSchematronValidatorTest
+{
+  private static final String [] FILES = { "Concept Request_LP.xml",
+                                           "Concept Request_NP.xml",
+                                           "Concept Response.xml",
+                                           "Document Request_LP.xml",
+                                           "Error Response 1.xml" };
+
+  @Nonnull
+  private static String _validateUncompiled (@Nonnull final AbstractSchematronValidator aValidator,
+                                             @Nonnull final Document aDoc) throws Exception
+  {
+    return SVRLTestHelper.getAsString (SVRLHelper.getAllFailedAssertionsAndSuccessfulReports (aValidator.createSchematronResource ()
+                                                                                       .applySchematronValidationToSVRL (aDoc,
+                                                                                                                         null)));
+  }
+
+  @Test
+  public void testSharedCompilation ()
+  {
+    assertSame (new SchematronEDM2Validator ().getCompiledSchematron (), new SchematronEDM2Validator ().getCompiledSchematron ());
+    assertSame (new SchematronBusinessRules2Validator ().getCompiledSchematron (),
+                new SchematronBusinessRules2Validator ().getCompiledSchematron ());
+  }
+
+  @Test
+  public void testConcurrentSameResult () throws Exception
+  {
+    final AbstractSchematronValidator [] aValidators = { new SchematronEDM2Validator (), new SchematronBusinessRules2Validator () };
+
+    // Expected results from a fresh resource each
+    final ICommonsList <Document> aDocs = new CommonsArrayList <> ();
+    final ICommonsList <String> aExpected = new CommonsArrayList <> ();
+    for (final String sFile : FILES)
+    {
+      final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource (sFile));
+      assertNotNull (sFile, aDoc);
+      aDocs.add (aDoc);
+      for (final AbstractSchematronValidator aValidator : aValidators)
+        aExpected.add (_validateUncompiled (aValidator, aDoc));
+    }
+
+    final ExecutorService aES = Executors.newFixedThreadPool (4);
+    try
+    {
+      final ICommonsList <Future <String>> aFutures = new CommonsArrayList <> ();
+      for (int nRun = 0; nRun < 5; ++nRun)
+        for (final Document aDoc : aDocs)
+          for (final AbstractSchematronValidator aValidator : aValidators)
+            aFutures.add (aES.submit ( () -> SVRLTestHelper.getAsString (aValidator.validateDocument (aDoc))));
+
+      for (int i = 0; i < aFutures.size (); ++i)
+        assertEquals (aExpected.get (i % aExpected.size ()), aFutures.get (i).get ());
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+
+  @Test
+  public void testFlagLevel ()
+  {
+    assertSame (ESchematronFlagLevel.ERROR, ESchematronFlagLevel.getFromFlag ("ERROR"));
+    assertSame (ESchematronFlagLevel.ERROR, ESchematronFlagLevel.getFromFlag (null));
+    assertSame (ESchematronFlagLevel.ERROR, ESchematronFlagLevel.getFromFlag ("bla"));
+    assertSame (ESchematronFlagLevel.WARNING, ESchematronFlagLevel.getFromFlag ("warning"));
+    assertSame (ESchematronFlagLevel.WARNING, ESchematronFlagLevel.getFromFlag ("warn"));
+    assertSame (ESchematronFlagLevel.FATAL, ESchematronFlagLevel.getFromFlag ("Fatal"));
+    assertTrue (ESchematronFlagLevel.FATAL.isAtLeast (ESchematronFlagLevel.ERROR));
+    assertTrue (ESchematronFlagLevel.ERROR.isAtLeast (ESchematronFlagLevel.ERROR));
+    assertTrue (!ESchematronFlagLevel.WARNING.isAtLeast (ESchematronFlagLevel.ERROR));
+  }
+
+  @Test
+  public void testValidationModes ()
+  {
+    // Errors and warnings
+    final Document aDoc = EDMRequest.builderConcept ()
+                                    .specificationIdentifier ("toop-edm:v2.0")
+                                    .responseOption (EToopResponseOptionType.INLINE)
+                                    .randomID ()
+                                    .issueDateTimeNow ()
+                                    .procedure (Locale.US, "GBM Procedure")
+                                    .dataConsumer (x -> x.address (y -> y.countryCode ("GR")).name ("DC NAME"))
+                                    .dataSubjectBusiness (x -> x.legalID ("12345")
+                                                                .legalIDSchemeID (EToopIdentifierType.LEI)
+                                                                .legalName ("NiarTsiou")
+                                                                .address (y -> y.countryCode ("XX")))
+                                    .concept (x -> x.randomID ().name (EToopConcept.COMPANY_TYPE))
+                                    .build ()
+                                    .getWriter ()
+                                    .getAsDocument ();
+    assertNotNull (aDoc);
+    final SchematronBusinessRules2Validator aValidator = new SchematronBusinessRules2Validator ();
+
+    final ICommonsList <AbstractSVRLMessage> aAll = aValidator.validateDocument (aDoc);
+    assertEquals (SVRLTestHelper.getAsString (aAll), SVRLTestHelper.getAsString (aValidator.validateDocument (aDoc, SchematronValidationMode.ALL)));
+    // All flagged or unflagged errors except the warning of the LEI rule
+    final ICommonsList <AbstractSVRLMessage> aErrors = aAll.getAll (x -> !"br_invalid_lei_length".equals (x.getID ()));
+    assertTrue (aErrors.isNotEmpty ());
+    assertTrue (aErrors.size () < aAll.size ());
+
+    // Only errors
+    assertEquals (SVRLTestHelper.getAsString (aErrors),
+                  SVRLTestHelper.getAsString (aValidator.validateDocument (aDoc, SchematronValidationMode.minimumLevel (ESchematronFlagLevel.ERROR))));
+    assertTrue (aValidator.validateDocument (aDoc, SchematronValidationMode.minimumLevel (ESchematronFlagLevel.FATAL)).isEmpty ());
+
+    // Only the first error - twice to make sure the transformer is still fine
+    for (int i = 0; i < 2; ++i)
+    {
+      final ICommonsList <AbstractSVRLMessage> aFirst = aValidator.validateDocument (aDoc, SchematronValidationMode.FAIL_FAST);
+      assertEquals (SVRLTestHelper.getAsString (new CommonsArrayList <> (aErrors.getFirst ())), SVRLTestHelper.getAsString (aFirst));
+    }
+    assertEquals (SVRLTestHelper.getAsString (new CommonsArrayList <> (aAll.getFirst ())),
+                  SVRLTestHelper.getAsString (aValidator.validateDocument (aDoc, SchematronValidationMode.failFast (ESchematronFlagLevel.INFO))));
+
+    // Normal validation still works afterwards
+    assertEquals (SVRLTestHelper.getAsString (aAll), SVRLTestHelper.getAsString (aValidator.validateDocument (aDoc)));
+  }
+}
@@ -0,0 +1,180 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.schematron.ISchematronResource;
+import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link CodeListXSLTOptimizer}.
+ *
+ * @author Philip Helger
+ */
+public final class CodeListXSLTOptimizerTest
+{
+  private static final String [] FILES = { "Concept Request_LP.xml",
+                                           "Concept Request_NP.xml",
+                                           "Concept Response.xml",
+                                           "Document Request_LP.xml",
+                                           "Document Request_NP.xml",
+                                           "Document Response.xml",
+                                           "Error Response 1.xml",
+                                           "request/request1.xml",
+                                           "request/edm-jonas1.xml",
+                                           "error-response/edm-jonas2.xml" };
+  private static final Pattern CODE_LIKE = Pattern.compile ("[A-Za-z0-9:/._-]{2,12}");
+
+  @Test
+  public void testRewriteTest ()
+  {
+    final ICommonsMap <String, String> aVars = new CommonsHashMap <> ();
+    aVars.put ("countrycodes", "external/CountryIdentificationCode-2.2.gc");
+
+    assertEquals ("toopcl:contains('external/CountryIdentificationCode-2.2.gc', normalize-space(current()/.))",
+                  CodeListXSLTOptimizer.rewriteTest ("$countrycodes/SimpleValue[normalize-space(.) = normalize-space(current()/.)]", aVars));
+    assertEquals ("( (toopcl:contains('external/CountryIdentificationCode-2.2.gc', (tokenize(normalize-space(current()/.),'/')[1]))) or ($x=false()) )",
+                  CodeListXSLTOptimizer.rewriteTest ("( ($countrycodes/SimpleValue[normalize-space(.) = (tokenize(normalize-space(current()/.),'/')[1])]) or ($x=false()) )",
+                                                     aVars));
+    // Unknown variables and other expressions are untouched
+    assertEquals ("$other/SimpleValue[normalize-space(.) = 'a']",
+                  CodeListXSLTOptimizer.rewriteTest ("$other/SimpleValue[normalize-space(.) = 'a']", aVars));
+    assertEquals ("$countrycodes/SimpleValue[. = 'a']", CodeListXSLTOptimizer.rewriteTest ("$countrycodes/SimpleValue[. = 'a']", aVars));
+
+    assertEquals ("toop/Gender-CodeList.gc", CodeListXSLTOptimizer.getCodeListPath ("..\\codelist\\toop\\Gender-CodeList.gc"));
+  }
+
+  @Test
+  public void testOptimizeBusinessRules ()
+  {
+    final Document aDoc = DOMReader.readXMLDOM (CEDMSchematron.TOOP_BUSINESS_RULES_XSLT);
+    assertNotNull (aDoc);
+    assertEquals (16, CodeListXSLTOptimizer.optimize (aDoc));
+    // Only once
+    assertEquals (0, CodeListXSLTOptimizer.optimize (aDoc));
+
+    // The other rules contain no code lists
+    assertEquals (0, CodeListXSLTOptimizer.optimize (DOMReader.readXMLDOM (CEDMSchematron.TOOP_EDM2_XSLT)));
+  }
+
+  @Test
+  public void testCodeListCache ()
+  {
+    assertTrue (CodeListCache.containsCode ("toop/Gender-CodeList.gc", "M"));
+    assertFalse (CodeListCache.containsCode ("toop/Gender-CodeList.gc", " M"));
+    assertTrue (CodeListCache.containsCode ("external/CountryIdentificationCode-2.2.gc", "AT"));
+    assertEquals ("a b c", CodeListCache.getNormalizedSpace ("\n a \t b\r\nc  "));
+  }
+
+  private static void _collectCodeLikeNodes (@Nonnull final Node aNode, @Nonnull final ICommonsList <Node> aTarget)
+  {
+    if (aNode.getNodeType () == Node.TEXT_NODE && CODE_LIKE.matcher (aNode.getNodeValue ().trim ()).matches ())
+      aTarget.add (aNode);
+    final NamedNodeMap aAttrs = aNode.getAttributes ();
+    if (aAttrs != null)
+      for (int i = 0; i < aAttrs.getLength (); ++i)
+      {
+        final Attr aAttr = (Attr) aAttrs.item (i);
+        if (aAttr.getNamespaceURI () == null && CODE_LIKE.matcher (aAttr.getValue ()).matches ())
+          aTarget.add (aAttr);
+      }
+    for (Node aChild = aNode.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+      _collectCodeLikeNodes (aChild, aTarget);
+  }
+
+  @Test
+  public void testSameSVRLAsOriginal () throws Exception
+  {
+    // Original XSLT, compiled by ph-schematron
+    final SchematronBusinessRules2Validator aValidator = new SchematronBusinessRules2Validator ();
+    final ISchematronResource aOriginal = aValidator.createSchematronResource ();
+
+    int nDocs = 0;
+    int nWithErrors = 0;
+    for (final String sFile : FILES)
+    {
+      final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource (sFile));
+      assertNotNull (sFile, aDoc);
+
+      // Each code-like value on its own is made invalid
+      final ICommonsList <Node> aNodes = new CommonsArrayList <> ();
+      _collectCodeLikeNodes (aDoc, aNodes);
+      aNodes.add (0, null);
+      for (final Node aNode : aNodes)
+      {
+        final String sOld = aNode == null ? null : aNode.getNodeValue ();
+        if (aNode != null)
+          aNode.setNodeValue (sOld + "X");
+        try
+        {
+          final String sExpected = SVRLTestHelper.getAsString (SVRLHelper.getAllFailedAssertionsAndSuccessfulReports (aOriginal.applySchematronValidationToSVRL (aDoc,
+                                                                                                                                                null)));
+          final String sActual = SVRLTestHelper.getAsString (aValidator.validateDocument (aDoc));
+          assertEquals (sFile + " / " + sOld, sExpected, sActual);
+          nDocs++;
+          if (!sActual.isEmpty ())
+            nWithErrors++;
+        }
+        finally
+        {
+          if (aNode != null)
+            aNode.setNodeValue (sOld);
+        }
+      }
+    }
+    // Make sure the code list checks were really triggered
+    assertTrue (nDocs > FILES.length);
+    assertTrue (nWithErrors > 0);
+  }
+}
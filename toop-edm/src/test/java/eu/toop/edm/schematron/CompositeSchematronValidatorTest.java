@@ -0,0 +1,143 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link CompositeSchematronValidator}.
+ *
+ * @author Philip Helger
+ */
+public final class CompositeSchematronValidatorTest
+{
+  @Nonnull
+  private static String _asString (@Nonnull final ICommonsList <SchematronMessageWithOrigin> aMsgs)
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (final SchematronMessageWithOrigin aMsg : aMsgs)
+      aSB.append (aMsg.getRuleSet ().getPath ())
+         .append (':')
+         .append (aMsg.getMessage ().getID ())
+         .append (':')
+         .append (aMsg.getMessage ().getLocation ())
+         .append (':')
+         .append (aMsg.getMessage ().getText ())
+         .append ('\n');
+    return aSB.toString ();
+  }
+
+  @Nonnull
+  private static String _validateSequential (@Nonnull final CompositeSchematronValidator aComposite, @Nonnull final Document aDoc)
+  {
+    final ICommonsList <SchematronMessageWithOrigin> ret = new CommonsArrayList <> ();
+    for (final AbstractSchematronValidator aValidator : aComposite.getAllValidators ())
+      for (final AbstractSVRLMessage aMsg : aValidator.validateDocument (aDoc))
+        ret.add (new SchematronMessageWithOrigin (aValidator, aMsg));
+    return _asString (ret);
+  }
+
+  @Test
+  public void testSameResultAsSequential ()
+  {
+    final CompositeSchematronValidator aComposite = new CompositeSchematronValidator ();
+    assertEquals (2, aComposite.getAllValidators ().size ());
+
+    // The tree can be shared
+    assertSame (new SchematronEDM2Validator ().getCompiledSchematron ().getSaxonConfiguration (),
+                new SchematronBusinessRules2Validator ().getCompiledSchematron ().getSaxonConfiguration ());
+
+    int nWithMessages = 0;
+    int nWithBothRuleSets = 0;
+    for (final Map.Entry <String, IReadableResource> aEntry : SchematronTestDocuments.getAllResources ().entrySet ())
+    {
+      final String sName = aEntry.getKey ();
+      final Document aDoc = DOMReader.readXMLDOM (aEntry.getValue ());
+      assertNotNull (sName, aDoc);
+
+      final String sExpected = _validateSequential (aComposite, aDoc);
+      final ICommonsList <SchematronMessageWithOrigin> aMsgs = aComposite.validateDocument (aDoc);
+      assertEquals (sName, sExpected, _asString (aMsgs));
+      assertEquals (sName, sExpected, _asString (aComposite.validateResource (aEntry.getValue ())));
+      if (!sExpected.isEmpty ())
+        nWithMessages++;
+      if (new CommonsHashSet <> (aMsgs, x -> x.getRuleSet ().getPath ()).size () > 1)
+        nWithBothRuleSets++;
+    }
+    // Make sure the merge order and the origin are really checked
+    assertTrue (nWithMessages > 10);
+    assertTrue (nWithBothRuleSets > 5);
+  }
+
+  @Test
+  public void testBatch ()
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (4);
+    try
+    {
+      final CompositeSchematronValidator aComposite = new CompositeSchematronValidator (aES,
+                                                                                        new SchematronEDM2Validator (),
+                                                                                        new SchematronBusinessRules2Validator ());
+      final ICommonsList <IReadableResource> aResources = SchematronTestDocuments.getAllResources ().copyOfValues ();
+
+      final ICommonsList <ICommonsList <SchematronMessageWithOrigin>> aResults = aComposite.validateAllResources (aResources);
+      assertEquals (aResources.size (), aResults.size ());
+      for (int i = 0; i < aResources.size (); ++i)
+        assertEquals (_validateSequential (aComposite, DOMReader.readXMLDOM (aResources.get (i))), _asString (aResults.get (i)));
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+}
@@ -0,0 +1,506 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Month;
+import java.util.Locale;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.commons.mime.CMimeType;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+
+import eu.toop.edm.CToopEDM;
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.error.EDMExceptionPojo;
+import eu.toop.edm.error.EEDMExceptionType;
+import eu.toop.edm.error.EToopDataElementResponseErrorCode;
+import eu.toop.edm.error.EToopErrorCode;
+import eu.toop.edm.error.EToopErrorOrigin;
+import eu.toop.edm.error.EToopErrorSeverity;
+import eu.toop.edm.jaxb.cccev.CCCEVRequirementType;
+import eu.toop.edm.jaxb.cv.cbc.IDType;
+import eu.toop.edm.model.BusinessPojo;
+import eu.toop.edm.model.DatasetPojo;
+import eu.toop.edm.model.EToopDistributionFormat;
+import eu.toop.edm.model.EToopGenderCode;
+import eu.toop.edm.model.EToopIdentifierType;
+import eu.toop.edm.model.EToopLanguageCode;
+import eu.toop.edm.model.EToopResponseOptionType;
+import eu.toop.edm.model.PersonPojo;
+import eu.toop.edm.pilot.gbm.EToopConcept;
+import eu.toop.regrep.ERegRepResponseStatus;
+import eu.toop.regrep.rim.LocalizedStringType;
+
+/**
+ * Test class for class {@link NativeBusinessRules2Validator}. Each object is
+ * validated natively and with the XSLT and the results must be identical.<br>
+ * Besides a few hand made objects, the corpus contains variations of a valid
+ * object that are generated for each rule: the fields checked by the rule are
+ * left out or set to invalid values one by one. The locations cannot be
+ * compared as strings, because the native validator reports a readable path
+ * and the XSLT the full XPath with namespace predicates. Instead they must
+ * denote the same partition: two messages have the same location natively if
+ * and only if they have the same location in the XSLT.
+ *
+ * @author Philip Helger
+ */
+public final class NativeBusinessRules2ValidatorTest
+{
+  private static final SchematronBusinessRules2Validator XSLT = new SchematronBusinessRules2Validator (false);
+  private static final SchematronBusinessRules2Validator NATIVE = new SchematronBusinessRules2Validator (true);
+
+  // The variations used for the generated objects. The first entry of each
+  // array is valid, null means the field is missing.
+  private static final String [] SPEC_IDS = { CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21, "toop-edm:v2.0", "bla" };
+  private static final String [] COUNTRIES = { "GR", null, "XX", "gr", " AT " };
+  private static final String [] GENDERS = { "M", null, "X", "m", " F " };
+  // Pairs of identifier and scheme ID
+  private static final String [] [] IDS = { { "DE/AT/12345", "EIDAS" },
+                                             { "XX/AT/12345", "EIDAS" },
+                                             { "DE/YY/12345", "EIDAS" },
+                                             { "QQ/ZZ/12345", "EIDAS" },
+                                             { " de/at/12345 ", "EIDAS" },
+                                             { "12345678901234567890", "LEI" },
+                                             { "12345", "LEI" },
+                                             { "01.11", "SIC" },
+                                             { "99.99", "SIC" },
+                                             { "id", "foo" } };
+  private static final String [] MEDIA_TYPES = { CMimeType.APPLICATION_PDF.getAsString (), null, "foo/bar", "APPLICATION/PDF" };
+  private static final String [] DOCUMENT_IDS = { UUID.randomUUID ().toString (),
+                                                  "  " + UUID.randomUUID ().toString () + " ",
+                                                  UUID.randomUUID ().toString ().toUpperCase (Locale.ROOT),
+                                                  "no-uuid" };
+  private static final String [] LANGUAGES = { EToopLanguageCode.EN.getID (), null, "xx", "EN" };
+  private static final String [] CURRENCIES = { "EUR", "XYZ", "eur" };
+  private static final String [] DATA_ELEMENT_ERRORS = { EToopDataElementResponseErrorCode.DP_ELE_001.getID (),
+                                                         EToopErrorCode.GEN.getID (),
+                                                         "NOPE",
+                                                         "dp_ele_001" };
+  private static final String [] ERROR_CODES = { EToopErrorCode.GEN.getID (), null, "NOPE" };
+  private static final String [] ERROR_ORIGINS = { EToopErrorOrigin.RESPONSE_RECEPTION.getID (), null, "somewhere" };
+
+  @Nonnull
+  private static LocalizedStringType _ls (@Nonnull final String sLang, @Nonnull final String sValue)
+  {
+    final LocalizedStringType ret = new LocalizedStringType ();
+    ret.setLang (sLang);
+    ret.setValue (sValue);
+    return ret;
+  }
+
+  @Nonnull
+  private static PersonPojo.Builder _np (@Nullable final String sGender, @Nullable final String sCountry, @Nonnull final String sID)
+  {
+    return PersonPojo.builder ()
+                     .address (x -> x.town ("MyTown").countryCode (sCountry).postalCode ("11134"))
+                     .birthDate (PDTFactory.createLocalDate (1994, Month.FEBRUARY, 1))
+                     .familyName ("Doe")
+                     .genderCode (sGender)
+                     .givenName ("John")
+                     .id (sID)
+                     .idSchemeID (EToopIdentifierType.EIDAS);
+  }
+
+  @Nonnull
+  private static BusinessPojo.Builder _lp (@Nonnull final String sLegalID,
+                                           @Nonnull final String sLegalIDSchemeID,
+                                           @Nullable final String sCountry)
+  {
+    return BusinessPojo.builder ()
+                       .address (x -> x.town ("MyTown").countryCode (sCountry))
+                       .legalID (sLegalID)
+                       .legalIDSchemeID (sLegalIDSchemeID)
+                       .legalName ("NiarTsiou")
+                       .id ("anID")
+                       .idSchemeID (EToopIdentifierType.VATREGISTRATION);
+  }
+
+  @Nonnull
+  private static <T extends EDMRequest.AbstractBuilder <T>> T _req (@Nonnull final T aBuilder)
+  {
+    return aBuilder.specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                   .responseOption (EToopResponseOptionType.INLINE)
+                   .randomID ()
+                   .issueDateTimeNow ()
+                   .procedure (Locale.US, "GBM Procedure")
+                   .addFullfillingRequirement (new CCCEVRequirementType ())
+                   .dataConsumer (x -> x.address (y -> y.town ("MyTown").countryCode ("GR"))
+                                        .name ("DC NAME")
+                                        .id ("1234")
+                                        .idSchemeID (EToopIdentifierType.VATREGISTRATION))
+                   .authorizedRepresentative (_np ("M", "GR", "LALALA"));
+  }
+
+  @Nonnull
+  private static ICommonsList <EDMRequest> _createRequests ()
+  {
+    final ICommonsList <EDMRequest> ret = new CommonsArrayList <> ();
+    // Valid
+    ret.add (_req (EDMRequest.builderConcept ()).dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR"))
+                                                .concept (x -> x.randomID ()
+                                                                .name (EToopConcept.COMPANY_TYPE)
+                                                                .addChild (y -> y.randomID ().name (EToopConcept.COMPANY_NAME)))
+                                                .build ());
+    // Wrong specification identifier, procedure languages, country codes
+    ret.add (_req (EDMRequest.builderConcept ()).specificationIdentifier ("toop-edm:v2.0")
+                                                .procedure (_ls ("en", "a"), _ls ("en", "b"))
+                                                .dataConsumer (x -> x.address (y -> y.countryCode ("XX")).name ("DC").id ("dc"))
+                                                .dataSubject (_lp ("XX/YY/12345", "EIDAS", "QQ"))
+                                                .concept (x -> x.id ("c1").name (EToopConcept.COMPANY_TYPE))
+                                                .build ());
+    // Duplicate concept IDs and names
+    ret.add (_req (EDMRequest.builderConcept ()).dataSubject (_np ("X", "GR", "at/xx/4711"))
+                                                .concept (x -> x.id ("c1")
+                                                                .name (EToopConcept.COMPANY_TYPE)
+                                                                .addChild (y -> y.id ("c2").name (EToopConcept.COMPANY_NAME))
+                                                                .addChild (y -> y.id ("c2").name (EToopConcept.COMPANY_NAME)))
+                                                .concept (x -> x.id ("1234").name (EToopConcept.COMPANY_CODE))
+                                                .build ());
+    // LEI and SIC codes, gender and identifier types
+    ret.add (_req (EDMRequest.builderConcept ()).authorizedRepresentative (_np ("Q", "ZZ", "id").idSchemeID ("foo"))
+                                                .dataSubject (_lp ("12345", "LEI", "AT"))
+                                                .concept (x -> x.randomID ().name (EToopConcept.COMPANY_TYPE))
+                                                .build ());
+    ret.add (_req (EDMRequest.builderConcept ()).dataSubject (_lp ("99.99", "SIC", "AT"))
+                                                .concept (x -> x.randomID ().name (EToopConcept.COMPANY_TYPE))
+                                                .build ());
+    // Distributions
+    ret.add (_req (EDMRequest.builderDocumentsByDistribution ()).dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR"))
+                                                                .distribution (x -> x.format (EToopDistributionFormat.STRUCTURED)
+                                                                                     .mediaType (CMimeType.APPLICATION_PDF))
+                                                                .distribution (x -> x.format (EToopDistributionFormat.UNSTRUCTURED)
+                                                                                     .mediaType ("foo/bar"))
+                                                                .build ());
+    // Document IDs
+    ret.add (_req (EDMRequest.builderDocumentByID ()).dataSubject (_np ("F", "AT", "id"))
+                                                     .documentID (UUID.randomUUID ().toString ())
+                                                     .build ());
+    ret.add (_req (EDMRequest.builderDocumentByID ()).dataSubject (_np ("F", "AT", "id"))
+                                                     .documentID ("  no-uuid ")
+                                                     .build ());
+    _addGeneratedRequests (ret);
+    return ret;
+  }
+
+  @Nonnull
+  private static EDMRequest.BuilderConcept _conceptReq ()
+  {
+    return _req (EDMRequest.builderConcept ()).concept (x -> x.randomID ()
+                                                              .name (EToopConcept.COMPANY_TYPE)
+                                                              .addChild (y -> y.randomID ().name (EToopConcept.COMPANY_NAME)));
+  }
+
+  private static void _addGeneratedRequests (@Nonnull final ICommonsList <EDMRequest> ret)
+  {
+    // Specification identifier
+    for (final String sSpecID : SPEC_IDS)
+      ret.add (_conceptReq ().specificationIdentifier (sSpecID).dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR")).build ());
+
+    // Country codes at all places
+    for (final String sCountry : COUNTRIES)
+    {
+      ret.add (_conceptReq ().dataConsumer (x -> x.address (y -> y.town ("MyTown").countryCode (sCountry)).name ("DC").id ("dc"))
+                             .dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR"))
+                             .build ());
+      ret.add (_conceptReq ().dataSubject (_lp ("DE/AT/12345", "EIDAS", sCountry)).build ());
+      ret.add (_conceptReq ().dataSubject (_np ("M", sCountry, "id")).build ());
+      ret.add (_conceptReq ().dataSubject (_np ("M", "GR", "id")).authorizedRepresentative (_np ("M", sCountry, "id")).build ());
+    }
+
+    // Gender codes of the natural person and the authorized representative
+    for (final String sGender : GENDERS)
+    {
+      ret.add (_conceptReq ().dataSubject (_np (sGender, "GR", "id")).build ());
+      ret.add (_conceptReq ().dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR")).authorizedRepresentative (_np (sGender, "GR", "id")).build ());
+    }
+
+    // EIDAS countries, LEI, SIC and identifier types for all identifiers
+    for (final String [] aID : IDS)
+    {
+      ret.add (_conceptReq ().dataSubject (_lp (aID[0], aID[1], "GR")).build ());
+      ret.add (_conceptReq ().dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR").id (aID[0]).idSchemeID (aID[1])).build ());
+      ret.add (_conceptReq ().dataSubject (_np ("M", "GR", aID[0]).idSchemeID (aID[1])).build ());
+      ret.add (_conceptReq ().dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR"))
+                             .authorizedRepresentative (_np ("M", "GR", aID[0]).idSchemeID (aID[1]))
+                             .build ());
+    }
+
+    // Unique concept IDs - between concepts, and with the data consumer and
+    // the fulfilling requirements
+    final CCCEVRequirementType aRequirement = new CCCEVRequirementType ();
+    final IDType aReqID = new IDType ();
+    aReqID.setValue ("req");
+    aRequirement.addId (aReqID);
+    for (final String sID : new String [] { "c2", "c1", "dc", "req" })
+      ret.add (_req (EDMRequest.builderConcept ()).dataConsumer (x -> x.address (y -> y.countryCode ("GR")).name ("DC").id ("dc"))
+                                                  .addFullfillingRequirement (aRequirement)
+                                                  .dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR"))
+                                                  .concept (x -> x.id ("c1").name (EToopConcept.COMPANY_TYPE))
+                                                  .addConcept (x -> x.id (sID).name (EToopConcept.COMPANY_NAME))
+                                                  .build ());
+
+    // Unique names of the children
+    for (final EToopConcept eName : new EToopConcept [] { EToopConcept.COMPANY_CODE, EToopConcept.COMPANY_NAME })
+      ret.add (_req (EDMRequest.builderConcept ()).dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR"))
+                                                  .concept (x -> x.randomID ()
+                                                                  .name (EToopConcept.COMPANY_TYPE)
+                                                                  .addChild (y -> y.randomID ().name (EToopConcept.COMPANY_NAME))
+                                                                  .addChild (y -> y.randomID ().name (eName)))
+                                                  .build ());
+
+    // Media types
+    for (final String sMediaType : MEDIA_TYPES)
+      for (final EToopDistributionFormat eFormat : EToopDistributionFormat.values ())
+        ret.add (_req (EDMRequest.builderDocumentsByDistribution ()).dataSubject (_lp ("DE/AT/12345", "EIDAS", "GR"))
+                                                                    .distribution (x -> x.format (eFormat).mediaType (sMediaType))
+                                                                    .build ());
+
+    // Document IDs
+    for (final String sDocumentID : DOCUMENT_IDS)
+      ret.add (_req (EDMRequest.builderDocumentByID ()).dataSubject (_np ("F", "AT", "id")).documentID (sDocumentID).build ());
+  }
+
+  @Nonnull
+  private static <T extends EDMResponse.AbstractBuilder <T>> T _resp (@Nonnull final T aBuilder)
+  {
+    return aBuilder.requestID (UUID.randomUUID ())
+                   .issueDateTimeNow ()
+                   .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                   .dataProvider (x -> x.address (y -> y.town ("MyTown").countryCode ("GR"))
+                                        .name ("DP NAME")
+                                        .id ("1234")
+                                        .idSchemeID (EToopIdentifierType.EIDAS))
+                   .responseStatus (ERegRepResponseStatus.SUCCESS);
+  }
+
+  @Nonnull
+  private static DatasetPojo.Builder _dataset (@Nullable final String sLanguage, @Nullable final String sDocumentType)
+  {
+    return DatasetPojo.builder ()
+                      .description ("bla desc")
+                      .title ("bla title")
+                      .distribution (x -> x.documentURI ("URI").documentType (sDocumentType))
+                      .language (sLanguage)
+                      .creator (x -> x.name ("Agent name"))
+                      .ids ("RE238918378")
+                      .issuedNow ()
+                      .lastModifiedNow ();
+  }
+
+  @Nonnull
+  private static ICommonsList <EDMResponse> _createResponses ()
+  {
+    final ICommonsList <EDMResponse> ret = new CommonsArrayList <> ();
+    ret.add (_resp (EDMResponse.builderConcept ()).concept (x -> x.id ("ConceptID-1")
+                                                                  .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                                                  .addChild (y -> y.randomID ()
+                                                                                   .name (EToopConcept.COMPANY_NAME)
+                                                                                   .valueAmount (BigDecimal.TEN, "EUR"))
+                                                                  .addChild (y -> y.randomID ()
+                                                                                   .name (EToopConcept.FAX_NUMBER)
+                                                                                   .valueErrorCode (EToopDataElementResponseErrorCode.DP_ELE_001)))
+                                                  .build ());
+    ret.add (_resp (EDMResponse.builderConcept ()).specificationIdentifier ("bla")
+                                                  .concept (x -> x.id ("ConceptID-1")
+                                                                  .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                                                  .valueAmount (BigDecimal.ONE, "XYZ")
+                                                                  .addChild (y -> y.randomID ()
+                                                                                   .name (EToopConcept.COMPANY_NAME)
+                                                                                   .valueAmount (BigDecimal.TEN, "ABC"))
+                                                                  .addChild (y -> y.randomID ()
+                                                                                   .name (EToopConcept.FAX_NUMBER)
+                                                                                   .valueErrorCode ("NOPE")))
+                                                  .build ());
+    ret.add (_resp (EDMResponse.builderDocument ()).addResponseObject (x -> x.dataset (_dataset (EToopLanguageCode.EN.getID (),
+                                                                                                 "application/xml"))
+                                                                             .repositoryItemRef (y -> y.title ("Evidence.pdf")
+                                                                                                       .link ("https://www.example.com/evidence.pdf")))
+                                                   .addResponseObject (x -> x.dataset (_dataset ("xx", "foo/bar"))
+                                                                             .repositoryItemRef (y -> y.title ("Evidence.pdf")
+                                                                                                       .link ("https://www.example.com/evidence.pdf")))
+                                                   .build ());
+    // Reference responses contain no payload rule contexts
+    ret.add (_resp (EDMResponse.builderDocumentReference ()).addResponseObject (x -> x.randomRegistryObjectID ()
+                                                                                      .dataset (_dataset ("xx", "foo/bar")))
+                                                            .build ());
+    _addGeneratedResponses (ret);
+    return ret;
+  }
+
+  private static void _addGeneratedResponses (@Nonnull final ICommonsList <EDMResponse> ret)
+  {
+    // Specification identifier
+    for (final String sSpecID : SPEC_IDS)
+      ret.add (_resp (EDMResponse.builderConcept ()).specificationIdentifier (sSpecID)
+                                                    .concept (x -> x.randomID ().name (EToopConcept.COMPANY_NAME).valueText ("name"))
+                                                    .build ());
+
+    // Currency codes and data element error codes on all levels
+    for (final String sCurrency : CURRENCIES)
+    {
+      ret.add (_resp (EDMResponse.builderConcept ()).concept (x -> x.randomID ()
+                                                                    .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                                                    .valueAmount (BigDecimal.ONE, sCurrency))
+                                                    .build ());
+      ret.add (_resp (EDMResponse.builderConcept ()).concept (x -> x.randomID ()
+                                                                    .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                                                    .addChild (y -> y.randomID ()
+                                                                                     .name (EToopConcept.COMPANY_NAME)
+                                                                                     .valueAmount (BigDecimal.TEN, sCurrency)))
+                                                    .build ());
+    }
+    for (final String sErrorCode : DATA_ELEMENT_ERRORS)
+      ret.add (_resp (EDMResponse.builderConcept ()).concept (x -> x.randomID ()
+                                                                    .name (EToopConcept.REGISTERED_ORGANIZATION)
+                                                                    .addChild (y -> y.randomID ()
+                                                                                     .name (EToopConcept.FAX_NUMBER)
+                                                                                     .valueErrorCode (sErrorCode)))
+                                                    .build ());
+
+    // Languages and media types of the datasets
+    for (final String sLanguage : LANGUAGES)
+      for (final String sMediaType : MEDIA_TYPES)
+        ret.add (_resp (EDMResponse.builderDocument ()).addResponseObject (x -> x.dataset (_dataset (sLanguage, sMediaType))
+                                                                                 .repositoryItemRef (y -> y.title ("Evidence.pdf")
+                                                                                                           .link ("https://www.example.com/evidence.pdf")))
+                                                       .build ());
+  }
+
+  @Nonnull
+  private static EDMExceptionPojo.Builder _ex (@Nonnull final EEDMExceptionType eType)
+  {
+    return EDMExceptionPojo.builder ()
+                           .exceptionType (eType)
+                           .errorCode (EToopErrorCode.GEN)
+                           .errorMessage ("What went wrong: " + eType.name ())
+                           .severity (EToopErrorSeverity.FAILURE)
+                           .timestampNow ()
+                           .errorOrigin (EToopErrorOrigin.RESPONSE_RECEPTION);
+  }
+
+  @Nonnull
+  private static ICommonsList <EDMErrorResponse> _createErrorResponses ()
+  {
+    final ICommonsList <EDMErrorResponse> ret = new CommonsArrayList <> ();
+    for (final EEDMExceptionType eType : EEDMExceptionType.values ())
+      ret.add (EDMErrorResponse.builder ()
+                               .requestID ("c4369c4d-740e-4b64-80f0-7b209a66d629")
+                               .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                               .errorProvider (x -> x.name ("DP NAME").id ("1234").idSchemeID (EToopIdentifierType.EIDAS))
+                               .addException (_ex (eType))
+                               .build ());
+    ret.add (EDMErrorResponse.builder ()
+                             .requestID ("c4369c4d-740e-4b64-80f0-7b209a66d629")
+                             .specificationIdentifier ("toop-edm:v2.0")
+                             .addException (_ex (EEDMExceptionType.TIMEOUT).errorCode ("NOPE").errorOrigin ("somewhere"))
+                             .addException (_ex (EEDMExceptionType.OBJECT_NOT_FOUND).errorCode ((String) null))
+                             .build ());
+    // Error codes and origins
+    for (final String sErrorCode : ERROR_CODES)
+      for (final String sErrorOrigin : ERROR_ORIGINS)
+        ret.add (EDMErrorResponse.builder ()
+                                 .requestID ("c4369c4d-740e-4b64-80f0-7b209a66d629")
+                                 .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                                 .addException (_ex (EEDMExceptionType.TIMEOUT).errorCode (sErrorCode).errorOrigin (sErrorOrigin))
+                                 .addException (_ex (EEDMExceptionType.OBJECT_NOT_FOUND).errorCode (sErrorCode))
+                                 .build ());
+    return ret;
+  }
+
+  private static void _assertSame (@Nonnull final ICommonsList <AbstractSVRLMessage> aExpected,
+                                   @Nonnull final ICommonsList <AbstractSVRLMessage> aActual)
+  {
+    assertEquals (SVRLTestHelper.getAsStringWithoutLocation (aExpected), SVRLTestHelper.getAsStringWithoutLocation (aActual));
+    // Same location partition
+    for (int i = 0; i < aExpected.size (); ++i)
+      for (int j = 0; j < i; ++j)
+        assertEquals (aExpected.get (i).getLocation () + " vs. " + aExpected.get (j).getLocation (),
+                      aExpected.get (i).getLocation ().equals (aExpected.get (j).getLocation ()),
+                      aActual.get (i).getLocation ().equals (aActual.get (j).getLocation ()));
+  }
+
+  @Test
+  public void testSameResultAsXSLT ()
+  {
+    int nWithErrors = 0;
+    for (final EDMRequest aRequest : _createRequests ())
+    {
+      final ICommonsList <AbstractSVRLMessage> aExpected = XSLT.validateRequest (aRequest);
+      _assertSame (aExpected, NATIVE.validateRequest (aRequest));
+      if (aExpected.isNotEmpty ())
+        nWithErrors++;
+    }
+    for (final EDMResponse aResponse : _createResponses ())
+    {
+      final ICommonsList <AbstractSVRLMessage> aExpected = XSLT.validateResponse (aResponse);
+      _assertSame (aExpected, NATIVE.validateResponse (aResponse));
+      if (aExpected.isNotEmpty ())
+        nWithErrors++;
+    }
+    for (final EDMErrorResponse aErrorResponse : _createErrorResponses ())
+    {
+      final ICommonsList <AbstractSVRLMessage> aExpected = XSLT.validateErrorResponse (aErrorResponse);
+      _assertSame (aExpected, NATIVE.validateErrorResponse (aErrorResponse));
+      if (aExpected.isNotEmpty ())
+        nWithErrors++;
+    }
+    // Make sure the rules were really triggered
+    assertTrue (nWithErrors >= 50);
+  }
+
+  @Test
+  public void testValid ()
+  {
+    assertFalse (XSLT.isUseNativeRules ());
+    assertTrue (NATIVE.isUseNativeRules ());
+    assertTrue (NATIVE.validateRequest (_createRequests ().getFirst ()).isEmpty ());
+    assertTrue (NATIVE.validateResponse (_createResponses ().getFirst ()).isEmpty ());
+    assertTrue (NATIVE.validateErrorResponse (_createErrorResponses ().getFirst ()).isEmpty ());
+  }
+}
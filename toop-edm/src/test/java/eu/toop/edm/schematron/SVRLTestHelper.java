@@ -0,0 +1,97 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+
+/**
+ * Helper to compare lists of SVRL messages in tests.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class SVRLTestHelper
+{
+  private SVRLTestHelper ()
+  {}
+
+  @Nonnull
+  private static String _asString (@Nonnull final ICommonsList <AbstractSVRLMessage> aMsgs, final boolean bWithLocation)
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (final AbstractSVRLMessage aMsg : aMsgs)
+    {
+      aSB.append (aMsg.getID ()).append (':');
+      if (bWithLocation)
+        aSB.append (aMsg.getLocation ()).append (':');
+      aSB.append (aMsg.getTest ())
+         .append (':')
+         .append (aMsg.getRole ())
+         .append (':')
+         .append (aMsg.getFlag ())
+         .append (':')
+         .append (aMsg.getText ())
+         .append ('\n');
+    }
+    return aSB.toString ();
+  }
+
+  /**
+   * @param aMsgs
+   *        The messages to convert. May not be <code>null</code>.
+   * @return One line per message with ID, location, test, role, flag and
+   *         text. Never <code>null</code>.
+   */
+  @Nonnull
+  public static String getAsString (@Nonnull final ICommonsList <AbstractSVRLMessage> aMsgs)
+  {
+    return _asString (aMsgs, true);
+  }
+
+  /**
+   * @param aMsgs
+   *        The messages to convert. May not be <code>null</code>.
+   * @return One line per message with ID, test, role, flag and text. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static String getAsStringWithoutLocation (@Nonnull final ICommonsList <AbstractSVRLMessage> aMsgs)
+  {
+    return _asString (aMsgs, false);
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.commons.io.resource.IReadableResource;
+
+/**
+ * Test class for class {@link SchematronPrecompiler}.
+ *
+ * @author Philip Helger
+ */
+public final class SchematronPrecompilerTest
+{
+  @Test
+  public void testPrecompileAll ()
+  {
+    SchematronPrecompiler.precompileAllAsync ().join ();
+    for (final IReadableResource aRes : new IReadableResource [] { CEDMSchematron.TOOP_EDM2_XSLT,
+                                                                   CEDMSchematron.TOOP_BUSINESS_RULES_XSLT,
+                                                                   CEDMSchematron.TOOP_IS_REQUEST,
+                                                                   CEDMSchematron.TOOP_IS_RESPONSE,
+                                                                   CEDMSchematron.TOOP_IS_ERROR_RESPONSE })
+    {
+      assertTrue (aRes.getPath (), SchematronPrecompiler.isCompiled (aRes));
+      final CompiledSchematron aCompiled = SchematronPrecompiler.getCompiled (aRes);
+      assertNotNull (aCompiled);
+      // Shared
+      assertSame (aCompiled, SchematronPrecompiler.getCompiled (aRes));
+    }
+
+    // Validators use the precompiled version
+    assertSame (SchematronPrecompiler.getCompiled (CEDMSchematron.TOOP_EDM2_XSLT),
+                new SchematronEDM2Validator ().getCompiledSchematron ());
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final IReadableResource aRes = new ClassPathResource ("Bogus.xml");
+    try
+    {
+      SchematronPrecompiler.getCompiled (aRes);
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    // Not cached
+    assertFalse (SchematronPrecompiler.isCompiled (aRes));
+  }
+}
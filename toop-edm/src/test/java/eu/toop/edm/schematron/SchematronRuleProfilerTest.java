@@ -0,0 +1,162 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link SchematronRuleProfiler}.
+ *
+ * @author Philip Helger
+ */
+public final class SchematronRuleProfilerTest
+{
+  private static final String [] FILES = { "Concept Request_LP.xml",
+                                           "Concept Request_NP.xml",
+                                           "Concept Response.xml",
+                                           "Document Request_LP.xml",
+                                           "Error Response 1.xml",
+                                           "request/edm-jonas1.xml",
+                                           "error-response/edm-jonas2.xml" };
+
+  @Test
+  public void testProfiling ()
+  {
+    final SchematronRuleProfiler aProfiler = new SchematronRuleProfiler ();
+    final AbstractSchematronValidator [] aValidators = { new SchematronEDM2Validator (), new SchematronBusinessRules2Validator () };
+    final ICommonsMap <String, Long> aExpectedFirings = new CommonsHashMap <> ();
+
+    for (final AbstractSchematronValidator aValidator : aValidators)
+    {
+      assertNull (aValidator.getRuleProfiler ());
+      for (final String sFile : FILES)
+      {
+        final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource (sFile));
+        assertNotNull (sFile, aDoc);
+
+        final ICommonsList <AbstractSVRLMessage> aExpected = aValidator.validateDocument (aDoc);
+        for (final AbstractSVRLMessage aMsg : aExpected)
+          aExpectedFirings.merge (aMsg.getID (), Long.valueOf (1), (a, b) -> Long.valueOf (a.longValue () + b.longValue ()));
+
+        // Same result with profiling
+        aValidator.setRuleProfiler (aProfiler);
+        try
+        {
+          assertEquals (sFile, SVRLTestHelper.getAsString (aExpected), SVRLTestHelper.getAsString (aValidator.validateDocument (aDoc)));
+        }
+        finally
+        {
+          aValidator.setRuleProfiler (null);
+        }
+      }
+    }
+
+    final ICommonsList <SchematronRuleProfile> aSnapshot = aProfiler.getSnapshot ();
+    assertTrue (aSnapshot.isNotEmpty ());
+
+    final ICommonsMap <String, Long> aFirings = new CommonsHashMap <> ();
+    long nPrevNanos = Long.MAX_VALUE;
+    for (final SchematronRuleProfile aRule : aSnapshot)
+    {
+      assertTrue (aRule.getEvaluationCount () > 0);
+      // Sorted by time
+      assertTrue (aRule.getCumulativeNanos () <= nPrevNanos);
+      nPrevNanos = aRule.getCumulativeNanos ();
+
+      long nSum = 0;
+      for (final Map.Entry <String, Long> aEntry : aRule.getAllAssertFirings ().entrySet ())
+      {
+        nSum += aEntry.getValue ().longValue ();
+        if (aEntry.getValue ().longValue () > 0)
+          aFirings.merge (aEntry.getKey (), aEntry.getValue (), (a, b) -> Long.valueOf (a.longValue () + b.longValue ()));
+      }
+      assertEquals (nSum, aRule.getFiringCount ());
+
+      // The asserts are evaluated within the time of the rule
+      assertEquals (aRule.getAllAssertFirings ().keySet (), aRule.getAllAssertCumulativeNanos ().keySet ());
+      long nAssertNanos = 0;
+      for (final Long aNanos : aRule.getAllAssertCumulativeNanos ().values ())
+        nAssertNanos += aNanos.longValue ();
+      assertTrue (nAssertNanos <= aRule.getCumulativeNanos ());
+    }
+    // Each message was counted exactly once
+    assertEquals (aExpectedFirings, aFirings);
+
+    // The root rule of the EDM fires once per document
+    final SchematronRuleProfile aRoot = aSnapshot.findFirst (x -> "/".equals (x.getContext ()) &&
+                                                                  x.getAllAssertFirings ().containsKey ("mandatory_request_or_response"));
+    assertNotNull (aRoot);
+    assertEquals (FILES.length, aRoot.getEvaluationCount ());
+
+    final String sReport = aProfiler.getReportAsString ();
+    assertTrue (sReport.contains ("mandatory_request_or_response"));
+
+    aProfiler.reset ();
+    assertTrue (aProfiler.getSnapshot ().isEmpty ());
+  }
+
+  @Test
+  public void testInstrumentation ()
+  {
+    final Document aXSLT = DOMReader.readXMLDOM (CEDMSchematron.TOOP_EDM2_XSLT);
+    assertNotNull (aXSLT);
+    final int nRules = SchematronProfilingInstrumenter.instrument (aXSLT);
+    assertTrue (nRules > 0);
+    // Only once
+    assertEquals (0, SchematronProfilingInstrumenter.instrument (aXSLT));
+    assertEquals (nRules,
+                  aXSLT.getElementsByTagNameNS (SchematronProfilingInstrumenter.PROFILING_NAMESPACE_URI,
+                                                SchematronProfilingInstrumenter.ELEMENT_RULE_END)
+                       .getLength ());
+    // At least one assert or report per rule
+    assertTrue (aXSLT.getElementsByTagNameNS (SchematronProfilingInstrumenter.PROFILING_NAMESPACE_URI,
+                                              SchematronProfilingInstrumenter.ELEMENT_ASSERT_END)
+                     .getLength () >= nRules);
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.io.resource.inmemory.ReadableResourceByteArray;
+import com.helger.xml.serialize.read.DOMReader;
+import com.helger.xml.serialize.write.XMLWriter;
+
+/**
+ * The sample documents used to compare different ways of applying the
+ * Schematron rules. Besides the valid samples there are variants that violate
+ * rules in several patterns of both the EDM and the business rules.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class SchematronTestDocuments
+{
+  /** The valid sample files */
+  public static final String [] FILES = { "Concept Request_LP.xml",
+                                          "Concept Request_NP.xml",
+                                          "Concept Response.xml",
+                                          "Document Request_LP.xml",
+                                          "Error Response 1.xml",
+                                          "request/edm-jonas1.xml",
+                                          "error-response/edm-jonas2.xml" };
+
+  private static final String RIM_NS = "urn:oasis:names:tc:ebxml-regrep:xsd:rim:4.0";
+
+  private SchematronTestDocuments ()
+  {}
+
+  @Nonnull
+  private static ICommonsList <Element> _getAllElements (@Nonnull final Node aParent, @Nonnull final String sLocalName)
+  {
+    // Copy, because the node list is live
+    final ICommonsList <Element> ret = new CommonsArrayList <> ();
+    final NodeList aNL = aParent instanceof Document ? ((Document) aParent).getElementsByTagNameNS ("*", sLocalName)
+                                                     : ((Element) aParent).getElementsByTagNameNS ("*", sLocalName);
+    for (int i = 0; i < aNL.getLength (); ++i)
+      ret.add ((Element) aNL.item (i));
+    return ret;
+  }
+
+  @Nonnull
+  private static ICommonsList <Element> _getRootSlots (@Nonnull final Document aDoc, @Nonnull final String sName)
+  {
+    final ICommonsList <Element> ret = new CommonsArrayList <> ();
+    for (Node aNode = aDoc.getDocumentElement ().getFirstChild (); aNode != null; aNode = aNode.getNextSibling ())
+      if (aNode instanceof Element &&
+          RIM_NS.equals (aNode.getNamespaceURI ()) &&
+          "Slot".equals (aNode.getLocalName ()) &&
+          sName.equals (((Element) aNode).getAttribute ("name")))
+        ret.add ((Element) aNode);
+    return ret;
+  }
+
+  private static void _setOldSpecificationIdentifier (@Nonnull final Document aDoc)
+  {
+    for (final Element aSlot : _getRootSlots (aDoc, "SpecificationIdentifier"))
+      for (final Element aValue : _getAllElements (aSlot, "Value"))
+        aValue.setTextContent ("toop-edm:v2.0");
+  }
+
+  private static void _duplicateOptionalSlots (@Nonnull final Document aDoc)
+  {
+    // Duplicating the specification identifier makes the business rules fail
+    for (final String sName : new String [] { "ConsentToken", "DataProvider" })
+      for (final Element aSlot : _getRootSlots (aDoc, sName))
+        aSlot.getParentNode ().insertBefore (aSlot.cloneNode (true), aSlot.getNextSibling ());
+  }
+
+  private static void _removeIssueDateTime (@Nonnull final Document aDoc)
+  {
+    for (final Element aSlot : _getRootSlots (aDoc, "IssueDateTime"))
+      aSlot.getParentNode ().removeChild (aSlot);
+  }
+
+  private static void _removeRootID (@Nonnull final Document aDoc)
+  {
+    aDoc.getDocumentElement ().removeAttribute ("id");
+    aDoc.getDocumentElement ().removeAttribute ("requestId");
+  }
+
+  private static void _setInvalidCountryCodes (@Nonnull final Document aDoc)
+  {
+    for (final String sLocalName : new String [] { "adminUnitLevel1", "AddressAdminUnitLocationOne" })
+      for (final Element aElement : _getAllElements (aDoc, sLocalName))
+        aElement.setTextContent ("XX");
+  }
+
+  private static void _setInvalidEIDASIdentifiers (@Nonnull final Document aDoc)
+  {
+    for (final Element aElement : _getAllElements (aDoc, "*"))
+      if ("EIDAS".equals (aElement.getAttribute ("schemeID")))
+        aElement.setTextContent ("QQ/ZZ/12345");
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  private static ICommonsOrderedMap <String, Consumer <Document>> _getAllModifications ()
+  {
+    final ICommonsOrderedMap <String, Consumer <Document>> ret = new CommonsLinkedHashMap <> ();
+    ret.put ("specid", SchematronTestDocuments::_setOldSpecificationIdentifier);
+    ret.put ("duplicate", SchematronTestDocuments::_duplicateOptionalSlots);
+    ret.put ("issuedatetime", SchematronTestDocuments::_removeIssueDateTime);
+    ret.put ("rootid", SchematronTestDocuments::_removeRootID);
+    ret.put ("country", SchematronTestDocuments::_setInvalidCountryCodes);
+    ret.put ("eidas", SchematronTestDocuments::_setInvalidEIDASIdentifiers);
+    return ret;
+  }
+
+  /**
+   * @return All valid sample files, followed by variants of each sample with
+   *         one modification and with all modifications applied. The key is a
+   *         readable name for assertion messages. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static ICommonsOrderedMap <String, IReadableResource> getAllResources ()
+  {
+    final ICommonsOrderedMap <String, IReadableResource> ret = new CommonsLinkedHashMap <> ();
+    for (final String sFile : FILES)
+      ret.put (sFile, new ClassPathResource (sFile));
+
+    final ICommonsOrderedMap <String, Consumer <Document>> aModifications = _getAllModifications ();
+    for (final String sFile : FILES)
+    {
+      for (final Map.Entry <String, Consumer <Document>> aEntry : aModifications.entrySet ())
+      {
+        final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource (sFile));
+        aEntry.getValue ().accept (aDoc);
+        final String sName = sFile + "#" + aEntry.getKey ();
+        ret.put (sName, new ReadableResourceByteArray (sName, XMLWriter.getNodeAsBytes (aDoc)));
+      }
+
+      final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource (sFile));
+      for (final Consumer <Document> aModification : aModifications.values ())
+        aModification.accept (aDoc);
+      final String sName = sFile + "#all";
+      ret.put (sName, new ReadableResourceByteArray (sName, XMLWriter.getNodeAsBytes (aDoc)));
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.schematron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.schematron.svrl.AbstractSVRLMessage;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link ShardedSchematronValidator}.
+ *
+ * @author Philip Helger
+ */
+public final class ShardedSchematronValidatorTest
+{
+  @Test
+  public void testSplit ()
+  {
+    for (final ClassPathResource aRes : new ClassPathResource [] { CEDMSchematron.TOOP_EDM2_XSLT,
+                                                                   CEDMSchematron.TOOP_BUSINESS_RULES_XSLT })
+    {
+      final Document aXSLT = DOMReader.readXMLDOM (aRes);
+      assertNotNull (aXSLT);
+      final int nPatterns = SchematronPatternSharder.getPatternCount (aXSLT);
+      assertTrue (aRes.getPath (), nPatterns > 4);
+
+      // No split requested
+      ICommonsList <Document> aShards = SchematronPatternSharder.split (aXSLT, 1);
+      assertEquals (1, aShards.size ());
+      assertSame (aXSLT, aShards.getFirst ());
+
+      // Each pattern ends up in exactly one shard
+      aShards = SchematronPatternSharder.split (aXSLT, 4);
+      assertEquals (4, aShards.size ());
+      int nSum = 0;
+      for (final Document aShard : aShards)
+      {
+        final int nShardPatterns = SchematronPatternSharder.getPatternCount (aShard);
+        assertTrue (nShardPatterns > 0);
+        nSum += nShardPatterns;
+      }
+      assertEquals (nPatterns, nSum);
+      // Source is unchanged
+      assertEquals (nPatterns, SchematronPatternSharder.getPatternCount (aXSLT));
+
+      // Never more shards than patterns
+      assertEquals (nPatterns, SchematronPatternSharder.split (aXSLT, nPatterns + 10).size ());
+    }
+  }
+
+  @Test
+  public void testSameResultAsMonolithic ()
+  {
+    final ICommonsOrderedMap <String, IReadableResource> aResources = SchematronTestDocuments.getAllResources ();
+    final ExecutorService aES = Executors.newFixedThreadPool (3);
+    try
+    {
+      for (final AbstractSchematronValidator aValidator : new AbstractSchematronValidator [] { new SchematronEDM2Validator (),
+                                                                                               new SchematronBusinessRules2Validator () })
+        for (final int nShards : new int [] { 1, 2, 7 })
+        {
+          final ShardedSchematronValidator aSharded = new ShardedSchematronValidator (aValidator, nShards, aES);
+          assertEquals (nShards, aSharded.getAllCompiledShards ().size ());
+
+          int nWithMessages = 0;
+          final ICommonsSet <String> aAllIDs = new CommonsHashSet <> ();
+          for (final Map.Entry <String, IReadableResource> aEntry : aResources.entrySet ())
+          {
+            final String sName = aEntry.getKey ();
+            final Document aDoc = DOMReader.readXMLDOM (aEntry.getValue ());
+            assertNotNull (sName, aDoc);
+
+            // Ordered and including the location
+            final ICommonsList <AbstractSVRLMessage> aExpected = aValidator.validateDocument (aDoc);
+            final String sExpected = SVRLTestHelper.getAsString (aExpected);
+            assertEquals (sName, sExpected, SVRLTestHelper.getAsString (aSharded.validateDocument (aDoc)));
+            assertEquals (sName, sExpected, SVRLTestHelper.getAsString (aSharded.validateResource (aEntry.getValue ())));
+            if (aExpected.isNotEmpty ())
+              nWithMessages++;
+            aExpected.forEach (x -> aAllIDs.add (x.getID () != null ? x.getID () : x.getTest ()));
+
+            for (final SchematronValidationMode aMode : new SchematronValidationMode [] { SchematronValidationMode.FAIL_FAST,
+                                                                                          SchematronValidationMode.minimumLevel (ESchematronFlagLevel.ERROR),
+                                                                                          SchematronValidationMode.failFast (ESchematronFlagLevel.WARNING) })
+            {
+              final String sExpectedMode = SVRLTestHelper.getAsString (aValidator.validateDocument (aDoc, aMode));
+              assertEquals (sName + " " + aMode, sExpectedMode, SVRLTestHelper.getAsString (aSharded.validateDocument (aDoc, aMode)));
+              assertEquals (sName + " " + aMode,
+                            sExpectedMode,
+                            SVRLTestHelper.getAsString (aSharded.validateResource (aEntry.getValue (), aMode)));
+            }
+          }
+          // Make sure asserts of several patterns fired
+          assertTrue (nWithMessages > 10);
+          assertTrue (aAllIDs.toString (), aAllIDs.size () > 3);
+        }
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+
+  @Test
+  public void testRuleProfiler ()
+  {
+    final SchematronEDM2Validator aValidator = new SchematronEDM2Validator ();
+    final ShardedSchematronValidator aSharded = new ShardedSchematronValidator (aValidator);
+    final String sExpected = SVRLTestHelper.getAsString (aValidator.validateResource (new ClassPathResource (SchematronTestDocuments.FILES[0])));
+
+    // The profile is recorded by the wrapped validator
+    final SchematronRuleProfiler aProfiler = new SchematronRuleProfiler ();
+    aValidator.setRuleProfiler (aProfiler);
+    assertEquals (sExpected, SVRLTestHelper.getAsString (aSharded.validateResource (new ClassPathResource (SchematronTestDocuments.FILES[0]))));
+    assertTrue (aProfiler.getSnapshot ().isNotEmpty ());
+  }
+}
@@ -0,0 +1,209 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.subject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+
+import eu.toop.edm.CToopEDM;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.model.BusinessPojo;
+import eu.toop.edm.model.EToopIdentifierType;
+import eu.toop.edm.model.EToopResponseOptionType;
+import eu.toop.edm.model.PersonPojo;
+import eu.toop.edm.pilot.gbm.EToopConcept;
+
+/**
+ * Test class for class {@link DataSubjectIndex}.
+ *
+ * @author Philip Helger
+ */
+public final class DataSubjectIndexTest
+{
+  private static final LocalDate BIRTH = LocalDate.of (1980, 2, 29);
+
+  @Nonnull
+  private static PersonPojo _person (@Nonnull final String sID, @Nonnull final String sFamilyName, @Nonnull final String sGivenName)
+  {
+    return PersonPojo.builder ()
+                     .id (sID)
+                     .idSchemeID (EToopIdentifierType.EIDAS)
+                     .familyName (sFamilyName)
+                     .givenName (sGivenName)
+                     .birthDate (BIRTH)
+                     .build ();
+  }
+
+  @Test
+  public void testKeys ()
+  {
+    assertEquals ("EIDAS:AT/12345", DataSubjectKeys.getIdentifierKey ("EIDAS", "at/DE/12345"));
+    assertEquals ("EIDAS:AT/12345", DataSubjectKeys.getIdentifierKey ("eidas", " AT/SE/12345 "));
+    assertEquals ("EIDAS:AT/12345", DataSubjectKeys.getIdentifierKey (null, "AT/SE/12345"));
+    assertEquals ("EIDAS:AT/ab", DataSubjectKeys.getIdentifierKey ("EIDAS", "AT/SE/ab"));
+    assertEquals ("VATRegistration:ATU12345678", DataSubjectKeys.getIdentifierKey ("vatregistration", "atu 1234 5678"));
+    assertEquals ("CUSTOM:X", DataSubjectKeys.getIdentifierKey ("custom", "x"));
+    assertNull (DataSubjectKeys.getIdentifierKey ("EIDAS", " "));
+
+    assertEquals ("muller|hans peter", DataSubjectKeys.getNameKey ("Müller", " Hans-Peter "));
+    assertEquals ("o brien|sean", DataSubjectKeys.getNameKey ("O'Brien", "Seán"));
+    assertNull (DataSubjectKeys.getNameKey ("", "-"));
+  }
+
+  @Test
+  public void testBusiness ()
+  {
+    final DataSubjectIndex <String> aIndex = new DataSubjectIndex <> (0, false);
+    final BusinessPojo aBusiness = BusinessPojo.builder ()
+                                               .legalID ("AT/DE/FN123")
+                                               .legalIDSchemeID (EToopIdentifierType.EIDAS)
+                                               .id ("ATU12345678")
+                                               .idSchemeID (EToopIdentifierType.VATREGISTRATION)
+                                               .legalName ("Acme")
+                                               .build ();
+    assertTrue (aIndex.addBusiness (aBusiness, "acme").isChanged ());
+    assertEquals (2, aIndex.getIdentifierCount ());
+
+    // Other destination country
+    assertEquals ("acme", aIndex.findBusiness (BusinessPojo.builder ().legalID ("AT/SE/FN123").legalIDSchemeID (EToopIdentifierType.EIDAS).build ()));
+    // By VAT only
+    assertEquals ("acme", aIndex.findBusiness (BusinessPojo.builder ().legalID ("atu12345678").legalIDSchemeID ("VATRegistration").build ()));
+    assertNull (aIndex.findBusiness (BusinessPojo.builder ().legalID ("DE/AT/FN123").legalIDSchemeID (EToopIdentifierType.EIDAS).build ()));
+
+    // From request
+    final EDMRequest aRequest = EDMRequest.builderConcept ()
+                                          .specificationIdentifier (CToopEDM.SPECIFICATION_IDENTIFIER_TOOP_EDM_V21)
+                                          .responseOption (EToopResponseOptionType.INLINE)
+                                          .randomID ()
+                                          .issueDateTimeNow ()
+                                          .dataConsumer (x -> x.name ("DC").id ("1234").idSchemeID (EToopIdentifierType.VATREGISTRATION))
+                                          .dataSubjectBusiness (x -> x.legalID ("AT/FR/FN123").legalIDSchemeID (EToopIdentifierType.EIDAS))
+                                          .concept (x -> x.randomID ().name (EToopConcept.REGISTERED_ORGANIZATION))
+                                          .build ();
+    assertEquals ("acme", aIndex.find (aRequest));
+
+    assertTrue (aIndex.removeBusiness (aBusiness).isChanged ());
+    assertEquals (0, aIndex.getIdentifierCount ());
+    assertNull (aIndex.find (aRequest));
+    assertTrue (aIndex.removeBusiness (aBusiness).isUnchanged ());
+  }
+
+  @Test
+  public void testBusinessChangedKeys ()
+  {
+    final DataSubjectIndex <String> aIndex = new DataSubjectIndex <> (0, false);
+    aIndex.addBusiness (BusinessPojo.builder ()
+                                    .legalID ("AT/DE/FN123")
+                                    .legalIDSchemeID (EToopIdentifierType.EIDAS)
+                                    .id ("ATU12345678")
+                                    .idSchemeID (EToopIdentifierType.VATREGISTRATION)
+                                    .legalName ("Acme")
+                                    .build (),
+                        "acme");
+    // Same legal ID, new VAT number
+    aIndex.addBusiness (BusinessPojo.builder ()
+                                    .legalID ("AT/DE/FN123")
+                                    .legalIDSchemeID (EToopIdentifierType.EIDAS)
+                                    .id ("ATU87654321")
+                                    .idSchemeID (EToopIdentifierType.VATREGISTRATION)
+                                    .legalName ("Acme")
+                                    .build (),
+                        "acme2");
+    assertEquals (2, aIndex.getIdentifierCount ());
+    assertEquals ("acme2", aIndex.findByIdentifier ("EIDAS", "AT/SE/FN123"));
+    assertEquals ("acme2", aIndex.findByIdentifier ("VATRegistration", "ATU87654321"));
+    assertNull (aIndex.findByIdentifier ("VATRegistration", "ATU12345678"));
+  }
+
+  @Test
+  public void testPersonFallback ()
+  {
+    final DataSubjectIndex <String> aIndex = new DataSubjectIndex <> (16, true);
+    final ICommonsMap <PersonPojo, String> aMap = new CommonsHashMap <> ();
+    aMap.put (_person ("AT/DE/1", "Müller", "Hans"), "p1");
+    aMap.put (_person ("AT/DE/2", "Meier", "Anna"), "p2");
+    aMap.put (_person ("AT/DE/3", "Meier", "Anna"), "p3");
+    aIndex.addAllPersons (aMap);
+    assertEquals (3, aIndex.getIdentifierCount ());
+
+    // By ID
+    assertEquals ("p1", aIndex.findPerson (_person ("at/BE/1", "X", "Y")));
+    // By name and birth date
+    assertEquals ("p1", aIndex.findPerson (_person ("AT/BE/99", "MULLER", "hans")));
+    assertEquals ("p1", aIndex.findByNameAndBirthDate ("Muller", "Hans", BIRTH));
+    assertNull (aIndex.findByNameAndBirthDate ("Muller", "Hans", BIRTH.plusDays (1)));
+    // Ambiguous
+    assertNull (aIndex.findPerson (_person ("AT/BE/99", "Meier", "Anna")));
+
+    // Incremental updates
+    aIndex.removePerson (_person ("AT/DE/3", "Meier", "Anna"));
+    assertEquals ("p2", aIndex.findPerson (_person ("AT/BE/99", "Meier", "Anna")));
+    aIndex.addPerson (_person ("AT/DE/2", "Meier", "Annika"), "p2b");
+    assertNull (aIndex.findPerson (_person ("AT/BE/99", "Meier", "Anna")));
+    assertEquals ("p2b", aIndex.findPerson (_person ("AT/BE/99", "Meier", "Annika")));
+
+    // Fallback disabled
+    final DataSubjectIndex <String> aIndex2 = new DataSubjectIndex <> (0, false);
+    aIndex2.addAllPersons (aMap);
+    assertNull (aIndex2.findPerson (_person ("AT/BE/99", "Müller", "Hans")));
+  }
+
+  @Test
+  public void testParallelLoad ()
+  {
+    final int nCount = 50_000;
+    final Map <PersonPojo, Integer> aMap = new CommonsHashMap <> ();
+    for (int i = 0; i < nCount; ++i)
+      aMap.put (_person ("SE/DE/" + i, "Family" + i, "Given"), Integer.valueOf (i));
+    final DataSubjectIndex <Integer> aIndex = new DataSubjectIndex <> (nCount, true);
+    aIndex.addAllPersons (aMap);
+    assertEquals (nCount, aIndex.getIdentifierCount ());
+    for (int i = 0; i < nCount; i += 997)
+    {
+      assertEquals (Integer.valueOf (i), aIndex.findByIdentifier ("EIDAS", "SE/AT/" + i));
+      assertEquals (Integer.valueOf (i), aIndex.findByNameAndBirthDate ("family" + i, "given", BIRTH));
+    }
+  }
+}
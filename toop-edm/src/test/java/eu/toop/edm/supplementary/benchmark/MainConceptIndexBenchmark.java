@@ -0,0 +1,182 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.supplementary.benchmark;
+
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.namespace.QName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.wrapper.Wrapper;
+
+import eu.toop.edm.model.ConceptIndex;
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.ConceptPojo;
+
+/**
+ * Compare value lookups in wide and deep concept trees via manual traversal
+ * and via {@link ConceptIndex}. For every tree all leaf values are looked up
+ * once by path and once by name, which is the typical access pattern when
+ * mapping a response to a domain object.
+ *
+ * @author Philip Helger
+ */
+public final class MainConceptIndexBenchmark
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainConceptIndexBenchmark.class);
+  private static final String NS = "urn:benchmark";
+  private static final int WARMUP = 200;
+  private static final int RUNS = 500;
+
+  private static volatile Object s_aSink;
+
+  @Nonnull
+  private static ConceptPojo _createTree (final int nWidth, final int nDepth, @Nonnull final String sPrefix)
+  {
+    final ConceptPojo.Builder aBuilder = ConceptPojo.builder ().randomID ().name (NS, sPrefix);
+    for (int i = 0; i < nWidth; ++i)
+      if (nDepth <= 1)
+        aBuilder.addChild (ConceptPojo.builder ().randomID ().name (NS, sPrefix + "-" + i).valueText ("v" + i));
+      else
+        aBuilder.addChild (_createTree (nWidth, nDepth - 1, sPrefix + "-" + i));
+    return aBuilder.build ();
+  }
+
+  private static void _collectLeafPaths (@Nonnull final ConceptPojo aConcept,
+                                         @Nonnull final ConceptPath aPath,
+                                         @Nonnull final ICommonsList <ConceptPath> aTarget)
+  {
+    if (aConcept.children ().isEmpty ())
+      aTarget.add (aPath);
+    for (final ConceptPojo aChild : aConcept.children ())
+      _collectLeafPaths (aChild, aPath.getChildPath (aChild.getName ()), aTarget);
+  }
+
+  @Nullable
+  private static ConceptPojo _walkPath (@Nonnull final ConceptPojo aRoot, @Nonnull final ConceptPath aPath)
+  {
+    ConceptPojo aCur = aRoot;
+    for (int i = 1; i < aPath.getSegmentCount () && aCur != null; ++i)
+    {
+      final QName aName = aPath.getSegmentAtIndex (i);
+      ConceptPojo aNext = null;
+      for (final ConceptPojo aChild : aCur.children ())
+        if (aName.equals (aChild.getName ()))
+        {
+          aNext = aChild;
+          break;
+        }
+      aCur = aNext;
+    }
+    return aCur;
+  }
+
+  @Nullable
+  private static ConceptPojo _visitByName (@Nonnull final ConceptPojo aRoot, @Nonnull final QName aName)
+  {
+    final Wrapper <ConceptPojo> ret = new Wrapper <> ();
+    aRoot.visitRecursive ( (nLevel, aConcept) -> {
+      if (ret.isNotSet () && aName.equals (aConcept.getName ()))
+        ret.set (aConcept);
+    });
+    return ret.get ();
+  }
+
+  private static long _measure (@Nonnull final Supplier <Object> aOp)
+  {
+    for (int i = 0; i < WARMUP; ++i)
+      s_aSink = aOp.get ();
+    final long nStart = System.nanoTime ();
+    for (int i = 0; i < RUNS; ++i)
+      s_aSink = aOp.get ();
+    return (System.nanoTime () - nStart) / RUNS;
+  }
+
+  private static void _run (@Nonnull final String sName, @Nonnull final ConceptPojo aRoot)
+  {
+    final ICommonsList <ConceptPath> aPaths = new CommonsArrayList <> ();
+    _collectLeafPaths (aRoot, ConceptPath.of (aRoot.getName ()), aPaths);
+
+    final long nWalk = _measure ( () -> {
+      int n = 0;
+      for (final ConceptPath aPath : aPaths)
+        if (_walkPath (aRoot, aPath) != null)
+          n++;
+      return Integer.valueOf (n);
+    });
+    final long nVisit = _measure ( () -> {
+      int n = 0;
+      for (final ConceptPath aPath : aPaths)
+        if (_visitByName (aRoot, aPath.getLastSegment ()) != null)
+          n++;
+      return Integer.valueOf (n);
+    });
+    final long nBuild = _measure ( () -> ConceptIndex.of (aRoot));
+    final ConceptIndex aIndex = ConceptIndex.of (aRoot);
+    final long nIndexPath = _measure ( () -> {
+      int n = 0;
+      for (final ConceptPath aPath : aPaths)
+        if (aIndex.getFirst (aPath) != null)
+          n++;
+      return Integer.valueOf (n);
+    });
+    final long nIndexName = _measure ( () -> {
+      int n = 0;
+      for (final ConceptPath aPath : aPaths)
+        if (aIndex.getFirstByName (aPath.getLastSegment ()) != null)
+          n++;
+      return Integer.valueOf (n);
+    });
+
+    LOGGER.info (sName + " (" + aIndex.getConceptCount () + " concepts, " + aPaths.size () + " lookups):");
+    LOGGER.info ("  Walk children by path:   " + nWalk / 1000 + " us");
+    LOGGER.info ("  visitRecursive by name:  " + nVisit / 1000 + " us");
+    LOGGER.info ("  Index build:             " + nBuild / 1000 + " us");
+    LOGGER.info ("  Index lookup by path:    " + nIndexPath / 1000 + " us");
+    LOGGER.info ("  Index lookup by name:    " + nIndexName / 1000 + " us");
+  }
+
+  public static void main (final String [] args)
+  {
+    _run ("Wide tree", _createTree (500, 1, "wide"));
+    _run ("Wide two-level tree", _createTree (30, 2, "wide2"));
+    _run ("Deep tree", _createTree (3, 7, "deep"));
+  }
+}
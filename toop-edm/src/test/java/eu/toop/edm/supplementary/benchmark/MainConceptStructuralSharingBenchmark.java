@@ -0,0 +1,140 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.supplementary.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.ConceptValuePojo;
+import eu.toop.edm.pilot.gbm.EToopConcept;
+
+/**
+ * Compare the different ways to change a single value in a large template
+ * concept tree: a full copy of the tree (the previous behaviour of
+ * <code>cloneAndModify</code>), the structurally shared
+ * {@link ConceptPojo#cloneAndModify(java.util.function.Consumer)} and
+ * {@link ConceptPojo#with(ConceptPath, ConceptValuePojo)}. Time and allocated
+ * bytes per modification are logged.
+ *
+ * @author Philip Helger
+ */
+public final class MainConceptStructuralSharingBenchmark
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainConceptStructuralSharingBenchmark.class);
+  private static final String NS = "urn:benchmark";
+  private static final int WIDTH = 20;
+  private static final int WARMUP = 200;
+  private static final int RUNS = 2_000;
+
+  private static volatile Object s_aSink;
+
+  @Nonnull
+  private static ConceptPojo _createTree ()
+  {
+    final ConceptPojo.Builder aRoot = ConceptPojo.builder ().randomID ().name (EToopConcept.REGISTERED_ORGANIZATION);
+    for (int i = 0; i < WIDTH; ++i)
+    {
+      final ConceptPojo.Builder aChild = ConceptPojo.builder ().randomID ().name (NS, "child" + i);
+      for (int j = 0; j < WIDTH; ++j)
+        aChild.addChild (ConceptPojo.builder ().randomID ().name (NS, "leaf" + j).valueText ("template"));
+      aRoot.addChild (aChild);
+    }
+    return aRoot.build ();
+  }
+
+  @Nonnull
+  private static ConceptPojo _fullCopy (@Nonnull final ConceptPojo a,
+                                        @Nonnull final QName aTarget,
+                                        @Nonnull final ConceptValuePojo aValue)
+  {
+    final ConceptPojo.Builder ret = ConceptPojo.builder ().id (a.getID ()).name (a.getName ()).value (a.getValue ());
+    for (final ConceptPojo aChild : a.children ())
+      ret.addChild (_fullCopy (aChild, aTarget, aValue));
+    if (aTarget.equals (a.getName ()))
+      ret.value (aValue);
+    return ret.build ();
+  }
+
+  private static long _getAllocatedBytes ()
+  {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean ()).getThreadAllocatedBytes (Thread.currentThread ()
+                                                                                                                    .getId ());
+  }
+
+  private static void _run (@Nonnull final String sName, @Nonnull final ConceptPojo aTemplate, @Nonnull final UnaryOperator <ConceptPojo> aOp)
+  {
+    for (int i = 0; i < WARMUP; ++i)
+      s_aSink = aOp.apply (aTemplate);
+
+    final long nStartBytes = _getAllocatedBytes ();
+    final long nStart = System.nanoTime ();
+    for (int i = 0; i < RUNS; ++i)
+      s_aSink = aOp.apply (aTemplate);
+    final long nNanos = (System.nanoTime () - nStart) / RUNS;
+    final long nBytes = (_getAllocatedBytes () - nStartBytes) / RUNS;
+    LOGGER.info (sName + ": " + nNanos / 1000 + " us and " + nBytes + " bytes per modification");
+  }
+
+  public static void main (final String [] args)
+  {
+    final ConceptPojo aTemplate = _createTree ();
+    final ConceptValuePojo aValue = ConceptValuePojo.builder ().text ("personalized").build ();
+    final QName aChild = new QName (NS, "child" + (WIDTH / 2));
+    final QName aLeaf = new QName (NS, "leaf" + (WIDTH / 2));
+    final ConceptPath aPath = ConceptPath.of (EToopConcept.REGISTERED_ORGANIZATION.getAsQName (), aChild, aLeaf);
+
+    // The leaf name exists once per child, so restrict the full copy to one
+    // child as well
+    _run ("Full copy", aTemplate, x -> {
+      final ConceptPojo.Builder ret = ConceptPojo.builder ().id (x.getID ()).name (x.getName ()).value (x.getValue ());
+      for (final ConceptPojo c : x.children ())
+        ret.addChild (_fullCopy (c, aChild.equals (c.getName ()) ? aLeaf : aChild, aValue));
+      return ret.build ();
+    });
+    final String sTargetID = aTemplate.children ().get (WIDTH / 2).children ().get (WIDTH / 2).getID ();
+    _run ("cloneAndModify", aTemplate, x -> x.cloneAndModify (b -> {
+      if (sTargetID.equals (b.id ()))
+        b.value (aValue);
+    }));
+    _run ("with", aTemplate, x -> x.with (aPath, aValue));
+  }
+}
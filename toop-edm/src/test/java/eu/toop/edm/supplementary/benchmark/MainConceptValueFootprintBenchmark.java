@@ -0,0 +1,166 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.supplementary.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.IntFunction;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+import eu.toop.edm.model.AmountPojo;
+import eu.toop.edm.model.ConceptValuePojo;
+
+/**
+ * Compare the retained heap of {@link ConceptValuePojo} with the previous
+ * layout, that had one field per value type and an eagerly allocated text
+ * list. The payload objects (numbers, dates etc.) are created upfront and
+ * shared by both variants, so only the wrapper overhead is measured.
+ *
+ * @author Philip Helger
+ */
+public final class MainConceptValueFootprintBenchmark
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainConceptValueFootprintBenchmark.class);
+  private static final int COUNT = 1_000_000;
+
+  private static volatile Object s_aSink;
+
+  /**
+   * The previous field layout of {@link ConceptValuePojo}
+   */
+  @SuppressWarnings ("unused")
+  private static final class LegacyConceptValue
+  {
+    private final String m_sIdentifier;
+    private final AmountPojo m_aAmount;
+    private final String m_sCode;
+    private final LocalDate m_aDate;
+    private final Boolean m_aIndicator;
+    private final Object m_aMeasure;
+    private final BigDecimal m_aNumeric;
+    private final Object m_aPeriod;
+    private final Object m_aQuantity;
+    private final ICommonsList <String> m_aText = new CommonsArrayList <> ();
+    private final Object m_aTime;
+    private final String m_sURI;
+    private final String m_sErrorCode;
+    private transient int m_nHashCode;
+
+    LegacyConceptValue (final AmountPojo aAmount, final String sCode, final LocalDate aDate, final BigDecimal aNumeric)
+    {
+      m_sIdentifier = null;
+      m_aAmount = aAmount;
+      m_sCode = sCode;
+      m_aDate = aDate;
+      m_aIndicator = null;
+      m_aMeasure = null;
+      m_aNumeric = aNumeric;
+      m_aPeriod = null;
+      m_aQuantity = null;
+      m_aTime = null;
+      m_sURI = null;
+      m_sErrorCode = null;
+    }
+  }
+
+  private static long _getUsedHeap ()
+  {
+    final Runtime aRuntime = Runtime.getRuntime ();
+    for (int i = 0; i < 5; ++i)
+      System.gc ();
+    return aRuntime.totalMemory () - aRuntime.freeMemory ();
+  }
+
+  private static void _run (@Nonnull final String sName, @Nonnull final IntFunction <Object> aFactory)
+  {
+    final Object [] aValues = new Object [COUNT];
+    final long nBefore = _getUsedHeap ();
+    for (int i = 0; i < COUNT; ++i)
+      aValues[i] = aFactory.apply (i);
+    final long nAfter = _getUsedHeap ();
+    s_aSink = aValues;
+    LOGGER.info (sName + ": " + (nAfter - nBefore) / COUNT + " bytes per value");
+    s_aSink = null;
+  }
+
+  public static void main (final String [] args)
+  {
+    // Shared payload - a mix of the most common value types
+    final AmountPojo [] aAmounts = new AmountPojo [] { new AmountPojo (BigDecimal.TEN, "EUR"), new AmountPojo (BigDecimal.ONE, "USD") };
+    final String [] aCodes = new String [] { "open", "closed", "pending" };
+    final LocalDate aDate = LocalDate.of (2021, 1, 1);
+    final BigDecimal aNumeric = BigDecimal.valueOf (42);
+
+    final IntFunction <Object> aLegacy = i -> {
+      switch (i % 4)
+      {
+        case 0:
+          return new LegacyConceptValue (aAmounts[i % 2], null, null, null);
+        case 1:
+          return new LegacyConceptValue (null, aCodes[i % 3], null, null);
+        case 2:
+          return new LegacyConceptValue (null, null, aDate, null);
+        default:
+          return new LegacyConceptValue (null, null, null, aNumeric);
+      }
+    };
+    final IntFunction <Object> aCompact = i -> {
+      switch (i % 4)
+      {
+        case 0:
+          return ConceptValuePojo.builder ().amount (aAmounts[i % 2]).build ();
+        case 1:
+          return ConceptValuePojo.builder ().code (aCodes[i % 3]).build ();
+        case 2:
+          return ConceptValuePojo.builder ().date (aDate).build ();
+        default:
+          return ConceptValuePojo.builder ().numeric (aNumeric).build ();
+      }
+    };
+
+    // Warm up
+    _run ("Legacy (warmup)", aLegacy);
+    _run ("Compact (warmup)", aCompact);
+
+    _run ("Legacy layout", aLegacy);
+    _run ("Compact layout", aCompact);
+  }
+}
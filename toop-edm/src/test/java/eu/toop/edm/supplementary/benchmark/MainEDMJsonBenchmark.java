@@ -0,0 +1,125 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.supplementary.benchmark;
+
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.io.resource.ClassPathResource;
+
+import eu.toop.edm.EDMErrorResponse;
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.IEDMTopLevelObject;
+import eu.toop.edm.json.EDMJsonReader;
+import eu.toop.edm.json.EDMJsonWriter;
+
+/**
+ * Compare the XML and the JSON serialization of the EDM test files. Each file
+ * is written and read back many times and the average time per round trip is
+ * logged, together with the serialized size.
+ *
+ * @author Philip Helger
+ */
+public final class MainEDMJsonBenchmark
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainEDMJsonBenchmark.class);
+  private static final int WARMUP = 200;
+  private static final int RUNS = 1_000;
+
+  private static volatile Object s_aSink;
+
+  private static <T extends IEDMTopLevelObject> void _run (@Nonnull final String sFilename,
+                                                           @Nonnull final T aObj,
+                                                           @Nonnull final Function <T, byte []> aXMLWriter,
+                                                           @Nonnull final Function <byte [], T> aXMLReader,
+                                                           @Nonnull final EDMJsonReader <T> aJsonReader)
+  {
+    final EDMJsonWriter aJsonWriter = new EDMJsonWriter ();
+    final byte [] aXML = aXMLWriter.apply (aObj);
+    final byte [] aJson = aJsonWriter.getAsBytes (aObj);
+
+    for (int i = 0; i < WARMUP; ++i)
+    {
+      s_aSink = aXMLReader.apply (aXMLWriter.apply (aObj));
+      s_aSink = aJsonReader.read (aJsonWriter.getAsBytes (aObj));
+    }
+
+    long nStart = System.nanoTime ();
+    for (int i = 0; i < RUNS; ++i)
+      s_aSink = aXMLReader.apply (aXMLWriter.apply (aObj));
+    final long nXMLNanos = (System.nanoTime () - nStart) / RUNS;
+
+    nStart = System.nanoTime ();
+    for (int i = 0; i < RUNS; ++i)
+      s_aSink = aJsonReader.read (aJsonWriter.getAsBytes (aObj));
+    final long nJsonNanos = (System.nanoTime () - nStart) / RUNS;
+
+    LOGGER.info (sFilename +
+                 ": XML " +
+                 aXML.length +
+                 " bytes, " +
+                 nXMLNanos / 1000 +
+                 " us/round trip; JSON " +
+                 aJson.length +
+                 " bytes, " +
+                 nJsonNanos / 1000 +
+                 " us/round trip");
+  }
+
+  public static void main (final String [] args)
+  {
+    for (final String sFilename : new String [] { "Concept Request_LP.xml", "Document Request_NP.xml" })
+      _run (sFilename,
+            EDMRequest.reader ().read (new ClassPathResource (sFilename)),
+            x -> x.getWriter ().getAsBytes (),
+            x -> EDMRequest.reader ().read (x),
+            EDMJsonReader.request ());
+    for (final String sFilename : new String [] { "Concept Response.xml", "Document Response.xml" })
+      _run (sFilename,
+            EDMResponse.reader ().read (new ClassPathResource (sFilename)),
+            x -> x.getWriter ().getAsBytes (),
+            x -> EDMResponse.reader ().read (x),
+            EDMJsonReader.response ());
+    _run ("Error Response 1.xml",
+          EDMErrorResponse.reader ().read (new ClassPathResource ("Error Response 1.xml")),
+          x -> x.getWriter ().getAsBytes (),
+          x -> EDMErrorResponse.reader ().read (x),
+          EDMJsonReader.errorResponse ());
+  }
+}
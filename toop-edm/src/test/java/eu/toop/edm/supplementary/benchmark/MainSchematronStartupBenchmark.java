@@ -0,0 +1,122 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.supplementary.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import com.helger.commons.io.resource.ClassPathResource;
+
+import eu.toop.edm.EDMRequest;
+import eu.toop.edm.schematron.SchematronBusinessRules2Validator;
+import eu.toop.edm.schematron.SchematronEDM2Validator;
+import eu.toop.edm.schematron.SchematronPrecompiler;
+
+/**
+ * Measure the latency of the first validated message after a cold start. Every
+ * measurement runs in a new JVM: the "lazy" mode compiles the XSLTs when the
+ * first message is validated, the "precompiled" mode starts
+ * {@link SchematronPrecompiler#precompileAllAsync()} at startup while the
+ * remaining startup work (simulated by reading a message) continues.
+ *
+ * @author Philip Helger
+ */
+public final class MainSchematronStartupBenchmark
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainSchematronStartupBenchmark.class);
+  private static final int RUNS = 3;
+  private static final String RESULT_PREFIX = "FIRST_MESSAGE_MS=";
+
+  private static void _child (final boolean bPrecompile)
+  {
+    final long nStart = System.nanoTime ();
+    if (bPrecompile)
+      SchematronPrecompiler.precompileAllAsync ();
+
+    // Other startup work
+    final EDMRequest aRequest = EDMRequest.reader ().read (new ClassPathResource ("Concept Request_LP.xml"));
+    final long nReady = System.nanoTime ();
+
+    // First message
+    final Document aDoc = aRequest.getWriter ().getAsDocument ();
+    new SchematronEDM2Validator ().validateDocument (aDoc);
+    new SchematronBusinessRules2Validator ().validateDocument (aDoc);
+    final long nEnd = System.nanoTime ();
+
+    // Startup time is the same in both modes
+    System.out.println (RESULT_PREFIX + (nEnd - nReady) / 1_000_000 + ";" + (nEnd - nStart) / 1_000_000);
+  }
+
+  private static String _runChild (final String sMode) throws Exception
+  {
+    final String sJava = System.getProperty ("java.home") + File.separator + "bin" + File.separator + "java";
+    final Process aProcess = new ProcessBuilder (sJava,
+                                                 "-cp",
+                                                 System.getProperty ("java.class.path"),
+                                                 MainSchematronStartupBenchmark.class.getName (),
+                                                 sMode).redirectErrorStream (true).start ();
+    String ret = null;
+    try (final BufferedReader aReader = new BufferedReader (new InputStreamReader (aProcess.getInputStream (), StandardCharsets.UTF_8)))
+    {
+      String sLine;
+      while ((sLine = aReader.readLine ()) != null)
+        if (sLine.startsWith (RESULT_PREFIX))
+          ret = sLine.substring (RESULT_PREFIX.length ());
+    }
+    aProcess.waitFor ();
+    return ret;
+  }
+
+  public static void main (final String [] args) throws Exception
+  {
+    if (args.length == 1)
+    {
+      _child ("precompiled".equals (args[0]));
+      return;
+    }
+
+    for (int i = 0; i < RUNS; ++i)
+      for (final String sMode : new String [] { "lazy", "precompiled" })
+      {
+        final String [] aParts = _runChild (sMode).split (";");
+        LOGGER.info (sMode + ": first message " + aParts[0] + " ms after startup work, " + aParts[1] + " ms after JVM start");
+      }
+  }
+}
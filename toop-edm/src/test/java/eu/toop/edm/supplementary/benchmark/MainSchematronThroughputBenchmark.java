@@ -0,0 +1,141 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.supplementary.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.xml.serialize.read.DOMReader;
+
+import eu.toop.edm.schematron.AbstractSchematronValidator;
+import eu.toop.edm.schematron.SchematronBusinessRules2Validator;
+import eu.toop.edm.schematron.SchematronEDM2Validator;
+
+/**
+ * Measure the Schematron validation throughput with different numbers of
+ * threads. Each validation applies the EDM rules and the business rules onto
+ * a request. The compiled validators are compared with the previous approach
+ * of creating a new Schematron resource per validation.
+ *
+ * @author Philip Helger
+ */
+public final class MainSchematronThroughputBenchmark
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainSchematronThroughputBenchmark.class);
+  private static final int WARMUP = 50;
+  private static final int VALIDATIONS_PER_THREAD = 200;
+
+  private static volatile Object s_aSink;
+
+  private static double _measure (final int nThreads, @Nonnull final Consumer <Document> aValidation, @Nonnull final Document aDoc)
+                                                                                                                               throws Exception
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    try
+    {
+      final long nStart = System.nanoTime ();
+      final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> ();
+      for (int t = 0; t < nThreads; ++t)
+        aFutures.add (aES.submit ( () -> {
+          for (int i = 0; i < VALIDATIONS_PER_THREAD; ++i)
+            aValidation.accept (aDoc);
+        }));
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get ();
+      final long nNanos = System.nanoTime () - nStart;
+      return nThreads * VALIDATIONS_PER_THREAD * 1_000_000_000d / nNanos;
+    }
+    finally
+    {
+      aES.shutdown ();
+    }
+  }
+
+  public static void main (final String [] args) throws Exception
+  {
+    final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource ("Concept Request_LP.xml"));
+    final AbstractSchematronValidator aEDM = new SchematronEDM2Validator ();
+    final AbstractSchematronValidator aBR = new SchematronBusinessRules2Validator ();
+
+    final Consumer <Document> aCompiled = x -> {
+      s_aSink = aEDM.validateDocument (x);
+      s_aSink = aBR.validateDocument (x);
+    };
+    final Consumer <Document> aPerCall = x -> {
+      try
+      {
+        s_aSink = SVRLHelper.getAllFailedAssertionsAndSuccessfulReports (new SchematronEDM2Validator ().createSchematronResource ()
+                                                                                                       .applySchematronValidationToSVRL (x,
+                                                                                                                                         null));
+        s_aSink = SVRLHelper.getAllFailedAssertionsAndSuccessfulReports (new SchematronBusinessRules2Validator ().createSchematronResource ()
+                                                                                                                 .applySchematronValidationToSVRL (x,
+                                                                                                                                                   null));
+      }
+      catch (final Exception ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    };
+
+    for (int i = 0; i < WARMUP; ++i)
+    {
+      aCompiled.accept (aDoc);
+      aPerCall.accept (aDoc);
+    }
+
+    for (final int nThreads : new int [] { 1, 2, 4, 8 })
+    {
+      final double dPerCall = _measure (nThreads, aPerCall, aDoc);
+      final double dCompiled = _measure (nThreads, aCompiled, aDoc);
+      LOGGER.info (nThreads +
+                   " thread(s): per call resource " +
+                   Math.round (dPerCall) +
+                   " validations/s; compiled validator " +
+                   Math.round (dCompiled) +
+                   " validations/s");
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.supplementary.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.datetime.PDTWebDateHelper;
+import com.helger.datetime.util.PDTXMLConverter;
+
+import eu.toop.regrep.datetime.XSDDateTimeConverter;
+
+/**
+ * Compare the <code>xs:dateTime</code> handling of {@link XSDDateTimeConverter}
+ * with the generic {@link PDTWebDateHelper} and {@link PDTXMLConverter} code
+ * paths. The average time per conversion is logged.
+ *
+ * @author Philip Helger
+ */
+public final class MainXSDDateTimeBenchmark
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainXSDDateTimeBenchmark.class);
+  private static final int VALUES = 10_000;
+  private static final int WARMUP = 20;
+  private static final int RUNS = 100;
+
+  private static volatile Object s_aSink;
+
+  private static <T, R> long _measure (@Nonnull final T [] aValues, @Nonnull final Function <T, R> aFunc)
+  {
+    for (int i = 0; i < WARMUP; ++i)
+      for (final T aValue : aValues)
+        s_aSink = aFunc.apply (aValue);
+
+    final long nStart = System.nanoTime ();
+    for (int i = 0; i < RUNS; ++i)
+      for (final T aValue : aValues)
+        s_aSink = aFunc.apply (aValue);
+    return (System.nanoTime () - nStart) / ((long) RUNS * aValues.length);
+  }
+
+  private static <T, R> void _run (@Nonnull final String sName,
+                                   @Nonnull final T [] aValues,
+                                   @Nonnull final Function <T, R> aOld,
+                                   @Nonnull final Function <T, R> aNew)
+  {
+    final long nOld = _measure (aValues, aOld);
+    final long nNew = _measure (aValues, aNew);
+    LOGGER.info (sName + ": old " + nOld + " ns/op; new " + nNew + " ns/op");
+  }
+
+  public static void main (final String [] args)
+  {
+    final Random aRandom = new Random (VALUES);
+    final LocalDateTime [] aLDTs = new LocalDateTime [VALUES];
+    final String [] aStrings = new String [VALUES];
+    final XMLGregorianCalendar [] aXMLCals = new XMLGregorianCalendar [VALUES];
+    for (int i = 0; i < VALUES; ++i)
+    {
+      aLDTs[i] = LocalDateTime.ofEpochSecond (aRandom.nextInt (Integer.MAX_VALUE),
+                                              aRandom.nextInt (1_000) * 1_000_000,
+                                              ZoneOffset.UTC);
+      aStrings[i] = PDTWebDateHelper.getAsStringXSD (aLDTs[i]);
+      aXMLCals[i] = PDTXMLConverter.getXMLCalendar (aLDTs[i]);
+    }
+
+    _run ("Parse xs:dateTime", aStrings, PDTWebDateHelper::getLocalDateTimeFromXSD, XSDDateTimeConverter::parseLocalDateTime);
+    _run ("Format xs:dateTime", aLDTs, PDTWebDateHelper::getAsStringXSD, XSDDateTimeConverter::getAsString);
+    _run ("XMLGregorianCalendar to LocalDateTime",
+          aXMLCals,
+          PDTXMLConverter::getLocalDateTime,
+          XSDDateTimeConverter::getLocalDateTime);
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.edm.xml.cccev;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.xml.serialize.read.DOMReader;
+
+import eu.toop.edm.EDMResponse;
+import eu.toop.edm.model.ConceptPath;
+import eu.toop.edm.model.ConceptPojo;
+import eu.toop.edm.model.EToopIdentifierType;
+import eu.toop.edm.response.EDMResponsePayloadConcepts;
+import eu.toop.regrep.ERegRepResponseStatus;
+
+/**
+ * Test class for class {@link ConceptProjectionFilter}.
+ *
+ * @author Philip Helger
+ */
+public final class ConceptProjectionFilterTest
+{
+  private static final String NS_TOOP = "http://toop.eu/registered-organization";
+  private static final ClassPathResource RES = new ClassPathResource ("Concept Response.xml");
+  private static final ConceptPath ROOT = ConceptPath.of (new QName (NS_TOOP, "CompanyData"));
+
+  @Nonnull
+  private static ConceptPojo _getSingleRoot (@Nonnull final EDMResponse aResponse)
+  {
+    assertEquals (1, aResponse.getAllPayloadProviders ().size ());
+    final List <ConceptPojo> aConcepts = ((EDMResponsePayloadConcepts) aResponse.getAllPayloadProviders ().get (0)).getAllConcepts ();
+    assertEquals (1, aConcepts.size ());
+    return aConcepts.get (0);
+  }
+
+  @Test
+  public void testProjectLeaves ()
+  {
+    final ConceptPath aPath3 = ROOT.getChildPath (new QName (NS_TOOP, "Concept-Name-3"));
+    final ConceptPath aPath8 = ROOT.getChildPath (new QName (NS_TOOP, "Concept-Name-8"));
+    final EDMResponse aResponse = EDMResponse.readerWithProjection (aPath3, aPath8).read (RES);
+    assertNotNull (aResponse);
+
+    final ConceptPojo aRoot = _getSingleRoot (aResponse);
+    // The ancestor keeps its own fields
+    assertEquals ("ConceptID-1", aRoot.getID ());
+    assertEquals (new QName (NS_TOOP, "CompanyData"), aRoot.getName ());
+    assertEquals (2, aRoot.getAllChildren ().size ());
+    assertEquals ("ConceptID-3", aRoot.getAllChildren ().get (0).getID ());
+    assertEquals ("ConceptID-3 Value", aRoot.getAllChildren ().get (0).getValue ().getAllTexts ().get (0));
+    assertEquals ("ConceptID-8", aRoot.getAllChildren ().get (1).getID ());
+
+    // Other fields of the response are unaffected
+    final EDMResponse aFull = EDMResponse.reader ().read (RES);
+    assertEquals (aFull.getRequestID (), aResponse.getRequestID ());
+    assertEquals (aFull.getDataProvider (), aResponse.getDataProvider ());
+  }
+
+  @Test
+  public void testProjectRootKeepsEverything ()
+  {
+    final EDMResponse aFull = EDMResponse.reader ().read (RES);
+    final EDMResponse aResponse = EDMResponse.readerWithProjection (ROOT).read (RES);
+    assertEquals (aFull, aResponse);
+  }
+
+  @Test
+  public void testNoMatch ()
+  {
+    // A concept response needs at least one concept
+    assertNull (EDMResponse.readerWithProjection (ConceptPath.of (new QName (NS_TOOP, "Other"))).read (RES));
+  }
+
+  @Test
+  public void testNoMatchingChild ()
+  {
+    // The namespace URI must match as well - the root is still on the way
+    final EDMResponse aResponse = EDMResponse.readerWithProjection (ROOT.getChildPath (new QName ("urn:other", "Concept-Name-3")))
+                                             .read (RES);
+    assertNotNull (aResponse);
+    final ConceptPojo aRoot = _getSingleRoot (aResponse);
+    assertEquals ("ConceptID-1", aRoot.getID ());
+    assertEquals (0, aRoot.getAllChildren ().size ());
+  }
+
+  @Test
+  public void testReadFromNode ()
+  {
+    final ConceptPath aPath2 = ROOT.getChildPath (new QName (NS_TOOP, "Concept-Name-2"));
+    final EDMResponse aResponse = EDMResponse.readerWithProjection (aPath2).read (DOMReader.readXMLDOM (RES));
+    assertNotNull (aResponse);
+    final ConceptPojo aRoot = _getSingleRoot (aResponse);
+    assertEquals (1, aRoot.getAllChildren ().size ());
+    assertEquals ("ConceptID-2", aRoot.getAllChildren ().get (0).getID ());
+  }
+
+  @Test
+  public void testRoundTripWrittenResponse ()
+  {
+    final EDMResponse aSrc = EDMResponse.builderConcept ()
+                                        .responseStatus (ERegRepResponseStatus.SUCCESS)
+                                        .requestID ("c4369c4d-740e-4b64-80f0-7b209a66d629")
+                                        .issueDateTimeNow ()
+                                        .dataProvider (x -> x.id ("9914:tjhjhgd")
+                                                             .idSchemeID (EToopIdentifierType.EIDAS)
+                                                             .name ("DP NAME"))
+                                        .concept (x -> x.randomID ()
+                                                        .name (new QName (NS_TOOP, "A"))
+                                                        .addChild (y -> y.randomID ()
+                                                                         .name (new QName (NS_TOOP, "B"))
+                                                                         .addChild (z -> z.randomID ()
+                                                                                          .name (new QName (NS_TOOP, "C"))
+                                                                                          .valueText ("c")))
+                                                        .addChild (y -> y.randomID ().name (new QName (NS_TOOP, "D")).valueText ("d")))
+                                        .build ();
+    final ConceptPath aPathB = ConceptPath.of (new QName (NS_TOOP, "A"), new QName (NS_TOOP, "B"));
+    final EDMResponse aResponse = EDMResponse.readerWithProjection (aPathB).read (aSrc.getWriter ().getAsBytes ());
+    assertNotNull (aResponse);
+
+    final ConceptPojo aRoot = _getSingleRoot (aResponse);
+    assertEquals (1, aRoot.getAllChildren ().size ());
+    // The whole selected branch is retained
+    final ConceptPojo aSrcB = _getSingleRoot (aSrc).getAllChildren ().get (0);
+    assertEquals (aSrcB, aRoot.getAllChildren ().get (0));
+    assertEquals ("c", aRoot.getAllChildren ().get (0).getAllChildren ().get (0).getValue ().getAllTexts ().get (0));
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.regrep.datetime;
+
+import java.time.LocalTime;
+
+import javax.annotation.Nullable;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+
+/**
+ * XML Adapter between <code>xs:time</code> and {@link LocalTime} based on
+ * {@link XSDDateTimeConverter}.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+public class AdapterXSDLocalTime extends XmlAdapter <String, LocalTime>
+{
+  @Override
+  @Nullable
+  public LocalTime unmarshal (@Nullable final String sValue)
+  {
+    return sValue == null ? null : XSDDateTimeConverter.parseLocalTime (sValue.trim ());
+  }
+
+  @Override
+  @Nullable
+  public String marshal (@Nullable final LocalTime aValue)
+  {
+    return XSDDateTimeConverter.getAsString (aValue);
+  }
+}
@@ -0,0 +1,448 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.regrep.datetime;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.helger.commons.datetime.PDTWebDateHelper;
+import com.helger.datetime.util.PDTXMLConverter;
+
+/**
+ * Allocation-light conversion between the XML Schema types
+ * <code>xs:date</code>, <code>xs:time</code> and <code>xs:dateTime</code> and
+ * the respective <code>java.time</code> local types. Parsing and formatting
+ * operate directly on the characters, so neither
+ * <code>DateTimeFormatter</code>, <code>DatatypeFactory</code> nor
+ * {@link XMLGregorianCalendar} objects are involved.<br>
+ * The behaviour is identical to {@link PDTWebDateHelper}: a time zone is
+ * accepted but ignored, fractional seconds are truncated to milliseconds and
+ * invalid values result in <code>null</code>.
+ *
+ * @author Philip Helger
+ * @since 2.1.2
+ */
+@Immutable
+public final class XSDDateTimeConverter
+{
+  private static final int MAX_OFFSET_HOURS = 18;
+
+  private XSDDateTimeConverter ()
+  {}
+
+  /**
+   * @return the value of the <code>nCount</code> decimal digits starting at
+   *         <code>nOfs</code> or -1 if at least one of them is no digit.
+   */
+  private static int _digits (@Nonnull final CharSequence s, final int nOfs, final int nCount)
+  {
+    if (nOfs + nCount > s.length ())
+      return -1;
+    int ret = 0;
+    for (int i = nOfs; i < nOfs + nCount; ++i)
+    {
+      final char c = s.charAt (i);
+      if (c < '0' || c > '9')
+        return -1;
+      ret = ret * 10 + (c - '0');
+    }
+    return ret;
+  }
+
+  private static boolean _isChar (@Nonnull final CharSequence s, final int nOfs, final char c)
+  {
+    return nOfs < s.length () && s.charAt (nOfs) == c;
+  }
+
+  /**
+   * Check if the remainder of the string starting at <code>nOfs</code> is
+   * either empty or a valid time zone designator.
+   */
+  private static boolean _isEmptyOrTimezone (@Nonnull final CharSequence s, final int nOfs)
+  {
+    final int nLen = s.length ();
+    if (nOfs == nLen)
+      return true;
+    final char c = s.charAt (nOfs);
+    if (c == 'Z' || c == 'z')
+      return nOfs + 1 == nLen;
+    if (c != '+' && c != '-')
+      return false;
+    if (nOfs + 6 != nLen || s.charAt (nOfs + 3) != ':')
+      return false;
+    final int nHours = _digits (s, nOfs + 1, 2);
+    final int nMinutes = _digits (s, nOfs + 4, 2);
+    if (nHours < 0 || nMinutes < 0 || nMinutes > 59)
+      return false;
+    return nHours < MAX_OFFSET_HOURS || (nHours == MAX_OFFSET_HOURS && nMinutes == 0);
+  }
+
+  /**
+   * Parse the date part at the start of the string.
+   *
+   * @return The parsed date and the index after the date, or
+   *         <code>null</code>.
+   */
+  @Nullable
+  private static LocalDate _parseDate (@Nonnull final CharSequence s, @Nonnull final int [] aEnd)
+  {
+    int nOfs = 0;
+    boolean bNegative = false;
+    if (_isChar (s, 0, '-'))
+    {
+      bNegative = true;
+      nOfs++;
+    }
+    final int nYear = _digits (s, nOfs, 4);
+    if (nYear < 0 || !_isChar (s, nOfs + 4, '-'))
+      return null;
+    final int nMonth = _digits (s, nOfs + 5, 2);
+    if (nMonth < 0 || !_isChar (s, nOfs + 7, '-'))
+      return null;
+    final int nDay = _digits (s, nOfs + 8, 2);
+    if (nDay < 0)
+      return null;
+    aEnd[0] = nOfs + 10;
+    try
+    {
+      return LocalDate.of (bNegative ? -nYear : nYear, nMonth, nDay);
+    }
+    catch (final DateTimeException ex)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Parse the time part starting at the provided index.
+   *
+   * @return The parsed time truncated to milliseconds and the index after the
+   *         time, or <code>null</code>.
+   */
+  @Nullable
+  private static LocalTime _parseTime (@Nonnull final CharSequence s, final int nStart, @Nonnull final int [] aEnd)
+  {
+    final int nHour = _digits (s, nStart, 2);
+    if (nHour < 0 || !_isChar (s, nStart + 2, ':'))
+      return null;
+    final int nMinute = _digits (s, nStart + 3, 2);
+    if (nMinute < 0)
+      return null;
+    int nOfs = nStart + 5;
+    int nSecond = 0;
+    int nMillis = 0;
+    if (_isChar (s, nOfs, ':'))
+    {
+      nSecond = _digits (s, nOfs + 1, 2);
+      if (nSecond < 0)
+        return null;
+      nOfs += 3;
+      if (_isChar (s, nOfs, '.'))
+      {
+        nOfs++;
+        final int nFractionStart = nOfs;
+        while (nOfs < s.length () && s.charAt (nOfs) >= '0' && s.charAt (nOfs) <= '9')
+        {
+          final int nDigits = nOfs - nFractionStart;
+          if (nDigits < 3)
+            nMillis = nMillis * 10 + (s.charAt (nOfs) - '0');
+          nOfs++;
+        }
+        final int nDigits = nOfs - nFractionStart;
+        if (nDigits == 0 || nDigits > 9)
+          return null;
+        for (int i = nDigits; i < 3; ++i)
+          nMillis *= 10;
+      }
+    }
+    else
+      if (nOfs != s.length ())
+      {
+        // Without seconds no time zone is allowed
+        return null;
+      }
+    aEnd[0] = nOfs;
+    try
+    {
+      return LocalTime.of (nHour, nMinute, nSecond, nMillis * 1_000_000);
+    }
+    catch (final DateTimeException ex)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Parse an <code>xs:date</code> value.
+   *
+   * @param s
+   *        The string to parse. May be <code>null</code>.
+   * @return <code>null</code> if the value could not be parsed.
+   */
+  @Nullable
+  public static LocalDate parseLocalDate (@Nullable final CharSequence s)
+  {
+    if (s == null)
+      return null;
+    final int [] aEnd = new int [1];
+    final LocalDate ret = _parseDate (s, aEnd);
+    return ret != null && _isEmptyOrTimezone (s, aEnd[0]) ? ret : null;
+  }
+
+  /**
+   * Parse an <code>xs:time</code> value.
+   *
+   * @param s
+   *        The string to parse. May be <code>null</code>.
+   * @return <code>null</code> if the value could not be parsed.
+   */
+  @Nullable
+  public static LocalTime parseLocalTime (@Nullable final CharSequence s)
+  {
+    if (s == null)
+      return null;
+    final int [] aEnd = new int [1];
+    final LocalTime ret = _parseTime (s, 0, aEnd);
+    return ret != null && _isEmptyOrTimezone (s, aEnd[0]) ? ret : null;
+  }
+
+  /**
+   * Parse an <code>xs:dateTime</code> value.
+   *
+   * @param s
+   *        The string to parse. May be <code>null</code>.
+   * @return <code>null</code> if the value could not be parsed.
+   */
+  @Nullable
+  public static LocalDateTime parseLocalDateTime (@Nullable final CharSequence s)
+  {
+    if (s == null)
+      return null;
+    final int [] aEnd = new int [1];
+    final LocalDate aDate = _parseDate (s, aEnd);
+    if (aDate == null)
+      return null;
+    final int nSep = aEnd[0];
+    if (!_isChar (s, nSep, 'T') && !_isChar (s, nSep, 't'))
+      return null;
+    final LocalTime aTime = _parseTime (s, nSep + 1, aEnd);
+    return aTime != null && _isEmptyOrTimezone (s, aEnd[0]) ? LocalDateTime.of (aDate, aTime) : null;
+  }
+
+  private static void _append2 (@Nonnull final StringBuilder aSB, final int n)
+  {
+    aSB.append ((char) ('0' + n / 10)).append ((char) ('0' + n % 10));
+  }
+
+  private static boolean _appendDate (@Nonnull final StringBuilder aSB, @Nonnull final LocalDate a)
+  {
+    int nYear = a.getYear ();
+    if (nYear > 9999 || nYear < -9999)
+      return false;
+    if (nYear < 0)
+    {
+      aSB.append ('-');
+      nYear = -nYear;
+    }
+    _append2 (aSB, nYear / 100);
+    _append2 (aSB, nYear % 100);
+    aSB.append ('-');
+    _append2 (aSB, a.getMonthValue ());
+    aSB.append ('-');
+    _append2 (aSB, a.getDayOfMonth ());
+    return true;
+  }
+
+  private static void _appendTime (@Nonnull final StringBuilder aSB, @Nonnull final LocalTime a)
+  {
+    _append2 (aSB, a.getHour ());
+    aSB.append (':');
+    _append2 (aSB, a.getMinute ());
+    aSB.append (':');
+    _append2 (aSB, a.getSecond ());
+    aSB.append ('.');
+    // At least one, at most three fraction digits without trailing zeroes
+    final int nMillis = a.getNano () / 1_000_000;
+    aSB.append ((char) ('0' + nMillis / 100));
+    if (nMillis % 100 != 0)
+    {
+      aSB.append ((char) ('0' + nMillis / 10 % 10));
+      if (nMillis % 10 != 0)
+        aSB.append ((char) ('0' + nMillis % 10));
+    }
+  }
+
+  /**
+   * Format as <code>xs:date</code>.
+   *
+   * @param a
+   *        The date to format. May be <code>null</code>.
+   * @return <code>null</code> if the parameter is <code>null</code>.
+   */
+  @Nullable
+  public static String getAsString (@Nullable final LocalDate a)
+  {
+    if (a == null)
+      return null;
+    final StringBuilder aSB = new StringBuilder (11);
+    // Years with more than 4 digits are handled by the generic formatter
+    return _appendDate (aSB, a) ? aSB.toString () : PDTWebDateHelper.getAsStringXSD (a);
+  }
+
+  /**
+   * Format as <code>xs:time</code>. The precision is milliseconds.
+   *
+   * @param a
+   *        The time to format. May be <code>null</code>.
+   * @return <code>null</code> if the parameter is <code>null</code>.
+   */
+  @Nullable
+  public static String getAsString (@Nullable final LocalTime a)
+  {
+    if (a == null)
+      return null;
+    final StringBuilder aSB = new StringBuilder (12);
+    _appendTime (aSB, a);
+    return aSB.toString ();
+  }
+
+  /**
+   * Format as <code>xs:dateTime</code>. The precision is milliseconds.
+   *
+   * @param a
+   *        The date time to format. May be <code>null</code>.
+   * @return <code>null</code> if the parameter is <code>null</code>.
+   */
+  @Nullable
+  public static String getAsString (@Nullable final LocalDateTime a)
+  {
+    if (a == null)
+      return null;
+    final StringBuilder aSB = new StringBuilder (23);
+    if (!_appendDate (aSB, a.toLocalDate ()))
+      return PDTWebDateHelper.getAsStringXSD (a);
+    aSB.append ('T');
+    _appendTime (aSB, a.toLocalTime ());
+    return aSB.toString ();
+  }
+
+  private static boolean _isDefined (final int n)
+  {
+    return n != DatatypeConstants.FIELD_UNDEFINED;
+  }
+
+  private static boolean _hasDate (@Nonnull final XMLGregorianCalendar a)
+  {
+    return a.getEon () == null && _isDefined (a.getYear ()) && _isDefined (a.getMonth ()) && _isDefined (a.getDay ());
+  }
+
+  private static boolean _hasTime (@Nonnull final XMLGregorianCalendar a)
+  {
+    return _isDefined (a.getHour ()) && a.getHour () < 24 && _isDefined (a.getMinute ()) && _isDefined (a.getSecond ());
+  }
+
+  @Nonnull
+  private static LocalTime _getTime (@Nonnull final XMLGregorianCalendar a)
+  {
+    final int nMillis = a.getMillisecond ();
+    return LocalTime.of (a.getHour (), a.getMinute (), a.getSecond (), _isDefined (nMillis) ? nMillis * 1_000_000 : 0);
+  }
+
+  /**
+   * Get the local date of the provided {@link XMLGregorianCalendar} by reading
+   * the fields directly. Any time zone is ignored. Only incomplete values take
+   * the slower path via {@link PDTXMLConverter}.
+   *
+   * @param a
+   *        The source value. May be <code>null</code>.
+   * @return <code>null</code> if the parameter is <code>null</code>.
+   */
+  @Nullable
+  public static LocalDate getLocalDate (@Nullable final XMLGregorianCalendar a)
+  {
+    if (a == null)
+      return null;
+    if (_hasDate (a))
+      return LocalDate.of (a.getYear (), a.getMonth (), a.getDay ());
+    return PDTXMLConverter.getLocalDate (a);
+  }
+
+  /**
+   * Get the local time of the provided {@link XMLGregorianCalendar} by reading
+   * the fields directly. Any time zone is ignored and the precision is
+   * milliseconds. Only incomplete values take the slower path via
+   * {@link PDTXMLConverter}.
+   *
+   * @param a
+   *        The source value. May be <code>null</code>.
+   * @return <code>null</code> if the parameter is <code>null</code>.
+   */
+  @Nullable
+  public static LocalTime getLocalTime (@Nullable final XMLGregorianCalendar a)
+  {
+    if (a == null)
+      return null;
+    if (_hasTime (a))
+      return _getTime (a);
+    return PDTXMLConverter.getLocalTime (a);
+  }
+
+  /**
+   * Get the local date time of the provided {@link XMLGregorianCalendar} by
+   * reading the fields directly. Any time zone is ignored and the precision is
+   * milliseconds. Only incomplete values take the slower path via
+   * {@link PDTXMLConverter}.
+   *
+   * @param a
+   *        The source value. May be <code>null</code>.
+   * @return <code>null</code> if the parameter is <code>null</code>.
+   */
+  @Nullable
+  public static LocalDateTime getLocalDateTime (@Nullable final XMLGregorianCalendar a)
+  {
+    if (a == null)
+      return null;
+    if (_hasDate (a) && _hasTime (a))
+      return LocalDateTime.of (LocalDate.of (a.getYear (), a.getMonth (), a.getDay ()), _getTime (a));
+    return PDTXMLConverter.getLocalDateTime (a);
+  }
+}
@@ -0,0 +1,240 @@
+/**
+ * This work is protected under copyrights held by the members of the
+ * TOOP Project Consortium as indicated at
+ * http://wiki.ds.unipi.gr/display/TOOP/Contributors
+ * (c) 2018-2021. All rights reserved.
+ *
+ * This work is dual licensed under Apache License, Version 2.0
+ * and the EUPL 1.2.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL
+ * (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *         https://joinup.ec.europa.eu/software/page/eupl
+ */
+package eu.toop.regrep.datetime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.junit.Test;
+
+import com.helger.commons.datetime.PDTWebDateHelper;
+import com.helger.datetime.util.PDTXMLConverter;
+
+/**
+ * Test class for class {@link XSDDateTimeConverter}. All results are compared
+ * with {@link PDTWebDateHelper}.
+ *
+ * @author Philip Helger
+ */
+public final class XSDDateTimeConverterTest
+{
+  private static final String [] DATES = { "2020-01-01",
+                                           "2020-12-31",
+                                           "2020-02-29",
+                                           "2019-02-29",
+                                           "2020-02-30",
+                                           "2020-13-01",
+                                           "2020-00-01",
+                                           "2020-01-00",
+                                           "0000-01-01",
+                                           "-0044-03-15",
+                                           "12020-01-01",
+                                           "+2020-01-01",
+                                           "2020-1-1",
+                                           " 2020-01-01",
+                                           "2020-01-01 ",
+                                           "2020-01-01Z",
+                                           "2020-01-01z",
+                                           "2020-01-01+05:00",
+                                           "2020-01-01-05:00",
+                                           "2020-01-01+14:00",
+                                           "2020-01-01+1:00",
+                                           "2020-01-01+0100",
+                                           "2020/01/01",
+                                           "2020-01-01T",
+                                           "",
+                                           "-" };
+  private static final String [] TIMES = { "10:11:12",
+                                           "10:11",
+                                           "00:00:00",
+                                           "23:59:59",
+                                           "24:00:00",
+                                           "10:11:60",
+                                           "10:60:12",
+                                           "1:11:12",
+                                           "10:11:1",
+                                           "10:11:12.",
+                                           "10:11:12.1",
+                                           "10:11:12.12",
+                                           "10:11:12.123",
+                                           "10:11:12.1234",
+                                           "10:11:12.123456789",
+                                           "10:11:12.1234567890",
+                                           "10:11:12Z",
+                                           "10:11:12z",
+                                           "10:11:12 Z",
+                                           "10:11:12+05:00",
+                                           "10:11:12-14:00",
+                                           "10:11:12+15:00",
+                                           "10:11:12+05:60",
+                                           "10:11:12+0500",
+                                           "10:11:12+05",
+                                           "10:11:12.5-03:30",
+                                           "10:11Z",
+                                           "10:11+05:00",
+                                           "10",
+                                           "" };
+
+  private static void _assertDate (final String s)
+  {
+    assertEquals (s, PDTWebDateHelper.getLocalDateFromXSD (s), XSDDateTimeConverter.parseLocalDate (s));
+  }
+
+  private static void _assertTime (final String s)
+  {
+    assertEquals (s, PDTWebDateHelper.getLocalTimeFromXSD (s), XSDDateTimeConverter.parseLocalTime (s));
+  }
+
+  private static void _assertDateTime (final String s)
+  {
+    assertEquals (s, PDTWebDateHelper.getLocalDateTimeFromXSD (s), XSDDateTimeConverter.parseLocalDateTime (s));
+  }
+
+  @Test
+  public void testParseLocalDate ()
+  {
+    assertNull (XSDDateTimeConverter.parseLocalDate (null));
+    for (final String s : DATES)
+      _assertDate (s);
+    assertEquals (LocalDate.of (-44, 3, 15), XSDDateTimeConverter.parseLocalDate ("-0044-03-15"));
+  }
+
+  @Test
+  public void testParseLocalTime ()
+  {
+    assertNull (XSDDateTimeConverter.parseLocalTime (null));
+    for (final String s : TIMES)
+      _assertTime (s);
+    assertEquals (LocalTime.of (10, 11, 12, 123_000_000), XSDDateTimeConverter.parseLocalTime ("10:11:12.123456789"));
+  }
+
+  @Test
+  public void testParseLocalDateTime ()
+  {
+    assertNull (XSDDateTimeConverter.parseLocalDateTime (null));
+    for (final String sDate : DATES)
+      for (final String sTime : TIMES)
+      {
+        _assertDateTime (sDate + "T" + sTime);
+        _assertDateTime (sDate + "t" + sTime);
+      }
+    _assertDateTime ("2020-05-19T07");
+    _assertDateTime ("2020-05-19 07:59:38");
+    _assertDateTime ("2020-05-19");
+    _assertDateTime ("-2020-05-19T07:59:38");
+  }
+
+  @Test
+  public void testFormat ()
+  {
+    assertNull (XSDDateTimeConverter.getAsString ((LocalDate) null));
+    assertNull (XSDDateTimeConverter.getAsString ((LocalTime) null));
+    assertNull (XSDDateTimeConverter.getAsString ((LocalDateTime) null));
+
+    for (final LocalDate a : new LocalDate [] { LocalDate.of (2020, 1, 1),
+                                                LocalDate.of (-44, 3, 15),
+                                                LocalDate.of (0, 1, 1),
+                                                LocalDate.of (12345, 6, 7) })
+      assertEquals (PDTWebDateHelper.getAsStringXSD (a), XSDDateTimeConverter.getAsString (a));
+
+    for (final LocalTime a : new LocalTime [] { LocalTime.of (10, 0),
+                                                LocalTime.of (10, 0, 0, 500_000_000),
+                                                LocalTime.of (10, 0, 0, 50_000_000),
+                                                LocalTime.of (10, 0, 0, 5_000_000),
+                                                LocalTime.of (10, 0, 0, 123_456_789),
+                                                LocalTime.of (23, 59, 59, 999_999_999) })
+      assertEquals (PDTWebDateHelper.getAsStringXSD (a), XSDDateTimeConverter.getAsString (a));
+
+    for (final LocalDateTime a : new LocalDateTime [] { LocalDateTime.of (2020, 1, 1, 10, 0),
+                                                        LocalDateTime.of (-44, 3, 15, 12, 30, 1, 120_000_000),
+                                                        LocalDateTime.of (12345, 6, 7, 8, 9) })
+      assertEquals (PDTWebDateHelper.getAsStringXSD (a), XSDDateTimeConverter.getAsString (a));
+  }
+
+  @Test
+  public void testRandomRoundtrip ()
+  {
+    final Random aRandom = new Random (20201019);
+    final long nMin = LocalDateTime.of (-9999, 1, 1, 0, 0).toEpochSecond (ZoneOffset.UTC);
+    final long nMax = LocalDateTime.of (9999, 12, 31, 23, 59, 59).toEpochSecond (ZoneOffset.UTC);
+    for (int i = 0; i < 10_000; ++i)
+    {
+      final long nSeconds = nMin + (long) (aRandom.nextDouble () * (nMax - nMin));
+      final LocalDateTime aLDT = LocalDateTime.ofEpochSecond (nSeconds, aRandom.nextInt (1_000) * 1_000_000, ZoneOffset.UTC);
+
+      final String sDateTime = XSDDateTimeConverter.getAsString (aLDT);
+      assertEquals (PDTWebDateHelper.getAsStringXSD (aLDT), sDateTime);
+      assertEquals (aLDT, XSDDateTimeConverter.parseLocalDateTime (sDateTime));
+      _assertDateTime (sDateTime);
+
+      final String sDate = XSDDateTimeConverter.getAsString (aLDT.toLocalDate ());
+      assertEquals (aLDT.toLocalDate (), XSDDateTimeConverter.parseLocalDate (sDate));
+      _assertDate (sDate);
+
+      final String sTime = XSDDateTimeConverter.getAsString (aLDT.toLocalTime ());
+      assertEquals (aLDT.toLocalTime (), XSDDateTimeConverter.parseLocalTime (sTime));
+      _assertTime (sTime);
+    }
+  }
+
+  @Test
+  public void testXMLGregorianCalendar ()
+  {
+    assertNull (XSDDateTimeConverter.getLocalDate (null));
+    assertNull (XSDDateTimeConverter.getLocalTime (null));
+    assertNull (XSDDateTimeConverter.getLocalDateTime (null));
+
+    final LocalDateTime aLDT = LocalDateTime.of (2020, 5, 19, 7, 59, 38, 123_000_000);
+    final XMLGregorianCalendar aDate = PDTXMLConverter.getXMLCalendarDate (aLDT.toLocalDate ());
+    final XMLGregorianCalendar aTime = PDTXMLConverter.getXMLCalendarTime (aLDT.toLocalTime ());
+    final XMLGregorianCalendar aDateTime = PDTXMLConverter.getXMLCalendar (aLDT);
+    assertNotNull (aDate);
+    assertNotNull (aTime);
+    assertNotNull (aDateTime);
+
+    assertEquals (PDTXMLConverter.getLocalDate (aDate), XSDDateTimeConverter.getLocalDate (aDate));
+    assertEquals (PDTXMLConverter.getLocalTime (aTime), XSDDateTimeConverter.getLocalTime (aTime));
+    assertEquals (PDTXMLConverter.getLocalDateTime (aDateTime), XSDDateTimeConverter.getLocalDateTime (aDateTime));
+    assertEquals (aLDT, XSDDateTimeConverter.getLocalDateTime (aDateTime));
+  }
+}